@@ -5,7 +5,9 @@ import domain.Student;
 import admin.services.AdminService;
 import admin.services.BackupService;
 import admin.services.ReportsService;
+import login.ChangeBus;
 import login.DatabaseConfig;
+import login.DbAsync;
 import login.LoginWindow;
 import java.awt.*;
 import java.awt.event.MouseAdapter;
@@ -33,6 +35,11 @@ public class AdminDashboard extends JFrame {
     private static final Color BORDER_GRAY = new Color(204, 204, 204);
     private static final Color ACCENT_BLUE = new Color(27, 116, 228);
 
+    // Hot reads issued from this screen (checked by tools.QueryPlanCheck)
+    public static final String INSTRUCTOR_SECTION_COURSES_SQL = "SELECT DISTINCT course_code FROM sections WHERE instructor_id = ?";
+    public static final String COURSE_SECTIONS_SQL = "SELECT section_id, day_time, instructor_id FROM sections WHERE course_code = ? ORDER BY section_id";
+    public static final String SECTION_INSTRUCTOR_SQL = "SELECT instructor_id FROM sections WHERE section_id = ?";
+
     // UI controllers
     private final UserSession userSession;
     private final CardLayout mainCardLayout;
@@ -591,18 +598,14 @@ public class AdminDashboard extends JFrame {
             }
         };
 
-        // Load actual students from DB (AdminService should return extended Student objects)
-        java.util.List<domain.Student> students = adminService.getAllStudents();
-        for (domain.Student s : students) {
-            // NOTE: If your Student class doesn't have degree/branch/year/admissionYear yet,
-            // update domain.Student and DAO to include them. For now we attempt to read getters,
-            // and fallback to empty strings if they don't exist (you'll need to update backend later).
-            String degree = safeGetString(s, "getDegree");
-            String branch = safeGetString(s, "getBranch");
-            String year = safeGetString(s, "getYearOfStudy");
-            String admission = safeGetString(s, "getAdmissionYear");
-            tableModel.addRow(new Object[]{s.getId(), s.getName(), s.getEmail(), s.getSection(), degree, branch, year, admission, s.getStatus()});
-        }
+        // Load actual students from DB off the EDT (AdminService should return extended Student objects);
+        // a newer refresh, search or section filter supersedes an older load
+        DbAsync.Channel<java.util.List<Object[]>> studentLoads = new DbAsync.Channel<>("AdminDashboard.loadStudents");
+        java.util.function.Consumer<java.util.List<Object[]>> showStudents = rows -> {
+            tableModel.setRowCount(0);
+            for (Object[] row : rows) tableModel.addRow(row);
+        };
+        studentLoads.submit(() -> studentRows(adminService.getAllStudents(), null), showStudents);
 
         JTable studentTable = new JTable(tableModel);
         studentTable.setFont(new Font("SansSerif", Font.PLAIN, 13));
@@ -706,21 +709,12 @@ public class AdminDashboard extends JFrame {
             }
         });
 
-        refreshButton.addActionListener(e -> {
-            // reload from DB
-            tableModel.setRowCount(0);
-            java.util.List<domain.Student> refreshed = adminService.getAllStudents();
-            for (domain.Student s : refreshed) {
-                String degree = safeGetString(s, "getDegree");
-                String branch = safeGetString(s, "getBranch");
-                String year = safeGetString(s, "getYearOfStudy");
-                String admission = safeGetString(s, "getAdmissionYear");
-                tableModel.addRow(new Object[]{s.getId(), s.getName(), s.getEmail(), s.getSection(), degree, branch, year, admission, s.getStatus()});
-            }
+        refreshButton.addActionListener(e -> studentLoads.submit(() -> studentRows(adminService.getAllStudents(), null), rows -> {
+            showStudents.accept(rows);
             // update dashboard total
-            updateTotalStudentsCount();
+            setTotalStudentsCount(rows.size());
             JOptionPane.showMessageDialog(this, "Student list refreshed!");
-        });
+        }, ex -> JOptionPane.showMessageDialog(this, "Error loading students: " + ex.getMessage(), "Error", JOptionPane.ERROR_MESSAGE)));
 
         searchButton.addActionListener(e -> {
             String searchText = searchField.getText().toLowerCase().trim();
@@ -730,52 +724,24 @@ public class AdminDashboard extends JFrame {
                 return;
             }
 
-            java.util.List<domain.Student> results = adminService.searchStudents(searchText);
-            if (results.isEmpty()) {
-                JOptionPane.showMessageDialog(this, "No matching student found.",
-                    "Search Result", JOptionPane.INFORMATION_MESSAGE);
-            } else {
-                // populate table with results
-                tableModel.setRowCount(0);
-                for (domain.Student s : results) {
-                    String degree = safeGetString(s, "getDegree");
-                    String branch = safeGetString(s, "getBranch");
-                    String year = safeGetString(s, "getYearOfStudy");
-                    String admission = safeGetString(s, "getAdmissionYear");
-                    tableModel.addRow(new Object[]{s.getId(), s.getName(), s.getEmail(), s.getSection(), degree, branch, year, admission, s.getStatus()});
+            studentLoads.submit(() -> studentRows(adminService.searchStudents(searchText), null), rows -> {
+                if (rows.isEmpty()) {
+                    JOptionPane.showMessageDialog(this, "No matching student found.",
+                        "Search Result", JOptionPane.INFORMATION_MESSAGE);
+                } else {
+                    // populate table with results
+                    showStudents.accept(rows);
                 }
-            }
+            });
         });
 
         // Section filter action listener
         sectionFilter.addActionListener(e -> {
             String selectedSection = (String) sectionFilter.getSelectedItem();
-            tableModel.setRowCount(0);
-
-            if ("All Sections".equals(selectedSection)) {
-                // Load all students
-                java.util.List<domain.Student> allStudents = adminService.getAllStudents();
-                for (domain.Student s : allStudents) {
-                    String degree = safeGetString(s, "getDegree");
-                    String branch = safeGetString(s, "getBranch");
-                    String year = safeGetString(s, "getYearOfStudy");
-                    String admission = safeGetString(s, "getAdmissionYear");
-                    tableModel.addRow(new Object[]{s.getId(), s.getName(), s.getEmail(), s.getSection(), degree, branch, year, admission, s.getStatus()});
-                }
-            } else {
-                // Filter by selected section (A or B)
-                String filterSection = selectedSection.equals("Section A") ? "A" : "B";
-                java.util.List<domain.Student> allStudents = adminService.getAllStudents();
-                for (domain.Student s : allStudents) {
-                    if (s.getSection() != null && s.getSection().equals(filterSection)) {
-                        String degree = safeGetString(s, "getDegree");
-                        String branch = safeGetString(s, "getBranch");
-                        String year = safeGetString(s, "getYearOfStudy");
-                        String admission = safeGetString(s, "getAdmissionYear");
-                        tableModel.addRow(new Object[]{s.getId(), s.getName(), s.getEmail(), s.getSection(), degree, branch, year, admission, s.getStatus()});
-                    }
-                }
-            }
+            // All Sections loads everyone; otherwise filter by selected section (A or B)
+            String filterSection = "All Sections".equals(selectedSection) ? null
+                    : selectedSection.equals("Section A") ? "A" : "B";
+            studentLoads.submit(() -> studentRows(adminService.getAllStudents(), filterSection), showStudents);
             searchField.setText(""); // Clear search field when filtering by section
         });
 
@@ -1148,52 +1114,23 @@ public class AdminDashboard extends JFrame {
         bottom.add(assignCoursesButton); bottom.add(delButton);
         contentCard.add(bottom, BorderLayout.SOUTH);
 
-        // load initial list
-        Runnable reload = () -> {
+        // load initial list (off the EDT; a newer reload or search supersedes an older one)
+        DbAsync.Channel<java.util.List<Object[]>> instructorLoads = new DbAsync.Channel<>("AdminDashboard.loadInstructors");
+        java.util.function.Consumer<java.util.List<Object[]>> showInstructors = rows -> {
             tableModel.setRowCount(0);
-            for (domain.Instructor ins : dao.listAll()) {
-                java.util.List<String> assigned = dao.getAssignedCourses(ins.getId());
-                // Fallback: if no instructor_courses mapping exists, derive assignments from sections table
-                if ((assigned == null || assigned.isEmpty())) {
-                    try (Connection c = DriverManager.getConnection(DatabaseConfig.getDatabaseUrl());
-                         PreparedStatement ps = c.prepareStatement("SELECT DISTINCT course_code FROM sections WHERE instructor_id = ?")) {
-                        ps.setString(1, ins.getId());
-                        try (ResultSet rs = ps.executeQuery()) {
-                            while (rs.next()) {
-                                String cc = rs.getString(1);
-                                if (cc != null && !cc.trim().isEmpty()) assigned.add(cc);
-                            }
-                        }
-                    } catch (SQLException ignored) {}
-                }
-                String asg = String.join(", ", assigned);
-                tableModel.addRow(new Object[]{ins.getId(), ins.getName(), ins.getDepartment(), ins.getEmail(), asg});
-            }
-            updateInstructorCount(dao.listAll().size());
+            for (Object[] row : rows) tableModel.addRow(row);
         };
+        Runnable reload = () -> instructorLoads.submit(() -> instructorRows(dao, dao.listAll()), rows -> {
+            showInstructors.accept(rows);
+            updateInstructorCount(rows.size());
+        });
         reload.run();
 
         // Search
         searchBtn.addActionListener(e -> {
             String q = searchField.getText().trim();
-            tableModel.setRowCount(0);
             if (q.isEmpty()) { reload.run(); return; }
-            for (domain.Instructor ins : dao.search(q)) {
-                java.util.List<String> assigned = dao.getAssignedCourses(ins.getId());
-                if ((assigned == null || assigned.isEmpty())) {
-                    try (Connection c = DriverManager.getConnection(DatabaseConfig.getDatabaseUrl());
-                         PreparedStatement ps = c.prepareStatement("SELECT DISTINCT course_code FROM sections WHERE instructor_id = ?")) {
-                        ps.setString(1, ins.getId());
-                        try (ResultSet rs = ps.executeQuery()) {
-                            while (rs.next()) {
-                                String cc = rs.getString(1);
-                                if (cc != null && !cc.trim().isEmpty()) assigned.add(cc);
-                            }
-                        }
-                    } catch (SQLException ignored) {}
-                }
-                tableModel.addRow(new Object[]{ins.getId(), ins.getName(), ins.getDepartment(), ins.getEmail(), String.join(", ", assigned)});
-            }
+            instructorLoads.submit(() -> instructorRows(dao, dao.search(q)), showInstructors);
         });
 
         // Refresh button - reload instructor list and update dashboard count
@@ -1276,26 +1213,11 @@ public class AdminDashboard extends JFrame {
             JPanel bp = new JPanel(new FlowLayout(FlowLayout.RIGHT)); bp.add(save); bp.add(cancel);
 
             // Build assigned-courses panel (shows current assignments and allows unassign)
+            // (loaded off the EDT; the list fills in once the dialog is up)
             DefaultListModel<String> assignedModel = new DefaultListModel<>();
-            java.util.List<String> assignedCourses = new java.util.ArrayList<>(dao.getAssignedCourses(id));
-            // Fallback: if no instructor_courses mapping exists, derive assignments from sections table
-            if (assignedCourses.isEmpty()) {
-                try (Connection c = DriverManager.getConnection(DatabaseConfig.getDatabaseUrl());
-                     PreparedStatement ps = c.prepareStatement("SELECT DISTINCT course_code FROM sections WHERE instructor_id = ?")) {
-                    ps.setString(1, id);
-                    try (ResultSet rs = ps.executeQuery()) {
-                        while (rs.next()) {
-                            String cc = rs.getString(1);
-                            if (cc != null && !cc.trim().isEmpty()) assignedCourses.add(cc);
-                        }
-                    }
-                } catch (SQLException ignored) {}
-            }
-            for (String cc : assignedCourses) {
-                String cTitle = "";
-                for (admin.dao.CourseDAO.Course c : courseDao.listAllCourses()) if (c.code.equalsIgnoreCase(cc)) { cTitle = c.title; break; }
-                assignedModel.addElement(cc + (cTitle.isEmpty() ? "" : " - " + cTitle));
-            }
+            DbAsync.onEdt(DbAsync.supply("AdminDashboard.loadAssignedCourses", () -> assignedCourseLabels(dao, courseDao, id)),
+                    labels -> { for (String l : labels) assignedModel.addElement(l); },
+                    ex -> JOptionPane.showMessageDialog(d, "Error loading assigned courses: " + ex.getMessage(), "DB Error", JOptionPane.ERROR_MESSAGE));
             JList<String> assignedList = new JList<>(assignedModel);
             assignedList.setVisibleRowCount(8);
             JScrollPane assignedScroll = new JScrollPane(assignedList);
@@ -1304,29 +1226,32 @@ public class AdminDashboard extends JFrame {
                 String sel = assignedList.getSelectedValue();
                 if (sel == null) { JOptionPane.showMessageDialog(d, "Select a course to unassign."); return; }
                 String code = sel.split(" - ")[0].trim();
-                boolean ok = false;
-                try (Connection c = DriverManager.getConnection(DatabaseConfig.getDatabaseUrl())) {
-                    // Try to delete from instructor_courses table
-                    String delSql = "DELETE FROM instructor_courses WHERE instructor_id = ? AND course_code = ?";
-                    try (PreparedStatement stmt = c.prepareStatement(delSql)) {
-                        stmt.setString(1, id);
-                        stmt.setString(2, code);
-                        int rows = stmt.executeUpdate();
-                        ok = (rows > 0);
-                    }
-                    // Also clear section-level assignments for this instructor+course
-                    String clearSql = "UPDATE sections SET instructor_id = NULL WHERE course_code = ? AND instructor_id = ?";
-                    try (PreparedStatement stmt = c.prepareStatement(clearSql)) {
-                        stmt.setString(1, code);
-                        stmt.setString(2, id);
-                        int rows = stmt.executeUpdate();
-                        ok = ok || (rows > 0);  // Success if either table had the assignment
-                    }
+                boolean ok;
+                try {
+                    ok = DatabaseConfig.write(c -> {
+                        boolean removed;
+                        // Try to delete from instructor_courses table
+                        String delSql = "DELETE FROM instructor_courses WHERE instructor_id = ? AND course_code = ?";
+                        try (PreparedStatement stmt = c.prepareStatement(delSql)) {
+                            stmt.setString(1, id);
+                            stmt.setString(2, code);
+                            removed = stmt.executeUpdate() > 0;
+                        }
+                        // Also clear section-level assignments for this instructor+course
+                        String clearSql = "UPDATE sections SET instructor_id = NULL WHERE course_code = ? AND instructor_id = ?";
+                        try (PreparedStatement stmt = c.prepareStatement(clearSql)) {
+                            stmt.setString(1, code);
+                            stmt.setString(2, id);
+                            removed = stmt.executeUpdate() > 0 || removed;  // Success if either table had the assignment
+                        }
+                        return removed;
+                    });
                 } catch (SQLException ex) { 
                     JOptionPane.showMessageDialog(d, "Database error: " + ex.getMessage(), "Error", JOptionPane.ERROR_MESSAGE);
                     return;
                 }
                 if (ok) {
+                    ChangeBus.publish(ChangeBus.Topic.SECTIONS);
                     assignedModel.removeElement(sel);
                     JOptionPane.showMessageDialog(d, "Course unassigned.");
                     reload.run();
@@ -1398,6 +1323,8 @@ public class AdminDashboard extends JFrame {
 
             // helper to populate sections for a course (fetch all sections and map to A, B, C...)
             final java.util.List<Integer> sectionIds = new java.util.ArrayList<>();
+            // (sections are read, and created when missing, off the EDT; a newer course selection supersedes)
+            DbAsync.Channel<java.util.List<Object[]>> sectionLoads = new DbAsync.Channel<>("AdminDashboard.loadCourseSections");
             Runnable populateSections = () -> {
                 sectionCombo.removeAllItems();
                 sectionIds.clear();
@@ -1405,76 +1332,12 @@ public class AdminDashboard extends JFrame {
                 if (sel == null) return;
                 String code = sel.split(" - ")[0].trim();
                 String courseTitle = sel.contains(" - ") ? sel.substring(sel.indexOf(" - ") + 3) : code;
-                String dbUrl = DatabaseConfig.getDatabaseUrl();
-                
-                // First, try to fetch existing sections
-                String sql = "SELECT section_id, day_time, instructor_id FROM sections WHERE course_code = ? ORDER BY section_id";
-                try (Connection conn = DriverManager.getConnection(dbUrl); PreparedStatement ps = conn.prepareStatement(sql)) {
-                    ps.setString(1, code);
-                    try (ResultSet rs = ps.executeQuery()) {
-                        int idx = 0;
-                        while (rs.next()) {
-                            int sid = rs.getInt("section_id");
-                            String dt = rs.getString("day_time");
-                            String instr = rs.getString("instructor_id");
-                            sectionIds.add(sid);
-                            
-                            // Map to SECTION A, B, C, ... based on order
-                            char letter = (char)('A' + idx);
-                            String status = (instr == null || instr.trim().isEmpty()) ? "Unassigned" : ("Assigned to " + instr);
-                            String display = "SECTION " + letter + (dt == null ? "" : " (" + dt + ")") + " - " + status;
-                            sectionCombo.addItem(display);
-                            idx++;
-                        }
-                        
-                        // If no sections exist, auto-create SECTION A and SECTION B
-                        if (idx == 0) {
-                            try {
-                                String insertSql = "INSERT INTO sections (course_code, title, instructor_id, term, year, day_time, room, capacity) VALUES (?, ?, ?, ?, ?, ?, ?, ?)";
-                                
-                                // Create SECTION A
-                                try (PreparedStatement insSql = conn.prepareStatement(insertSql, java.sql.Statement.RETURN_GENERATED_KEYS)) {
-                                    insSql.setString(1, code);
-                                    insSql.setString(2, courseTitle + " - Section A");
-                                    insSql.setString(3, null);
-                                    insSql.setString(4, "Fall");
-                                    insSql.setInt(5, 2025);
-                                    insSql.setString(6, "");
-                                    insSql.setString(7, "");
-                                    insSql.setInt(8, 60);
-                                    insSql.executeUpdate();
-                                    try (ResultSet keys = insSql.getGeneratedKeys()) {
-                                        if (keys.next()) sectionIds.add(keys.getInt(1));
-                                    }
-                                }
-                                
-                                // Create SECTION B
-                                try (PreparedStatement insSql = conn.prepareStatement(insertSql, java.sql.Statement.RETURN_GENERATED_KEYS)) {
-                                    insSql.setString(1, code);
-                                    insSql.setString(2, courseTitle + " - Section B");
-                                    insSql.setString(3, null);
-                                    insSql.setString(4, "Fall");
-                                    insSql.setInt(5, 2025);
-                                    insSql.setString(6, "");
-                                    insSql.setString(7, "");
-                                    insSql.setInt(8, 60);
-                                    insSql.executeUpdate();
-                                    try (ResultSet keys = insSql.getGeneratedKeys()) {
-                                        if (keys.next()) sectionIds.add(keys.getInt(1));
-                                    }
-                                }
-                                
-                                // Add to combo
-                                sectionCombo.addItem("SECTION A - Unassigned");
-                                sectionCombo.addItem("SECTION B - Unassigned");
-                            } catch (SQLException creEx) {
-                                sectionCombo.addItem("Error creating sections: " + creEx.getMessage());
-                            }
-                        }
+                sectionLoads.submit(() -> courseSectionChoices(code, courseTitle), choices -> {
+                    for (Object[] choice : choices) {
+                        if (choice[0] != null) sectionIds.add((Integer) choice[0]);
+                        sectionCombo.addItem((String) choice[1]);
                     }
-                } catch (SQLException ex) {
-                    JOptionPane.showMessageDialog(this, "Error loading sections: " + ex.getMessage(), "DB Error", JOptionPane.ERROR_MESSAGE);
-                }
+                }, ex -> JOptionPane.showMessageDialog(this, "Error loading sections: " + ex.getMessage(), "DB Error", JOptionPane.ERROR_MESSAGE));
             };
 
             courseCombo.addItemListener(ev -> {
@@ -1492,21 +1355,10 @@ public class AdminDashboard extends JFrame {
                     JOptionPane.showMessageDialog(d, "Select a valid course and section."); 
                     return; 
                 }
-                try {
-                    String courseCode = selCourse.split(" - ")[0].trim();
-                    int sectionId = sectionIds.get(selIndex);
-                    String dbUrl = DatabaseConfig.getDatabaseUrl();
-
-                    // If already assigned to someone else, confirm overwrite
-                    String currentInstructor = null;
-                    String q = "SELECT instructor_id FROM sections WHERE section_id = ?";
-                    try (Connection conn = DriverManager.getConnection(dbUrl); PreparedStatement qps = conn.prepareStatement(q)) {
-                        qps.setInt(1, sectionId);
-                        try (ResultSet rs = qps.executeQuery()) {
-                            if (rs.next()) currentInstructor = rs.getString("instructor_id");
-                        }
-                    }
-
+                String courseCode = selCourse.split(" - ")[0].trim();
+                int sectionId = sectionIds.get(selIndex);
+                // If already assigned to someone else, confirm overwrite (current owner read off the EDT)
+                DbAsync.onEdt(DbAsync.supply("AdminDashboard.sectionInstructor", () -> sectionInstructor(sectionId)), currentInstructor -> {
                     if (currentInstructor != null && !currentInstructor.trim().isEmpty() && !currentInstructor.equals(insId)) {
                         int conf = JOptionPane.showConfirmDialog(d, "Section is currently assigned to " + currentInstructor + ". Overwrite assignment?", "Confirm Overwrite", JOptionPane.YES_NO_OPTION);
                         if (conf != JOptionPane.YES_OPTION) return;
@@ -1514,20 +1366,25 @@ public class AdminDashboard extends JFrame {
                         JOptionPane.showMessageDialog(d, "This section is already assigned to the selected instructor.");
                         return;
                     }
-
-                    String upd = "UPDATE sections SET instructor_id = ? WHERE section_id = ?";
-                    try (Connection conn = DriverManager.getConnection(dbUrl); PreparedStatement ps = conn.prepareStatement(upd)) {
-                        ps.setString(1, insId); ps.setInt(2, sectionId);
-                        int updated = ps.executeUpdate();
+                    try {
+                        String upd = "UPDATE sections SET instructor_id = ? WHERE section_id = ?";
+                        int updated = DatabaseConfig.write(conn -> {
+                            try (PreparedStatement ps = conn.prepareStatement(upd)) {
+                                ps.setString(1, insId); ps.setInt(2, sectionId);
+                                int n = ps.executeUpdate();
+                                if (n == 1) ChangeBus.publish(ChangeBus.Topic.SECTIONS);
+                                return n;
+                            }
+                        });
                         if (updated == 1) {
                             dao.assignCourse(insId, courseCode);
                             JOptionPane.showMessageDialog(d, "Assigned " + courseCode + " section to instructor.");
                             d.dispose(); reload.run();
                         } else JOptionPane.showMessageDialog(d, "Failed to assign section.", "Error", JOptionPane.ERROR_MESSAGE);
+                    } catch (Exception ex) {
+                        JOptionPane.showMessageDialog(d, "Error during assign: " + ex.getMessage(), "Error", JOptionPane.ERROR_MESSAGE);
                     }
-                } catch (Exception ex) {
-                    JOptionPane.showMessageDialog(d, "Error during assign: " + ex.getMessage(), "Error", JOptionPane.ERROR_MESSAGE);
-                }
+                }, ex -> JOptionPane.showMessageDialog(d, "Error during assign: " + ex.getMessage(), "Error", JOptionPane.ERROR_MESSAGE));
             });
             cancelBtn.addActionListener(ae -> d.dispose());
 
@@ -1590,12 +1447,169 @@ private String[] getAdmissionYears(int lastN) {
 
 /** Update dashboard total students value (if panel is present) */
 private void updateTotalStudentsCount() {
+    if (totalStudentsValueLabel == null) return;
+    // Counted off the EDT; a failed count is logged and leaves the previous value
+    DbAsync.onEdt(DbAsync.supply("AdminDashboard.countStudents", () -> adminService.getAllStudents().size()),
+            this::setTotalStudentsCount, null);
+}
+
+private void setTotalStudentsCount(int total) {
+    if (totalStudentsValueLabel != null) totalStudentsValueLabel.setText(String.valueOf(total));
+}
+
+/** Instructor table rows with assigned courses; runs off the EDT. */
+private java.util.List<Object[]> instructorRows(admin.dao.InstructorDAO dao, java.util.List<domain.Instructor> instructors) {
+    java.util.List<Object[]> rows = new java.util.ArrayList<>();
+    // One read of the assignments for the whole list (falls back to section courses per instructor)
+    java.util.Map<String, java.util.List<String>> assignments = dao.getAssignedCoursesForAll();
+    for (domain.Instructor ins : instructors) {
+        java.util.List<String> assigned = assignments.getOrDefault(ins.getId(), java.util.List.of());
+        rows.add(new Object[]{ins.getId(), ins.getName(), ins.getDepartment(), ins.getEmail(), String.join(", ", assigned)});
+    }
+    return rows;
+}
+
+/**
+ * Course table rows (title, code, prerequisites with titles, instructors); runs off the EDT.
+ * {@code shown} null means every course. Instructors come from one read for the whole list.
+ */
+private java.util.List<Object[]> courseRows(admin.dao.CourseDAO courseDao, admin.dao.InstructorDAO insDao, java.util.List<admin.dao.CourseDAO.Course> shown) {
+    java.util.List<admin.dao.CourseDAO.Course> all = courseDao.listAllCourses();
+    if (shown == null) shown = all;
+    // build a map code->title for pretty prerequisite display
+    java.util.Map<String, String> codeToTitle = new java.util.HashMap<>();
+    for (admin.dao.CourseDAO.Course cc : all) codeToTitle.put(cc.code.toUpperCase(), cc.title);
+    java.util.Map<String, java.util.List<String>> instructorsByCourse = insDao.getInstructorsByCourse();
+    java.util.List<Object[]> rows = new java.util.ArrayList<>();
+    for (admin.dao.CourseDAO.Course c : shown) {
+        String prereqDisplay = "None";
+        if (c.prerequisites != null && !c.prerequisites.trim().isEmpty() && !"None".equalsIgnoreCase(c.prerequisites)) {
+            java.util.List<String> out = new java.util.ArrayList<>();
+            for (String p : c.prerequisites.split(",")) {
+                String code = p.trim();
+                if (code.isEmpty()) continue;
+                String t = codeToTitle.getOrDefault(code.toUpperCase(), "");
+                if (!t.isEmpty()) out.add(code + " (" + t + ")"); else out.add(code);
+            }
+            prereqDisplay = String.join(", ", out);
+        }
+        java.util.List<String> instructors = instructorsByCourse.getOrDefault(c.code, java.util.List.of());
+        String instructorsDisplay = instructors.isEmpty() ? "-" : String.join(", ", instructors);
+        rows.add(new Object[]{c.title, c.code, prereqDisplay, instructorsDisplay});
+    }
+    return rows;
+}
+
+/**
+ * Student table rows, optionally only those of one section; runs off the EDT.
+ * Degree/branch/year/admission are read through getters when the Student has them, else empty.
+ */
+private java.util.List<Object[]> studentRows(java.util.List<domain.Student> students, String section) {
+    java.util.List<Object[]> rows = new java.util.ArrayList<>();
+    for (domain.Student s : students) {
+        if (section != null && !section.equals(s.getSection())) continue;
+        String degree = safeGetString(s, "getDegree");
+        String branch = safeGetString(s, "getBranch");
+        String year = safeGetString(s, "getYearOfStudy");
+        String admission = safeGetString(s, "getAdmissionYear");
+        rows.add(new Object[]{s.getId(), s.getName(), s.getEmail(), s.getSection(), degree, branch, year, admission, s.getStatus()});
+    }
+    return rows;
+}
+
+/**
+ * "CODE - Title" labels of an instructor's assigned courses (instructor_courses, or the courses
+ * of their sections when there is no mapping); runs off the EDT.
+ */
+private java.util.List<String> assignedCourseLabels(admin.dao.InstructorDAO dao, admin.dao.CourseDAO courseDao, String id) throws SQLException {
+    java.util.List<String> assignedCourses = new java.util.ArrayList<>(dao.getAssignedCourses(id));
+    // Fallback: if no instructor_courses mapping exists, derive assignments from sections table
+    if (assignedCourses.isEmpty()) {
+        try (Connection c = DatabaseConfig.getConnection();
+             PreparedStatement ps = c.prepareStatement(INSTRUCTOR_SECTION_COURSES_SQL)) {
+            ps.setString(1, id);
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    String cc = rs.getString(1);
+                    if (cc != null && !cc.trim().isEmpty()) assignedCourses.add(cc);
+                }
+            }
+        }
+    }
+    java.util.Map<String, String> titles = new java.util.HashMap<>();
+    for (admin.dao.CourseDAO.Course c : courseDao.listAllCourses()) titles.put(c.code.toUpperCase(), c.title);
+    java.util.List<String> labels = new java.util.ArrayList<>();
+    for (String cc : assignedCourses) {
+        String cTitle = titles.getOrDefault(cc.toUpperCase(), "");
+        labels.add(cc + (cTitle.isEmpty() ? "" : " - " + cTitle));
+    }
+    return labels;
+}
+
+/**
+ * Section choices of a course as {section_id, "SECTION A (day_time) - status"}, in section order.
+ * A course without sections gets SECTION A and B created; if that fails the single choice
+ * carries a null id and the error text. Runs off the EDT.
+ */
+private java.util.List<Object[]> courseSectionChoices(String code, String courseTitle) throws SQLException {
+    java.util.List<Object[]> choices = new java.util.ArrayList<>();
+    try (Connection conn = DatabaseConfig.getConnection(); PreparedStatement ps = conn.prepareStatement(COURSE_SECTIONS_SQL)) {
+        ps.setString(1, code);
+        try (ResultSet rs = ps.executeQuery()) {
+            int idx = 0;
+            while (rs.next()) {
+                int sid = rs.getInt("section_id");
+                String dt = rs.getString("day_time");
+                String instr = rs.getString("instructor_id");
+                // Map to SECTION A, B, C, ... based on order
+                char letter = (char)('A' + idx);
+                String status = (instr == null || instr.trim().isEmpty()) ? "Unassigned" : ("Assigned to " + instr);
+                choices.add(new Object[]{sid, "SECTION " + letter + (dt == null ? "" : " (" + dt + ")") + " - " + status});
+                idx++;
+            }
+        }
+    }
+    if (!choices.isEmpty()) return choices;
+
+    // If no sections exist, auto-create SECTION A and SECTION B
     try {
-        if (totalStudentsValueLabel != null) {
-            int total = adminService.getAllStudents().size();
-            totalStudentsValueLabel.setText(String.valueOf(total));
+        java.util.List<Integer> created = DatabaseConfig.write(conn -> {
+            java.util.List<Integer> ids = new java.util.ArrayList<>();
+            String insertSql = "INSERT INTO sections (course_code, title, instructor_id, term, year, day_time, room, capacity) VALUES (?, ?, ?, ?, ?, ?, ?, ?)";
+            try (PreparedStatement insSql = conn.prepareStatement(insertSql, java.sql.Statement.RETURN_GENERATED_KEYS)) {
+                for (String letter : new String[]{"A", "B"}) {
+                    insSql.setString(1, code);
+                    insSql.setString(2, courseTitle + " - Section " + letter);
+                    insSql.setString(3, null);
+                    insSql.setString(4, "Fall");
+                    insSql.setInt(5, 2025);
+                    insSql.setString(6, "");
+                    insSql.setString(7, "");
+                    insSql.setInt(8, 60);
+                    insSql.executeUpdate();
+                    try (ResultSet keys = insSql.getGeneratedKeys()) {
+                        if (keys.next()) ids.add(keys.getInt(1));
+                    }
+                }
+            }
+            ChangeBus.publish(ChangeBus.Topic.SECTIONS);
+            return ids;
+        });
+        for (int i = 0; i < created.size(); i++) choices.add(new Object[]{created.get(i), "SECTION " + (char)('A' + i) + " - Unassigned"});
+    } catch (SQLException creEx) {
+        choices.add(new Object[]{null, "Error creating sections: " + creEx.getMessage()});
+    }
+    return choices;
+}
+
+/** Current instructor_id of a section (null when unassigned or missing); runs off the EDT. */
+private String sectionInstructor(int sectionId) throws SQLException {
+    try (Connection conn = DatabaseConfig.getConnection(); PreparedStatement qps = conn.prepareStatement(SECTION_INSTRUCTOR_SQL)) {
+        qps.setInt(1, sectionId);
+        try (ResultSet rs = qps.executeQuery()) {
+            return rs.next() ? rs.getString("instructor_id") : null;
         }
-    } catch (Exception ignored) {}
+    }
 }
 
 private void updateInstructorCount(int n) {
@@ -1679,32 +1693,14 @@ private String safeGetString(Object obj, String getterName) {
         JScrollPane tableScrollPane = new JScrollPane(courseTable);
         contentCard.add(tableScrollPane, BorderLayout.CENTER);
 
-        // reload runnable
+        // reload runnable (off the EDT; a newer reload or search supersedes an older one)
         admin.dao.InstructorDAO insDaoForCourses = new admin.dao.InstructorDAO();
-        this.reloadCourses = () -> {
+        DbAsync.Channel<java.util.List<Object[]>> courseLoads = new DbAsync.Channel<>("AdminDashboard.loadCourses");
+        java.util.function.Consumer<java.util.List<Object[]>> showCourses = rows -> {
             tableModel.setRowCount(0);
-            java.util.List<admin.dao.CourseDAO.Course> all = courseDao.listAllCourses();
-            // build a map code->title for pretty prerequisite display
-            java.util.Map<String,String> codeToTitle = new java.util.HashMap<>();
-            for (admin.dao.CourseDAO.Course cc : all) codeToTitle.put(cc.code, cc.title);
-            for (admin.dao.CourseDAO.Course c : all) {
-                String prereqDisplay = "None";
-                if (c.prerequisites != null && !c.prerequisites.trim().isEmpty() && !"None".equalsIgnoreCase(c.prerequisites)) {
-                    String[] parts = c.prerequisites.split(",");
-                    java.util.List<String> out = new java.util.ArrayList<>();
-                    for (String p : parts) {
-                        String code = p.trim();
-                        if (code.isEmpty()) continue;
-                        String t = codeToTitle.getOrDefault(code, "");
-                        if (!t.isEmpty()) out.add(code + " (" + t + ")"); else out.add(code);
-                    }
-                    prereqDisplay = String.join(", ", out);
-                }
-                java.util.List<String> instructors = insDaoForCourses.getInstructorsForCourse(c.code);
-                String instructorsDisplay = instructors.isEmpty() ? "-" : String.join(", ", instructors);
-                tableModel.addRow(new Object[]{c.title, c.code, prereqDisplay, instructorsDisplay});
-            }
+            for (Object[] row : rows) tableModel.addRow(row);
         };
+        this.reloadCourses = () -> courseLoads.submit(() -> courseRows(courseDao, insDaoForCourses, null), showCourses);
         if (this.reloadCourses != null) this.reloadCourses.run();
 
         // search action
@@ -1714,25 +1710,7 @@ private String safeGetString(Object obj, String getterName) {
             if (bio.isSelected()) depts.add("BIO"); if (des.isSelected()) depts.add("DES"); if (ssh.isSelected()) depts.add("SSH");
             if (others.isSelected()) depts.add("OTHER");
             String q = courseSearch.getText().trim();
-            tableModel.setRowCount(0);
-            for (admin.dao.CourseDAO.Course c : courseDao.search(q, depts)) {
-                // resolve prereqs with course names
-                String prereqDisplay = "None";
-                if (c.prerequisites != null && !c.prerequisites.trim().isEmpty() && !"None".equalsIgnoreCase(c.prerequisites)) {
-                    String[] parts = c.prerequisites.split(",");
-                    java.util.List<String> out = new java.util.ArrayList<>();
-                    for (String p : parts) {
-                        String code = p.trim();
-                        String cTitle = "";
-                        for (admin.dao.CourseDAO.Course cc : courseDao.listAllCourses()) if (cc.code.equalsIgnoreCase(code)) { cTitle = cc.title; break; }
-                        if (!cTitle.isEmpty()) out.add(code + " (" + cTitle + ")"); else out.add(code);
-                    }
-                    prereqDisplay = String.join(", ", out);
-                }
-                java.util.List<String> instrs = insDaoForCourses.getInstructorsForCourse(c.code);
-                String instructorsDisplay = instrs.isEmpty() ? "-" : String.join(", ", instrs);
-                tableModel.addRow(new Object[]{c.title, c.code, prereqDisplay, instructorsDisplay});
-            }
+            courseLoads.submit(() -> courseRows(courseDao, insDaoForCourses, courseDao.search(q, depts)), showCourses);
         });
 
         // Make filters live: whenever a checkbox toggles, trigger the search action
@@ -1740,10 +1718,10 @@ private String safeGetString(Object obj, String getterName) {
         cse.addItemListener(il); ece.addItemListener(il); mth.addItemListener(il); bio.addItemListener(il); des.addItemListener(il); ssh.addItemListener(il); others.addItemListener(il);
 
         // refresh
-        refreshCoursesBtn.addActionListener(e -> {
-            if (this.reloadCourses != null) this.reloadCourses.run();
+        refreshCoursesBtn.addActionListener(e -> courseLoads.submit(() -> courseRows(courseDao, insDaoForCourses, null), rows -> {
+            showCourses.accept(rows);
             JOptionPane.showMessageDialog(this, "Course list refreshed!");
-        });
+        }, ex -> JOptionPane.showMessageDialog(this, "Error loading courses: " + ex.getMessage(), "Error", JOptionPane.ERROR_MESSAGE)));
 
         // add course dialog
         addCourseButton.addActionListener(e -> {
@@ -2555,26 +2533,25 @@ private String safeGetString(Object obj, String getterName) {
         JScrollPane coursesScroll = new JScrollPane(coursesTable);
         coursesPanel.add(coursesScroll, BorderLayout.CENTER);
 
-        // Load all courses initially with department filter
-        Runnable loadAllCourses = () -> {
+        // Load all courses initially with department filter. The catalog is read off the EDT
+        // (a newer load supersedes an older one); the department/search filter runs on the EDT.
+        DbAsync.Channel<java.util.List<admin.dao.CourseDAO.Course>> catalogLoads = new DbAsync.Channel<>("AdminDashboard.loadCatalog");
+        java.util.function.Consumer<String> loadCourses = searchTerm -> catalogLoads.submit(() -> new admin.dao.CourseDAO().listAllCourses(), all -> {
             coursesModel.setRowCount(0);
-            try {
-                admin.dao.CourseDAO courseDaoLocal = new admin.dao.CourseDAO();
-                for (admin.dao.CourseDAO.Course course : courseDaoLocal.listAllCourses()) {
-                    String dept = extractBranchFromCode(course.code); // Use the existing helper
-                    String courseDept = course.department;
-                    
-                    // Check if department is selected
-                    JCheckBox deptBox = deptCheckboxes.getOrDefault(courseDept, deptCheckboxes.get("OTHERS"));
-                    
-                    if (deptBox != null && deptBox.isSelected()) {
-                        coursesModel.addRow(new Object[]{course.code, course.title, courseDept, false});
-                    }
+            for (admin.dao.CourseDAO.Course course : all) {
+                if (!searchTerm.isEmpty() && !course.code.toLowerCase().contains(searchTerm)
+                        && !course.title.toLowerCase().contains(searchTerm)) continue;
+                String courseDept = course.department;
+
+                // Check if department is selected
+                JCheckBox deptBox = deptCheckboxes.getOrDefault(courseDept, deptCheckboxes.get("OTHERS"));
+
+                if (deptBox != null && deptBox.isSelected()) {
+                    coursesModel.addRow(new Object[]{course.code, course.title, courseDept, false});
                 }
-            } catch (Exception ex) {
-                JOptionPane.showMessageDialog(this, "Error loading courses: " + ex.getMessage(), "Error", JOptionPane.ERROR_MESSAGE);
             }
-        };
+        }, ex -> JOptionPane.showMessageDialog(this, "Error loading courses: " + ex.getMessage(), "Error", JOptionPane.ERROR_MESSAGE));
+        Runnable loadAllCourses = () -> loadCourses.accept("");
         loadAllCourses.run();
 
         // Add listeners to department checkboxes to reload courses
@@ -2589,25 +2566,7 @@ private String safeGetString(Object obj, String getterName) {
         courseSearchField.addKeyListener(new java.awt.event.KeyAdapter() {
             @Override
             public void keyReleased(java.awt.event.KeyEvent evt) {
-                String searchTerm = courseSearchField.getText().toLowerCase();
-                coursesModel.setRowCount(0);
-                try {
-                    admin.dao.CourseDAO courseDaoLocal = new admin.dao.CourseDAO();
-                    for (admin.dao.CourseDAO.Course course : courseDaoLocal.listAllCourses()) {
-                        if (course.code.toLowerCase().contains(searchTerm) || 
-                            course.title.toLowerCase().contains(searchTerm)) {
-                            
-                            String courseDept = course.department;
-                            JCheckBox deptBox = deptCheckboxes.getOrDefault(courseDept, deptCheckboxes.get("OTHERS"));
-
-                            if (deptBox != null && deptBox.isSelected()) {
-                                coursesModel.addRow(new Object[]{course.code, course.title, courseDept, false});
-                            }
-                        }
-                    }
-                } catch (Exception ex) {
-                    JOptionPane.showMessageDialog(AdminDashboard.this, "Error searching courses: " + ex.getMessage(), "Error", JOptionPane.ERROR_MESSAGE);
-                }
+                loadCourses.accept(courseSearchField.getText().toLowerCase());
             }
         });
 
@@ -2652,7 +2611,9 @@ private String safeGetString(Object obj, String getterName) {
                 String branch = (String) branchCombo.getSelectedItem();
                 
                 // Publish offerings (inserts into `offerings` table)
-                try (java.sql.Connection c = java.sql.DriverManager.getConnection(DatabaseConfig.getDatabaseUrl())) {
+                int year = Integer.parseInt(yearStr);
+                String createdBy = userSession == null ? "Admin" : userSession.getUsername();
+                DatabaseConfig.write(c -> {
                     // Ensure offerings table exists
                     try (java.sql.Statement s = c.createStatement()) {
                         s.execute("CREATE TABLE IF NOT EXISTS offerings (course_code TEXT, branch TEXT, year INTEGER, created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP, created_by TEXT, PRIMARY KEY(course_code, branch, year))");
@@ -2660,9 +2621,6 @@ private String safeGetString(Object obj, String getterName) {
                     
                     String insertOfferSql = "INSERT OR IGNORE INTO offerings (course_code, branch, year, created_by) VALUES (?, ?, ?, ?)";
                     try (java.sql.PreparedStatement offerStmt = c.prepareStatement(insertOfferSql)) {
-                        int year = Integer.parseInt(yearStr);
-                        String createdBy = userSession == null ? "Admin" : userSession.getUsername();
-                        
                         for (String courseCode : selectedCourses) {
                             offerStmt.setString(1, courseCode);
                             offerStmt.setString(2, branch);
@@ -2671,12 +2629,18 @@ private String safeGetString(Object obj, String getterName) {
                             offerStmt.executeUpdate();
                         }
                     }
-                }
+                    ChangeBus.publish(ChangeBus.Topic.OFFERINGS);
+                    return null;
+                });
 
-                // Update settings table flag (optional, for real-time refresh cues)
-                try (java.sql.Connection c2 = java.sql.DriverManager.getConnection(DatabaseConfig.getDatabaseUrl());
-                     java.sql.PreparedStatement ps = c2.prepareStatement("INSERT OR REPLACE INTO settings (key_name, value) VALUES ('last_offered_at', datetime('now'))")) {
-                    ps.executeUpdate();
+                // Still stamped for older clients that poll it; current dashboards follow ChangeBus
+                // (and its data_version watcher for other processes)
+                try {
+                    DatabaseConfig.write(c2 -> {
+                        try (java.sql.PreparedStatement ps = c2.prepareStatement("INSERT OR REPLACE INTO settings (key_name, value) VALUES ('last_offered_at', datetime('now'))")) {
+                            return ps.executeUpdate();
+                        }
+                    });
                 } catch (java.sql.SQLException ex) {
                     System.err.println("Warning: failed to update last_offered_at setting: " + ex.getMessage());
                 }
@@ -2753,45 +2717,14 @@ private String safeGetString(Object obj, String getterName) {
         enrollmentsTable.getColumnModel().getColumn(1).setPreferredWidth(150);
         enrollmentsTable.getColumnModel().getColumn(2).setPreferredWidth(400);
 
-        // Load all enrollments initially
+        // Load all enrollments initially (queried off the EDT)
+        DbAsync.Channel<java.util.List<Object[]>> enrollmentLoads = new DbAsync.Channel<>("AdminDashboard.loadEnrollments");
         Runnable loadEnrollments = () -> {
-            tableModel.setRowCount(0);
             String filterText = searchField.getText().trim().toLowerCase();
-
-            String sql = "SELECT DISTINCT e.student_id, s.name, " +
-                    "GROUP_CONCAT(COALESCE(e.course_code, sec.course_code) || ' (Section ' || COALESCE(SUBSTR(sec.title, -1), '-') || ')', ', ') as courses " +
-                    "FROM enrollments e " +
-                    "LEFT JOIN students s ON e.student_id = s.id " +
-                    "LEFT JOIN sections sec ON e.section_id = sec.section_id " +
-                    "GROUP BY e.student_id " +
-                    "ORDER BY e.student_id";
-
-            try (Connection c = DriverManager.getConnection(DatabaseConfig.getDatabaseUrl());
-                 PreparedStatement ps = c.prepareStatement(sql)) {
-                try (ResultSet rs = ps.executeQuery()) {
-                    while (rs.next()) {
-                        String studentId = rs.getString("student_id");
-                        String studentName = rs.getString("name");
-                        String courses = rs.getString("courses");
-
-                        // Apply filter if search text is provided
-                        if (!filterText.isEmpty()) {
-                            if (!studentId.toLowerCase().contains(filterText) &&
-                                !((studentName != null) ? studentName.toLowerCase().contains(filterText) : false)) {
-                                continue;
-                            }
-                        }
-
-                        tableModel.addRow(new Object[]{
-                                studentId,
-                                studentName != null ? studentName : "N/A",
-                                courses != null ? courses : "No courses"
-                        });
-                    }
-                }
-            } catch (SQLException ex) {
-                JOptionPane.showMessageDialog(mainPanel, "Error loading enrollments: " + ex.getMessage(), "Error", JOptionPane.ERROR_MESSAGE);
-            }
+            enrollmentLoads.submit(() -> loadEnrollmentRows(filterText), rows -> {
+                tableModel.setRowCount(0);
+                for (Object[] row : rows) tableModel.addRow(row);
+            }, ex -> JOptionPane.showMessageDialog(mainPanel, "Error loading enrollments: " + ex.getMessage(), "Error", JOptionPane.ERROR_MESSAGE));
         };
 
         searchBtn.addActionListener(e -> loadEnrollments.run());
@@ -2811,6 +2744,44 @@ private String safeGetString(Object obj, String getterName) {
         return mainPanel;
     }
 
+    /** Enrollment rows (student, name, courses) matching the filter; runs off the EDT. */
+    private java.util.List<Object[]> loadEnrollmentRows(String filterText) throws SQLException {
+        java.util.List<Object[]> rows = new java.util.ArrayList<>();
+        String sql = "SELECT DISTINCT e.student_id, s.name, " +
+                "GROUP_CONCAT(COALESCE(e.course_code, sec.course_code) || ' (Section ' || COALESCE(SUBSTR(sec.title, -1), '-') || ')', ', ') as courses " +
+                "FROM enrollments e " +
+                "LEFT JOIN students s ON e.student_id = s.id " +
+                "LEFT JOIN sections sec ON e.section_id = sec.section_id " +
+                "GROUP BY e.student_id " +
+                "ORDER BY e.student_id";
+
+        try (Connection c = DatabaseConfig.getConnection();
+             PreparedStatement ps = c.prepareStatement(sql)) {
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    String studentId = rs.getString("student_id");
+                    String studentName = rs.getString("name");
+                    String courses = rs.getString("courses");
+
+                    // Apply filter if search text is provided
+                    if (!filterText.isEmpty()) {
+                        if (!studentId.toLowerCase().contains(filterText) &&
+                            !((studentName != null) ? studentName.toLowerCase().contains(filterText) : false)) {
+                            continue;
+                        }
+                    }
+
+                    rows.add(new Object[]{
+                            studentId,
+                            studentName != null ? studentName : "N/A",
+                            courses != null ? courses : "No courses"
+                    });
+                }
+            }
+        }
+        return rows;
+    }
+
     private JPanel createOfferedCoursesPanel() {
         JPanel mainPanel = new JPanel(new BorderLayout(20, 20));
         mainPanel.setBackground(LIGHT_BG);
@@ -2871,76 +2842,16 @@ private String safeGetString(Object obj, String getterName) {
         offeredTable.setRowHeight(28);
         offeredTable.getTableHeader().setFont(new Font("SansSerif", Font.BOLD, 12));
         
-        // Load offered courses
+        // Load offered courses (queried off the EDT)
+        DbAsync.Channel<java.util.List<Object[]>> offeredLoads = new DbAsync.Channel<>("AdminDashboard.loadOfferedCourses");
         Runnable loadOfferedCourses = () -> {
-            tableModel.setRowCount(0);
             String searchText = searchField.getText().trim().toLowerCase();
             String selectedBranch = (String) branchCombo.getSelectedItem();
             String selectedYear = (String) yearCombo.getSelectedItem();
-
-            // FIX: Correctly JOIN the offerings table with the persistent courses table
-            String sql = "SELECT o.course_code, c.name AS name, COALESCE(c.credits,4) AS credits, o.branch, o.year " +
-                    "FROM offerings o LEFT JOIN courses c ON o.course_code = c.code ORDER BY o.course_code";
-
-            try (Connection c = DriverManager.getConnection(DatabaseConfig.getDatabaseUrl());
-                 PreparedStatement ps = c.prepareStatement(sql)) {
-                try (ResultSet rs = ps.executeQuery()) {
-                    java.util.Set<String> addedCourses = new java.util.HashSet<>();
-                    while (rs.next()) {
-                        String courseCode = rs.getString("course_code");
-                        String courseName = rs.getString("name");
-                        String credits = String.valueOf(rs.getInt("credits")); 
-
-                        String uniqueKey = courseCode + rs.getString("branch") + rs.getInt("year");
-                        if (addedCourses.contains(uniqueKey)) continue;
-
-                        // Apply search filter
-                        if (!searchText.isEmpty()) {
-                            if (!courseCode.toLowerCase().contains(searchText) &&
-                                !(courseName != null && courseName.toLowerCase().contains(searchText))) {
-                                continue;
-                            }
-                        }
-
-                        // Get branch/year details
-                        String branchDisplay = rs.getString("branch") == null || rs.getString("branch").isEmpty() ? "All" : rs.getString("branch");
-                        int yearInt = rs.getInt("year");
-                        
-                        // FIX: Correct Year Display Format (1 -> 1st Year)
-                        String yearDisplay;
-                        if (yearInt == 1) yearDisplay = "1st Year";
-                        else if (yearInt == 2) yearDisplay = "2nd Year";
-                        else if (yearInt == 3) yearDisplay = "3rd Year";
-                        else if (yearInt == 4) yearDisplay = "4th Year";
-                        else yearDisplay = "All";
-                        
-                        // Apply branch filter
-                        if (!"All".equals(selectedBranch) && !branchDisplay.equalsIgnoreCase(selectedBranch)) continue;
-                        
-                        // Apply year filter
-                        if (!"All".equals(selectedYear)) {
-                            try {
-                                int selectedYearInt = Integer.parseInt(selectedYear.replaceAll("[^0-9]", ""));
-                                if (yearInt > 0 && yearInt != selectedYearInt) continue;
-                            } catch (NumberFormatException ignored) {}
-                        }
-
-                        addedCourses.add(uniqueKey);
-                        String actionLabel = "<html><span style='color:#E74C3C; font-weight:bold;'>Un-offer</span></html>";
-
-                        tableModel.addRow(new Object[]{
-                                courseCode,  // Column 0: Course Code
-                                branchDisplay,
-                                yearDisplay,
-                                credits,
-                                "Active",
-                                actionLabel
-                        });
-                    }
-                }
-            } catch (SQLException ex) {
-                JOptionPane.showMessageDialog(mainPanel, "Error loading offered courses: " + ex.getMessage(), "DB Error", JOptionPane.ERROR_MESSAGE);
-            }
+            offeredLoads.submit(() -> loadOfferedCourseRows(searchText, selectedBranch, selectedYear), rows -> {
+                tableModel.setRowCount(0);
+                for (Object[] row : rows) tableModel.addRow(row);
+            }, ex -> JOptionPane.showMessageDialog(mainPanel, "Error loading offered courses: " + ex.getMessage(), "DB Error", JOptionPane.ERROR_MESSAGE));
         };
 
         // Add action listener to table for Un-offer button
@@ -2964,15 +2875,20 @@ private String safeGetString(Object obj, String getterName) {
                             return;
                         }
                         
-                        try (Connection c = DriverManager.getConnection(DatabaseConfig.getDatabaseUrl())) {
-                            // Delete based on the composite key (Code, Branch, Year)
-                            String deleteSql = "DELETE FROM offerings WHERE course_code = ? AND branch = ? AND year = ?";
-                            try (PreparedStatement ps = c.prepareStatement(deleteSql)) {
-                                ps.setString(1, courseCode);
-                                ps.setString(2, branch.equalsIgnoreCase("All") ? "" : branch);
-                                ps.setInt(3, year); 
-                                ps.executeUpdate();
-                            }
+                        int offeredYear = year;
+                        try {
+                            DatabaseConfig.write(c -> {
+                                // Delete based on the composite key (Code, Branch, Year)
+                                String deleteSql = "DELETE FROM offerings WHERE course_code = ? AND branch = ? AND year = ?";
+                                try (PreparedStatement ps = c.prepareStatement(deleteSql)) {
+                                    ps.setString(1, courseCode);
+                                    ps.setString(2, branch.equalsIgnoreCase("All") ? "" : branch);
+                                    ps.setInt(3, offeredYear);
+                                    ps.executeUpdate();
+                                }
+                                ChangeBus.publish(ChangeBus.Topic.OFFERINGS);
+                                return null;
+                            });
                             JOptionPane.showMessageDialog(mainPanel, "Course un-offered successfully!", "Success", JOptionPane.INFORMATION_MESSAGE);
                             loadOfferedCourses.run();
                         } catch (SQLException ex) {
@@ -3002,6 +2918,73 @@ private String safeGetString(Object obj, String getterName) {
         return mainPanel;
     }
 
+    /** Offered-course rows matching the search and branch/year filters; runs off the EDT. */
+    private java.util.List<Object[]> loadOfferedCourseRows(String searchText, String selectedBranch, String selectedYear) throws SQLException {
+        java.util.List<Object[]> rows = new java.util.ArrayList<>();
+        // FIX: Correctly JOIN the offerings table with the persistent courses table
+        String sql = "SELECT o.course_code, c.name AS name, COALESCE(c.credits,4) AS credits, o.branch, o.year " +
+                "FROM offerings o LEFT JOIN courses c ON o.course_code = c.code ORDER BY o.course_code";
+
+        try (Connection c = DatabaseConfig.getConnection();
+             PreparedStatement ps = c.prepareStatement(sql)) {
+            try (ResultSet rs = ps.executeQuery()) {
+                java.util.Set<String> addedCourses = new java.util.HashSet<>();
+                while (rs.next()) {
+                    String courseCode = rs.getString("course_code");
+                    String courseName = rs.getString("name");
+                    String credits = String.valueOf(rs.getInt("credits")); 
+
+                    String uniqueKey = courseCode + rs.getString("branch") + rs.getInt("year");
+                    if (addedCourses.contains(uniqueKey)) continue;
+
+                    // Apply search filter
+                    if (!searchText.isEmpty()) {
+                        if (!courseCode.toLowerCase().contains(searchText) &&
+                            !(courseName != null && courseName.toLowerCase().contains(searchText))) {
+                            continue;
+                        }
+                    }
+
+                    // Get branch/year details
+                    String branchDisplay = rs.getString("branch") == null || rs.getString("branch").isEmpty() ? "All" : rs.getString("branch");
+                    int yearInt = rs.getInt("year");
+                    
+                    // FIX: Correct Year Display Format (1 -> 1st Year)
+                    String yearDisplay;
+                    if (yearInt == 1) yearDisplay = "1st Year";
+                    else if (yearInt == 2) yearDisplay = "2nd Year";
+                    else if (yearInt == 3) yearDisplay = "3rd Year";
+                    else if (yearInt == 4) yearDisplay = "4th Year";
+                    else yearDisplay = "All";
+                    
+                    // Apply branch filter
+                    if (!"All".equals(selectedBranch) && !branchDisplay.equalsIgnoreCase(selectedBranch)) continue;
+                    
+                    // Apply year filter
+                    if (!"All".equals(selectedYear)) {
+                        try {
+                            int selectedYearInt = Integer.parseInt(selectedYear.replaceAll("[^0-9]", ""));
+                            if (yearInt > 0 && yearInt != selectedYearInt) continue;
+                        } catch (NumberFormatException ignored) {}
+                    }
+
+                    addedCourses.add(uniqueKey);
+                    String actionLabel = "<html><span style='color:#E74C3C; font-weight:bold;'>Un-offer</span></html>";
+
+                    rows.add(new Object[]{
+                            courseCode,  // Column 0: Course Code
+                            branchDisplay,
+                            yearDisplay,
+                            credits,
+                            "Active",
+                            actionLabel
+                    });
+                }
+            }
+        }
+        return rows;
+    }
+
     private String extractBranchFromCode(String courseCode) {
         if (courseCode == null || courseCode.isEmpty()) return "Unknown";
         String prefix = courseCode.replaceAll("[0-9]", "").toUpperCase();
@@ -3021,69 +3004,59 @@ private String safeGetString(Object obj, String getterName) {
 
     private int importStudentsFromCSV(File file) throws Exception {
         int importedCount = 0;
+        java.util.List<String[]> pending = new java.util.ArrayList<>();
 
-        try (java.io.BufferedReader reader = new java.io.BufferedReader(new java.io.FileReader(file));
-             Connection conn = DriverManager.getConnection(DatabaseConfig.getDatabaseUrl())) {
-
+        try (java.io.BufferedReader reader = new java.io.BufferedReader(new java.io.FileReader(file))) {
             String line;
             boolean isFirstLine = true;
-            
+
             // Expected CSV format: id, name, email, branch, year_of_study, section, admission_year, status
-            String insertSQL = "INSERT OR REPLACE INTO students (id, name, email, branch, year_of_study, section, admission_year, status, degree) " +
-                               "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?)";
+            while ((line = reader.readLine()) != null) {
+                // Skip header line
+                if (isFirstLine) {
+                    isFirstLine = false;
+                    continue;
+                }
 
-            try (PreparedStatement pstmt = conn.prepareStatement(insertSQL)) {
-                while ((line = reader.readLine()) != null) {
-                    // Skip header line
-                    if (isFirstLine) {
-                        isFirstLine = false;
-                        continue;
-                    }
+                String[] parts = line.split(",");
+                if (parts.length < 8) {
+                    continue; // Skip invalid lines
+                }
 
-                    String[] parts = line.split(",");
-                    if (parts.length < 8) {
-                        continue; // Skip invalid lines
-                    }
+                String[] row = new String[8];
+                for (int i = 0; i < 8; i++) row[i] = parts[i].trim();
+                pending.add(row);
+                importedCount++;
 
-                    try {
-                        String id = parts[0].trim();
-                        String name = parts[1].trim();
-                        String email = parts[2].trim();
-                        String branch = parts[3].trim();
-                        String yearOfStudy = parts[4].trim();
-                        String section = parts[5].trim();
-                        String admissionYear = parts[6].trim();
-                        String status = parts[7].trim();
-
-                        pstmt.setString(1, id);
-                        pstmt.setString(2, name);
-                        pstmt.setString(3, email);
-                        pstmt.setString(4, branch);
-                        pstmt.setString(5, yearOfStudy);
-                        pstmt.setString(6, section);
-                        pstmt.setString(7, admissionYear);
-                        pstmt.setString(8, status);
-                        pstmt.setString(9, "Bachelor");
-
-                        pstmt.addBatch();
-                        importedCount++;
-
-                        if (importedCount % 100 == 0) {
-                            pstmt.executeBatch();
-                        }
-                    } catch (Exception ex) {
-                        System.err.println("Error parsing line: " + line + " - " + ex.getMessage());
-                    }
+                // Hand rows to the database writer in chunks so other users' writes interleave with the import
+                if (pending.size() == 100) {
+                    writeImportedStudents(pending);
+                    pending = new java.util.ArrayList<>();
                 }
-
-                // Execute remaining batch
-                pstmt.executeBatch();
             }
         }
 
+        // Write remaining rows
+        if (!pending.isEmpty()) writeImportedStudents(pending);
+
         return importedCount;
     }
 
+    private void writeImportedStudents(java.util.List<String[]> rows) throws SQLException {
+        String insertSQL = "INSERT OR REPLACE INTO students (id, name, email, branch, year_of_study, section, admission_year, status, degree) " +
+                           "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?)";
+        DatabaseConfig.write(conn -> {
+            try (PreparedStatement pstmt = conn.prepareStatement(insertSQL)) {
+                for (String[] row : rows) {
+                    for (int i = 0; i < 8; i++) pstmt.setString(i + 1, row[i]);
+                    pstmt.setString(9, "Bachelor");
+                    pstmt.addBatch();
+                }
+                return pstmt.executeBatch();
+            }
+        });
+    }
+
     private void refreshStudentsPanel() {
         // Find and refresh the students panel if it's currently displayed
         Component[] components = mainContentPanel.getComponents();
@@ -19,6 +19,8 @@ public class CourseDAO {
     // In-memory store for the session. Seeded on first construction.
     private static final List<Course> STORE = new ArrayList<>();
     private static boolean seeded = false;
+    // Prerequisites of STORE, kept in step by every change below
+    private static final PrerequisiteGraph PREREQUISITES = new PrerequisiteGraph();
 
     public CourseDAO() {
         synchronized (STORE) {
@@ -62,6 +64,8 @@ public class CourseDAO {
                 STORE.add(new Course("HCD310", "Human Centred Design Studio", "DES", "None"));
                 STORE.add(new Course("CSAM101", "Computational Algebra", "CSE", "MTH101"));
                 STORE.add(new Course("OTHER001", "Intro to Interdisciplinary Studies", "OTHER", "None"));
+                PREREQUISITES.rebuild(STORE);
+                for (String code : PREREQUISITES.unknownPrerequisites().keySet()) warnUnknownPrerequisites(code);
             }
         }
     }
@@ -74,7 +78,10 @@ public class CourseDAO {
         synchronized (STORE) {
             // avoid duplicates by code
             for (Course e : STORE) if (e.code.equalsIgnoreCase(c.code)) return false;
-            return STORE.add(c);
+            STORE.add(c);
+            PREREQUISITES.update(c.code, c.prerequisites);
+            warnUnknownPrerequisites(c.code);
+            return true;
         }
     }
 
@@ -86,6 +93,10 @@ public class CourseDAO {
                     // replace with new Course object but keep the same code if provided
                     Course nc = new Course(code, updated.title, updated.department, updated.prerequisites);
                     STORE.set(i, nc);
+                    if (!nc.prerequisites.equals(c.prerequisites)) {
+                        PREREQUISITES.update(code, nc.prerequisites);
+                        warnUnknownPrerequisites(code);
+                    }
                     return true;
                 }
             }
@@ -97,12 +108,23 @@ public class CourseDAO {
         synchronized (STORE) {
             Iterator<Course> it = STORE.iterator();
             while (it.hasNext()) {
-                if (it.next().code.equalsIgnoreCase(code)) { it.remove(); return true; }
+                if (it.next().code.equalsIgnoreCase(code)) { it.remove(); PREREQUISITES.remove(code); return true; }
             }
             return false;
         }
     }
 
+    // Prerequisites naming no catalog course are ignored by the graph; say so rather than drop them silently
+    private static void warnUnknownPrerequisites(String code) {
+        List<String> unknown = PREREQUISITES.unknownPrerequisites().get(code.trim().toUpperCase());
+        if (unknown != null) System.err.println("Course " + code + ": prerequisite(s) not in the catalog, ignored: " + String.join(", ", unknown));
+    }
+
+    /** The prerequisite graph of the catalog. */
+    public PrerequisiteGraph prerequisites() {
+        return PREREQUISITES;
+    }
+
     public List<Course> search(String q, List<String> departments) {
         if (q == null) q = "";
         final String like = q.trim().toLowerCase();
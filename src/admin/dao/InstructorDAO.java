@@ -1,30 +1,37 @@
 package admin.dao;
 
 import domain.Instructor;
+import auth.PersonResolver;
 import login.DatabaseConfig;
+import login.SchemaRegistry;
 import java.sql.*;
 import java.util.ArrayList;
 import java.util.List;
 
 public class InstructorDAO {
+    // Default instructors are seeded at most once per process
+    private static final java.util.concurrent.atomic.AtomicBoolean SEED_CHECKED = new java.util.concurrent.atomic.AtomicBoolean(false);
+
     public InstructorDAO() {
-        try { Class.forName("org.sqlite.JDBC"); } catch (ClassNotFoundException ignored) {}
-        try { ensureTables(); seedDefaultInstructors(); } catch (Exception ex) { System.err.println("InstructorDAO init failed: " + ex.getMessage()); }
+        SchemaRegistry.ensureSchema();
+        if (SEED_CHECKED.compareAndSet(false, true)) {
+            try { seedDefaultInstructors(); } catch (Exception ex) { System.err.println("InstructorDAO init failed: " + ex.getMessage()); }
+        }
     }
 
-    private Connection conn() throws SQLException { return DriverManager.getConnection(DatabaseConfig.getDatabaseUrl()); }
+    private Connection conn() throws SQLException { return DatabaseConfig.getConnection(); }
 
-    private void ensureTables() throws SQLException {
-        try (Connection c = conn(); Statement s = c.createStatement()) {
-            s.execute("CREATE TABLE IF NOT EXISTS instructors (id TEXT PRIMARY KEY, name TEXT NOT NULL, email TEXT, department TEXT, status TEXT, created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP, updated_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP)");
-            s.execute("CREATE TABLE IF NOT EXISTS instructor_courses (instructor_id TEXT, course_code TEXT, assigned_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP, PRIMARY KEY(instructor_id, course_code))");
-        }
+    /** Names and ids feed the login-to-person mapping; a successful change re-resolves sessions. */
+    private static boolean changed(boolean ok) {
+        if (ok) PersonResolver.invalidate();
+        return ok;
     }
 
+    public static final String LIST_ALL_SQL = "SELECT id,name,email,department,status FROM instructors ORDER BY id";
+
     public List<Instructor> listAll() {
         List<Instructor> out = new ArrayList<>();
-        String sql = "SELECT id,name,email,department,status FROM instructors ORDER BY id";
-        try (Connection c = conn(); PreparedStatement p = c.prepareStatement(sql); ResultSet rs = p.executeQuery()) {
+        try (Connection c = conn(); PreparedStatement p = c.prepareStatement(LIST_ALL_SQL); ResultSet rs = p.executeQuery()) {
             while (rs.next()) {
                 Instructor i = new Instructor();
                 i.setId(rs.getString("id"));
@@ -39,8 +46,8 @@ public class InstructorDAO {
     }
 
     private void seedDefaultInstructors() {
-        try {
-            if (listAll().size() > 0) return; // already seeded
+        try (Connection c = conn(); PreparedStatement p = c.prepareStatement("SELECT 1 FROM instructors LIMIT 1"); ResultSet rs = p.executeQuery()) {
+            if (rs.next()) return; // already seeded
         } catch (Exception ignored) {}
 
         java.util.List<Instructor> seeds = new java.util.ArrayList<>();
@@ -81,30 +88,44 @@ public class InstructorDAO {
         seeds.add(new Instructor("INS035","Md Shad Akhtar","md.shad@iiitd.ac.in","COMPUTER SCIENCE","Active"));
         seeds.add(new Instructor("INS036","Monika Arora","monika.arora@iiitd.ac.in","MATHEMATICS","Active"));
 
-        for (Instructor ins : seeds) {
-            try { create(ins); } catch (Exception ex) { System.err.println("seed create failed: " + ex.getMessage()); }
-        }
+        // One writer task for the whole seed list, so it is committed in a single transaction
+        try {
+            DatabaseConfig.write(c -> {
+                for (Instructor ins : seeds) {
+                    try { create(ins); } catch (Exception ex) { System.err.println("seed create failed: " + ex.getMessage()); }
+                }
+                return null;
+            });
+        } catch (SQLException ex) { System.err.println("seed instructors failed: " + ex.getMessage()); }
     }
 
     public boolean create(Instructor i) {
         String sql = "INSERT INTO instructors (id,name,email,department,status) VALUES (?, ?, ?, ?, ?)";
-        try (Connection c = conn(); PreparedStatement p = c.prepareStatement(sql)) {
-            p.setString(1, i.getId()); p.setString(2, i.getName()); p.setString(3, i.getEmail()); p.setString(4, i.getDepartment()); p.setString(5, i.getStatus());
-            int r = p.executeUpdate(); return r == 1;
+        try {
+            return changed(DatabaseConfig.write(c -> {
+                try (PreparedStatement p = c.prepareStatement(sql)) {
+                    p.setString(1, i.getId()); p.setString(2, i.getName()); p.setString(3, i.getEmail()); p.setString(4, i.getDepartment()); p.setString(5, i.getStatus());
+                    int r = p.executeUpdate(); return r == 1;
+                }
+            }));
         } catch (SQLException ex) { System.err.println("create instructor failed: " + ex.getMessage()); return false; }
     }
 
     public boolean update(Instructor i) {
         String sql = "UPDATE instructors SET name = ?, email = ?, department = ?, status = ?, updated_at = CURRENT_TIMESTAMP WHERE id = ?";
-        try (Connection c = conn(); PreparedStatement p = c.prepareStatement(sql)) {
-            p.setString(1, i.getName()); p.setString(2, i.getEmail()); p.setString(3, i.getDepartment()); p.setString(4, i.getStatus()); p.setString(5, i.getId());
-            return p.executeUpdate() == 1;
+        try {
+            return changed(DatabaseConfig.write(c -> {
+                try (PreparedStatement p = c.prepareStatement(sql)) {
+                    p.setString(1, i.getName()); p.setString(2, i.getEmail()); p.setString(3, i.getDepartment()); p.setString(4, i.getStatus()); p.setString(5, i.getId());
+                    return p.executeUpdate() == 1;
+                }
+            }));
         } catch (SQLException ex) { System.err.println("update instructor failed: " + ex.getMessage()); return false; }
     }
 
     public boolean delete(String id) {
         String sql = "DELETE FROM instructors WHERE id = ?";
-        try (Connection c = conn(); PreparedStatement p = c.prepareStatement(sql)) { p.setString(1, id); return p.executeUpdate() == 1; }
+        try { return changed(DatabaseConfig.write(c -> { try (PreparedStatement p = c.prepareStatement(sql)) { p.setString(1, id); return p.executeUpdate() == 1; } })); }
         catch (SQLException ex) { throw new RuntimeException(ex); }
     }
 
@@ -127,17 +148,21 @@ public class InstructorDAO {
 
     public boolean assignCourse(String instructorId, String courseCode) {
         String sql = "INSERT OR IGNORE INTO instructor_courses (instructor_id, course_code) VALUES (?, ?)";
-        try (Connection c = conn(); PreparedStatement p = c.prepareStatement(sql)) { p.setString(1, instructorId); p.setString(2, courseCode); return p.executeUpdate() >= 0; }
+        try { return DatabaseConfig.write(c -> { try (PreparedStatement p = c.prepareStatement(sql)) { p.setString(1, instructorId); p.setString(2, courseCode); return p.executeUpdate() >= 0; } }); }
         catch (SQLException ex) { System.err.println("assignCourse failed: " + ex.getMessage()); return false; }
     }
 
     // Remove a specific assignment of a course from an instructor
     public boolean removeAssignment(String instructorId, String courseCode) {
         String sql = "DELETE FROM instructor_courses WHERE instructor_id = ? AND course_code = ?";
-        try (Connection c = conn(); PreparedStatement p = c.prepareStatement(sql)) {
-            p.setString(1, instructorId);
-            p.setString(2, courseCode);
-            return p.executeUpdate() == 1;
+        try {
+            return DatabaseConfig.write(c -> {
+                try (PreparedStatement p = c.prepareStatement(sql)) {
+                    p.setString(1, instructorId);
+                    p.setString(2, courseCode);
+                    return p.executeUpdate() == 1;
+                }
+            });
         } catch (SQLException ex) {
             System.err.println("removeAssignment failed: " + ex.getMessage());
             return false;
@@ -171,11 +196,37 @@ public class InstructorDAO {
         return out;
     }
 
+    public static final String ALL_ASSIGNMENTS_SQL = "SELECT instructor_id, course_code FROM instructor_courses ORDER BY instructor_id, course_code";
+    public static final String ALL_SECTION_COURSES_SQL = "SELECT DISTINCT instructor_id, course_code FROM sections WHERE instructor_id IS NOT NULL AND TRIM(course_code) <> '' ORDER BY instructor_id, course_code";
+
+    /**
+     * Assigned courses of every instructor, for the admin instructor list: instructor_courses,
+     * or the courses of their sections when they have no mapping. Two reads for the whole list.
+     */
+    public java.util.Map<String, List<String>> getAssignedCoursesForAll() {
+        java.util.Map<String, List<String>> out = new java.util.HashMap<>();
+        try (Connection c = conn()) {
+            try (PreparedStatement p = c.prepareStatement(ALL_ASSIGNMENTS_SQL); ResultSet rs = p.executeQuery()) {
+                while (rs.next()) out.computeIfAbsent(rs.getString(1), k -> new ArrayList<>()).add(rs.getString(2));
+            }
+            java.util.Map<String, List<String>> fromSections = new java.util.HashMap<>();
+            try (PreparedStatement p = c.prepareStatement(ALL_SECTION_COURSES_SQL); ResultSet rs = p.executeQuery()) {
+                while (rs.next()) {
+                    if (out.containsKey(rs.getString(1))) continue;
+                    fromSections.computeIfAbsent(rs.getString(1), k -> new ArrayList<>()).add(rs.getString(2));
+                }
+            }
+            out.putAll(fromSections);
+        } catch (SQLException ex) { throw new RuntimeException(ex); }
+        return out;
+    }
+
+    public static final String COURSE_INSTRUCTORS_SQL = "SELECT i.name FROM instructors i JOIN instructor_courses ic ON i.id = ic.instructor_id WHERE ic.course_code = ? ORDER BY i.id";
+
     // Return list of instructor names assigned to a given course code
     public List<String> getInstructorsForCourse(String courseCode) {
         List<String> out = new ArrayList<>();
-        String sql = "SELECT i.name FROM instructors i JOIN instructor_courses ic ON i.id = ic.instructor_id WHERE ic.course_code = ? ORDER BY i.id";
-        try (Connection c = conn(); PreparedStatement p = c.prepareStatement(sql)) {
+        try (Connection c = conn(); PreparedStatement p = c.prepareStatement(COURSE_INSTRUCTORS_SQL)) {
             p.setString(1, courseCode);
             try (ResultSet rs = p.executeQuery()) {
                 while (rs.next()) out.add(rs.getString(1));
@@ -184,13 +235,28 @@ public class InstructorDAO {
         return out;
     }
 
+    public static final String ALL_COURSE_INSTRUCTORS_SQL = "SELECT ic.course_code, i.name FROM instructors i JOIN instructor_courses ic ON i.id = ic.instructor_id ORDER BY ic.course_code, i.id";
+
+    /** Instructor names of every course (course_code -> names), one read for the admin course list. */
+    public java.util.Map<String, List<String>> getInstructorsByCourse() {
+        java.util.Map<String, List<String>> out = new java.util.HashMap<>();
+        try (Connection c = conn(); PreparedStatement p = c.prepareStatement(ALL_COURSE_INSTRUCTORS_SQL); ResultSet rs = p.executeQuery()) {
+            while (rs.next()) out.computeIfAbsent(rs.getString(1), k -> new ArrayList<>()).add(rs.getString(2));
+        } catch (SQLException ex) { throw new RuntimeException(ex); }
+        return out;
+    }
+
     // Remove all assignments for a given course (used when deleting a course)
     public boolean removeAssignmentsByCourse(String courseCode) {
         String sql = "DELETE FROM instructor_courses WHERE course_code = ?";
-        try (Connection c = conn(); PreparedStatement p = c.prepareStatement(sql)) {
-            p.setString(1, courseCode);
-            p.executeUpdate();
-            return true;
+        try {
+            return DatabaseConfig.write(c -> {
+                try (PreparedStatement p = c.prepareStatement(sql)) {
+                    p.setString(1, courseCode);
+                    p.executeUpdate();
+                    return true;
+                }
+            });
         } catch (SQLException ex) { System.err.println("removeAssignmentsByCourse failed: " + ex.getMessage()); return false; }
     }
 }
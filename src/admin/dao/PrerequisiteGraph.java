@@ -0,0 +1,312 @@
+package admin.dao;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * Prerequisites of the course catalog as a graph, with each course's transitive closure kept
+ * as a bitset over course indexes.
+ *
+ * Every code named anywhere (catalog courses and codes only mentioned as a prerequisite) gets
+ * an index. A student's completed courses become one "satisfied" bitset, each course plus its
+ * closure (passing CSE102 implies CS101 is behind them), and a course is open to the student
+ * when its direct prerequisites are all in that set: one AND per 64 courses.
+ *
+ * Only catalog courses count as prerequisites. A code that names no course (a typo, or a
+ * course since deleted) can never be passed, so it is left out of the direct and closure sets
+ * and listed by {@link #unknownPrerequisites()}; it links up again if that course is added.
+ *
+ * The prerequisite text is a list of codes separated by commas, semicolons, slashes, spaces or
+ * "and"; all are required. "None" or empty means none. A course can't require itself, even
+ * through a cycle.
+ *
+ * Readers take the current state without locking; changes build a new one. Changing one
+ * course's prerequisites recomputes only the closures that contain that course.
+ */
+public final class PrerequisiteGraph {
+
+    /** Immutable: replaced whole on every change. */
+    private static final class State {
+        final Map<String, Integer> index;
+        final String[] codes;
+        /** Catalog courses among the codes. */
+        final long[] catalog;
+        /** Prerequisites as written, catalog courses or not. */
+        final long[][] declared;
+        /** declared restricted to catalog courses: what eligibility and closures use. */
+        final long[][] direct;
+        final long[][] closure;
+
+        State(Map<String, Integer> index, String[] codes, long[] catalog, long[][] declared, long[][] direct, long[][] closure) {
+            this.index = index;
+            this.codes = codes;
+            this.catalog = catalog;
+            this.declared = declared;
+            this.direct = direct;
+            this.closure = closure;
+        }
+
+        int words() {
+            return words(codes.length);
+        }
+
+        static int words(int n) {
+            return Math.max(1, (n + 63) >>> 6);
+        }
+    }
+
+    private volatile State state = new State(Map.of(), new String[0], new long[1], new long[0][], new long[0][], new long[0][]);
+
+    /** Replace the whole graph with the given courses' prerequisites. */
+    public synchronized void rebuild(Collection<CourseDAO.Course> courses) {
+        Map<String, List<String>> edges = new HashMap<>();
+        Map<String, Integer> index = new HashMap<>();
+        List<String> codes = new ArrayList<>();
+        for (CourseDAO.Course c : courses) {
+            List<String> pre = parse(c.prerequisites);
+            edges.put(normalize(c.code), pre);
+            intern(normalize(c.code), index, codes);
+            for (String p : pre) intern(p, index, codes);
+        }
+        int words = State.words(codes.size());
+        long[] catalog = new long[words];
+        for (String code : edges.keySet()) set(catalog, index.get(code));
+        long[][] declared = new long[codes.size()][words];
+        long[][] direct = new long[codes.size()][words];
+        for (Map.Entry<String, List<String>> e : edges.entrySet()) {
+            int i = index.get(e.getKey());
+            for (String p : e.getValue()) set(declared[i], index.get(p));
+            direct[i] = restrict(declared[i], catalog);
+        }
+        State s = new State(index, codes.toArray(new String[0]), catalog, declared, direct, new long[codes.size()][words]);
+        boolean[] all = new boolean[codes.size()];
+        Arrays.fill(all, true);
+        recompute(s, all);
+        state = s;
+    }
+
+    /**
+     * Set one course's prerequisites (a new course or changed text) and recompute the closures
+     * that change: the course's own and every closure containing it. A new course that others
+     * already named also becomes their prerequisite.
+     */
+    public synchronized void update(String code, String prerequisites) {
+        change(normalize(code), parse(prerequisites), true);
+    }
+
+    /**
+     * Remove a deleted course: it is no longer a prerequisite of anything, and the closures that
+     * went through it are recomputed. Courses naming it report it as unknown from then on.
+     */
+    public synchronized void remove(String code) {
+        if (!state.index.containsKey(normalize(code))) return;
+        change(normalize(code), List.of(), false);
+    }
+
+    private void change(String key, List<String> pre, boolean inCatalog) {
+        State old = state;
+        Map<String, Integer> index = old.index;
+        List<String> codes = Arrays.asList(old.codes);
+        boolean known = index.containsKey(key);
+        for (String p : pre) known &= index.containsKey(p);
+        if (!known) {
+            index = new HashMap<>(old.index);
+            codes = new ArrayList<>(codes);
+            intern(key, index, codes);
+            for (String p : pre) intern(p, index, codes);
+        }
+        int n = codes.size();
+        int words = State.words(n);
+        int k = index.get(key);
+        long[] catalog = widen(old.catalog, words);
+        boolean wasInCatalog = k < old.codes.length && get(old.catalog, k);
+        if (wasInCatalog != inCatalog) {
+            catalog = catalog.clone();
+            if (inCatalog) set(catalog, k); else catalog[k >>> 6] &= ~(1L << k);
+        }
+        long[][] declared = new long[n][];
+        long[][] direct = new long[n][];
+        long[][] closure = new long[n][];
+        // Rows are never written once built: share them unless new codes widened the sets
+        for (int i = 0; i < n; i++) {
+            declared[i] = i < old.codes.length ? widen(old.declared[i], words) : new long[words];
+            direct[i] = i < old.codes.length ? widen(old.direct[i], words) : new long[words];
+            closure[i] = i < old.codes.length ? widen(old.closure[i], words) : new long[words];
+        }
+        long[] row = new long[words];
+        for (String p : pre) set(row, index.get(p));
+        declared[k] = row;
+        direct[k] = restrict(row, catalog);
+        // Courses whose direct edges change: this one, and those naming it when it joins or leaves the catalog
+        long[] changed = new long[words];
+        set(changed, k);
+        if (wasInCatalog != inCatalog) {
+            for (int i = 0; i < n; i++) {
+                if (i == k || !get(declared[i], k)) continue;
+                direct[i] = restrict(declared[i], catalog);
+                set(changed, i);
+            }
+        }
+        boolean[] affected = new boolean[n];
+        for (int i = 0; i < n; i++) affected[i] = get(changed, i) || intersects(closure[i], changed);
+        State s = new State(index, known ? old.codes : codes.toArray(new String[0]), catalog, declared, direct, closure);
+        recompute(s, affected);
+        state = s;
+    }
+
+    /** Each catalog course that names codes which aren't catalog courses, with those codes; in code order. */
+    public Map<String, List<String>> unknownPrerequisites() {
+        State s = state;
+        Map<String, List<String>> out = new TreeMap<>();
+        for (int i = 0; i < s.codes.length; i++) {
+            if (!get(s.catalog, i)) continue;
+            long[] row = s.declared[i];
+            for (int w = 0; w < row.length; w++) {
+                for (long bits = row[w] & ~s.catalog[w]; bits != 0; bits &= bits - 1) {
+                    out.computeIfAbsent(s.codes[i], c -> new ArrayList<>()).add(s.codes[(w << 6) + Long.numberOfTrailingZeros(bits)]);
+                }
+            }
+        }
+        return out;
+    }
+
+    /** Courses the student has passed, with everything those imply; feed to {@link #eligible}. */
+    public long[] satisfied(Collection<String> completedCodes) {
+        State s = state;
+        long[] out = new long[s.words()];
+        for (String code : completedCodes) {
+            Integer i = s.index.get(normalize(code));
+            if (i == null) continue;
+            set(out, i);
+            long[] c = s.closure[i];
+            for (int w = 0; w < out.length; w++) out[w] |= c[w];
+        }
+        return out;
+    }
+
+    /** True when every direct prerequisite of the course is in the satisfied set; unknown courses have none. */
+    public boolean eligible(long[] satisfied, String courseCode) {
+        State s = state;
+        Integer i = courseCode == null ? null : s.index.get(normalize(courseCode));
+        if (i == null) return true;
+        long[] need = s.direct[i];
+        for (int w = 0; w < need.length; w++) {
+            long have = w < satisfied.length ? satisfied[w] : 0;
+            if ((need[w] & ~have) != 0) return false;
+        }
+        return true;
+    }
+
+    /** The course's direct prerequisites missing from the satisfied set, in catalog order. */
+    public List<String> missing(long[] satisfied, String courseCode) {
+        State s = state;
+        List<String> out = new ArrayList<>();
+        Integer i = courseCode == null ? null : s.index.get(normalize(courseCode));
+        if (i == null) return out;
+        for (int p = 0; p < s.codes.length; p++) {
+            if (get(s.direct[i], p) && !(p >>> 6 < satisfied.length && get(satisfied, p))) out.add(s.codes[p]);
+        }
+        return out;
+    }
+
+    /** Every course the given one needs, directly or not. */
+    public Set<String> closure(String courseCode) {
+        State s = state;
+        Set<String> out = new LinkedHashSet<>();
+        Integer i = s.index.get(normalize(courseCode));
+        if (i == null) return out;
+        for (int p = 0; p < s.codes.length; p++) if (get(s.closure[i], p)) out.add(s.codes[p]);
+        return out;
+    }
+
+    /** Codes in a prerequisite text, upper-cased, without duplicates. */
+    public static List<String> parse(String text) {
+        List<String> out = new ArrayList<>();
+        if (text == null) return out;
+        for (String token : text.split("[,;/&\\s]+")) {
+            String t = token.trim();
+            if (t.isEmpty() || t.equalsIgnoreCase("none") || t.equalsIgnoreCase("and") || t.equals("-")) continue;
+            t = normalize(t);
+            if (!out.contains(t)) out.add(t);
+        }
+        return out;
+    }
+
+    private static String normalize(String code) {
+        return code.trim().toUpperCase();
+    }
+
+    private static void intern(String code, Map<String, Integer> index, List<String> codes) {
+        if (index.containsKey(code)) return;
+        index.put(code, codes.size());
+        codes.add(code);
+    }
+
+    /**
+     * Closures of the marked courses from the direct edges. A walk stops at an unmarked course
+     * and takes its closure as it is, so an update costs the size of what it touches.
+     */
+    private static void recompute(State s, boolean[] marked) {
+        int n = s.codes.length;
+        int[] seen = new int[n];
+        int pass = 0;
+        ArrayDeque<Integer> queue = new ArrayDeque<>();
+        for (int i = 0; i < n; i++) {
+            if (!marked[i]) continue;
+            pass++;
+            long[] out = new long[s.words()];
+            queue.add(i);
+            seen[i] = pass;
+            while (!queue.isEmpty()) {
+                long[] row = s.direct[queue.poll()];
+                for (int w = 0; w < row.length; w++) {
+                    for (long bits = row[w]; bits != 0; bits &= bits - 1) {
+                        int p = (w << 6) + Long.numberOfTrailingZeros(bits);
+                        if (seen[p] == pass) continue;
+                        seen[p] = pass;
+                        set(out, p);
+                        if (marked[p]) {
+                            queue.add(p);
+                        } else {
+                            long[] c = s.closure[p];
+                            for (int x = 0; x < out.length; x++) out[x] |= c[x];
+                        }
+                    }
+                }
+            }
+            out[i >>> 6] &= ~(1L << i);
+            s.closure[i] = out;
+        }
+    }
+
+    private static long[] restrict(long[] row, long[] mask) {
+        long[] out = new long[row.length];
+        for (int w = 0; w < row.length; w++) out[w] = row[w] & mask[w];
+        return out;
+    }
+
+    private static boolean intersects(long[] a, long[] b) {
+        for (int w = 0; w < a.length; w++) if ((a[w] & b[w]) != 0) return true;
+        return false;
+    }
+
+    private static long[] widen(long[] row, int words) {
+        return row.length == words ? row : Arrays.copyOf(row, words);
+    }
+
+    private static void set(long[] bits, int i) {
+        bits[i >>> 6] |= 1L << i;
+    }
+
+    private static boolean get(long[] bits, int i) {
+        return (bits[i >>> 6] & (1L << i)) != 0;
+    }
+}
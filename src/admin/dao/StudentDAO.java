@@ -1,7 +1,10 @@
 package admin.dao;
 
 import domain.Student;
+import auth.PersonResolver;
 import login.DatabaseConfig;
+import login.SchemaRegistry;
+import login.StudentChanges;
 import java.sql.*;
 import java.util.ArrayList;
 import java.util.List;
@@ -13,87 +16,21 @@ import java.util.Optional;
  */
 public class StudentDAO {
     public StudentDAO() {
-        try {
-            Class.forName("org.sqlite.JDBC");
-        } catch (ClassNotFoundException e) {
-            System.err.println("SQLite JDBC driver not found: " + e.getMessage());
-        }
-        // Ensure students table exists
-        try {
-            ensureStudentsTableExists();
-            ensureExtendedColumns();
-        } catch (Exception ex) {
-            System.err.println("Warning: could not ensure student table: " + ex.getMessage());
-        }
+        // Tables and columns are verified once per process, not on every construction
+        SchemaRegistry.ensureSchema();
     }
 
-    private void ensureStudentsTableExists() throws SQLException {
-        try (Connection c = conn(); Statement s = c.createStatement()) {
-            s.execute("CREATE TABLE IF NOT EXISTS students (" +
-                    "id TEXT PRIMARY KEY, " +
-                    "name TEXT NOT NULL, " +
-                    "email TEXT, " +
-                    "section TEXT, " +
-                    "status TEXT, " +
-                    "degree TEXT, " +
-                    "branch TEXT, " +
-                    "year_of_study TEXT, " +
-                    "admission_year TEXT, " +
-                    "created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP, " +
-                    "updated_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP)");
-        }
+    private Connection conn() throws SQLException {
+        return DatabaseConfig.getConnection();
     }
 
-    private void ensureExtendedColumns() throws SQLException, java.io.IOException {
-        try (Connection c = conn(); Statement s = c.createStatement()) {
-            // check if students table exists
-            String checkSql = "SELECT name FROM sqlite_master WHERE type='table' AND name='students'";
-            try (ResultSet rs = s.executeQuery(checkSql)) {
-                if (!rs.next()) return; // no students table, nothing to do
-            }
-
-            // collect existing columns
-            java.util.Set<String> cols = new java.util.HashSet<>();
-            try (ResultSet rs = s.executeQuery("PRAGMA table_info(students)")) {
-                while (rs.next()) cols.add(rs.getString("name"));
-            }
-
-            java.util.List<String> toAdd = new java.util.ArrayList<>();
-            if (!cols.contains("degree")) toAdd.add("degree TEXT");
-            if (!cols.contains("branch")) toAdd.add("branch TEXT");
-            if (!cols.contains("year_of_study")) toAdd.add("year_of_study TEXT");
-            if (!cols.contains("admission_year")) toAdd.add("admission_year TEXT");
-
-            if (toAdd.isEmpty()) return; // already migrated
-
-            // backup DB file before altering
-            String dbPathStr = DatabaseConfig.getDatabasePath();
-            java.nio.file.Path dbPath = java.nio.file.Paths.get(dbPathStr);
-            if (java.nio.file.Files.exists(dbPath)) {
-                java.nio.file.Path bak = java.nio.file.Paths.get(dbPathStr + ".bak");
-                try {
-                    java.nio.file.Files.copy(dbPath, bak, java.nio.file.StandardCopyOption.REPLACE_EXISTING);
-                    System.err.println("Backup created: " + bak.toString());
-                } catch (Exception ex) {
-                    System.err.println("Warning: failed to create DB backup: " + ex.getMessage());
-                }
-            }
-
-            // perform ALTER TABLE for each missing column
-            for (String colDef : toAdd) {
-                String alter = "ALTER TABLE students ADD COLUMN " + colDef;
-                try {
-                    s.execute(alter);
-                    System.err.println("Applied migration: " + alter);
-                } catch (SQLException ex) {
-                    System.err.println("Failed to apply migration (" + alter + "): " + ex.getMessage());
-                }
-            }
+    /** Names and ids feed the login-to-person mapping; a successful change re-resolves sessions. */
+    private static boolean changed(boolean ok) {
+        if (ok) {
+            PersonResolver.invalidate();
+            StudentChanges.allChanged();
         }
-    }
-
-    private Connection conn() throws SQLException {
-        return DriverManager.getConnection(DatabaseConfig.getDatabaseUrl());
+        return ok;
     }
 
     public List<Student> listAll() {
@@ -139,31 +76,37 @@ public class StudentDAO {
 
     public boolean create(Student s) {
         String sql = "INSERT INTO students (id, name, email, section, status, degree, branch, year_of_study, admission_year) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?)";
-        try (Connection c = conn(); PreparedStatement p = c.prepareStatement(sql)) {
-            p.setString(1, s.getId());
-            p.setString(2, s.getName());
-            p.setString(3, s.getEmail());
-            p.setString(4, s.getSection());
-            p.setString(5, s.getStatus());
-            p.setString(6, s.getDegree());
-            p.setString(7, s.getBranch());
-            p.setString(8, s.getYearOfStudy());
-            p.setString(9, s.getAdmissionYear());
-            int rows = p.executeUpdate();
-            return rows == 1;
+        try {
+            return changed(DatabaseConfig.write(c -> {
+                try (PreparedStatement p = c.prepareStatement(sql)) {
+                    p.setString(1, s.getId());
+                    p.setString(2, s.getName());
+                    p.setString(3, s.getEmail());
+                    p.setString(4, s.getSection());
+                    p.setString(5, s.getStatus());
+                    p.setString(6, s.getDegree());
+                    p.setString(7, s.getBranch());
+                    p.setString(8, s.getYearOfStudy());
+                    p.setString(9, s.getAdmissionYear());
+                    int rows = p.executeUpdate();
+                    return rows == 1;
+                }
+            }));
         } catch (SQLException ex) {
             // If the DB schema doesn't have new columns, fall back to legacy insert
             try {
                 String legacy = "INSERT INTO students (id, name, email, section, status) VALUES (?, ?, ?, ?, ?)";
-                try (Connection c2 = conn(); PreparedStatement p2 = c2.prepareStatement(legacy)) {
-                    p2.setString(1, s.getId());
-                    p2.setString(2, s.getName());
-                    p2.setString(3, s.getEmail());
-                    p2.setString(4, s.getSection());
-                    p2.setString(5, s.getStatus());
-                    int rows = p2.executeUpdate();
-                    return rows == 1;
-                }
+                return changed(DatabaseConfig.write(c2 -> {
+                    try (PreparedStatement p2 = c2.prepareStatement(legacy)) {
+                        p2.setString(1, s.getId());
+                        p2.setString(2, s.getName());
+                        p2.setString(3, s.getEmail());
+                        p2.setString(4, s.getSection());
+                        p2.setString(5, s.getStatus());
+                        int rows = p2.executeUpdate();
+                        return rows == 1;
+                    }
+                }));
             } catch (SQLException ex2) {
                 System.err.println("create() failed: " + ex.getMessage() + " | fallback: " + ex2.getMessage());
                 return false;
@@ -173,31 +116,37 @@ public class StudentDAO {
 
     public boolean update(Student s) {
         String sql = "UPDATE students SET name = ?, email = ?, section = ?, status = ?, degree = ?, branch = ?, year_of_study = ?, admission_year = ?, updated_at = CURRENT_TIMESTAMP WHERE id = ?";
-        try (Connection c = conn(); PreparedStatement p = c.prepareStatement(sql)) {
-            p.setString(1, s.getName());
-            p.setString(2, s.getEmail());
-            p.setString(3, s.getSection());
-            p.setString(4, s.getStatus());
-            p.setString(5, s.getDegree());
-            p.setString(6, s.getBranch());
-            p.setString(7, s.getYearOfStudy());
-            p.setString(8, s.getAdmissionYear());
-            p.setString(9, s.getId());
-            int rows = p.executeUpdate();
-            return rows == 1;
+        try {
+            return changed(DatabaseConfig.write(c -> {
+                try (PreparedStatement p = c.prepareStatement(sql)) {
+                    p.setString(1, s.getName());
+                    p.setString(2, s.getEmail());
+                    p.setString(3, s.getSection());
+                    p.setString(4, s.getStatus());
+                    p.setString(5, s.getDegree());
+                    p.setString(6, s.getBranch());
+                    p.setString(7, s.getYearOfStudy());
+                    p.setString(8, s.getAdmissionYear());
+                    p.setString(9, s.getId());
+                    int rows = p.executeUpdate();
+                    return rows == 1;
+                }
+            }));
         } catch (SQLException ex) {
             // Fallback for older schema without new columns
             try {
                 String legacy = "UPDATE students SET name = ?, email = ?, section = ?, status = ?, updated_at = CURRENT_TIMESTAMP WHERE id = ?";
-                try (Connection c2 = conn(); PreparedStatement p2 = c2.prepareStatement(legacy)) {
-                    p2.setString(1, s.getName());
-                    p2.setString(2, s.getEmail());
-                    p2.setString(3, s.getSection());
-                    p2.setString(4, s.getStatus());
-                    p2.setString(5, s.getId());
-                    int rows = p2.executeUpdate();
-                    return rows == 1;
-                }
+                return changed(DatabaseConfig.write(c2 -> {
+                    try (PreparedStatement p2 = c2.prepareStatement(legacy)) {
+                        p2.setString(1, s.getName());
+                        p2.setString(2, s.getEmail());
+                        p2.setString(3, s.getSection());
+                        p2.setString(4, s.getStatus());
+                        p2.setString(5, s.getId());
+                        int rows = p2.executeUpdate();
+                        return rows == 1;
+                    }
+                }));
             } catch (SQLException ex2) {
                 throw new RuntimeException(ex);
             }
@@ -206,10 +155,14 @@ public class StudentDAO {
 
     public boolean delete(String id) {
         String sql = "DELETE FROM students WHERE id = ?";
-        try (Connection c = conn(); PreparedStatement p = c.prepareStatement(sql)) {
-            p.setString(1, id);
-            int rows = p.executeUpdate();
-            return rows == 1;
+        try {
+            return changed(DatabaseConfig.write(c -> {
+                try (PreparedStatement p = c.prepareStatement(sql)) {
+                    p.setString(1, id);
+                    int rows = p.executeUpdate();
+                    return rows == 1;
+                }
+            }));
         } catch (SQLException ex) {
             throw new RuntimeException(ex);
         }
@@ -246,7 +199,8 @@ public class StudentDAO {
         return out;
     }
 
-    private Student mapRow(ResultSet rs) throws SQLException {
+    /** A Student from the current row; degree, branch, year_of_study and admission_year are optional columns. */
+    public static Student mapRow(ResultSet rs) throws SQLException {
         Student s = new Student();
         s.setId(rs.getString("id"));
         s.setName(rs.getString("name"));
@@ -115,6 +115,7 @@ public class BackupService {
                 {"courses", "select * from courses;"},
                 {"settings", "select * from settings;"},
                 {"fees", "select * from fees;"},
+                {"fee_ledger", "select * from fee_ledger order by entry_id;"},
                 {"fee_structure", "select * from fee_structure;"}
             };
             for (String[] q : queries) {
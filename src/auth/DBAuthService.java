@@ -34,79 +34,83 @@ public class DBAuthService {
      * Username = firstName + id (first token of the name + their id), password = 'pass'.
      */
     private void syncUsersFromPeople() {
-        try (Connection conn = DriverManager.getConnection(DatabaseConfig.getDatabaseUrl())) {
-            // Ensure users table exists (already used elsewhere, but double-check)
-            try (Statement s = conn.createStatement()) {
-                s.execute("CREATE TABLE IF NOT EXISTS users (id INTEGER PRIMARY KEY AUTOINCREMENT, username TEXT UNIQUE NOT NULL, password_hash TEXT, role TEXT NOT NULL, email TEXT, created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP)");
-            }
+        // Read the people first: the DAOs use the pool (and may seed through the writer themselves)
+        List<domain.Student> students = new admin.dao.StudentDAO().listAll();
+        List<domain.Instructor> instructors = new admin.dao.InstructorDAO().listAll();
+        try {
+            DatabaseConfig.write(conn -> {
+                // Ensure users table exists (already used elsewhere, but double-check)
+                try (Statement s = conn.createStatement()) {
+                    s.execute("CREATE TABLE IF NOT EXISTS users (id INTEGER PRIMARY KEY AUTOINCREMENT, username TEXT UNIQUE NOT NULL, password_hash TEXT, role TEXT NOT NULL, email TEXT, created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP)");
+                }
 
-            // Prepare upsert statement using SQLite ON CONFLICT
+                // Prepare upsert statement using SQLite ON CONFLICT
                 // Do not overwrite existing password_hash on conflict — preserve user's password if already set
                 String upsert = "INSERT INTO users (username, password_hash, role, email) VALUES (?, ?, ?, ?) " +
-                    "ON CONFLICT(username) DO UPDATE SET role=excluded.role, email=excluded.email";
-
-            try (PreparedStatement up = conn.prepareStatement(upsert)) {
-                // Students
-                admin.dao.StudentDAO sdao = new admin.dao.StudentDAO();
-                for (domain.Student st : sdao.listAll()) {
-                    String first = (st.getName() == null || st.getName().isEmpty()) ? "user" : st.getName().split(" ")[0];
-                    String username = (first + st.getId()).toLowerCase();
-                    String pwd = "pass";
-                    String role = "Student";
-                    String email = st.getEmail() == null ? (username + "@example.com") : st.getEmail();
-                    up.setString(1, username);
-                    up.setString(2, pwd);
-                    up.setString(3, role);
-                    up.setString(4, email);
-                    up.executeUpdate();
-                }
+                        "ON CONFLICT(username) DO UPDATE SET role=excluded.role, email=excluded.email";
+
+                try (PreparedStatement up = conn.prepareStatement(upsert)) {
+                    // Students
+                    for (domain.Student st : students) {
+                        String first = (st.getName() == null || st.getName().isEmpty()) ? "user" : st.getName().split(" ")[0];
+                        String username = (first + st.getId()).toLowerCase();
+                        String pwd = "pass";
+                        String role = "Student";
+                        String email = st.getEmail() == null ? (username + "@example.com") : st.getEmail();
+                        up.setString(1, username);
+                        up.setString(2, pwd);
+                        up.setString(3, role);
+                        up.setString(4, email);
+                        up.executeUpdate();
+                    }
 
-                // Instructors
-                admin.dao.InstructorDAO idao = new admin.dao.InstructorDAO();
-                for (domain.Instructor ins : idao.listAll()) {
-                    String first = (ins.getName() == null || ins.getName().isEmpty()) ? "instr" : ins.getName().split(" ")[0];
-                    String username = (first + ins.getId()).toLowerCase();
-                    String pwd = "pass";
-                    String role = "Instructor";
-                    String email = ins.getEmail() == null ? (username + "@example.com") : ins.getEmail();
-                    up.setString(1, username);
-                    up.setString(2, pwd);
-                    up.setString(3, role);
-                    up.setString(4, email);
-                    up.executeUpdate();
+                    // Instructors
+                    for (domain.Instructor ins : instructors) {
+                        String first = (ins.getName() == null || ins.getName().isEmpty()) ? "instr" : ins.getName().split(" ")[0];
+                        String username = (first + ins.getId()).toLowerCase();
+                        String pwd = "pass";
+                        String role = "Instructor";
+                        String email = ins.getEmail() == null ? (username + "@example.com") : ins.getEmail();
+                        up.setString(1, username);
+                        up.setString(2, pwd);
+                        up.setString(3, role);
+                        up.setString(4, email);
+                        up.executeUpdate();
+                    }
                 }
-            }
-            // Also create a user->person mapping table to deterministically map auth usernames
-            try (Statement s = conn.createStatement()) {
-                s.execute("CREATE TABLE IF NOT EXISTS user_person_map (username TEXT PRIMARY KEY, person_type TEXT, person_id TEXT)");
-            }
-
-            String upmap = "INSERT INTO user_person_map (username, person_type, person_id) VALUES (?, ?, ?) " +
-                    "ON CONFLICT(username) DO UPDATE SET person_type=excluded.person_type, person_id=excluded.person_id";
-
-            try (PreparedStatement mup = conn.prepareStatement(upmap)) {
-                // Students
-                admin.dao.StudentDAO sdao2 = new admin.dao.StudentDAO();
-                for (domain.Student st : sdao2.listAll()) {
-                    String first = (st.getName() == null || st.getName().isEmpty()) ? "user" : st.getName().split(" ")[0];
-                    String username = (first + st.getId()).toLowerCase();
-                    mup.setString(1, username);
-                    mup.setString(2, "student");
-                    mup.setString(3, st.getId());
-                    mup.executeUpdate();
+                // Also create a user->person mapping table to deterministically map auth usernames
+                try (Statement s = conn.createStatement()) {
+                    s.execute("CREATE TABLE IF NOT EXISTS user_person_map (username TEXT PRIMARY KEY, person_type TEXT, person_id TEXT)");
                 }
 
-                // Instructors
-                admin.dao.InstructorDAO idao2 = new admin.dao.InstructorDAO();
-                for (domain.Instructor ins2 : idao2.listAll()) {
-                    String first = (ins2.getName() == null || ins2.getName().isEmpty()) ? "instr" : ins2.getName().split(" ")[0];
-                    String username = (first + ins2.getId()).toLowerCase();
-                    mup.setString(1, username);
-                    mup.setString(2, "instructor");
-                    mup.setString(3, ins2.getId());
-                    mup.executeUpdate();
+                String upmap = "INSERT INTO user_person_map (username, person_type, person_id) VALUES (?, ?, ?) " +
+                        "ON CONFLICT(username) DO UPDATE SET person_type=excluded.person_type, person_id=excluded.person_id";
+
+                try (PreparedStatement mup = conn.prepareStatement(upmap)) {
+                    // Students
+                    for (domain.Student st : students) {
+                        String first = (st.getName() == null || st.getName().isEmpty()) ? "user" : st.getName().split(" ")[0];
+                        String username = (first + st.getId()).toLowerCase();
+                        mup.setString(1, username);
+                        mup.setString(2, "student");
+                        mup.setString(3, st.getId());
+                        mup.executeUpdate();
+                    }
+
+                    // Instructors
+                    for (domain.Instructor ins2 : instructors) {
+                        String first = (ins2.getName() == null || ins2.getName().isEmpty()) ? "instr" : ins2.getName().split(" ")[0];
+                        String username = (first + ins2.getId()).toLowerCase();
+                        mup.setString(1, username);
+                        mup.setString(2, "instructor");
+                        mup.setString(3, ins2.getId());
+                        mup.executeUpdate();
+                    }
                 }
-            }
+                return null;
+            });
+            // Mappings may have changed under sessions that already resolved their person
+            PersonResolver.invalidate();
             // After syncing DB, also sync the CSV file so all credentials are in one place
             syncCredentialsToCSV();
         } catch (SQLException ex) {
@@ -143,7 +147,7 @@ public class DBAuthService {
 
             // Write to CSV using actual password_hash from users table when available
             try {
-                try (Connection conn = DriverManager.getConnection(DatabaseConfig.getDatabaseUrl())) {
+                try (Connection conn = DatabaseConfig.getConnection()) {
                     try (BufferedWriter bw = new BufferedWriter(new FileWriter(CREDENTIALS_FILE))) {
                         // write header explicitly
                         bw.write("username,id,role,password,security_identity\n");
@@ -193,30 +197,29 @@ public class DBAuthService {
         final String selectSql = "SELECT password_hash FROM users WHERE username = ? LIMIT 1";
         final String updateSql = "UPDATE users SET password_hash = ? WHERE username = ?";
 
-        try (Connection conn = DriverManager.getConnection(DatabaseConfig.getDatabaseUrl());
-             PreparedStatement sel = conn.prepareStatement(selectSql)) {
-
-            sel.setString(1, username);
-            try (ResultSet rs = sel.executeQuery()) {
-                if (!rs.next()) return false; // user not found
-                String stored = rs.getString("password_hash");
-                if (!currentPassword.equals(stored)) return false; // current password mismatch
-            }
-
-            try (PreparedStatement upd = conn.prepareStatement(updateSql)) {
-                upd.setString(1, newPassword);
-                upd.setString(2, username);
-                int updated = upd.executeUpdate();
-                boolean ok = updated > 0;
-                if (ok) {
-                    // ensure CSV is in sync with DB after password change
-                    try {
-                        syncCredentialsToCSV();
-                    } catch (Exception ignored) {}
+        try {
+            boolean ok = DatabaseConfig.write(conn -> {
+                try (PreparedStatement sel = conn.prepareStatement(selectSql)) {
+                    sel.setString(1, username);
+                    try (ResultSet rs = sel.executeQuery()) {
+                        if (!rs.next()) return false; // user not found
+                        String stored = rs.getString("password_hash");
+                        if (!currentPassword.equals(stored)) return false; // current password mismatch
+                    }
                 }
-                return ok;
+                try (PreparedStatement upd = conn.prepareStatement(updateSql)) {
+                    upd.setString(1, newPassword);
+                    upd.setString(2, username);
+                    return upd.executeUpdate() > 0;
+                }
+            });
+            if (ok) {
+                // ensure CSV is in sync with DB after password change
+                try {
+                    syncCredentialsToCSV();
+                } catch (Exception ignored) {}
             }
-
+            return ok;
         } catch (SQLException e) {
             e.printStackTrace();
             return false;
@@ -231,7 +234,7 @@ public class DBAuthService {
 
         final String sql = "SELECT id, username, password_hash, role FROM users WHERE username = ? LIMIT 1";
 
-        try (Connection conn = DriverManager.getConnection(DatabaseConfig.getDatabaseUrl());
+        try (Connection conn = DatabaseConfig.getConnection();
              PreparedStatement stmt = conn.prepareStatement(sql)) {
 
             stmt.setString(1, username);
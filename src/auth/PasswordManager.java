@@ -54,14 +54,14 @@ public class PasswordManager {
     private static boolean updatePasswordInDB(String username, String newPassword) {
         final String updateSql = "UPDATE users SET password_hash = ? WHERE username = ?";
 
-        try (Connection conn = DriverManager.getConnection(DatabaseConfig.getDatabaseUrl());
-             PreparedStatement stmt = conn.prepareStatement(updateSql)) {
-
-            stmt.setString(1, newPassword);
-            stmt.setString(2, username);
-            int updated = stmt.executeUpdate();
-            return updated > 0;
-
+        try {
+            return DatabaseConfig.write(conn -> {
+                try (PreparedStatement stmt = conn.prepareStatement(updateSql)) {
+                    stmt.setString(1, newPassword);
+                    stmt.setString(2, username);
+                    return stmt.executeUpdate() > 0;
+                }
+            });
         } catch (SQLException ex) {
             System.err.println("DB error updating password: " + ex.getMessage());
             return false;
@@ -89,7 +89,7 @@ public class PasswordManager {
     private static boolean verifyPasswordInDB(String username, String password) {
         final String sql = "SELECT password_hash FROM users WHERE username = ? LIMIT 1";
 
-        try (Connection conn = DriverManager.getConnection(DatabaseConfig.getDatabaseUrl());
+        try (Connection conn = DatabaseConfig.getConnection();
              PreparedStatement stmt = conn.prepareStatement(sql)) {
 
             stmt.setString(1, username);
@@ -117,7 +117,7 @@ public class PasswordManager {
 
         // Check DB
         final String sql = "SELECT password_hash FROM users WHERE username = ? LIMIT 1";
-        try (Connection conn = DriverManager.getConnection(DatabaseConfig.getDatabaseUrl());
+        try (Connection conn = DatabaseConfig.getConnection();
              PreparedStatement stmt = conn.prepareStatement(sql)) {
 
             stmt.setString(1, username);
@@ -0,0 +1,112 @@
+package auth;
+
+import admin.dao.InstructorDAO;
+import admin.dao.StudentDAO;
+import domain.Instructor;
+import domain.Student;
+import domain.UserSession;
+import login.DatabaseConfig;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Resolves the student or instructor id a login username acts as, once per session.
+ *
+ * Lookup order: user_person_map, then (students only) an exact id match, then the generated
+ * username convention firstName + id. The last step used to scan every student or instructor
+ * per call; it is now a map built once and shared by all sessions.
+ *
+ * The result, including "maps to nobody", is bound to the UserSession together with the
+ * current generation. {@link #invalidate()} bumps the generation, so every session resolves
+ * again on its next check; the DAOs and the user sync call it whenever people or mappings
+ * change. {@link UserSession#clearPersonBinding()} drops a single session's binding.
+ */
+public final class PersonResolver {
+    public static final String STUDENT = "student";
+    public static final String INSTRUCTOR = "instructor";
+
+    private static final AtomicLong generation = new AtomicLong();
+    /** Lower-cased firstName + id to id, per person type; null until first needed. */
+    private static volatile Map<String, String> studentNames;
+    private static volatile Map<String, String> instructorNames;
+
+    private PersonResolver() {}
+
+    /** Resolve and bind the person for the session's role, at login. */
+    public static void bind(UserSession session) {
+        if (session == null) return;
+        if (session.hasRole("Student")) resolve(session, STUDENT);
+        else if (session.hasRole("Instructor")) resolve(session, INSTRUCTOR);
+    }
+
+    /** The session's person id of the given type; null if the username maps to none. */
+    public static String resolve(UserSession session, String personType) {
+        if (session == null || session.getUsername() == null) return null;
+        long gen = generation.get();
+        UserSession.PersonBinding bound = session.getPersonBinding();
+        if (bound != null && bound.generation == gen && bound.type.equals(personType)) return bound.id;
+        String id = lookup(session.getUsername(), personType);
+        session.bindPerson(new UserSession.PersonBinding(personType, id, gen));
+        return id;
+    }
+
+    /** People or user mappings changed: every session re-resolves, the name index is rebuilt. */
+    public static void invalidate() {
+        synchronized (PersonResolver.class) {
+            generation.incrementAndGet();
+            studentNames = null;
+            instructorNames = null;
+        }
+    }
+
+    public static final String MAPPED_SQL = "SELECT person_id FROM user_person_map WHERE username = ? AND person_type = ? LIMIT 1";
+
+    private static String lookup(String username, String personType) {
+        try (Connection c = DatabaseConfig.getConnection();
+             PreparedStatement p = c.prepareStatement(MAPPED_SQL)) {
+            p.setString(1, username);
+            p.setString(2, personType);
+            try (ResultSet rs = p.executeQuery()) { if (rs.next()) return rs.getString("person_id"); }
+        } catch (SQLException ignored) {}
+
+        if (STUDENT.equals(personType)) {
+            try { java.util.Optional<Student> s = new StudentDAO().findById(username); if (s.isPresent()) return s.get().getId(); } catch (Exception ignored) {}
+        }
+        try {
+            return names(personType).get(username.toLowerCase());
+        } catch (Exception ignored) {
+            return null;
+        }
+    }
+
+    private static Map<String, String> names(String personType) {
+        boolean student = STUDENT.equals(personType);
+        Map<String, String> index = student ? studentNames : instructorNames;
+        if (index != null) return index;
+        long gen = generation.get();
+        index = new HashMap<>();
+        if (student) {
+            for (Student s : new StudentDAO().listAll()) index.putIfAbsent(username(s.getName(), s.getId()), s.getId());
+        } else {
+            for (Instructor i : new InstructorDAO().listAll()) index.putIfAbsent(username(i.getName(), i.getId()), i.getId());
+        }
+        // Built from data an invalidate() has since declared stale: use it once, don't keep it
+        synchronized (PersonResolver.class) {
+            if (generation.get() == gen) {
+                if (student) studentNames = index; else instructorNames = index;
+            }
+        }
+        return index;
+    }
+
+    private static String username(String name, String id) {
+        String first = (name == null || name.isEmpty()) ? "" : name.split(" ")[0];
+        return (first + id).toLowerCase();
+    }
+}
@@ -0,0 +1,35 @@
+package domain;
+
+/**
+ * What the student dashboard shows on open: profile, CGPA, registered course count and fees,
+ * read together as one snapshot (student.services.StudentSummaries).
+ */
+public class StudentSummary {
+    private final String studentId;
+    private final Student profile;
+    private final double cgpa;
+    private final int registeredCourses;
+    private final int feesDue;
+    private final int feesPaid;
+    private final long loadedAtMillis;
+
+    public StudentSummary(String studentId, Student profile, double cgpa, int registeredCourses,
+                          int feesDue, int feesPaid, long loadedAtMillis) {
+        this.studentId = studentId;
+        this.profile = profile;
+        this.cgpa = cgpa;
+        this.registeredCourses = registeredCourses;
+        this.feesDue = feesDue;
+        this.feesPaid = feesPaid;
+        this.loadedAtMillis = loadedAtMillis;
+    }
+
+    public String getStudentId() { return studentId; }
+    /** Null when there is no students row for the id. */
+    public Student getProfile() { return profile; }
+    public double getCgpa() { return cgpa; }
+    public int getRegisteredCourses() { return registeredCourses; }
+    public int getFeesDue() { return feesDue; }
+    public int getFeesPaid() { return feesPaid; }
+    public long getLoadedAtMillis() { return loadedAtMillis; }
+}
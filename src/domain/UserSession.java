@@ -15,6 +15,23 @@ public class UserSession {
     private final String username;
     private final String role;
     private final String authToken;    // NEW: used to validate authenticated session
+    private volatile PersonBinding person; // student/instructor id this login acts as (auth.PersonResolver)
+
+    /**
+     * Resolved person identity bound to the session. id is null when the username maps to
+     * nobody; generation is the resolver generation it was resolved under.
+     */
+    public static final class PersonBinding {
+        public final String type;
+        public final String id;
+        public final long generation;
+
+        public PersonBinding(String type, String id, long generation) {
+            this.type = type;
+            this.id = id;
+            this.generation = generation;
+        }
+    }
 
     /** OLD Constructor (legacy compatibility) */
     public UserSession(int userId, String username, String role) {
@@ -69,6 +86,19 @@ public class UserSession {
         return authToken;
     }
 
+    public PersonBinding getPersonBinding() {
+        return person;
+    }
+
+    public void bindPerson(PersonBinding binding) {
+        this.person = binding;
+    }
+
+    /** Forget the bound person; the next access check resolves it again. */
+    public void clearPersonBinding() {
+        this.person = null;
+    }
+
     @Override
     public String toString() {
         return "UserSession{" +
@@ -44,15 +44,21 @@ import javax.swing.table.TableCellRenderer;
 import javax.swing.table.TableColumn;
 import javax.swing.table.DefaultTableCellRenderer;
 import login.LoginWindow;
+import login.ChangeBus;
 import login.DatabaseConfig;
+import login.DbAsync;
 import auth.DBAuthService;
+import auth.PersonResolver;
 import instructor.dao.SectionDAO;
 import instructor.dao.GradeDAO;
 import instructor.dao.GradingSchemeDAO;
 import instructor.dao.AssessmentDAO;
+import instructor.dao.RosterScores;
+import instructor.dao.SectionGrades;
+import student.services.SectionEnrollment;
+import student.services.Waitlist;
 import types.SectionRow;
 import java.sql.Connection;
-import java.sql.DriverManager;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
@@ -222,28 +228,46 @@ public class InstructorDashboard extends JFrame {
    }
 
       // Map session username to the seeded instructor id using the firstName+id pattern
-      private String mappedInstructorId() {
-         if (session == null || session.getUsername() == null) return null;
-         String uname = session.getUsername().toLowerCase();
-         
-         // First, try to find in user_person_map table
-         try (Connection c = DriverManager.getConnection(DatabaseConfig.getDatabaseUrl());
-              PreparedStatement p = c.prepareStatement("SELECT person_id FROM user_person_map WHERE username = ? AND person_type = 'instructor' LIMIT 1")) {
-            p.setString(1, uname);
-            try (ResultSet rs = p.executeQuery()) {
-               if (rs.next()) return rs.getString("person_id");
-            }
-         } catch (Exception ignored) {}
-         
-         // Fallback: Try name + id match
-         try {
-            for (domain.Instructor ins : instrDAO.listAll()) {
-               String first = (ins.getName() == null || ins.getName().isEmpty()) ? "" : ins.getName().split(" ")[0];
-               String candidate = (first + ins.getId()).toLowerCase();
-               if (candidate.equalsIgnoreCase(uname)) return ins.getId();
+      /**
+    * Students per grade slab (final score = SUM of assessment scores), in slab order.
+    * Runs off the EDT; sectionId == null means all of the instructor's courses.
+    */
+   private java.util.List<java.util.List<String>> loadGradeSlabs(String[][] slabs, Integer sectionId) throws SQLException {
+      // Calculate final grade as SUM of all scores from assessments table
+      String gradeSql = "SELECT DISTINCT a.student_id, s.name as student_name, sec.course_code, " +
+          "COALESCE(SUM(a.score), 0) as final_score " +
+          "FROM assessments a " +
+          "LEFT JOIN students s ON a.student_id = s.id " +
+          "LEFT JOIN sections sec ON a.section_id = sec.section_id " +
+          "WHERE a.section_id IS NOT NULL " +
+          "GROUP BY a.student_id, a.section_id " +
+          "HAVING final_score >= ? AND final_score <= ?";
+      if (sectionId != null) gradeSql += " AND a.section_id = ?";
+      java.util.List<java.util.List<String>> out = new java.util.ArrayList<>();
+      try (Connection c = DatabaseConfig.getConnection();
+           PreparedStatement ps = c.prepareStatement(gradeSql)) {
+         for (String[] slab : slabs) {
+            java.util.List<String> studentsInSlab = new java.util.ArrayList<>();
+            ps.setDouble(1, Integer.parseInt(slab[0]));
+            ps.setDouble(2, Integer.parseInt(slab[1]));
+            if (sectionId != null) ps.setInt(3, sectionId);
+            try (ResultSet rs = ps.executeQuery()) {
+               while (rs.next()) {
+                  String id = rs.getString("student_id");
+                  String name = rs.getString("student_name");
+                  Double score = rs.getDouble("final_score");
+                  String course = sectionId == null ? " - " + rs.getString("course_code") : "";
+                  studentsInSlab.add((name != null ? name : "N/A") + " (ID: " + id + ")" + course + " - Score: " + String.format("%.2f", score));
+               }
             }
-         } catch (Exception ignored) {}
-         return null;
+            out.add(studentsInSlab);
+         }
+      }
+      return out;
+   }
+
+   private String mappedInstructorId() {
+         return PersonResolver.resolve(session, PersonResolver.INSTRUCTOR);
       }
 
    private JPanel createProfilePanel() {
@@ -652,12 +676,42 @@ public class InstructorDashboard extends JFrame {
       JScrollPane scrollPane = new JScrollPane(table);
       card.add(scrollPane, BorderLayout.CENTER);
       
-      // no bottom action button for capacity (use inline actions)
-      card.add(new JPanel(), BorderLayout.SOUTH);
+      // Enrollment window: while open, registrations for the section go through the registration engine
+      JPanel windowPanel = new JPanel(new FlowLayout(FlowLayout.LEFT, 10, 10));
+      windowPanel.setBackground(COLOR_CARD_BG);
+      JButton btnOpenWindow = new JButton("Open Enrollment Window");
+      JButton btnCloseWindow = new JButton("Close Enrollment Window");
+      btnOpenWindow.setFont(FONT_BUTTON);
+      btnCloseWindow.setFont(FONT_BUTTON);
+      btnOpenWindow.addActionListener(e -> setEnrollmentWindow(table, model, true));
+      btnCloseWindow.addActionListener(e -> setEnrollmentWindow(table, model, false));
+      windowPanel.add(btnOpenWindow);
+      windowPanel.add(btnCloseWindow);
+      card.add(windowPanel, BorderLayout.SOUTH);
       
       return card;
    }
 
+   // Open or close the enrollment window of the selected section
+   private void setEnrollmentWindow(JTable table, DefaultTableModel model, boolean open) {
+      int row = table.getSelectedRow();
+      if (row < 0) {
+         statusLabel.setText("Select a section first.");
+         return;
+      }
+      int sectionId = Integer.parseInt(model.getValueAt(row, 0).toString());
+      String courseName = model.getValueAt(row, 1).toString();
+      if (!isOwnerOfSection(sectionId)) {
+         statusLabel.setText("Not authorized to change this section.");
+         return;
+      }
+      DbAsync.onEdt(DbAsync.supply("InstructorDashboard.setEnrollmentWindow", () -> SectionEnrollment.setEnrollmentOpen(sectionId, open)),
+            changed -> statusLabel.setText(changed
+                  ? "Enrollment window " + (open ? "opened" : "closed") + " for " + courseName
+                  : "Section not found."),
+            ex -> JOptionPane.showMessageDialog(this, "Failed to update enrollment window: " + ex.getMessage(), "DB Error", JOptionPane.ERROR_MESSAGE));
+   }
+
    // Method to edit course capacity
    private void editCourseCapacity(DefaultTableModel model, int row) {
       try {
@@ -719,22 +773,19 @@ public class InstructorDashboard extends JFrame {
 
             // Persist the updated capacity to the database
             try {
-               sectionDAO.updateCourseCapacity(sectionId, newCapacity);
+               Waitlist.Promotion promotion = SectionEnrollment.updateCapacity(sectionId, newCapacity);
                // Update the table cell on success
                model.setValueAt(String.valueOf(newCapacity), row, 3);
-               statusLabel.setText("Capacity updated for " + courseName);
-            } catch (Exception dbEx) {
-               // fallback direct SQL
-               try (Connection conn = DriverManager.getConnection(DatabaseConfig.getDatabaseUrl());
-                    PreparedStatement ps = conn.prepareStatement("UPDATE sections SET capacity = ? WHERE section_id = ?")) {
-                   ps.setInt(1, newCapacity);
-                   ps.setInt(2, sectionId);
-                   ps.executeUpdate();
-                   model.setValueAt(String.valueOf(newCapacity), row, 3);
-                   statusLabel.setText("Capacity updated for " + courseName);
-               } catch (Exception ex2) {
-                   JOptionPane.showMessageDialog(this, "Failed to update capacity in DB: " + dbEx.getMessage(), "DB Error", JOptionPane.ERROR_MESSAGE);
+               statusLabel.setText("Capacity updated for " + courseName
+                       + (promotion.promoted.isEmpty() ? "" : " (" + promotion.promoted.size() + " promoted from the waitlist)"));
+               if (!promotion.skipped.isEmpty()) {
+                  StringBuilder msg = new StringBuilder("Taken off the waitlist instead of promoted:\n");
+                  promotion.skipped.forEach((student, reason) -> msg.append(student).append(": ").append(reason).append("\n"));
+                  JOptionPane.showMessageDialog(this, msg.toString(), "Waitlist", JOptionPane.INFORMATION_MESSAGE);
                }
+            } catch (Exception dbEx) {
+               // updateCapacity already went through the writer; a second direct UPDATE would skip the waitlist
+               JOptionPane.showMessageDialog(this, "Failed to update capacity in DB: " + dbEx.getMessage(), "DB Error", JOptionPane.ERROR_MESSAGE);
             }
          }
       } catch (Exception ex) {
@@ -819,67 +870,43 @@ public class InstructorDashboard extends JFrame {
       filterPanel.add(schemeArea);
 
       // Populate students table with existing marks from assessments table
+      // Rows are loaded off the EDT; picking another course while a load runs supersedes it
+      final DbAsync.Channel<java.util.List<Object[]>> studentLoads = new DbAsync.Channel<>("InstructorDashboard.loadStudents");
       Runnable loadStudents = () -> {
-         gradesModel.setRowCount(0);
          String selectedFilter = (String) courseFilterCombo.getSelectedItem();
          boolean filterAll = selectedFilter == null || selectedFilter.equals("-- All Courses --");
 
-         try {
+         studentLoads.submit(() -> {
+            java.util.List<Object[]> rows = new java.util.ArrayList<>();
             for (SectionRow course : allCourses) {
                String courseDisplay = sectionIdToCourseDisplay.get(course.sectionId);
                if (!filterAll && !courseDisplay.equals(selectedFilter)) continue;
 
-               // Updated query: Join enrollments with students and assessments to get existing marks
-               String studentsSql = "SELECT DISTINCT e.student_id, s.name as student_name FROM enrollments e " +
-                                   "LEFT JOIN students s ON e.student_id = s.id " +
-                                   "WHERE e.section_id = ? ORDER BY s.name";
-               try (Connection c = DriverManager.getConnection(DatabaseConfig.getDatabaseUrl());
-                    PreparedStatement ps = c.prepareStatement(studentsSql)) {
-                  ps.setInt(1, course.sectionId);
-                  try (ResultSet rs = ps.executeQuery()) {
-                     while (rs.next()) {
-                        String studentId = rs.getString("student_id");
-                        String studentName = rs.getString("student_name");
-                        if (studentName == null) studentName = "Unknown"; // fallback if join fails
-                        Object[] row = new Object[cols.length];
-                        row[0] = studentId;
-                        row[1] = studentName;
-                        row[2] = courseDisplay;
-                        
-                        // Load existing assessment scores from database
-                        double total = 0;
-                        String assessmentsSql = "SELECT assessment_type, score FROM assessments WHERE section_id = ? AND student_id = ?";
-                        try (PreparedStatement assessPs = c.prepareStatement(assessmentsSql)) {
-                           assessPs.setInt(1, course.sectionId);
-                           assessPs.setString(2, studentId);
-                           try (ResultSet assessRs = assessPs.executeQuery()) {
-                              java.util.Map<String, Double> assessmentScores = new java.util.HashMap<>();
-                              while (assessRs.next()) {
-                                 String type = assessRs.getString("assessment_type");
-                                 double score = assessRs.getDouble("score");
-                                 assessmentScores.put(type, score);
-                                 total += score;
-                              }
-                              // Populate assessment columns
-                              for (int i = 3; i < cols.length - 1; i++) {
-                                 String colName = cols[i];
-                                 Double score = assessmentScores.get(colName);
-                                 row[i] = (score != null) ? String.format("%.2f", score) : "";
-                              }
-                           }
-                        }
-                        
-                        row[cols.length - 1] = String.format("%.2f", total); // Set total
-                        gradesModel.addRow(row);
+               // The section's roster and scores in one query, pivoted by assessment type
+               try (Connection c = DatabaseConfig.getConnection()) {
+                  RosterScores roster = RosterScores.load(c, course.sectionId, assessmentTypes);
+                  for (int r = 0; r < roster.size(); r++) {
+                     Object[] row = new Object[cols.length];
+                     row[0] = roster.studentId(r);
+                     row[1] = roster.name(r) == null ? "Unknown" : roster.name(r); // fallback if join fails
+                     row[2] = courseDisplay;
+                     for (int t = 0; t < assessmentTypes.size(); t++) {
+                        double score = roster.score(t, r);
+                        row[t + 3] = Double.isNaN(score) ? "" : String.format("%.2f", score);
                      }
+                     row[cols.length - 1] = String.format("%.2f", roster.total(r)); // Set total
+                     rows.add(row);
                   }
                } catch (SQLException ex) {
-                  statusLabel.setText("Error loading students: " + ex.getMessage());
+                  final String msg = "Error loading students: " + ex.getMessage();
+                  SwingUtilities.invokeLater(() -> statusLabel.setText(msg));
                }
             }
-         } catch (Exception ex) {
-            statusLabel.setText("Error: " + ex.getMessage());
-         }
+            return rows;
+         }, rows -> {
+            gradesModel.setRowCount(0);
+            for (Object[] row : rows) gradesModel.addRow(row);
+         }, ex -> statusLabel.setText("Error: " + ex.getMessage()));
       };
       loadStudents.run();
 
@@ -949,29 +976,48 @@ public class InstructorDashboard extends JFrame {
       btnSaveAll.setBackground(new Color(0, 120, 215));
       btnSaveAll.setForeground(Color.WHITE);
       btnSaveAll.addActionListener(e -> {
-         int saved = 0;
+         // The whole grid, one upsert batch per section; unchanged scores aren't rewritten
+         java.util.Map<Integer, java.util.List<AssessmentDAO.Entry>> bySection = new java.util.LinkedHashMap<>();
+         int invalid = 0;
          for (int row = 0; row < gradesModel.getRowCount(); row++) {
-            String studentId = gradesModel.getValueAt(row, 0).toString();
+            String studentId = gradesModel.getValueAt(row, 0).toString().split(" - ")[0].trim();
             String courseDisplay = gradesModel.getValueAt(row, 2).toString();
-            for (int col = 3; col < gradesModel.getColumnCount(); col++) {
-               String assessmentType = gradesModel.getColumnName(col);
-               // Skip the "Total Marks" column - don't save it to database
-               if (assessmentType.equals("Total Marks")) continue;
-               
+            int sectionId;
+            try {
+               sectionId = Integer.parseInt(courseDisplay.split(" - ")[0].trim());
+            } catch (NumberFormatException ex) {
+               continue;
+            }
+            for (int col = 3; col < gradesModel.getColumnCount() - 1; col++) { // not "Total Marks"
                Object scoreObj = gradesModel.getValueAt(row, col);
-               if (scoreObj != null && !scoreObj.toString().trim().isEmpty()) {
-                  String score = scoreObj.toString().trim();
-                  try {
-                     saveGradeToDatabase(courseDisplay, studentId, assessmentType, score);
-                     saved++;
-                  } catch (Exception ex) {
-                     // skip on error
-                  }
+               if (scoreObj == null || scoreObj.toString().trim().isEmpty()) continue;
+               try {
+                  double score = Double.parseDouble(scoreObj.toString().trim());
+                  bySection.computeIfAbsent(sectionId, k -> new java.util.ArrayList<>())
+                        .add(new AssessmentDAO.Entry(studentId, gradesModel.getColumnName(col), score));
+               } catch (NumberFormatException ex) {
+                  invalid++;
                }
             }
          }
-         statusLabel.setText("Saved " + saved + " grade(s).");
-         loadStudents.run();
+         if (invalid > 0) {
+            JOptionPane.showMessageDialog(this, invalid + " cell(s) are not numbers and were not saved.", "Input Error", JOptionPane.WARNING_MESSAGE);
+         }
+         btnSaveAll.setEnabled(false);
+         DbAsync.onEdt(DbAsync.supply("InstructorDashboard.saveGrades", () -> {
+            int changed = 0;
+            for (java.util.Map.Entry<Integer, java.util.List<AssessmentDAO.Entry>> s : bySection.entrySet()) {
+               changed += assessmentDAO.saveAssessments(s.getKey(), s.getValue());
+            }
+            return changed;
+         }), changed -> {
+            btnSaveAll.setEnabled(true);
+            statusLabel.setText("Saved " + changed + " grade(s).");
+            loadStudents.run();
+         }, ex -> {
+            btnSaveAll.setEnabled(true);
+            JOptionPane.showMessageDialog(this, "Error saving grades: " + ex.getMessage(), "Error", JOptionPane.ERROR_MESSAGE);
+         });
       });
 
       JPanel bottom = new JPanel();
@@ -1034,72 +1080,31 @@ public class InstructorDashboard extends JFrame {
           {"0", "59", "F (0-59)", new Color(230, 126, 34).toString()}
       };
 
+      // Queries run off the EDT; a newer refresh (e.g. quick filter changes) supersedes an older one
+      final DbAsync.Channel<java.util.List<java.util.List<String>>> statsLoads = new DbAsync.Channel<>("InstructorDashboard.refreshStats");
       Runnable refreshStats = () -> {
-         contentPanel.removeAll();
          String selectedCourse = (String) courseCombo.getSelectedItem();
          boolean filterAll = selectedCourse == null || selectedCourse.equals("-- All Courses --");
-         
-         try {
-            for (String[] slab : slabs) {
-               int minGrade = Integer.parseInt(slab[0]);
-               int maxGrade = Integer.parseInt(slab[1]);
-               String slabLabel = slab[2];
-               Color slabColor = new Color(Integer.parseInt(slab[3].replaceAll("[^0-9]", "")));
-               
-               // Fetch students in this grade range for selected course(s)
-               java.util.List<String> studentsInSlab = new java.util.ArrayList<>();
-               // Calculate final grade as SUM of all scores from assessments table
-               String gradeSql = "SELECT DISTINCT a.student_id, s.name as student_name, sec.course_code, " +
-                   "COALESCE(SUM(a.score), 0) as final_score " +
-                   "FROM assessments a " +
-                   "LEFT JOIN students s ON a.student_id = s.id " +
-                   "LEFT JOIN sections sec ON a.section_id = sec.section_id " +
-                   "WHERE a.section_id IS NOT NULL " +
-                   "GROUP BY a.student_id, a.section_id " +
-                   "HAVING final_score >= ? AND final_score <= ?";
-               
-               if (!filterAll) {
-                  // Extract section_id from selected course
-                  String[] parts = selectedCourse.split(" - ");
-                  String sectionIdStr = parts[0].trim();
-                  try {
-                     int sectionId = Integer.parseInt(sectionIdStr);
-                     gradeSql += " AND a.section_id = ?";
-                     
-                     try (Connection c = DriverManager.getConnection(DatabaseConfig.getDatabaseUrl());
-                          PreparedStatement ps = c.prepareStatement(gradeSql)) {
-                        ps.setDouble(1, minGrade);
-                        ps.setDouble(2, maxGrade);
-                        ps.setInt(3, sectionId);
-                        try (ResultSet rs = ps.executeQuery()) {
-                           while (rs.next()) {
-                              String id = rs.getString("student_id");
-                              String name = rs.getString("student_name");
-                              Double score = rs.getDouble("final_score");
-                              studentsInSlab.add((name != null ? name : "N/A") + " (ID: " + id + ") - Score: " + String.format("%.2f", score));
-                           }
-                        }
-                     }
-                  } catch (NumberFormatException ex) {
-                     statusLabel.setText("Invalid course selection");
-                     continue;
-                  }
-               } else {
-                  try (Connection c = DriverManager.getConnection(DatabaseConfig.getDatabaseUrl());
-                       PreparedStatement ps = c.prepareStatement(gradeSql)) {
-                     ps.setDouble(1, minGrade);
-                     ps.setDouble(2, maxGrade);
-                     try (ResultSet rs = ps.executeQuery()) {
-                        while (rs.next()) {
-                           String id = rs.getString("student_id");
-                           String name = rs.getString("student_name");
-                           String courseCode = rs.getString("course_code");
-                           Double score = rs.getDouble("final_score");
-                           studentsInSlab.add((name != null ? name : "N/A") + " (ID: " + id + ") - " + courseCode + " - Score: " + String.format("%.2f", score));
-                        }
-                     }
-                  }
-               }
+         Integer sectionFilter = null;
+         if (!filterAll) {
+            // Extract section_id from selected course
+            try {
+               sectionFilter = Integer.parseInt(selectedCourse.split(" - ")[0].trim());
+            } catch (NumberFormatException ex) {
+               statusLabel.setText("Invalid course selection");
+               contentPanel.removeAll();
+               contentPanel.revalidate();
+               contentPanel.repaint();
+               return;
+            }
+         }
+         final Integer sectionId = sectionFilter;
+         statsLoads.submit(() -> loadGradeSlabs(slabs, sectionId), slabStudents -> {
+            contentPanel.removeAll();
+            for (int i = 0; i < slabs.length; i++) {
+               String slabLabel = slabs[i][2];
+               Color slabColor = new Color(Integer.parseInt(slabs[i][3].replaceAll("[^0-9]", "")));
+               java.util.List<String> studentsInSlab = slabStudents.get(i);
                
                // Create slab panel
                JPanel slabPanel = new JPanel(new BorderLayout());
@@ -1139,9 +1144,7 @@ public class InstructorDashboard extends JFrame {
             
             contentPanel.revalidate();
             contentPanel.repaint();
-         } catch (Exception ex) {
-            statusLabel.setText("Error loading statistics: " + ex.getMessage());
-         }
+         }, ex -> statusLabel.setText("Error loading statistics: " + ex.getMessage()));
       };
 
       btnRefresh.addActionListener(e -> refreshStats.run());
@@ -1338,9 +1341,8 @@ public class InstructorDashboard extends JFrame {
    // Count students whose `section` starts with given course code (e.g. "CS101" matches "CS101-A")
    private int countStudentsForCourse(String courseCode) {
       int count = 0;
-      String url = DatabaseConfig.getDatabaseUrl();
       String sql = "SELECT COUNT(*) FROM students WHERE section LIKE ?";
-      try (Connection conn = DriverManager.getConnection(url);
+      try (Connection conn = DatabaseConfig.getConnection();
            PreparedStatement ps = conn.prepareStatement(sql)) {
          ps.setString(1, courseCode + "%");
          try (ResultSet rs = ps.executeQuery()) {
@@ -1352,13 +1354,14 @@ public class InstructorDashboard extends JFrame {
       return count;
    }
 
+   public static final String ENROLLED_COUNT_SQL = "SELECT enrolled FROM section_stats WHERE section_id = ?";
+
    // Count enrolled students for a given section id (from enrollments table)
    private int getEnrolledCount(int sectionId) {
       int enrolled = 0;
-      String url = DatabaseConfig.getDatabaseUrl();
-      String sql = "SELECT COUNT(*) FROM enrollments WHERE section_id = ?";
-      try (Connection conn = DriverManager.getConnection(url);
-           PreparedStatement ps = conn.prepareStatement(sql)) {
+      // section_stats is kept current by triggers: one primary-key lookup instead of a COUNT
+      try (Connection conn = DatabaseConfig.getConnection();
+           PreparedStatement ps = conn.prepareStatement(ENROLLED_COUNT_SQL)) {
          ps.setInt(1, sectionId);
          try (ResultSet rs = ps.executeQuery()) {
             if (rs.next()) enrolled = rs.getInt(1);
@@ -1372,10 +1375,9 @@ public class InstructorDashboard extends JFrame {
    // Populate a JComboBox with students for a given section id
    private void populateStudentsCombo(JComboBox<String> combo, int sectionId) {
       combo.removeAllItems();
-      String url = DatabaseConfig.getDatabaseUrl();
       String getCourseSql = "SELECT course_code FROM sections WHERE section_id = ?";
       String getStudentsSql = "SELECT id, name FROM students WHERE section LIKE ? OR section = ? ORDER BY name";
-      try (Connection conn = DriverManager.getConnection(url);
+      try (Connection conn = DatabaseConfig.getConnection();
            PreparedStatement ps1 = conn.prepareStatement(getCourseSql)) {
          ps1.setInt(1, sectionId);
          try (ResultSet rs = ps1.executeQuery()) {
@@ -1452,21 +1454,17 @@ public class InstructorDashboard extends JFrame {
 
    /**
     * Verify that the current session user is the owner/instructor for the given section.
-    * Tries multiple possible columns (instructor_id, instructor) and compares with mapped instructor id.
+    * Compares sections.instructor_id with the mapped instructor id (or the session user id).
     */
    private boolean isOwnerOfSection(int sectionId) {
-      String url = DatabaseConfig.getDatabaseUrl();
-      String sql = "SELECT instructor_id, instructor FROM sections WHERE section_id = ? LIMIT 1";
-      try (Connection conn = DriverManager.getConnection(url);
+      // sections has no `instructor` column; selecting one made this always fail
+      String sql = "SELECT instructor_id FROM sections WHERE section_id = ? LIMIT 1";
+      try (Connection conn = DatabaseConfig.getConnection();
            PreparedStatement ps = conn.prepareStatement(sql)) {
          ps.setInt(1, sectionId);
          try (ResultSet rs = ps.executeQuery()) {
             if (rs.next()) {
-               String insId = null;
-               try { insId = rs.getString("instructor_id"); } catch (Exception ignored) {}
-               if (insId == null || insId.isEmpty()) {
-                  try { insId = rs.getString("instructor"); } catch (Exception ignored) {}
-               }
+               String insId = rs.getString("instructor_id");
                if (insId != null && !insId.isEmpty()) {
                   String mapped = mappedInstructorId();
                   if (mapped != null && mapped.equalsIgnoreCase(insId)) return true;
@@ -1479,29 +1477,6 @@ public class InstructorDashboard extends JFrame {
    }
 
    // Database integration methods
-   private void saveGradeToDatabase(String course, String student, String assessmentType, String score) {
-      try {
-         // Parse course id (expected formats: "123 - CODE" or "123")
-         String courseIdStr = course.split(" - ")[0].trim();
-         int sectionId = Integer.parseInt(courseIdStr);
-
-         // Parse student id (expected formats: "S001 - Name" or "2023001 - Name")
-         String studentId = student.split(" - ")[0].trim();
-
-         double val = Double.parseDouble(score);
-
-         // Save assessment record
-         assessmentDAO.saveAssessment(sectionId, studentId, assessmentType, val);
-         JOptionPane.showMessageDialog(this, "Assessment saved successfully!\nCourse: " + course + 
-             "\nStudent: " + student + "\nType: " + assessmentType + "\nScore: " + score,
-             "Success", JOptionPane.INFORMATION_MESSAGE);
-      } catch (NumberFormatException nfe) {
-         JOptionPane.showMessageDialog(this, "Invalid numeric value: " + nfe.getMessage(), "Input Error", JOptionPane.ERROR_MESSAGE);
-      } catch (Exception ex) {
-         JOptionPane.showMessageDialog(this, "Error saving grade: " + ex.getMessage(), "Error", JOptionPane.ERROR_MESSAGE);
-      }
-   }
-
    private void computeFinalGrade(String course, String student) {
       try {
          String courseIdStr = course.split(" - ")[0].trim();
@@ -1528,13 +1503,10 @@ public class InstructorDashboard extends JFrame {
             return;
          }
 
-         // Compute using grading scheme and assessment averages
-         for (java.util.Map.Entry<String, Integer> e : scheme.entrySet()) {
-            String comp = e.getKey();
-            int weight = e.getValue();
-            double avg = assessmentDAO.getStudentAverageForType(sectionId, studentId, comp);
-            finalG += avg * (weight / 100.0);
-         }
+         // Compute using grading scheme and assessment averages (no assessments: 0)
+         SectionGrades grades = assessmentDAO.getSectionGrades(sectionId, scheme);
+         int ordinal = grades.indexOf(studentId);
+         if (ordinal >= 0) finalG = grades.computed(ordinal);
 
          // Persist final in grades table (store final; keep quiz/mid/end as 0 unless present)
          gradeDAO.saveScores(sectionId, studentId, 0.0, 0.0, 0.0, finalG);
@@ -1565,58 +1537,25 @@ public class InstructorDashboard extends JFrame {
          int sectionId = Integer.parseInt(courseIdStr);
          java.util.Map<String, Integer> scheme = gradingSchemeDAO.loadGradingScheme(sectionId);
 
-         // Gather students from assessments and grades
-         java.util.Map<String, Double> finalMap = new java.util.HashMap<>();
-
-         // First, prefer final stored in grades
-         java.util.List<java.util.Map<String, Object>> gradeRows = gradeDAO.getScoresForSection(sectionId);
-         for (java.util.Map<String, Object> r : gradeRows) {
-            String sid = String.valueOf(r.get("student_id"));
-            double f = ((Number) r.getOrDefault("final", 0.0)).doubleValue();
-            if (f > 0) finalMap.put(sid, f);
-         }
-
-         // Then compute finals for students present in assessments but not in finalMap
-         java.util.List<java.util.Map<String, Object>> assessRows = assessmentDAO.getAssessmentsForSection(sectionId);
-         java.util.Set<String> students = new java.util.HashSet<>();
-         for (java.util.Map<String, Object> a : assessRows) students.add((String)a.get("student_id"));
-
-         for (String sid : students) {
-            if (finalMap.containsKey(sid)) continue;
-            double finalG = 0.0;
-            if (scheme != null && !scheme.isEmpty()) {
-               for (java.util.Map.Entry<String, Integer> e : scheme.entrySet()) {
-                  double avg = assessmentDAO.getStudentAverageForType(sectionId, sid, e.getKey());
-                  finalG += avg * (e.getValue() / 100.0);
-               }
-               finalMap.put(sid, finalG);
-            }
-         }
-
-         if (finalMap.isEmpty()) return null;
-
-         int total = finalMap.size();
-         double sumFinal = 0.0; double minF = Double.MAX_VALUE, maxF = -Double.MAX_VALUE;
-         for (double v : finalMap.values()) { sumFinal += v; if (v < minF) minF = v; if (v > maxF) maxF = v; }
-         double avgFinal = sumFinal / total;
+         // Finals (stored ones first, else computed from the scheme) and statistics in one pass
+         if (scheme == null) scheme = new java.util.HashMap<>();
+         SectionGrades grades = assessmentDAO.getSectionGrades(sectionId, scheme);
+         if (grades.count() == 0) return null;
 
          StringBuilder sb = new StringBuilder();
          sb.append("Statistics for course: ").append(course).append("\n\n");
-         sb.append("Total Students: ").append(total).append("\n");
-         if (scheme != null && !scheme.isEmpty()) {
-            for (String comp : scheme.keySet()) {
-               // compute average for component across students
-               double sumComp = 0.0; int cnt = 0;
-               for (String sid : finalMap.keySet()) {
-                  double v = assessmentDAO.getStudentAverageForType(sectionId, sid, comp);
-                  sumComp += v; cnt++;
-               }
-               double avgComp = cnt == 0 ? 0.0 : (sumComp / cnt);
-               sb.append(String.format("Average %s: %.2f\n", comp, avgComp));
-            }
+         sb.append("Total Students: ").append(grades.count()).append("\n");
+         for (int j = 0; j < grades.components().size(); j++) {
+            sb.append(String.format("Average %s: %.2f\n", grades.components().get(j), grades.componentMean(j)));
+         }
+         sb.append(String.format("Average Final: %.2f\n", grades.meanFinal()));
+         sb.append(String.format("Final Range: %.2f - %.2f\n", grades.minFinal(), grades.maxFinal()));
+         int[] distribution = grades.distribution();
+         sb.append("Distribution:");
+         for (int b = 0; b < distribution.length; b++) {
+            sb.append(b == 0 ? " " : ", ").append(SectionGrades.BANDS[b]).append(" ").append(distribution[b]);
          }
-         sb.append(String.format("Average Final: %.2f\n", avgFinal));
-         sb.append(String.format("Final Range: %.2f - %.2f\n", minF == Double.MAX_VALUE ? 0.0 : minF, maxF == -Double.MAX_VALUE ? 0.0 : maxF));
+         sb.append("\n");
          return sb.toString();
       } catch (Exception ex) {
          return "Error generating report: " + ex.getMessage();
@@ -1843,15 +1782,8 @@ public class InstructorDashboard extends JFrame {
            String currentStatus = (String) coursesModel.getValueAt(row, 5);
            String newStatus = "Open".equals(currentStatus) ? "Closed" : "Open";
            
-           // Update database
-           String updateQuery = "UPDATE Section SET enrollment_open = ? WHERE id = ?";
-           Connection conn = DriverManager.getConnection(DatabaseConfig.getDatabaseUrl());
-           PreparedStatement pstmt = conn.prepareStatement(updateQuery);
-           pstmt.setBoolean(1, "Open".equals(newStatus));
-           pstmt.setInt(2, sectionId);
-           pstmt.executeUpdate();
-           pstmt.close();
-           conn.close();
+           // Update database (and hand the section to or from the registration engine)
+           SectionEnrollment.setEnrollmentOpen(sectionId, "Open".equals(newStatus));
            
            // Update table model
            coursesModel.setValueAt(newStatus, row, 5);
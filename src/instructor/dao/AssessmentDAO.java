@@ -1,54 +1,79 @@
 package instructor.dao;
 
+import login.ChangeBus;
 import login.DatabaseConfig;
+import login.SchemaRegistry;
+import login.StudentChanges;
 import java.sql.*;
 import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 public class AssessmentDAO {
     public AssessmentDAO() {
-        try { Class.forName("org.sqlite.JDBC"); } catch (ClassNotFoundException ignored) {}
-        ensureTables();
+        SchemaRegistry.ensureSchema();
     }
 
-    private Connection conn() throws SQLException { return DriverManager.getConnection(DatabaseConfig.getDatabaseUrl()); }
+    private Connection conn() throws SQLException { return DatabaseConfig.getConnection(); }
 
-    private void ensureTables() {
-        try (Connection c = conn(); Statement s = c.createStatement()) {
-            s.execute("CREATE TABLE IF NOT EXISTS assessments (section_id INTEGER, student_id TEXT, assessment_type TEXT, score REAL, recorded_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP, PRIMARY KEY(section_id, student_id, assessment_type, recorded_at))");
-        } catch (Exception ignored) {}
+    /** One score to save: a cell of the instructor's grid. */
+    public static final class Entry {
+        public final String studentId;
+        public final String type;
+        public final double score;
+
+        public Entry(String studentId, String type, double score) {
+            this.studentId = studentId;
+            this.type = type;
+            this.score = score;
+        }
     }
 
+    // Insert or replace one score per (section, student, type); rows whose score is unchanged aren't written
+    private static final String UPSERT_SQL = "INSERT INTO assessments (section_id, student_id, assessment_type, score) VALUES (?, ?, ?, ?) " +
+            "ON CONFLICT (section_id, student_id, assessment_type) DO UPDATE SET score = excluded.score WHERE assessments.score IS NOT excluded.score";
+
     public void saveAssessment(int sectionId, String studentId, String type, double score) {
-        // Try UPDATE first, then INSERT if not found
-        String updateSql = "UPDATE assessments SET score = ? WHERE section_id = ? AND student_id = ? AND assessment_type = ?";
-        try (Connection c = conn(); PreparedStatement p = c.prepareStatement(updateSql)) {
-            p.setDouble(1, score);
-            p.setInt(2, sectionId);
-            p.setString(3, studentId);
-            p.setString(4, type);
-            int updated = p.executeUpdate();
-            if (updated == 0) {
-                // Record doesn't exist, insert it
-                String insertSql = "INSERT INTO assessments (section_id, student_id, assessment_type, score) VALUES (?, ?, ?, ?)";
-                try (PreparedStatement insertP = c.prepareStatement(insertSql)) {
-                    insertP.setInt(1, sectionId);
-                    insertP.setString(2, studentId);
-                    insertP.setString(3, type);
-                    insertP.setDouble(4, score);
-                    insertP.executeUpdate();
+        saveAssessments(sectionId, List.of(new Entry(studentId, type, score)));
+    }
+
+    /**
+     * Save many scores of one section as one batched upsert in a single transaction.
+     * Returns how many scores were new or changed.
+     */
+    public int saveAssessments(int sectionId, List<Entry> entries) {
+        if (entries.isEmpty()) return 0;
+        try {
+            return DatabaseConfig.write(c -> {
+                int changed = 0;
+                Set<String> students = new HashSet<>();
+                try (PreparedStatement p = c.prepareStatement(UPSERT_SQL)) {
+                    for (Entry e : entries) {
+                        p.setInt(1, sectionId);
+                        p.setString(2, e.studentId);
+                        p.setString(3, e.type);
+                        p.setDouble(4, e.score);
+                        p.addBatch();
+                        students.add(e.studentId);
+                    }
+                    for (int n : p.executeBatch()) if (n > 0) changed += n;
                 }
-            }
+                for (String studentId : students) StudentChanges.changedOnCommit(studentId);
+                ChangeBus.publish(ChangeBus.Topic.GRADES);
+                return changed;
+            });
         } catch (SQLException ex) { throw new RuntimeException(ex); }
     }
 
+    public static final String SECTION_ASSESSMENTS_SQL = "SELECT student_id, assessment_type, score FROM assessments WHERE section_id = ?";
+
     // Return list of assessment rows for a section
     public List<Map<String, Object>> getAssessmentsForSection(int sectionId) {
         List<Map<String, Object>> out = new ArrayList<>();
-        String sql = "SELECT student_id, assessment_type, score FROM assessments WHERE section_id = ?";
-        try (Connection c = conn(); PreparedStatement p = c.prepareStatement(sql)) {
+        try (Connection c = conn(); PreparedStatement p = c.prepareStatement(SECTION_ASSESSMENTS_SQL)) {
             p.setInt(1, sectionId);
             try (ResultSet rs = p.executeQuery()) {
                 while (rs.next()) {
@@ -63,10 +88,18 @@ public class AssessmentDAO {
         return out;
     }
 
+    // Finals and class statistics for a section under a grading scheme, from one read of its assessments
+    public SectionGrades getSectionGrades(int sectionId, Map<String, Integer> scheme) {
+        try (Connection c = conn()) {
+            return SectionGrades.load(c, sectionId, scheme);
+        } catch (SQLException ex) { throw new RuntimeException(ex); }
+    }
+
+    public static final String AVERAGE_SQL = "SELECT AVG(score) FROM assessments WHERE section_id = ? AND student_id = ? AND assessment_type = ?";
+
     // Average score for a student in a section for a given assessment type
     public double getStudentAverageForType(int sectionId, String studentId, String type) {
-        String sql = "SELECT AVG(score) FROM assessments WHERE section_id = ? AND student_id = ? AND assessment_type = ?";
-        try (Connection c = conn(); PreparedStatement p = c.prepareStatement(sql)) {
+        try (Connection c = conn(); PreparedStatement p = c.prepareStatement(AVERAGE_SQL)) {
             p.setInt(1, sectionId);
             p.setString(2, studentId);
             p.setString(3, type);
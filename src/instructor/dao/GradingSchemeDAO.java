@@ -1,49 +1,46 @@
 package instructor.dao;
 
 import login.DatabaseConfig;
+import login.SchemaRegistry;
 import java.sql.*;
 import java.util.HashMap;
 import java.util.Map;
 
 public class GradingSchemeDAO {
     public GradingSchemeDAO() {
-        try { Class.forName("org.sqlite.JDBC"); } catch (ClassNotFoundException ignored) {}
-        ensureTables();
+        SchemaRegistry.ensureSchema();
     }
 
-    private Connection conn() throws SQLException { return DriverManager.getConnection(DatabaseConfig.getDatabaseUrl()); }
-
-    private void ensureTables() {
-        try (Connection c = conn(); Statement s = c.createStatement()) {
-            s.execute("CREATE TABLE IF NOT EXISTS grading_scheme (section_id INTEGER, component TEXT, percentage INTEGER, PRIMARY KEY(section_id, component))");
-        } catch (Exception ignored) {}
-    }
+    private Connection conn() throws SQLException { return DatabaseConfig.getConnection(); }
 
     public void saveGradingScheme(int sectionId, Map<String, Integer> scheme) {
         String del = "DELETE FROM grading_scheme WHERE section_id = ?";
         String ins = "INSERT INTO grading_scheme(section_id, component, percentage) VALUES (?, ?, ?)";
-        try (Connection c = conn()) {
-            c.setAutoCommit(false);
-            try (PreparedStatement pd = c.prepareStatement(del)) {
-                pd.setInt(1, sectionId); pd.executeUpdate();
-            }
-            try (PreparedStatement pi = c.prepareStatement(ins)) {
-                for (Map.Entry<String, Integer> e : scheme.entrySet()) {
-                    pi.setInt(1, sectionId);
-                    pi.setString(2, e.getKey());
-                    pi.setInt(3, e.getValue());
-                    pi.addBatch();
+        // The writer runs this as one unit (savepoint), so delete + insert stay atomic
+        try {
+            DatabaseConfig.write(c -> {
+                try (PreparedStatement pd = c.prepareStatement(del)) {
+                    pd.setInt(1, sectionId); pd.executeUpdate();
                 }
-                pi.executeBatch();
-            }
-            c.commit();
+                try (PreparedStatement pi = c.prepareStatement(ins)) {
+                    for (Map.Entry<String, Integer> e : scheme.entrySet()) {
+                        pi.setInt(1, sectionId);
+                        pi.setString(2, e.getKey());
+                        pi.setInt(3, e.getValue());
+                        pi.addBatch();
+                    }
+                    pi.executeBatch();
+                }
+                return null;
+            });
         } catch (SQLException ex) { throw new RuntimeException(ex); }
     }
 
+    public static final String SCHEME_SQL = "SELECT component, percentage FROM grading_scheme WHERE section_id = ?";
+
     public Map<String, Integer> loadGradingScheme(int sectionId) {
         Map<String, Integer> out = new HashMap<>();
-        String sql = "SELECT component, percentage FROM grading_scheme WHERE section_id = ?";
-        try (Connection c = conn(); PreparedStatement p = c.prepareStatement(sql)) {
+        try (Connection c = conn(); PreparedStatement p = c.prepareStatement(SCHEME_SQL)) {
             p.setInt(1, sectionId);
             try (ResultSet rs = p.executeQuery()) {
                 while (rs.next()) {
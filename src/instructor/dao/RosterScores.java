@@ -0,0 +1,115 @@
+package instructor.dao;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A section's roster with its assessment scores, pivoted: one row per enrolled student and
+ * one column per requested assessment type, held column by column (a double[] per type, NaN
+ * where the student has no score of that type).
+ *
+ * Loaded by one query joining enrollments, students and assessments, instead of one
+ * assessments query per student. The total is the sum of every score the student has in the
+ * section, shown types or not, as score_totals keeps it.
+ */
+public final class RosterScores {
+
+    public static final String SQL =
+            "SELECT e.student_id, s.name, a.assessment_type, a.score " +
+            "FROM (SELECT DISTINCT student_id FROM enrollments WHERE section_id = ?) e " +
+            "LEFT JOIN students s ON s.id = e.student_id " +
+            "LEFT JOIN assessments a ON a.section_id = ? AND a.student_id = e.student_id " +
+            "ORDER BY s.name, e.student_id";
+
+    public final int sectionId;
+    private final List<String> types;
+    private final int size;
+    private final String[] studentIds;
+    private final String[] names;
+    private final double[][] scores;
+    private final double[] totals;
+
+    private RosterScores(int sectionId, List<String> types, int size, String[] studentIds, String[] names, double[][] scores, double[] totals) {
+        this.sectionId = sectionId;
+        this.types = types;
+        this.size = size;
+        this.studentIds = studentIds;
+        this.names = names;
+        this.scores = scores;
+        this.totals = totals;
+    }
+
+    /** The section's students, ordered by name, with their scores for the given types. */
+    public static RosterScores load(Connection c, int sectionId, List<String> types) throws SQLException {
+        Map<String, Integer> column = new HashMap<>();
+        for (int t = 0; t < types.size(); t++) column.putIfAbsent(types.get(t), t);
+        int capacity = 64;
+        String[] ids = new String[capacity];
+        String[] names = new String[capacity];
+        double[][] scores = new double[types.size()][capacity];
+        double[] totals = new double[capacity];
+        int n = 0;
+        try (PreparedStatement p = c.prepareStatement(SQL)) {
+            p.setInt(1, sectionId);
+            p.setInt(2, sectionId);
+            try (ResultSet rs = p.executeQuery()) {
+                while (rs.next()) {
+                    String id = rs.getString(1);
+                    if (n == 0 || !ids[n - 1].equals(id)) {
+                        if (n == capacity) {
+                            capacity *= 2;
+                            ids = Arrays.copyOf(ids, capacity);
+                            names = Arrays.copyOf(names, capacity);
+                            totals = Arrays.copyOf(totals, capacity);
+                            for (int t = 0; t < scores.length; t++) scores[t] = Arrays.copyOf(scores[t], capacity);
+                        }
+                        ids[n] = id;
+                        names[n] = rs.getString(2);
+                        for (double[] col : scores) col[n] = Double.NaN;
+                        n++;
+                    }
+                    String type = rs.getString(3);
+                    if (type == null) continue; // enrolled, nothing recorded yet
+                    double score = rs.getDouble(4);
+                    totals[n - 1] += score;
+                    Integer t = column.get(type);
+                    if (t != null) scores[t][n - 1] = score;
+                }
+            }
+        }
+        return new RosterScores(sectionId, List.copyOf(types), n, ids, names, scores, totals);
+    }
+
+    /** Number of students. */
+    public int size() {
+        return size;
+    }
+
+    public List<String> types() {
+        return types;
+    }
+
+    public String studentId(int row) {
+        return studentIds[row];
+    }
+
+    /** The student's name, or null when there's no students row for them. */
+    public String name(int row) {
+        return names[row];
+    }
+
+    /** The score of the type at the given column, NaN when none is recorded. */
+    public double score(int column, int row) {
+        return scores[column][row];
+    }
+
+    public double total(int row) {
+        return totals[row];
+    }
+}
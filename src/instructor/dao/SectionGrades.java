@@ -0,0 +1,230 @@
+package instructor.dao;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A section's final grades and class statistics from its grading scheme, computed together.
+ *
+ * The section's assessments are read once into a sum and a count per component, each a
+ * double[] / int[] indexed by student ordinal; a student's component score is the average of
+ * their scores of that type (0 when none), as AssessmentDAO.getStudentAverageForType gives it.
+ * One loop then applies the scheme's weights and collects the finals, component averages,
+ * min/max and the distribution over the grade bands.
+ *
+ * A final stored in grades (above 0) is used as the student's final in place of the computed
+ * one, and students known only from grades are included; without a scheme only stored finals
+ * count. {@link #computed(int)} is always the scheme's result.
+ */
+public final class SectionGrades {
+
+    /** Grade bands, best first, with the lowest final in each; as on the Stats panel. */
+    public static final String[] BANDS = {"A+", "A", "B", "C", "F"};
+    private static final double[] BAND_FLOORS = {90, 80, 70, 60, Double.NEGATIVE_INFINITY};
+
+    public static final String ASSESSMENTS_SQL =
+            "SELECT student_id, assessment_type, score FROM assessments WHERE section_id = ? AND student_id IS NOT NULL ORDER BY student_id";
+    public static final String STORED_SQL = "SELECT student_id, final FROM grades WHERE section_id = ? AND final > 0";
+
+    private final List<String> components;
+    private final String[] studentIds;
+    private final Map<String, Integer> ordinals;
+    private final double[][] averages;
+    private final double[] computed;
+    private final double[] finals;
+    private final double[] componentMeans;
+    private final int[] distribution;
+    private final int count;
+    private final double meanFinal;
+    private final double minFinal;
+    private final double maxFinal;
+
+    /** The section's grades under the scheme (component to percentage, in the map's order). */
+    public static SectionGrades load(Connection c, int sectionId, Map<String, Integer> scheme) throws SQLException {
+        List<String> components = new ArrayList<>(scheme.keySet());
+        int k = components.size();
+        Map<String, Integer> column = new HashMap<>();
+        for (int j = 0; j < k; j++) column.put(components.get(j), j);
+
+        Map<String, Integer> ordinals = new HashMap<>();
+        List<String> ids = new ArrayList<>();
+        Columns cols = new Columns(k);
+        try (PreparedStatement p = c.prepareStatement(ASSESSMENTS_SQL)) {
+            p.setInt(1, sectionId);
+            try (ResultSet rs = p.executeQuery()) {
+                String last = null;
+                int i = -1;
+                while (rs.next()) {
+                    String id = rs.getString(1);
+                    if (!id.equals(last)) {
+                        i = ordinal(id, ordinals, ids);
+                        cols.ensure(i);
+                        last = id;
+                    }
+                    Integer j = column.get(rs.getString(2));
+                    if (j == null) continue;
+                    double score = rs.getDouble(3);
+                    if (rs.wasNull()) continue; // AVG skips NULL scores
+                    cols.sums[j][i] += score;
+                    cols.counts[j][i]++;
+                }
+            }
+        }
+        try (PreparedStatement p = c.prepareStatement(STORED_SQL)) {
+            p.setInt(1, sectionId);
+            try (ResultSet rs = p.executeQuery()) {
+                while (rs.next()) {
+                    if (rs.getString(1) == null) continue;
+                    int i = ordinal(rs.getString(1), ordinals, ids);
+                    cols.ensure(i);
+                    cols.stored[i] = rs.getDouble(2);
+                }
+            }
+        }
+
+        double[] weights = new double[k];
+        for (int j = 0; j < k; j++) weights[j] = scheme.get(components.get(j)) / 100.0;
+        return new SectionGrades(components, ids.toArray(new String[0]), ordinals, weights, cols.sums, cols.counts, cols.stored);
+    }
+
+    /** Per-component sums and counts and the stored finals while loading, grown by student ordinal. */
+    private static final class Columns {
+        double[][] sums;
+        int[][] counts;
+        double[] stored;
+
+        Columns(int components) {
+            sums = new double[components][64];
+            counts = new int[components][64];
+            stored = new double[64];
+        }
+
+        void ensure(int i) {
+            if (i < stored.length) return;
+            int capacity = Math.max(stored.length * 2, i + 1);
+            for (int j = 0; j < sums.length; j++) {
+                sums[j] = Arrays.copyOf(sums[j], capacity);
+                counts[j] = Arrays.copyOf(counts[j], capacity);
+            }
+            stored = Arrays.copyOf(stored, capacity);
+        }
+    }
+
+    private static int ordinal(String id, Map<String, Integer> ordinals, List<String> ids) {
+        Integer i = ordinals.get(id);
+        if (i != null) return i;
+        ordinals.put(id, ids.size());
+        ids.add(id);
+        return ids.size() - 1;
+    }
+
+    private SectionGrades(List<String> components, String[] studentIds, Map<String, Integer> ordinals, double[] weights,
+                          double[][] sums, int[][] counts, double[] stored) {
+        int n = studentIds.length;
+        int k = components.size();
+        this.components = List.copyOf(components);
+        this.studentIds = studentIds;
+        this.ordinals = ordinals;
+        this.averages = new double[k][n];
+        this.computed = new double[n];
+        this.finals = new double[n];
+        this.componentMeans = new double[k];
+        this.distribution = new int[BANDS.length];
+
+        int included = 0;
+        double sum = 0, min = Double.MAX_VALUE, max = -Double.MAX_VALUE;
+        for (int i = 0; i < n; i++) {
+            double f = 0;
+            for (int j = 0; j < k; j++) {
+                double avg = counts[j][i] == 0 ? 0 : sums[j][i] / counts[j][i];
+                averages[j][i] = avg;
+                f += avg * weights[j];
+            }
+            computed[i] = f;
+            double fin = stored[i] > 0 ? stored[i] : k > 0 ? f : Double.NaN;
+            finals[i] = fin;
+            if (Double.isNaN(fin)) continue;
+            included++;
+            sum += fin;
+            if (fin < min) min = fin;
+            if (fin > max) max = fin;
+            for (int j = 0; j < k; j++) componentMeans[j] += averages[j][i];
+            int b = 0;
+            while (fin < BAND_FLOORS[b]) b++;
+            distribution[b]++;
+        }
+        for (int j = 0; j < k; j++) componentMeans[j] = included == 0 ? 0 : componentMeans[j] / included;
+        this.count = included;
+        this.meanFinal = included == 0 ? 0 : sum / included;
+        this.minFinal = included == 0 ? 0 : min;
+        this.maxFinal = included == 0 ? 0 : max;
+    }
+
+    /** Students with assessments or a stored final. */
+    public int size() {
+        return studentIds.length;
+    }
+
+    public String studentId(int i) {
+        return studentIds[i];
+    }
+
+    /** The student's ordinal, or -1 when they have neither assessments nor a stored final. */
+    public int indexOf(String studentId) {
+        Integer i = ordinals.get(studentId);
+        return i == null ? -1 : i;
+    }
+
+    public List<String> components() {
+        return components;
+    }
+
+    /** The student's average for the component at the given index. */
+    public double average(int component, int i) {
+        return averages[component][i];
+    }
+
+    /** The weighted final from the scheme, ignoring any stored final. */
+    public double computed(int i) {
+        return computed[i];
+    }
+
+    /** The stored final if there is one, else the computed one; NaN when there's neither a stored final nor a scheme. */
+    public double finalGrade(int i) {
+        return finals[i];
+    }
+
+    /** Students with a final. The statistics below are over these. */
+    public int count() {
+        return count;
+    }
+
+    public double meanFinal() {
+        return meanFinal;
+    }
+
+    public double minFinal() {
+        return minFinal;
+    }
+
+    public double maxFinal() {
+        return maxFinal;
+    }
+
+    /** The mean of the students' averages for the component at the given index. */
+    public double componentMean(int component) {
+        return componentMeans[component];
+    }
+
+    /** Students per grade band, in BANDS order. */
+    public int[] distribution() {
+        return distribution.clone();
+    }
+}
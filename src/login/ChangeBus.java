@@ -0,0 +1,228 @@
+package login;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+
+/**
+ * In-process change notifications, so open windows refresh when data they show changes
+ * instead of each polling the database on a timer.
+ *
+ * Writers call {@link #publish(Topic...)} from inside their DatabaseConfig.write work; the
+ * topics are announced once that work has committed (nothing is announced for a rollback).
+ * Subscribers name the topics they render and are called on the bus thread, never on the
+ * writer thread or the EDT, with every topic published since their last call: a burst of
+ * writes arrives as one notification (erp.ui.changeDebounceMillis, default 100).
+ *
+ * Writes from another process sharing erp.db, or from code that bypasses the writer with
+ * its own connection, are picked up by one shared watcher: every erp.ui.changeWatchMillis
+ * (default 1000; 0 disables) while anyone is subscribed, the bus thread reads PRAGMA
+ * data_version on a read-only connection of its own (never through the writer queue), which
+ * changes whenever another connection has committed. The writer's own commits are told
+ * apart through DbWriter's commit hook, which brackets each one: before it, the watch
+ * connection is compared with the baseline (nothing of ours is committed yet); after it,
+ * the baseline moves past our commit, and data_version on the writer connection, which
+ * changes only for other connections' commits, shows whether one landed in between. A
+ * change from elsewhere is reported as every topic, since what changed is unknown.
+ */
+public final class ChangeBus {
+
+    public enum Topic { OFFERINGS, SECTIONS, ENROLLMENTS, GRADES }
+
+    private static final long DEBOUNCE_MILLIS = Math.max(0, Long.getLong("erp.ui.changeDebounceMillis", 100));
+    private static final long WATCH_MILLIS = Math.max(0, Long.getLong("erp.ui.changeWatchMillis", 1000));
+
+    private static final List<Subscription> subscriptions = new CopyOnWriteArrayList<>();
+    private static final Set<Topic> pending = EnumSet.noneOf(Topic.class); // guarded by ChangeBus.class
+    private static Thread thread;
+
+    // Watcher state, guarded by WATCH_LOCK (bus thread polls, writer thread reports its commits)
+    private static final Object WATCH_LOCK = new Object();
+    private static DbWriter watchedWriter;
+    private static Connection watchConnection;
+    private static long dataVersion;
+    private static boolean writerVersionKnown;
+    private static long writerVersion;
+
+    private ChangeBus() {}
+
+    /** A registered listener; close it when the window goes away. */
+    public static final class Subscription implements AutoCloseable {
+        private final Set<Topic> topics;
+        private final Consumer<Set<Topic>> listener;
+
+        private Subscription(Set<Topic> topics, Consumer<Set<Topic>> listener) {
+            this.topics = topics;
+            this.listener = listener;
+        }
+
+        @Override
+        public void close() {
+            subscriptions.remove(this);
+        }
+    }
+
+    /** Call the listener, on the bus thread, with whichever of the topics have changed. */
+    public static Subscription subscribe(Consumer<Set<Topic>> listener, Topic... topics) {
+        Set<Topic> set = EnumSet.noneOf(Topic.class);
+        Collections.addAll(set, topics);
+        Subscription s = new Subscription(set, listener);
+        subscriptions.add(s);
+        start();
+        synchronized (ChangeBus.class) {
+            ChangeBus.class.notifyAll(); // start watching if the bus was idle
+        }
+        return s;
+    }
+
+    /** Announce changes; from inside write work they go out once it has committed. */
+    public static void publish(Topic... topics) {
+        if (topics.length == 0) return;
+        DatabaseConfig.afterCommit(() -> signal(topics));
+    }
+
+    private static void signal(Topic... topics) {
+        synchronized (ChangeBus.class) {
+            Collections.addAll(pending, topics);
+            ChangeBus.class.notifyAll();
+        }
+        start();
+    }
+
+    private static synchronized void start() {
+        if (thread != null) return;
+        thread = new Thread(ChangeBus::loop, "erp-change-bus");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    private static void loop() {
+        long lastWatch = 0;
+        while (true) {
+            try {
+                synchronized (ChangeBus.class) {
+                    if (pending.isEmpty()) ChangeBus.class.wait(watching() ? WATCH_MILLIS : 0);
+                }
+                if (watching() && System.currentTimeMillis() - lastWatch >= WATCH_MILLIS) {
+                    watch();
+                    lastWatch = System.currentTimeMillis();
+                }
+                Thread.sleep(DEBOUNCE_MILLIS);
+            } catch (InterruptedException ex) {
+                return;
+            }
+            Set<Topic> changed;
+            synchronized (ChangeBus.class) {
+                if (pending.isEmpty()) continue;
+                changed = EnumSet.copyOf(pending);
+                pending.clear();
+            }
+            deliver(changed);
+        }
+    }
+
+    private static void deliver(Set<Topic> changed) {
+        for (Subscription s : subscriptions) {
+            Set<Topic> mine = EnumSet.copyOf(changed);
+            mine.retainAll(s.topics);
+            if (mine.isEmpty()) continue;
+            try {
+                s.listener.accept(Collections.unmodifiableSet(mine));
+            } catch (RuntimeException ex) {
+                System.err.println("ChangeBus: listener failed: " + ex);
+            }
+        }
+    }
+
+    /** Poll the watch connection's data_version; a change the writer didn't account for means another connection committed. */
+    private static void watch() {
+        DbWriter writer = DatabaseConfig.getWriter();
+        boolean changed;
+        synchronized (WATCH_LOCK) {
+            try {
+                if (writer != watchedWriter || watchConnection == null) {
+                    // First poll, or a new database (DatabaseConfig.resetCache): start over on a fresh connection
+                    closeWatchConnection();
+                    watchConnection = DatabaseConfig.openReadOnlyConnection();
+                    watchedWriter = writer;
+                    dataVersion = dataVersion(watchConnection);
+                    writerVersionKnown = false;
+                    return;
+                }
+                long version = dataVersion(watchConnection);
+                changed = version != dataVersion;
+                dataVersion = version;
+            } catch (SQLException ex) {
+                closeWatchConnection(); // reopened on the next poll
+                return;
+            }
+        }
+        if (changed) signal(Topic.values());
+    }
+
+    /**
+     * DbWriter's commit hook, on the writer thread: keep this process's own commits out of the
+     * poll without losing one from elsewhere that lands next to them.
+     */
+    private static final DbWriter.CommitHook OWN_COMMITS = new DbWriter.CommitHook() {
+        @Override
+        public void beforeCommit(DbWriter writer, Connection c) throws SQLException {
+            if (!watching()) return;
+            boolean external;
+            synchronized (WATCH_LOCK) {
+                if (writer != watchedWriter || watchConnection == null) return;
+                // The writer connection's version changes only for other connections' commits
+                writerVersion = dataVersion(c);
+                writerVersionKnown = true;
+                // Nothing of ours is committed yet: a change since the baseline came from elsewhere
+                long version = dataVersion(watchConnection);
+                external = version != dataVersion;
+                dataVersion = version;
+            }
+            if (external) signal(Topic.values());
+        }
+
+        @Override
+        public void afterCommit(DbWriter writer, Connection c) throws SQLException {
+            boolean external;
+            synchronized (WATCH_LOCK) {
+                if (!writerVersionKnown || writer != watchedWriter || watchConnection == null) return;
+                writerVersionKnown = false;
+                // Move the baseline past our commit, then check nobody else committed since beforeCommit
+                dataVersion = dataVersion(watchConnection);
+                external = dataVersion(c) != writerVersion;
+            }
+            if (external) signal(Topic.values());
+        }
+    };
+
+    private static boolean watching() {
+        return WATCH_MILLIS > 0 && !subscriptions.isEmpty();
+    }
+
+    static {
+        DbWriter.setCommitHook(OWN_COMMITS);
+    }
+
+    private static long dataVersion(Connection c) throws SQLException {
+        try (Statement s = c.createStatement(); ResultSet rs = s.executeQuery("PRAGMA data_version")) {
+            return rs.next() ? rs.getLong(1) : 0L;
+        }
+    }
+
+    private static void closeWatchConnection() {
+        if (watchConnection == null) return;
+        try {
+            watchConnection.close();
+        } catch (SQLException ignored) {
+        }
+        watchConnection = null;
+    }
+}
@@ -0,0 +1,275 @@
+package login;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.CallableStatement;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Iterator;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Small bounded JDBC connection pool for the SQLite database.
+ *
+ * Connections handed out by {@link #getConnection()} are proxies around a physical
+ * connection; calling close() on them returns the physical connection to the pool
+ * instead of closing the SQLite file. The pool:
+ * - caps the number of open physical connections (callers wait up to borrowTimeoutMs),
+ * - runs the configured PRAGMAs once when a physical connection is opened,
+ * - re-validates connections that sat idle for a while before handing them out,
+ * - closes connections that stay idle longer than idleTimeoutMs (keeping minIdle open).
+ *
+ * Each physical connection carries a {@link StatementCache}, so prepareStatement(sql)
+ * reuses statements already prepared on that connection. Statements a borrower forgets to
+ * close are cleaned up when the connection is returned. Every statement handed out is
+ * timed into {@link SqlStats}, along with how long the borrower waited for the connection.
+ */
+public class ConnectionPool {
+    private static final long VALIDATE_AFTER_MS = 5_000;
+    private static final int STATEMENT_CACHE_SIZE = Integer.getInteger("erp.db.statementCacheSize", 64);
+
+    private final String url;
+    private final int maxSize;
+    private final int minIdle;
+    private final long idleTimeoutMs;
+    private final long borrowTimeoutMs;
+    private final String[] initSql;
+
+    private final Semaphore permits;
+    // Most recently returned connection first, so a quiet pool keeps reusing the same warm one
+    private final ConcurrentLinkedDeque<PhysicalConnection> idle = new ConcurrentLinkedDeque<>();
+    private final ScheduledExecutorService evictor;
+    private volatile boolean shutdown = false;
+
+    private final AtomicLong opened = new AtomicLong();
+    private final AtomicLong borrowed = new AtomicLong();
+    private final AtomicLong evicted = new AtomicLong();
+    private final AtomicLong validationFailures = new AtomicLong();
+
+    public ConnectionPool(String url, int maxSize, int minIdle, long idleTimeoutMs, long borrowTimeoutMs, String... initSql) {
+        if (maxSize < 1) throw new IllegalArgumentException("maxSize must be >= 1");
+        this.url = url;
+        this.maxSize = maxSize;
+        this.minIdle = Math.max(0, Math.min(minIdle, maxSize));
+        this.idleTimeoutMs = idleTimeoutMs;
+        this.borrowTimeoutMs = borrowTimeoutMs;
+        this.initSql = initSql == null ? new String[0] : initSql.clone();
+        this.permits = new Semaphore(maxSize, true);
+
+        this.evictor = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "erp-db-pool-evictor");
+            t.setDaemon(true);
+            return t;
+        });
+        long period = Math.max(1_000, idleTimeoutMs / 2);
+        evictor.scheduleWithFixedDelay(this::evictIdle, period, period, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Borrow a connection. Close it (try-with-resources) to hand it back.
+     */
+    public Connection getConnection() throws SQLException {
+        if (shutdown) throw new SQLException("Connection pool is shut down");
+        long start = System.nanoTime();
+        try {
+            if (!permits.tryAcquire(borrowTimeoutMs, TimeUnit.MILLISECONDS)) {
+                throw new SQLException("Timed out after " + borrowTimeoutMs + " ms waiting for a database connection (pool size " + maxSize + ")");
+            }
+        } catch (InterruptedException ie) {
+            Thread.currentThread().interrupt();
+            throw new SQLException("Interrupted while waiting for a database connection", ie);
+        }
+        try {
+            PhysicalConnection pc;
+            while ((pc = idle.pollFirst()) != null) {
+                if (isUsable(pc)) break;
+                validationFailures.incrementAndGet();
+                pc.destroy();
+            }
+            if (pc == null) pc = open();
+            borrowed.incrementAndGet();
+            SqlStats.recordPoolWait(System.nanoTime() - start);
+            return pc.lease();
+        } catch (SQLException | RuntimeException ex) {
+            permits.release();
+            throw ex;
+        }
+    }
+
+    /** Close idle connections and refuse new borrows. Leased connections are closed as they come back. */
+    public void shutdown() {
+        shutdown = true;
+        evictor.shutdownNow();
+        PhysicalConnection pc;
+        while ((pc = idle.pollFirst()) != null) pc.destroy();
+    }
+
+    public int getMaxSize() { return maxSize; }
+    public int getIdleCount() { return idle.size(); }
+    public int getActiveCount() { return maxSize - permits.availablePermits(); }
+    public long getOpenedCount() { return opened.get(); }
+    public long getBorrowCount() { return borrowed.get(); }
+    public long getEvictedCount() { return evicted.get(); }
+    public long getValidationFailureCount() { return validationFailures.get(); }
+
+    @Override
+    public String toString() {
+        return "ConnectionPool{active=" + getActiveCount() + ", idle=" + getIdleCount() + ", max=" + maxSize +
+                ", opened=" + opened.get() + ", borrows=" + borrowed.get() + ", evicted=" + evicted.get() + "} " +
+                StatementCache.summary();
+    }
+
+    private PhysicalConnection open() throws SQLException {
+        Connection raw = DriverManager.getConnection(url);
+        try (Statement s = raw.createStatement()) {
+            for (String sql : initSql) s.execute(sql);
+        } catch (SQLException ex) {
+            try { raw.close(); } catch (SQLException ignored) {}
+            throw ex;
+        }
+        opened.incrementAndGet();
+        return new PhysicalConnection(raw);
+    }
+
+    private boolean isUsable(PhysicalConnection pc) {
+        try {
+            if (pc.raw.isClosed()) return false;
+            if (System.currentTimeMillis() - pc.lastUsed < VALIDATE_AFTER_MS) return true;
+            return pc.raw.isValid(2);
+        } catch (SQLException ex) {
+            return false;
+        }
+    }
+
+    private void release(PhysicalConnection pc) {
+        try {
+            boolean reusable = !shutdown && pc.reset();
+            if (reusable) {
+                pc.lastUsed = System.currentTimeMillis();
+                idle.offerFirst(pc);
+            } else {
+                pc.destroy();
+            }
+        } finally {
+            permits.release();
+        }
+    }
+
+    private void evictIdle() {
+        long cutoff = System.currentTimeMillis() - idleTimeoutMs;
+        int keep = idle.size();
+        // Oldest connections sit at the tail of the deque
+        for (Iterator<PhysicalConnection> it = idle.descendingIterator(); it.hasNext() && keep > minIdle; ) {
+            PhysicalConnection pc = it.next();
+            if (pc.lastUsed > cutoff) break;
+            // remove() only succeeds if no borrower grabbed the connection in the meantime
+            if (idle.remove(pc)) {
+                pc.destroy();
+                evicted.incrementAndGet();
+                keep--;
+            }
+        }
+    }
+
+    /** One open SQLite connection owned by the pool. */
+    private final class PhysicalConnection {
+        final Connection raw;
+        final StatementCache statements;
+        volatile long lastUsed = System.currentTimeMillis();
+
+        PhysicalConnection(Connection raw) {
+            this.raw = raw;
+            this.statements = new StatementCache(raw, STATEMENT_CACHE_SIZE);
+        }
+
+        Connection lease() {
+            return (Connection) Proxy.newProxyInstance(ConnectionPool.class.getClassLoader(),
+                    new Class<?>[]{Connection.class}, new Lease(this));
+        }
+
+        /** Undo whatever the previous borrower left behind. Returns false if the connection should be dropped. */
+        boolean reset() {
+            try {
+                if (raw.isClosed()) return false;
+                if (!raw.getAutoCommit()) {
+                    raw.rollback();
+                    raw.setAutoCommit(true);
+                }
+                raw.clearWarnings();
+                return true;
+            } catch (SQLException ex) {
+                return false;
+            }
+        }
+
+        void destroy() {
+            statements.closeAll();
+            try { raw.close(); } catch (SQLException ignored) {}
+        }
+    }
+
+    /** Handle given to a single borrower; becomes unusable once closed. */
+    private final class Lease implements InvocationHandler {
+        private final PhysicalConnection pc;
+        private final StatementCache.OpenStatements open = new StatementCache.OpenStatements();
+        private boolean closed = false;
+
+        Lease(PhysicalConnection pc) { this.pc = pc; }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            switch (method.getName()) {
+                case "close":
+                    if (!closed) {
+                        closed = true;
+                        open.closeAll();
+                        release(pc);
+                    }
+                    return null;
+                case "isClosed":
+                    return closed || pc.raw.isClosed();
+                case "prepareStatement":
+                    if (closed) break;
+                    if (args.length == 1) {
+                        PreparedStatement cached = pc.statements.checkout((String) args[0], (Connection) proxy);
+                        if (cached != null) return open.track(cached);
+                    }
+                    return open.track(SqlStats.wrap((PreparedStatement) call(method, args), PreparedStatement.class, (String) args[0]));
+                case "prepareCall":
+                    if (closed) break;
+                    return open.track(SqlStats.wrap((CallableStatement) call(method, args), CallableStatement.class, (String) args[0]));
+                case "createStatement":
+                    if (closed) break;
+                    return open.track(SqlStats.wrap((Statement) call(method, args), Statement.class, null));
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                case "toString":
+                    return "Pooled[" + pc.raw + (closed ? ", closed]" : "]");
+                default:
+                    break;
+            }
+            if (closed) throw new SQLException("Connection has already been returned to the pool");
+            return call(method, args);
+        }
+
+        private Object call(Method method, Object[] args) throws Throwable {
+            try {
+                return method.invoke(pc.raw, args);
+            } catch (InvocationTargetException ex) {
+                throw ex.getCause();
+            }
+        }
+    }
+}
@@ -2,11 +2,20 @@ package login;
 
 import java.sql.*;
 import java.io.*;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.*;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 
 /**
  * Centralized DB migration handler.
  * Ensures all schema migrations run on app startup, before any DAO or service queries execute.
+ * Applied steps are recorded in the schema_migrations ledger with a checksum and skipped on
+ * later startups, so an up-to-date database costs a single ledger read.
  */
 public class DBMigration {
     static {
@@ -18,27 +27,209 @@ public class DBMigration {
         }
     }
 
+    /** Ledger of applied migrations: one row per step with the checksum it was applied with. */
+    private static final String LEDGER_TABLE = "schema_migrations";
+
+    private static volatile String lastReport = "";
+
+    /**
+     * Secondary indexes behind the hot lookups (catalog, roster, CGPA, dashboards).
+     * offerings is indexed on UPPER(branch) because every query filters on that expression.
+     * tools.QueryPlanCheck verifies the queries actually use them.
+     */
+    private static final String[][] INDEXES = {
+            {"idx_enrollments_section", "CREATE INDEX IF NOT EXISTS idx_enrollments_section ON enrollments(section_id, student_id)"},
+            {"idx_enrollments_student", "CREATE INDEX IF NOT EXISTS idx_enrollments_student ON enrollments(student_id)"},
+            {"idx_assessments_student", "CREATE INDEX IF NOT EXISTS idx_assessments_student ON assessments(student_id, section_id, assessment_type)"},
+            {"idx_sections_course", "CREATE INDEX IF NOT EXISTS idx_sections_course ON sections(course_code)"},
+            {"idx_sections_instructor_term", "CREATE INDEX IF NOT EXISTS idx_sections_instructor_term ON sections(instructor_id, term, year)"},
+            {"idx_instructor_courses_course", "CREATE INDEX IF NOT EXISTS idx_instructor_courses_course ON instructor_courses(course_code)"},
+            {"idx_offerings_upper_branch_year", "CREATE INDEX IF NOT EXISTS idx_offerings_upper_branch_year ON offerings(UPPER(branch), year)"},
+            {"idx_user_person_map_person", "CREATE INDEX IF NOT EXISTS idx_user_person_map_person ON user_person_map(person_type, person_id)"},
+    };
+
+    /**
+     * One row per (section, student, assessment type), the key AssessmentDAO upserts on.
+     * Duplicates left by older saves are deleted first, keeping the latest recording; the
+     * score_totals trigger takes their scores out of the totals.
+     */
+    private static final String[] ASSESSMENT_KEY = {
+            "DELETE FROM assessments WHERE rowid IN (SELECT rowid FROM (SELECT rowid, ROW_NUMBER() OVER ("
+                    + "PARTITION BY section_id, student_id, assessment_type ORDER BY recorded_at DESC, rowid DESC) AS n FROM assessments "
+                    + "WHERE section_id IS NOT NULL AND student_id IS NOT NULL AND assessment_type IS NOT NULL) WHERE n > 1)",
+            "CREATE UNIQUE INDEX IF NOT EXISTS ux_assessments_key ON assessments(section_id, student_id, assessment_type)",
+    };
+
+    /**
+     * One migration step. Programmatic steps are identified by a revision number that must be
+     * bumped whenever the step's code changes; SQL file steps are identified by the file content.
+     */
+    private static final class Step {
+        final String version;
+        final String description;
+        final String checksum;
+        final MigrationAction action;
+
+        Step(String version, String description, String checksum, MigrationAction action) {
+            this.version = version;
+            this.description = description;
+            this.checksum = checksum;
+            this.action = action;
+        }
+    }
+
+    @FunctionalInterface
+    private interface MigrationAction {
+        void run() throws Exception;
+    }
+
     public static void ensureSchemaUpToDate() {
         // Ensure database file location is set up before migrations
         DatabaseConfig.ensureDatabaseExists();
-        
-        // Create core tables first
-        createCoreTables();
-        
-        // Run SQL migration files from db_migrations folder
-        runSqlMigrations();
-        
-        // Run programmatic migrations
-        migrateSectionsTable();
-        migrateEnrollmentsTable();
-        migrateOfferingsTable();
-        migrateSettingsTable();
+
+        long start = System.nanoTime();
+        Map<String, String> applied = readLedger();
+        long ledgerMs = (System.nanoTime() - start) / 1_000_000;
+
+        StringBuilder report = new StringBuilder();
+        report.append(String.format("Schema migrations (ledger read %d ms):%n", ledgerMs));
+        int ran = runSteps(migrationSteps(), applied, report);
+
+        // Verify the DAO-owned tables now, so the first DAO constructed on the EDT doesn't pay for it
+        SchemaRegistry.ensureSchema();
+        report.append(String.format("  %-40s %-9s %4d ms%n", "dao schema verification", SchemaRegistry.isVerified() ? "verified" : "FAILED", SchemaRegistry.getVerifyMillis()));
+
+        // Indexes and score totals last: they cover tables created by the steps above and by the registry
+        ran += runSteps(postSchemaSteps(), applied, report);
+        report.append(String.format("  %d step(s) run, total %d ms", ran, (System.nanoTime() - start) / 1_000_000));
+        lastReport = report.toString();
+        System.out.println(lastReport);
+    }
+
+    /** Runs every step whose checksum differs from the ledger; returns how many ran successfully. */
+    private static int runSteps(List<Step> steps, Map<String, String> applied, StringBuilder report) {
+        int ran = 0;
+        for (Step step : steps) {
+            String previous = applied.get(step.version);
+            if (step.checksum.equals(previous)) {
+                report.append(String.format("  %-40s %-9s %6s%n", step.version, "skipped", "-"));
+                continue;
+            }
+            long t0 = System.nanoTime();
+            String outcome = previous == null ? "applied" : "reapplied";
+            try {
+                step.action.run();
+                recordApplied(step, (System.nanoTime() - t0) / 1_000_000);
+                ran++;
+            } catch (Exception ex) {
+                // Not recorded in the ledger, so the step is retried on next startup
+                outcome = "FAILED";
+                System.err.println("Migration " + step.version + " failed: " + ex.getMessage());
+            }
+            report.append(String.format("  %-40s %-9s %4d ms%n", step.version, outcome, (System.nanoTime() - t0) / 1_000_000));
+        }
+        return ran;
+    }
+
+    /** Timing report of the last {@link #ensureSchemaUpToDate()} run. */
+    public static String getLastReport() {
+        return lastReport;
+    }
+
+    /**
+     * Ordered list of migration steps. Order matches the historical startup sequence:
+     * core tables, SQL files from db_migrations/, then the programmatic table migrations.
+     */
+    private static List<Step> migrationSteps() {
+        List<Step> steps = new ArrayList<>();
+        steps.add(programmatic("core.001_tables", 1, "Create core tables", DBMigration::createCoreTables));
+        for (File f : sqlMigrationFiles()) {
+            try {
+                byte[] content = Files.readAllBytes(f.toPath());
+                steps.add(new Step("file." + f.getName(), "SQL migration " + f.getName(), sha256(content), () -> executeSqlFile(f)));
+            } catch (IOException ex) {
+                System.err.println("Error reading migration " + f.getName() + ": " + ex.getMessage());
+            }
+        }
+        steps.add(programmatic("core.002_sections", 1, "Migrate sections table", DBMigration::migrateSectionsTable));
+        steps.add(programmatic("core.003_enrollments", 1, "Create enrollments table", DBMigration::migrateEnrollmentsTable));
+        steps.add(programmatic("core.004_offerings", 1, "Create offerings table", DBMigration::migrateOfferingsTable));
+        steps.add(programmatic("core.005_settings", 1, "Create settings table", DBMigration::migrateSettingsTable));
+        steps.add(new Step("core.007_section_stats", "Section counters and their triggers", sha256(SectionStats.ddlBytes()), DBMigration::installSectionStats));
+        return steps;
+    }
+
+    /**
+     * Steps over DAO-owned tables; they run after the DAO schema is verified so every table
+     * they touch exists. Checksums cover the DDL, so adding or changing an index or a trigger
+     * re-runs the step.
+     */
+    private static List<Step> postSchemaSteps() {
+        StringBuilder ddl = new StringBuilder();
+        for (String[] idx : INDEXES) ddl.append(idx[1]).append('\n');
+        List<Step> steps = new ArrayList<>();
+        steps.add(new Step("core.006_indexes", "Create secondary indexes", sha256(ddl.toString().getBytes(StandardCharsets.UTF_8)), DBMigration::createIndexes));
+        steps.add(new Step("core.008_score_totals", "Per-section score totals and their triggers", sha256(ScoreTotals.ddlBytes()), DBMigration::installScoreTotals));
+        steps.add(new Step("core.009_fee_ledger", "Fee ledger and balances; copy legacy fee tables", sha256(FeeLedger.ddlBytes()), DBMigration::installFeeLedger));
+        steps.add(new Step("core.010_section_slots", "Weekly slot masks parsed from sections.day_time", sha256(SectionSlots.ddlBytes()), DBMigration::installSectionSlots));
+        steps.add(new Step("core.011_assessment_key", "Unique assessment per section, student and type", sha256(String.join("\n", ASSESSMENT_KEY).getBytes(StandardCharsets.UTF_8)), DBMigration::createAssessmentKey));
+        steps.add(new Step("core.012_student_notices", "Notices of registrations refused after the student was answered", sha256(StudentNotices.ddlBytes()), DBMigration::installStudentNotices));
+        return steps;
+    }
+
+    private static Step programmatic(String version, int revision, String description, MigrationAction action) {
+        return new Step(version, description, sha256((version + "#" + revision).getBytes(StandardCharsets.UTF_8)), action);
+    }
+
+    /**
+     * Read every applied version and its checksum. A missing ledger (fresh or pre-ledger
+     * database) reads as empty and is created, so every step runs once and gets recorded.
+     */
+    private static Map<String, String> readLedger() {
+        Map<String, String> applied = new HashMap<>();
+        try (Connection c = getConnection(); Statement s = c.createStatement()) {
+            try (ResultSet rs = s.executeQuery("SELECT version, checksum FROM " + LEDGER_TABLE)) {
+                while (rs.next()) applied.put(rs.getString(1), rs.getString(2));
+            } catch (SQLException missing) {
+                s.execute("CREATE TABLE IF NOT EXISTS " + LEDGER_TABLE + " (" +
+                        "version TEXT PRIMARY KEY, " +
+                        "description TEXT, " +
+                        "checksum TEXT NOT NULL, " +
+                        "execution_ms INTEGER, " +
+                        "applied_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP)");
+            }
+        } catch (SQLException e) {
+            System.err.println("Error reading schema migration ledger: " + e.getMessage());
+        }
+        return applied;
+    }
+
+    private static void recordApplied(Step step, long executionMs) throws SQLException {
+        String sql = "INSERT OR REPLACE INTO " + LEDGER_TABLE + " (version, description, checksum, execution_ms, applied_at) VALUES (?, ?, ?, ?, CURRENT_TIMESTAMP)";
+        try (Connection c = getConnection(); PreparedStatement p = c.prepareStatement(sql)) {
+            p.setString(1, step.version);
+            p.setString(2, step.description);
+            p.setString(3, step.checksum);
+            p.setLong(4, executionMs);
+            p.executeUpdate();
+        }
+    }
+
+    private static String sha256(byte[] data) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(data);
+            StringBuilder hex = new StringBuilder(digest.length * 2);
+            for (byte b : digest) hex.append(String.format("%02x", b));
+            return hex.toString();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
     }
 
     /**
      * Create all core database tables if they don't exist.
      */
-    private static void createCoreTables() {
+    private static void createCoreTables() throws SQLException {
         try (Connection c = getConnection(); Statement s = c.createStatement()) {
             // Users table
             s.execute("CREATE TABLE IF NOT EXISTS users (" +
@@ -81,41 +272,25 @@ public class DBMigration {
                     "PRIMARY KEY(instructor_id, course_code))");
             
             System.out.println("Core database tables created/verified.");
-        } catch (SQLException e) {
-            System.err.println("Error creating core tables: " + e.getMessage());
-            e.printStackTrace();
         }
     }
 
     /**
-     * Execute SQL migration files from db_migrations folder.
+     * SQL migration files from the db_migrations folder, sorted by name to ensure execution order.
      */
-    private static void runSqlMigrations() {
+    private static List<File> sqlMigrationFiles() {
         File migrationsDir = new File("db_migrations");
         if (!migrationsDir.exists() || !migrationsDir.isDirectory()) {
-            System.out.println("No db_migrations directory found, skipping SQL migrations.");
-            return;
+            return new ArrayList<>();
         }
         
         File[] migrationFiles = migrationsDir.listFiles((dir, name) -> name.endsWith(".sql"));
         if (migrationFiles == null || migrationFiles.length == 0) {
-            System.out.println("No SQL migration files found in db_migrations folder.");
-            return;
+            return new ArrayList<>();
         }
         
-        // Sort files by name to ensure execution order
         java.util.Arrays.sort(migrationFiles, (a, b) -> a.getName().compareTo(b.getName()));
-        
-        for (File migrationFile : migrationFiles) {
-            try {
-                System.out.println("Running migration: " + migrationFile.getName());
-                executeSqlFile(migrationFile);
-                System.out.println("Migration completed: " + migrationFile.getName());
-            } catch (Exception e) {
-                System.err.println("Error running migration " + migrationFile.getName() + ": " + e.getMessage());
-                e.printStackTrace();
-            }
-        }
+        return new ArrayList<>(java.util.Arrays.asList(migrationFiles));
     }
 
     /**
@@ -162,131 +337,189 @@ public class DBMigration {
      * Ensure sections table has proper columns for the application.
      * The database may have an old schema with (id, course_id, section_name, semester).
      * We need (section_id, course_code, title, term, day_time, room, capacity, instructor_id).
+     * Failures propagate, so the step is not recorded as applied; only an ALTER that finds
+     * its column already there is tolerated.
      */
-    private static void migrateSectionsTable() {
+    private static void migrateSectionsTable() throws SQLException {
         try (Connection c = getConnection(); Statement s = c.createStatement()) {
-            // Check if sections table exists
-            try (ResultSet rs = s.executeQuery("SELECT name FROM sqlite_master WHERE type='table' AND name='sections'")) {
-                if (!rs.next()) {
-                    // Table doesn't exist, create new schema
-                    s.execute("CREATE TABLE IF NOT EXISTS sections (section_id INTEGER PRIMARY KEY, course_code TEXT, title TEXT, instructor_id TEXT, term TEXT, year INTEGER, day_time TEXT, room TEXT, capacity INTEGER, enrollment_open INTEGER DEFAULT 1)");
-                    return;
-                }
+            java.util.Set<String> cols = sectionColumns(s);
+            if (cols.isEmpty()) {
+                // Table doesn't exist, create new schema
+                s.execute("CREATE TABLE IF NOT EXISTS sections (section_id INTEGER PRIMARY KEY, course_code TEXT, title TEXT, instructor_id TEXT, term TEXT, year INTEGER, day_time TEXT, room TEXT, capacity INTEGER, enrollment_open INTEGER DEFAULT 1)");
+                return;
             }
-        } catch (Exception ignored) {}
 
-        // Table exists; check if it has the old schema and migrate if needed
-        boolean needsMigration = false;
-        try (Connection c = getConnection(); Statement s = c.createStatement()) {
-            try (ResultSet rs = s.executeQuery("PRAGMA table_info('sections')")) {
-                boolean hasCourseId = false;
-                boolean hasSectionName = false;
-                boolean hasId = false;
-                boolean hasCourseCode = false;
-
-                while (rs.next()) {
-                    String name = rs.getString("name");
-                    if ("course_id".equalsIgnoreCase(name)) hasCourseId = true;
-                    if ("section_name".equalsIgnoreCase(name)) hasSectionName = true;
-                    if ("id".equalsIgnoreCase(name)) hasId = true;
-                    if ("course_code".equalsIgnoreCase(name)) hasCourseCode = true;
+            // Old schema (course_id, section_name, id but NOT course_code): rebuild the table in one transaction
+            if (cols.contains("course_id") && cols.contains("section_name") && cols.contains("id") && !cols.contains("course_code")) {
+                c.setAutoCommit(false);
+                try {
+                    s.execute("ALTER TABLE sections RENAME TO sections_old");
+                    s.execute("CREATE TABLE sections (section_id INTEGER PRIMARY KEY, course_code TEXT, title TEXT, instructor_id TEXT, term TEXT, year INTEGER, day_time TEXT, room TEXT, capacity INTEGER, enrollment_open INTEGER DEFAULT 1)");
+                    // Migrate data: map old columns to new ones
+                    s.execute("INSERT INTO sections (section_id, course_code, title, instructor_id, term, day_time, room, capacity, enrollment_open) " +
+                            "SELECT id, COALESCE((SELECT code FROM courses WHERE id = sections_old.course_id), 'UNKNOWN'), " +
+                            "COALESCE(section_name, 'Section'), instructor_id, COALESCE(semester, 'Fall'), '', '', 60, 1 " +
+                            "FROM sections_old");
+                    s.execute("DROP TABLE sections_old");
+                    c.commit();
+                } catch (SQLException ex) {
+                    c.rollback();
+                    throw ex;
+                } finally {
+                    c.setAutoCommit(true);
                 }
-
-                // If old schema detected (has course_id, section_name, id but NOT course_code), migrate the table
-                needsMigration = hasCourseId && hasSectionName && hasId && !hasCourseCode;
-            }
-        } catch (Exception ignored) {}
-
-        if (needsMigration) {
-            try (Connection c = getConnection(); Statement s = c.createStatement()) {
-                // Rename old table
-                s.execute("ALTER TABLE sections RENAME TO sections_old");
-                // Create new table with correct schema
-                s.execute("CREATE TABLE sections (section_id INTEGER PRIMARY KEY, course_code TEXT, title TEXT, instructor_id TEXT, term TEXT, year INTEGER, day_time TEXT, room TEXT, capacity INTEGER, enrollment_open INTEGER DEFAULT 1)");
-                // Migrate data: map old columns to new ones
-                s.execute("INSERT INTO sections (section_id, course_code, title, instructor_id, term, day_time, room, capacity, enrollment_open) " +
-                        "SELECT id, COALESCE((SELECT code FROM courses WHERE id = sections_old.course_id), 'UNKNOWN'), " +
-                        "COALESCE(section_name, 'Section'), instructor_id, COALESCE(semester, 'Fall'), '', '', 60, 1 " +
-                        "FROM sections_old");
-                // Drop old table
-                s.execute("DROP TABLE sections_old");
                 System.out.println("Migrated sections table from old schema to new schema");
-            } catch (Exception migrationEx) {
-                System.err.println("Error during sections table migration: " + migrationEx.getMessage());
-                migrationEx.printStackTrace();
+                cols = sectionColumns(s);
             }
-        }
-
-        // Ensure all required columns exist on the current schema
-        try (Connection c = getConnection(); Statement s = c.createStatement()) {
-            try (ResultSet rs = s.executeQuery("PRAGMA table_info('sections')")) {
-                boolean hasCourseCode = false;
-                boolean hasDayTime = false;
-                boolean hasTitle = false;
-                boolean hasTerm = false;
-                boolean hasCapacity = false;
-                boolean hasRoom = false;
-
-                while (rs.next()) {
-                    String name = rs.getString("name");
-                    if ("course_code".equalsIgnoreCase(name)) hasCourseCode = true;
-                    if ("day_time".equalsIgnoreCase(name)) hasDayTime = true;
-                    if ("title".equalsIgnoreCase(name)) hasTitle = true;
-                    if ("term".equalsIgnoreCase(name)) hasTerm = true;
-                    if ("capacity".equalsIgnoreCase(name)) hasCapacity = true;
-                    if ("room".equalsIgnoreCase(name)) hasRoom = true;
-                }
 
-                if (!hasCourseCode) {
-                    try (Statement add = c.createStatement()) { add.execute("ALTER TABLE sections ADD COLUMN course_code TEXT"); } catch (Exception ignoredInner) {}
-                }
-                if (!hasDayTime) {
-                    try (Statement add = c.createStatement()) { add.execute("ALTER TABLE sections ADD COLUMN day_time TEXT"); } catch (Exception ignoredInner) {}
-                }
-                if (!hasTitle) {
-                    try (Statement add = c.createStatement()) { add.execute("ALTER TABLE sections ADD COLUMN title TEXT"); } catch (Exception ignoredInner) {}
-                }
-                if (!hasTerm) {
-                    try (Statement add = c.createStatement()) { add.execute("ALTER TABLE sections ADD COLUMN term TEXT"); } catch (Exception ignoredInner) {}
-                }
-                if (!hasCapacity) {
-                    try (Statement add = c.createStatement()) { add.execute("ALTER TABLE sections ADD COLUMN capacity INTEGER"); } catch (Exception ignoredInner) {}
-                }
-                if (!hasRoom) {
-                    try (Statement add = c.createStatement()) { add.execute("ALTER TABLE sections ADD COLUMN room TEXT"); } catch (Exception ignoredInner) {}
+            // Ensure all required columns exist on the current schema
+            String[][] required = {
+                    {"course_code", "TEXT"}, {"day_time", "TEXT"}, {"title", "TEXT"},
+                    {"term", "TEXT"}, {"capacity", "INTEGER"}, {"room", "TEXT"},
+            };
+            for (String[] col : required) {
+                if (cols.contains(col[0])) continue;
+                try {
+                    s.execute("ALTER TABLE sections ADD COLUMN " + col[0] + " " + col[1]);
+                } catch (SQLException ex) {
+                    // Another process added it between the check and the ALTER
+                    if (ex.getMessage() == null || !ex.getMessage().contains("duplicate column")) throw ex;
                 }
             }
-        } catch (Exception ignored) {
-            ignored.printStackTrace();
         }
     }
 
+    /** Lower-case column names of the sections table; empty when it doesn't exist. */
+    private static java.util.Set<String> sectionColumns(Statement s) throws SQLException {
+        java.util.Set<String> cols = new java.util.HashSet<>();
+        try (ResultSet rs = s.executeQuery("PRAGMA table_info('sections')")) {
+            while (rs.next()) cols.add(rs.getString("name").toLowerCase());
+        }
+        return cols;
+    }
+
     /**
      * Ensure enrollments table exists with proper schema.
      */
-    private static void migrateEnrollmentsTable() {
+    private static void migrateEnrollmentsTable() throws SQLException {
         try (Connection c = getConnection(); Statement s = c.createStatement()) {
             s.execute("CREATE TABLE IF NOT EXISTS enrollments (enrollment_id INTEGER PRIMARY KEY AUTOINCREMENT, student_id TEXT, section_id INTEGER, status TEXT, UNIQUE(student_id, section_id))");
-        } catch (Exception ignored) {}
+        }
     }
 
     /**
      * Create offerings table used to publish cohort-level course offerings
      * without creating student enrollments.
      */
-    private static void migrateOfferingsTable() {
+    private static void migrateOfferingsTable() throws SQLException {
         try (Connection c = getConnection(); Statement s = c.createStatement()) {
             s.execute("CREATE TABLE IF NOT EXISTS offerings (id INTEGER PRIMARY KEY AUTOINCREMENT, course_code TEXT NOT NULL, branch TEXT NOT NULL, year INTEGER NOT NULL, offered_at TEXT DEFAULT (datetime('now')), created_by TEXT, UNIQUE(course_code, branch, year))");
-        } catch (Exception ignored) {}
+        }
     }
 
     /**
      * Ensure a simple key-value `settings` table exists. Used for small app settings
-     * like `last_offered_at` to notify student dashboards of updates.
+     * like `last_offered_at`, which older student dashboards polled for updates.
      */
-    private static void migrateSettingsTable() {
+    private static void migrateSettingsTable() throws SQLException {
         try (Connection c = getConnection(); Statement s = c.createStatement()) {
             s.execute("CREATE TABLE IF NOT EXISTS settings (key_name TEXT PRIMARY KEY, value TEXT)");
-        } catch (Exception ignored) {}
+        }
+    }
+
+    /**
+     * Create section_stats and its triggers and fill it. The checksum covers the DDL, so a
+     * trigger change reinstalls them and recounts.
+     */
+    private static void installSectionStats() throws SQLException {
+        try (Connection c = getConnection()) {
+            c.setAutoCommit(false);
+            try {
+                SectionStats.install(c);
+                c.commit();
+            } catch (SQLException ex) {
+                c.rollback();
+                throw ex;
+            }
+        }
+    }
+
+    /** Create the fee ledger, migrate fees / transactions / payments into it and compute balances. */
+    private static void installFeeLedger() throws SQLException {
+        try (Connection c = getConnection()) {
+            c.setAutoCommit(false);
+            try {
+                FeeLedger.install(c);
+                c.commit();
+            } catch (SQLException ex) {
+                c.rollback();
+                throw ex;
+            }
+        }
+    }
+
+    /** Add the slot mask columns to sections and parse every day_time into them. */
+    private static void installSectionSlots() throws SQLException {
+        try (Connection c = getConnection()) {
+            c.setAutoCommit(false);
+            try {
+                SectionSlots.install(c);
+                c.commit();
+            } catch (SQLException ex) {
+                c.rollback();
+                throw ex;
+            }
+        }
+    }
+
+    /** Create score_totals and its triggers on assessments and fill it, like installSectionStats. */
+    private static void installScoreTotals() throws SQLException {
+        try (Connection c = getConnection()) {
+            c.setAutoCommit(false);
+            try {
+                ScoreTotals.install(c);
+                c.commit();
+            } catch (SQLException ex) {
+                c.rollback();
+                throw ex;
+            }
+        }
+    }
+
+    /** Drop duplicate assessments and add the unique key, in one transaction. */
+    private static void createAssessmentKey() throws SQLException {
+        try (Connection c = getConnection()) {
+            c.setAutoCommit(false);
+            try (Statement s = c.createStatement()) {
+                for (String sql : ASSESSMENT_KEY) s.execute(sql);
+                c.commit();
+            } catch (SQLException ex) {
+                c.rollback();
+                throw ex;
+            }
+        }
+    }
+
+    private static void installStudentNotices() throws SQLException {
+        try (Connection c = getConnection()) {
+            StudentNotices.install(c);
+        }
+    }
+
+    /**
+     * Create the secondary indexes. Any failure fails the step, so it is retried on next startup.
+     */
+    private static void createIndexes() throws SQLException {
+        try (Connection c = getConnection(); Statement s = c.createStatement()) {
+            // DBAuthService creates this lazily on first login sync; create it here so its index can exist
+            s.execute("CREATE TABLE IF NOT EXISTS user_person_map (username TEXT PRIMARY KEY, person_type TEXT, person_id TEXT)");
+            for (String[] idx : INDEXES) {
+                try {
+                    s.execute(idx[1]);
+                } catch (SQLException ex) {
+                    throw new SQLException("Could not create index " + idx[0] + ": " + ex.getMessage(), ex);
+                }
+            }
+        }
     }
 }
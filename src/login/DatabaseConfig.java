@@ -2,6 +2,10 @@ package login;
 
 import java.io.File;
 import java.net.URISyntaxException;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.Statement;
 
 /**
  * Centralized database configuration for portability.
@@ -11,6 +15,32 @@ import java.net.URISyntaxException;
 public class DatabaseConfig {
     private static final String DB_FILENAME = "erp.db";
     private static String cachedDbPath = null;
+
+    // Reads go through a pool of read-only connections; all writes go through one writer thread
+    private static final int POOL_MAX_SIZE = Integer.getInteger("erp.db.poolSize", 8);
+    private static final int POOL_MIN_IDLE = 1;
+    private static final long POOL_IDLE_TIMEOUT_MS = Long.getLong("erp.db.idleTimeoutMs", 60_000L);
+    private static final long POOL_BORROW_TIMEOUT_MS = 30_000L;
+    private static final int WRITE_QUEUE_CAPACITY = 10_000;
+    private static final int WRITE_MAX_BATCH = Integer.getInteger("erp.db.writeBatch", 256);
+    // Periodic SqlStats dump to stdout; 0 = off
+    private static final long STATS_DUMP_SECONDS = Long.getLong("erp.db.statsDumpSeconds", 0L);
+    private static final String[] READER_PRAGMAS = {
+            "PRAGMA busy_timeout = 5000",
+            "PRAGMA temp_store = MEMORY",
+            "PRAGMA cache_size = -8000",
+            "PRAGMA query_only = ON"
+    };
+    private static final String[] WRITER_PRAGMAS = {
+            "PRAGMA journal_mode = WAL",
+            // NORMAL is durable across application crashes in WAL mode; only an OS crash can lose the last commits
+            "PRAGMA synchronous = NORMAL",
+            "PRAGMA busy_timeout = 5000",
+            "PRAGMA temp_store = MEMORY",
+            "PRAGMA cache_size = -8000"
+    };
+    private static volatile ConnectionPool pool = null;
+    private static volatile DbWriter writer = null;
     
     static {
         try {
@@ -30,6 +60,13 @@ public class DatabaseConfig {
         if (cachedDbPath != null) {
             return cachedDbPath;
         }
+
+        // Explicit override (used by tools/benchmarks that work on a scratch database)
+        String override = System.getProperty("erp.db.path");
+        if (override != null && !override.trim().isEmpty()) {
+            cachedDbPath = override.trim();
+            return cachedDbPath;
+        }
         
         // Strategy 1: Check if erp.db exists in current working directory
         File currentDirDb = new File(DB_FILENAME);
@@ -116,6 +153,102 @@ public class DatabaseConfig {
         return "jdbc:sqlite:" + getDatabasePath();
     }
     
+    /**
+     * Borrows a read-only connection from the shared pool. Always close it (try-with-resources);
+     * closing returns it to the pool rather than closing the SQLite file.
+     * Writes on this connection fail; use {@link #write(DbWriter.Work)} instead.
+     * @return pooled JDBC connection
+     */
+    public static Connection getConnection() throws SQLException {
+        return getPool().getConnection();
+    }
+
+    /**
+     * Opens a read-only connection of its own, outside the pool, for a caller that keeps one
+     * open for a long time (ChangeBus's watcher). The caller closes it.
+     */
+    public static Connection openReadOnlyConnection() throws SQLException {
+        getWriter(); // the writer switches the database to WAL before readers attach
+        Connection c = DriverManager.getConnection(getDatabaseUrl());
+        try (Statement s = c.createStatement()) {
+            for (String sql : READER_PRAGMAS) s.execute(sql);
+        } catch (SQLException ex) {
+            try { c.close(); } catch (SQLException ignored) {}
+            throw ex;
+        }
+        return c;
+    }
+
+    /**
+     * Runs the work on the single writer thread and returns once it has been committed.
+     * Work submitted around the same time is committed together in one transaction;
+     * each unit is isolated by a savepoint, so a failing unit only rolls back itself.
+     */
+    public static <T> T write(DbWriter.Work<T> work) throws SQLException {
+        return getWriter().execute(work);
+    }
+
+    /**
+     * True when the failure is contention or I/O (SQLITE_BUSY, SQLITE_LOCKED, SQLITE_IOERR,
+     * SQLITE_PROTOCOL) rather than something about the statement: the same write may succeed
+     * if tried again.
+     */
+    public static boolean isTransient(SQLException ex) {
+        for (Throwable t = ex; t != null; t = t.getCause()) {
+            if (!(t instanceof SQLException)) continue;
+            switch (((SQLException) t).getErrorCode() & 0xff) {
+                case 5: case 6: case 10: case 15: return true;
+                default:
+            }
+        }
+        return false;
+    }
+
+    /** See {@link DbWriter#afterCommit(Runnable)}: from inside write work, run the action once it has committed. */
+    public static void afterCommit(Runnable action) {
+        getWriter().afterCommit(action);
+    }
+
+    /**
+     * Gets the shared read-only connection pool, creating it on first use.
+     */
+    public static ConnectionPool getPool() {
+        ConnectionPool p = pool;
+        if (p == null) {
+            synchronized (DatabaseConfig.class) {
+                p = pool;
+                if (p == null) {
+                    // Open the writer first: it switches the database to WAL before readers attach
+                    getWriter();
+                    p = new ConnectionPool(getDatabaseUrl(), POOL_MAX_SIZE, POOL_MIN_IDLE,
+                            POOL_IDLE_TIMEOUT_MS, POOL_BORROW_TIMEOUT_MS, READER_PRAGMAS);
+                    pool = p;
+                    SqlStats.startPeriodicDump(STATS_DUMP_SECONDS);
+                }
+            }
+        }
+        return p;
+    }
+
+    /**
+     * Gets the shared database writer, creating it on first use.
+     */
+    public static DbWriter getWriter() {
+        DbWriter w = writer;
+        if (w == null) {
+            synchronized (DatabaseConfig.class) {
+                w = writer;
+                if (w == null) {
+                    ConnectionPool writerConnection = new ConnectionPool(getDatabaseUrl(), 1, 1,
+                            java.util.concurrent.TimeUnit.DAYS.toMillis(1), POOL_BORROW_TIMEOUT_MS, WRITER_PRAGMAS);
+                    w = new DbWriter(writerConnection, WRITE_QUEUE_CAPACITY, WRITE_MAX_BATCH);
+                    writer = w;
+                }
+            }
+        }
+        return w;
+    }
+    
     /**
      * Ensures the database file exists (creates empty file if it doesn't exist).
      * This helps verify the path is writable.
@@ -145,9 +278,22 @@ public class DatabaseConfig {
     
     /**
      * Resets the cached database path. Useful for testing or if database location changes.
+     * The connection pool and writer are shut down too, since their connections point at the old path.
      */
     public static void resetCache() {
-        cachedDbPath = null;
+        synchronized (DatabaseConfig.class) {
+            cachedDbPath = null;
+            if (pool != null) {
+                pool.shutdown();
+                pool = null;
+            }
+            if (writer != null) {
+                writer.shutdown();
+                writer = null;
+            }
+        }
+        // The path may now point at another database file, whose schema hasn't been verified
+        SchemaRegistry.invalidate();
     }
 }
 
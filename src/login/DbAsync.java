@@ -0,0 +1,155 @@
+package login;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import javax.swing.SwingUtilities;
+
+/**
+ * Asynchronous front for DAO and service calls, so the Swing EDT never waits on SQLite.
+ *
+ * {@link #supply(String, Call)} runs any DAO / StudentService call on a background thread and
+ * returns a CompletableFuture. {@link Channel} is what the dashboards use: each panel load
+ * owns one channel, a newer submit supersedes (cancels) the older one, and the result is
+ * handed to the callback on the EDT only if it is still the latest.
+ *
+ * Background threads are virtual threads when the runtime has them (Java 21+); on older
+ * runtimes a daemon thread pool sized like the read pool is used instead. Each call runs in
+ * its own {@link QueryScope} named after it.
+ */
+public final class DbAsync {
+
+    /** A DAO/service call to run off the EDT. */
+    @FunctionalInterface
+    public interface Call<T> {
+        T call() throws Exception;
+    }
+
+    private static boolean virtualThreads; // set by createExecutor(), so declared before EXECUTOR
+    private static final ExecutorService EXECUTOR = createExecutor();
+
+    private DbAsync() {}
+
+    /** Run the call in the background. The future completes on the background thread. */
+    public static <T> CompletableFuture<T> supply(String name, Call<T> call) {
+        return CompletableFuture.supplyAsync(() -> {
+            QueryScope scope = QueryScope.open(name);
+            try {
+                return call.call();
+            } catch (RuntimeException ex) {
+                throw ex;
+            } catch (Exception ex) {
+                throw new CompletionException(ex);
+            } finally {
+                scope.close();
+            }
+        }, EXECUTOR);
+    }
+
+    /** Run a call whose result isn't needed (e.g. a write). */
+    public static CompletableFuture<Void> run(String name, Call<?> call) {
+        return supply(name, call).thenApply(r -> null);
+    }
+
+    /**
+     * Deliver the outcome of a future on the EDT. Cancellation is silent; failures go to
+     * onError (or stderr when it is null).
+     */
+    public static <T> CompletableFuture<T> onEdt(CompletableFuture<T> future, Consumer<? super T> onResult, Consumer<Throwable> onError) {
+        future.whenComplete((result, error) -> SwingUtilities.invokeLater(() -> {
+            if (error == null) {
+                if (onResult != null) onResult.accept(result);
+                return;
+            }
+            Throwable cause = unwrap(error);
+            if (cause instanceof CancellationException) return;
+            if (onError != null) onError.accept(cause);
+            else System.err.println("Background database call failed: " + cause);
+        }));
+        return future;
+    }
+
+    /** Whether background calls run on virtual threads. */
+    public static boolean usesVirtualThreads() {
+        return virtualThreads;
+    }
+
+    /**
+     * Latest-wins request slot. Submitting cancels the previous request: if it hasn't
+     * started it never runs, and if it is running its result is dropped. Callbacks run on the
+     * EDT. Use one channel per independently refreshing view.
+     */
+    public static final class Channel<T> {
+        private final String name;
+        private final AtomicInteger generation = new AtomicInteger();
+        private volatile CompletableFuture<T> current;
+
+        public Channel(String name) { this.name = name; }
+
+        public CompletableFuture<T> submit(Call<T> call, Consumer<? super T> onResult) {
+            return submit(call, onResult, null);
+        }
+
+        public CompletableFuture<T> submit(Call<T> call, Consumer<? super T> onResult, Consumer<Throwable> onError) {
+            int gen = generation.incrementAndGet();
+            CompletableFuture<T> previous = current;
+            if (previous != null) previous.cancel(false);
+            CompletableFuture<T> f = supply(name, () -> {
+                // Superseded while queued: skip the query altogether
+                if (generation.get() != gen) throw new CancellationException(name + " superseded");
+                return call.call();
+            });
+            current = f;
+            f.whenComplete((result, error) -> SwingUtilities.invokeLater(() -> {
+                if (generation.get() != gen) return; // a newer request owns the view now
+                if (error == null) {
+                    if (onResult != null) onResult.accept(result);
+                    return;
+                }
+                Throwable cause = unwrap(error);
+                if (cause instanceof CancellationException) return;
+                if (onError != null) onError.accept(cause);
+                else System.err.println(name + " failed: " + cause);
+            }));
+            return f;
+        }
+
+        /** Drop whatever is in flight (e.g. when the panel is closed). */
+        public void cancel() {
+            generation.incrementAndGet();
+            CompletableFuture<T> f = current;
+            if (f != null) f.cancel(false);
+        }
+    }
+
+    private static Throwable unwrap(Throwable t) {
+        while (t instanceof CompletionException && t.getCause() != null) t = t.getCause();
+        return t;
+    }
+
+    private static ExecutorService createExecutor() {
+        // Executors.newVirtualThreadPerTaskExecutor() exists from Java 21; the build targets 17
+        try {
+            Method m = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+            ExecutorService ex = (ExecutorService) m.invoke(null);
+            virtualThreads = true;
+            return ex;
+        } catch (ReflectiveOperationException | RuntimeException ignored) {
+            // Fall back to platform threads
+        }
+        AtomicInteger n = new AtomicInteger();
+        ThreadFactory tf = r -> {
+            Thread t = new Thread(r, "erp-db-async-" + n.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        };
+        // Reads can't run wider than the read pool anyway
+        return Executors.newFixedThreadPool(Math.max(2, Integer.getInteger("erp.db.poolSize", 8)), tf);
+    }
+}
@@ -0,0 +1,258 @@
+package login;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Savepoint;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Single writer for the SQLite database.
+ *
+ * SQLite allows one writer at a time; letting every thread write on its own connection
+ * just turns contention into SQLITE_BUSY errors. Instead, all DAO writes are queued here
+ * and executed by one dedicated thread on one connection. The thread drains whatever is
+ * queued (up to maxBatch units of work) and runs it inside a single transaction, so a burst
+ * of small writes costs one commit/fsync instead of one per statement (group commit).
+ *
+ * Each unit of work runs inside its own savepoint: if it throws, only its changes are
+ * rolled back and only its caller sees the error. Callers are released after the
+ * batch has committed, so a successful return means the data is durable and visible to
+ * readers. Work must not call commit/rollback/setAutoCommit itself.
+ */
+public final class DbWriter {
+
+    /** A unit of write work executed on the writer connection. */
+    @FunctionalInterface
+    public interface Work<T> {
+        T run(Connection c) throws SQLException;
+    }
+
+    /** Called on the writer thread, with its connection, around each batch's commit. */
+    public interface CommitHook {
+        void beforeCommit(DbWriter writer, Connection c) throws SQLException;
+        void afterCommit(DbWriter writer, Connection c) throws SQLException;
+    }
+
+    private static volatile CommitHook commitHook;
+
+    private final ConnectionPool pool;
+    private final BlockingQueue<Task<?>> queue;
+    private final int maxBatch;
+    private final Thread thread;
+    private volatile boolean running = true;
+    private Connection current; // only touched by the writer thread
+    private Task<?> currentTask; // likewise
+
+    private final AtomicLong batches = new AtomicLong();
+    private final AtomicLong tasks = new AtomicLong();
+    private final AtomicLong failures = new AtomicLong();
+
+    public DbWriter(ConnectionPool pool, int queueCapacity, int maxBatch) {
+        this.pool = pool;
+        this.queue = new ArrayBlockingQueue<>(queueCapacity, true);
+        this.maxBatch = Math.max(1, maxBatch);
+        this.thread = new Thread(this::loop, "erp-db-writer");
+        this.thread.setDaemon(true);
+        this.thread.start();
+    }
+
+    /**
+     * Run the work on the writer thread and wait until its batch has committed.
+     * Called from the writer thread itself (nested DAO writes), the work runs inline
+     * as part of the current transaction.
+     */
+    public <T> T execute(Work<T> work) throws SQLException {
+        if (Thread.currentThread() == thread) return work.run(current);
+        CompletableFuture<T> f = submit(work);
+        try {
+            return f.get();
+        } catch (InterruptedException ie) {
+            Thread.currentThread().interrupt();
+            throw new SQLException("Interrupted while waiting for database write", ie);
+        } catch (ExecutionException ee) {
+            Throwable cause = ee.getCause();
+            if (cause instanceof SQLException) throw (SQLException) cause;
+            if (cause instanceof RuntimeException) throw (RuntimeException) cause;
+            if (cause instanceof Error) throw (Error) cause;
+            throw new SQLException(cause);
+        }
+    }
+
+    /**
+     * Queue the work without waiting. The future completes once its batch commits.
+     * Blocks while the queue is full (backpressure).
+     */
+    public <T> CompletableFuture<T> submit(Work<T> work) {
+        Task<T> t = new Task<>(work);
+        if (!running) {
+            t.future.completeExceptionally(new SQLException("Database writer is shut down"));
+            return t.future;
+        }
+        try {
+            queue.put(t);
+        } catch (InterruptedException ie) {
+            Thread.currentThread().interrupt();
+            t.future.completeExceptionally(new SQLException("Interrupted while queueing database write", ie));
+        }
+        return t.future;
+    }
+
+    /**
+     * Run the action once the unit of work currently executing has committed, before its
+     * caller is released; if the work fails or its batch rolls back, the action is dropped.
+     * For cache invalidation that must not run ahead of the data it describes. Called off
+     * the writer thread (no transaction to wait for), the action runs immediately.
+     */
+    public void afterCommit(Runnable action) {
+        Task<?> t = Thread.currentThread() == thread ? currentTask : null;
+        if (t == null) {
+            action.run();
+            return;
+        }
+        if (t.afterCommit == null) t.afterCommit = new ArrayList<>(2);
+        t.afterCommit.add(action);
+    }
+
+    /** Install the hook every writer calls around a commit (one per process: ChangeBus's watcher). */
+    public static void setCommitHook(CommitHook hook) {
+        commitHook = hook;
+    }
+
+    /** Stop accepting work, finish what is queued, then close the writer connection. */
+    public void shutdown() {
+        running = false;
+        thread.interrupt();
+        try {
+            thread.join(TimeUnit.SECONDS.toMillis(10));
+        } catch (InterruptedException ie) {
+            Thread.currentThread().interrupt();
+        }
+        pool.shutdown();
+    }
+
+    public boolean isWriterThread() { return Thread.currentThread() == thread; }
+    public int getQueueDepth() { return queue.size(); }
+    public long getBatchCount() { return batches.get(); }
+    public long getTaskCount() { return tasks.get(); }
+    public long getFailureCount() { return failures.get(); }
+
+    @Override
+    public String toString() {
+        long b = batches.get();
+        return String.format("DbWriter{batches=%d, tasks=%d, failures=%d, avgBatch=%.1f, queued=%d}",
+                b, tasks.get(), failures.get(), b == 0 ? 0.0 : (double) tasks.get() / b, queue.size());
+    }
+
+    private void loop() {
+        List<Task<?>> batch = new ArrayList<>(maxBatch);
+        while (running || !queue.isEmpty()) {
+            try {
+                Task<?> first = running ? queue.take() : queue.poll();
+                if (first == null) break;
+                batch.add(first);
+            } catch (InterruptedException ie) {
+                continue; // shutdown() interrupts us; drain what's left
+            }
+            queue.drainTo(batch, maxBatch - 1);
+            runBatch(batch);
+            batch.clear();
+        }
+        Task<?> t;
+        while ((t = queue.poll()) != null) {
+            t.future.completeExceptionally(new SQLException("Database writer is shut down"));
+        }
+    }
+
+    private void runBatch(List<Task<?>> batch) {
+        try (Connection c = pool.getConnection()) {
+            current = c;
+            c.setAutoCommit(false);
+            for (Task<?> t : batch) {
+                Savepoint sp = c.setSavepoint();
+                SqlStats.recordWriterWait(System.nanoTime() - t.queuedAt);
+                QueryScope previous = QueryScope.adopt(t.scope);
+                currentTask = t;
+                try {
+                    t.runOn(c);
+                    c.releaseSavepoint(sp);
+                } catch (Throwable ex) {
+                    c.rollback(sp);
+                    t.error = ex;
+                    t.afterCommit = null;
+                } finally {
+                    currentTask = null;
+                    QueryScope.adopt(previous);
+                }
+            }
+            CommitHook hook = commitHook;
+            if (hook != null) observe(() -> hook.beforeCommit(this, c));
+            c.commit();
+            c.setAutoCommit(true);
+            if (hook != null) observe(() -> hook.afterCommit(this, c));
+        } catch (Throwable ex) {
+            // Commit (or the connection itself) failed: nothing in this batch was applied
+            for (Task<?> t : batch) {
+                if (t.error == null) t.error = ex;
+            }
+        } finally {
+            current = null;
+        }
+        batches.incrementAndGet();
+        tasks.addAndGet(batch.size());
+        for (Task<?> t : batch) {
+            if (t.error != null) failures.incrementAndGet();
+            else t.runAfterCommit();
+            t.complete();
+        }
+    }
+
+    private interface HookCall {
+        void run() throws SQLException;
+    }
+
+    /** The hook only observes: its failure doesn't fail the batch. */
+    private static void observe(HookCall call) {
+        try {
+            call.run();
+        } catch (SQLException | RuntimeException ex) {
+            System.err.println("DbWriter: commit hook failed: " + ex);
+        }
+    }
+
+    private static final class Task<T> {
+        final Work<T> work;
+        final CompletableFuture<T> future = new CompletableFuture<>();
+        final long queuedAt = System.nanoTime();
+        final QueryScope scope = QueryScope.current(); // statements are counted against the submitter's action
+        T result;
+        Throwable error;
+        List<Runnable> afterCommit;
+
+        Task(Work<T> work) { this.work = work; }
+
+        void runOn(Connection c) throws SQLException { result = work.run(c); }
+
+        void runAfterCommit() {
+            if (afterCommit == null) return;
+            for (Runnable r : afterCommit) {
+                try {
+                    r.run();
+                } catch (Throwable ex) {
+                    System.err.println("DbWriter: after-commit action failed: " + ex);
+                }
+            }
+        }
+
+        void complete() {
+            if (error != null) future.completeExceptionally(error);
+            else future.complete(result);
+        }
+    }
+}
@@ -0,0 +1,297 @@
+package login;
+
+import java.awt.EventQueue;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Watchdog for the Swing Event Dispatch Thread. Records every stall longer than
+ * {@link #getThresholdMillis()} with the EDT stack, tags stalls spent inside JDBC, and keeps
+ * a stall histogram plus per-site totals so panels can be moved off the EDT in order of the
+ * time they actually cost.
+ *
+ * A daemon thread posts a probe with invokeLater every sample interval. While a probe is
+ * overdue the EDT's stack is sampled; when it finally runs, the delay is the stall length.
+ * Modal dialogs keep pumping events, so an open dialog is not a stall.
+ *
+ * A stall is tagged JDBC when a stack sample caught the EDT in the driver, the pool or the
+ * writer queue, or when pooled statements ran for at least half of it on the EDT (measured
+ * by {@link SqlStats}). The site is the outermost application frame of the sampled stack,
+ * usually the panel lambda or listener that started the work.
+ *
+ * Settings: -Derp.ui.stallMonitor=false disables it, -Derp.ui.stallMillis (default 200),
+ * -Derp.ui.stallSampleMillis (default 50).
+ */
+public final class EdtMonitor {
+
+    /** Upper bounds (ms, exclusive) of the histogram buckets; the last bucket is open. */
+    private static final long[] BUCKET_MILLIS = {250, 500, 1000, 2000, 5000, Long.MAX_VALUE};
+    private static final String[] BUCKET_LABELS = {"<250ms", "<500ms", "<1s", "<2s", "<5s", ">=5s"};
+    private static final int RECENT_LIMIT = 50;
+    private static final int STACK_DEPTH = 20;
+
+    private static final boolean ENABLED = !"false".equalsIgnoreCase(System.getProperty("erp.ui.stallMonitor"));
+    private static volatile long thresholdMillis = Math.max(10, Long.getLong("erp.ui.stallMillis", 200));
+    private static final long SAMPLE_MILLIS = Math.max(5, Long.getLong("erp.ui.stallSampleMillis", 50));
+
+    private static volatile boolean running = false;
+    private static Thread sampler;
+    /** The EDT as last seen by a probe (it is replaced after an uncaught exception). */
+    private static volatile Thread edt;
+
+    // Written only on the EDT by SqlStats, read by the sampler
+    private static volatile String edtSql;
+    private static volatile long edtJdbcNanos;
+    private static long edtJdbcStart;
+
+    // Guarded by EdtMonitor.class
+    private static final long[] allCounts = new long[BUCKET_MILLIS.length];
+    private static final long[] jdbcCounts = new long[BUCKET_MILLIS.length];
+    private static final Map<String, long[]> bySite = new HashMap<>(); // {stalls, ms, jdbc stalls, jdbc ms}
+    private static final Deque<Stall> recent = new ArrayDeque<>();
+    private static long totalStalls, totalMillis, jdbcStalls, jdbcMillis;
+
+    private EdtMonitor() {}
+
+    /** Start the watchdog (no-op when already running or disabled). Call once at startup. */
+    public static synchronized void start() {
+        if (!ENABLED || running) return;
+        running = true;
+        sampler = new Thread(EdtMonitor::sampleLoop, "erp-edt-monitor");
+        sampler.setDaemon(true);
+        sampler.start();
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            if (getTotalStalls() > 0) System.out.print(dump(10));
+        }, "erp-edt-monitor-report"));
+    }
+
+    public static synchronized void stop() {
+        running = false;
+        if (sampler != null) sampler.interrupt();
+        sampler = null;
+    }
+
+    public static boolean isRunning() { return running; }
+    public static long getThresholdMillis() { return thresholdMillis; }
+    public static void setThresholdMillis(long ms) { thresholdMillis = Math.max(10, ms); }
+
+    /** Histogram labels, matching the arrays returned by {@link #getHistogram(boolean)}. */
+    public static String[] getBucketLabels() { return BUCKET_LABELS.clone(); }
+
+    /** Stall counts per bucket, for all stalls or only JDBC-tagged ones. */
+    public static synchronized long[] getHistogram(boolean jdbcOnly) {
+        return (jdbcOnly ? jdbcCounts : allCounts).clone();
+    }
+
+    public static synchronized long getTotalStalls() { return totalStalls; }
+
+    /** The most recent stalls, oldest first. */
+    public static synchronized List<Stall> getRecentStalls() {
+        return new ArrayList<>(recent);
+    }
+
+    public static synchronized void reset() {
+        java.util.Arrays.fill(allCounts, 0);
+        java.util.Arrays.fill(jdbcCounts, 0);
+        bySite.clear();
+        recent.clear();
+        totalStalls = totalMillis = jdbcStalls = jdbcMillis = 0;
+    }
+
+    /** Histogram and the top sites by total stall time. */
+    public static synchronized String dump(int top) {
+        StringBuilder sb = new StringBuilder();
+        sb.append(String.format("EDT stalls >= %d ms: %d (%d ms), JDBC-tagged %d (%d ms)%n",
+                thresholdMillis, totalStalls, totalMillis, jdbcStalls, jdbcMillis));
+        sb.append("  ");
+        for (int i = 0; i < BUCKET_LABELS.length; i++) {
+            sb.append(String.format("%s %d/%d  ", BUCKET_LABELS[i], allCounts[i], jdbcCounts[i]));
+        }
+        sb.append("(all/jdbc)").append(System.lineSeparator());
+        List<Map.Entry<String, long[]>> sites = new ArrayList<>(bySite.entrySet());
+        sites.sort((a, b) -> Long.compare(b.getValue()[1], a.getValue()[1]));
+        sb.append(String.format("  %6s %9s %6s %9s  %s%n", "stalls", "total ms", "jdbc", "jdbc ms", "site"));
+        for (int i = 0; i < Math.min(top, sites.size()); i++) {
+            long[] v = sites.get(i).getValue();
+            sb.append(String.format("  %6d %9d %6d %9d  %s%n", v[0], v[1], v[2], v[3], sites.get(i).getKey()));
+        }
+        if (sites.size() > top) sb.append(String.format("  ... %d more site(s)%n", sites.size() - top));
+        return sb.toString();
+    }
+
+    /** Called by SqlStats before a pooled statement executes. Returns true when on the EDT. */
+    static boolean enterJdbc(String sql) {
+        if (!running || !EventQueue.isDispatchThread()) return false;
+        edtSql = sql;
+        edtJdbcStart = System.nanoTime();
+        return true;
+    }
+
+    /** Pairs with a true {@link #enterJdbc(String)}; EDT only. */
+    static void exitJdbc() {
+        edtJdbcNanos += System.nanoTime() - edtJdbcStart;
+        edtSql = null;
+    }
+
+    private static final class Probe implements Runnable {
+        final long postedAt = System.nanoTime();
+        final long postedWall = System.currentTimeMillis();
+        final long jdbcNanosAtPost = edtJdbcNanos;
+        volatile long ranAt;
+        // sampler thread only
+        StackTraceElement[] stack;
+        boolean stackInJdbc;
+        String sql;
+        int samples, jdbcSamples;
+
+        @Override
+        public void run() {
+            edt = Thread.currentThread();
+            ranAt = System.nanoTime();
+        }
+    }
+
+    private static void sampleLoop() {
+        long interval = TimeUnit.MILLISECONDS.toNanos(SAMPLE_MILLIS);
+        while (running) {
+            Probe p = new Probe();
+            EventQueue.invokeLater(p);
+            try {
+                while (running) {
+                    TimeUnit.NANOSECONDS.sleep(interval);
+                    long ran = p.ranAt;
+                    if (ran != 0) {
+                        long millis = TimeUnit.NANOSECONDS.toMillis(ran - p.postedAt);
+                        if (millis >= thresholdMillis) record(p, millis);
+                        break;
+                    }
+                    if (System.nanoTime() - p.postedAt >= TimeUnit.MILLISECONDS.toNanos(thresholdMillis)) sample(p);
+                }
+            } catch (InterruptedException ex) {
+                return;
+            }
+        }
+    }
+
+    private static void sample(Probe p) {
+        Thread t = edt;
+        if (t == null) return;
+        String sql = edtSql;
+        StackTraceElement[] st = t.getStackTrace();
+        boolean inJdbc = sql != null || inJdbc(st);
+        p.samples++;
+        if (inJdbc) {
+            p.jdbcSamples++;
+            if (sql != null && p.sql == null) p.sql = sql;
+        }
+        // Keep the first sample, or the first one inside JDBC if that came later
+        if (p.stack == null || (inJdbc && !p.stackInJdbc)) {
+            p.stack = st;
+            p.stackInJdbc = inJdbc;
+        }
+    }
+
+    private static void record(Probe p, long millis) {
+        long jdbcNanos = edtJdbcNanos - p.jdbcNanosAtPost;
+        long jdbcMs = TimeUnit.NANOSECONDS.toMillis(jdbcNanos);
+        boolean jdbc = p.jdbcSamples > 0 || jdbcMs * 2 >= millis;
+        StackTraceElement[] stack = p.stack == null ? new StackTraceElement[0] : trim(p.stack);
+        String site = p.stack == null ? "(not sampled)" : site(p.stack);
+        Stall s = new Stall(p.postedWall, millis, jdbc, jdbcMs, p.sql, site, p.samples, p.jdbcSamples, stack);
+        int bucket = 0;
+        while (millis >= BUCKET_MILLIS[bucket]) bucket++;
+        synchronized (EdtMonitor.class) {
+            totalStalls++;
+            totalMillis += millis;
+            allCounts[bucket]++;
+            long[] v = bySite.computeIfAbsent(site, k -> new long[4]);
+            v[0]++;
+            v[1] += millis;
+            if (jdbc) {
+                jdbcStalls++;
+                jdbcMillis += millis;
+                jdbcCounts[bucket]++;
+                v[2]++;
+                v[3] += millis;
+            }
+            if (recent.size() >= RECENT_LIMIT) recent.removeFirst();
+            recent.addLast(s);
+        }
+        StringBuilder sb = new StringBuilder("EDT stall: ").append(s.describe());
+        for (int i = 0; i < Math.min(8, stack.length); i++) sb.append("\n    at ").append(stack[i]);
+        System.err.println(sb);
+    }
+
+    private static boolean inJdbc(StackTraceElement[] st) {
+        for (StackTraceElement e : st) {
+            String cls = e.getClassName();
+            if (cls.startsWith("org.sqlite.") || cls.startsWith("java.sql.") || cls.startsWith("login.ConnectionPool")
+                    || cls.startsWith("login.StatementCache") || cls.startsWith("login.SqlStats")
+                    || cls.startsWith("login.DbWriter") || cls.startsWith("login.DatabaseConfig")) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /** Outermost application frame: the listener or panel code the event ran. */
+    private static String site(StackTraceElement[] st) {
+        for (int i = st.length - 1; i >= 0; i--) {
+            if (isApplicationFrame(st[i].getClassName())) return st[i].getClassName() + "." + st[i].getMethodName();
+        }
+        return st.length > 0 ? st[0].getClassName() + "." + st[0].getMethodName() : "(unknown)";
+    }
+
+    private static boolean isApplicationFrame(String cls) {
+        return !(cls.startsWith("java.") || cls.startsWith("javax.") || cls.startsWith("sun.") || cls.startsWith("jdk.")
+                || cls.startsWith("com.sun.") || cls.startsWith("login.QueryScope") || cls.startsWith("login.EdtMonitor")
+                || cls.contains("$$Lambda")); // lambda proxies; the lambda$ body frame follows
+    }
+
+    private static StackTraceElement[] trim(StackTraceElement[] st) {
+        return st.length <= STACK_DEPTH ? st : java.util.Arrays.copyOf(st, STACK_DEPTH);
+    }
+
+    /** One EDT stall over the threshold. */
+    public static final class Stall {
+        public final long startedAtMillis;
+        public final long millis;
+        public final boolean jdbc;
+        /** Time pooled statements ran on the EDT during the stall. */
+        public final long jdbcMillis;
+        /** SQL the EDT was executing when sampled, if any. */
+        public final String sql;
+        public final String site;
+        public final int samples;
+        public final int jdbcSamples;
+        public final StackTraceElement[] stack;
+
+        Stall(long startedAtMillis, long millis, boolean jdbc, long jdbcMillis, String sql, String site,
+              int samples, int jdbcSamples, StackTraceElement[] stack) {
+            this.startedAtMillis = startedAtMillis;
+            this.millis = millis;
+            this.jdbc = jdbc;
+            this.jdbcMillis = jdbcMillis;
+            this.sql = sql;
+            this.site = site;
+            this.samples = samples;
+            this.jdbcSamples = jdbcSamples;
+            this.stack = stack;
+        }
+
+        public String describe() {
+            StringBuilder sb = new StringBuilder().append(millis).append(" ms in ").append(site);
+            if (jdbc) sb.append(" [jdbc ").append(jdbcSamples).append('/').append(samples).append(" samples, ").append(jdbcMillis).append(" ms pooled]");
+            if (sql != null) sb.append(": ").append(sql);
+            return sb.toString();
+        }
+
+        @Override
+        public String toString() { return describe(); }
+    }
+}
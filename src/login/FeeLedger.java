@@ -0,0 +1,148 @@
+package login;
+
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Student fee ledger: fee_ledger holds one row per charge or payment, append-only, each with
+ * the student's balance after it; fee_balances(student_id, charged, paid) is maintained by a
+ * trigger in the same transaction, so fees due and paid are one primary-key read.
+ *
+ * Replaces reading the legacy fees / transactions (charges) and payments tables, which may or
+ * may not exist. {@link #install(Connection)} copies whatever rows they hold into the ledger
+ * (once; each keeps its source table and rowid) and, while those tables are still around,
+ * forwards new rows written to them, so older tools keep working.
+ *
+ * Corrections are posted as new entries; updating amounts or deleting entries is refused.
+ */
+public final class FeeLedger {
+    public static final String CHARGE = "CHARGE";
+    public static final String PAYMENT = "PAYMENT";
+
+    /** Legacy table to the kind its rows become. */
+    private static final String[][] LEGACY = {{"fees", CHARGE}, {"transactions", CHARGE}, {"payments", PAYMENT}};
+
+    /** Table and trigger DDL, in order. The migration checksum covers this text. */
+    static final String[] DDL = {
+            "CREATE TABLE IF NOT EXISTS fee_ledger (entry_id INTEGER PRIMARY KEY AUTOINCREMENT, student_id TEXT NOT NULL, "
+                    + "kind TEXT NOT NULL CHECK (kind IN ('CHARGE', 'PAYMENT')), amount REAL NOT NULL, description TEXT, "
+                    + "source TEXT, source_id INTEGER, balance_after REAL, posted_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP, "
+                    + "UNIQUE(source, source_id))",
+            "CREATE INDEX IF NOT EXISTS idx_fee_ledger_student ON fee_ledger(student_id, entry_id)",
+            "CREATE TABLE IF NOT EXISTS fee_balances (student_id TEXT PRIMARY KEY, charged REAL NOT NULL DEFAULT 0, paid REAL NOT NULL DEFAULT 0) WITHOUT ROWID",
+
+            "CREATE TRIGGER IF NOT EXISTS trg_fee_ledger_ins AFTER INSERT ON fee_ledger BEGIN "
+                    + "INSERT OR IGNORE INTO fee_balances (student_id, charged, paid) VALUES (NEW.student_id, 0, 0); "
+                    + "UPDATE fee_balances SET charged = charged + (CASE WHEN NEW.kind = 'CHARGE' THEN NEW.amount ELSE 0 END), "
+                    + "paid = paid + (CASE WHEN NEW.kind = 'PAYMENT' THEN NEW.amount ELSE 0 END) WHERE student_id = NEW.student_id; "
+                    + "UPDATE fee_ledger SET balance_after = (SELECT charged - paid FROM fee_balances WHERE student_id = NEW.student_id) WHERE entry_id = NEW.entry_id; "
+                    + "END",
+
+            "CREATE TRIGGER IF NOT EXISTS trg_fee_ledger_no_update BEFORE UPDATE OF student_id, kind, amount ON fee_ledger BEGIN "
+                    + "SELECT RAISE(ABORT, 'fee_ledger is append-only; post a correcting entry'); "
+                    + "END",
+
+            "CREATE TRIGGER IF NOT EXISTS trg_fee_ledger_no_delete BEFORE DELETE ON fee_ledger BEGIN "
+                    + "SELECT RAISE(ABORT, 'fee_ledger is append-only; post a correcting entry'); "
+                    + "END",
+    };
+
+    private FeeLedger() {}
+
+    static byte[] ddlBytes() {
+        return String.join("\n", DDL).getBytes(StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Create the ledger, copy the legacy tables' rows into it, forward future legacy inserts,
+     * and recompute balances. Safe to run again: copied rows are keyed by (source, source_id).
+     */
+    static void install(Connection c) throws SQLException {
+        try (Statement s = c.createStatement()) {
+            for (String name : new String[]{"trg_fee_ledger_ins", "trg_fee_ledger_no_update", "trg_fee_ledger_no_delete"}) {
+                s.execute("DROP TRIGGER IF EXISTS " + name);
+            }
+            for (String ddl : DDL) s.execute(ddl);
+            for (String[] legacy : LEGACY) {
+                String table = legacy[0];
+                s.execute("DROP TRIGGER IF EXISTS trg_fee_ledger_from_" + table);
+                if (!hasColumns(c, table, "student_id", "amount")) continue;
+                String values = "'" + legacy[1] + "', CAST(COALESCE(%1$s.amount, 0) AS REAL), '" + table + "', %1$s.rowid";
+                s.executeUpdate("INSERT OR IGNORE INTO fee_ledger (student_id, kind, amount, source, source_id) "
+                        + "SELECT t.student_id, " + String.format(values, "t") + " FROM " + table + " t "
+                        + "WHERE t.student_id IS NOT NULL ORDER BY t.rowid");
+                s.execute("CREATE TRIGGER trg_fee_ledger_from_" + table + " AFTER INSERT ON " + table + " WHEN NEW.student_id IS NOT NULL BEGIN "
+                        + "INSERT OR IGNORE INTO fee_ledger (student_id, kind, amount, source, source_id) VALUES (NEW.student_id, "
+                        + String.format(values, "NEW") + "); END");
+            }
+        }
+        rebuild(c);
+    }
+
+    /** Recompute fee_balances and every entry's balance_after from the ledger. Returns the number of students. */
+    public static int rebuild(Connection c) throws SQLException {
+        try (Statement s = c.createStatement()) {
+            s.executeUpdate("DELETE FROM fee_balances");
+            int students = s.executeUpdate("INSERT INTO fee_balances (student_id, charged, paid) "
+                    + "SELECT student_id, SUM(CASE WHEN kind = 'CHARGE' THEN amount ELSE 0 END), SUM(CASE WHEN kind = 'PAYMENT' THEN amount ELSE 0 END) "
+                    + "FROM fee_ledger GROUP BY student_id");
+            s.executeUpdate("UPDATE fee_ledger SET balance_after = (SELECT r.balance FROM "
+                    + "(SELECT entry_id, SUM(CASE WHEN kind = 'CHARGE' THEN amount ELSE -amount END) "
+                    + "OVER (PARTITION BY student_id ORDER BY entry_id) AS balance FROM fee_ledger) r WHERE r.entry_id = fee_ledger.entry_id)");
+            return students;
+        }
+    }
+
+    /** Post a charge or payment; run inside DatabaseConfig.write. Returns the balance after it. */
+    public static double post(Connection c, String studentId, String kind, double amount, String description) throws SQLException {
+        long entryId;
+        try (PreparedStatement p = c.prepareStatement("INSERT INTO fee_ledger (student_id, kind, amount, description) VALUES (?, ?, ?, ?)",
+                Statement.RETURN_GENERATED_KEYS)) {
+            p.setString(1, studentId); p.setString(2, kind); p.setDouble(3, amount); p.setString(4, description);
+            p.executeUpdate();
+            try (ResultSet keys = p.getGeneratedKeys()) { keys.next(); entryId = keys.getLong(1); }
+        }
+        StudentChanges.changedOnCommit(studentId);
+        try (PreparedStatement p = c.prepareStatement("SELECT balance_after FROM fee_ledger WHERE entry_id = ?")) {
+            p.setLong(1, entryId);
+            try (ResultSet rs = p.executeQuery()) { return rs.next() ? rs.getDouble(1) : 0; }
+        }
+    }
+
+    /**
+     * Compare fee_balances with sums over the ledger. Returns one line per student whose row
+     * is missing or differs; empty when consistent.
+     */
+    public static List<String> verify(Connection c) throws SQLException {
+        List<String> problems = new ArrayList<>();
+        String sql = "SELECT x.student_id, x.charged, x.paid, b.student_id AS have, b.charged AS b_charged, b.paid AS b_paid FROM "
+                + "(SELECT student_id, SUM(CASE WHEN kind = 'CHARGE' THEN amount ELSE 0 END) AS charged, SUM(CASE WHEN kind = 'PAYMENT' THEN amount ELSE 0 END) AS paid "
+                + "FROM fee_ledger GROUP BY student_id) x LEFT JOIN fee_balances b ON b.student_id = x.student_id "
+                + "WHERE b.student_id IS NULL OR ABS(b.charged - x.charged) > 1e-6 OR ABS(b.paid - x.paid) > 1e-6";
+        try (Statement s = c.createStatement(); ResultSet rs = s.executeQuery(sql)) {
+            while (rs.next()) {
+                problems.add(String.format("%s: charged %s / paid %s (ledger says %s / %s)", rs.getString("student_id"),
+                        rs.getObject("have") == null ? "-" : rs.getDouble("b_charged"), rs.getObject("have") == null ? "-" : rs.getDouble("b_paid"),
+                        rs.getDouble("charged"), rs.getDouble("paid")));
+            }
+        }
+        return problems;
+    }
+
+    private static boolean hasColumns(Connection c, String table, String... columns) throws SQLException {
+        Set<String> have = new HashSet<>();
+        try (Statement s = c.createStatement(); ResultSet rs = s.executeQuery("PRAGMA table_info(" + table + ")")) {
+            while (rs.next()) have.add(rs.getString("name").toLowerCase());
+        }
+        for (String col : columns) if (!have.contains(col)) return false;
+        return true;
+    }
+}
@@ -14,6 +14,7 @@ import auth.MockAuthService;
 import auth.MockAuthService.UserRecord;
 import auth.DBAuthAdapter;
 import auth.AuthService;
+import auth.PersonResolver;
 
 import admin.AdminDashboard;
 import instructor.InstructorDashboard;
@@ -601,6 +602,8 @@ public class LoginWindow extends JFrame {
         new Thread(() -> {
             try {
                 UserSession session = authService.login(username, password);
+                // Resolve who this login acts as once, here, instead of on every access check
+                if (session != null) PersonResolver.bind(session);
                 SwingUtilities.invokeLater(() -> {
                     if (session != null) {
                             try {
@@ -0,0 +1,260 @@
+package login;
+
+import java.awt.AWTEvent;
+import java.awt.EventQueue;
+import java.awt.Toolkit;
+import java.awt.event.ActionEvent;
+import java.awt.event.InvocationEvent;
+import java.awt.event.MouseEvent;
+import java.awt.event.PaintEvent;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+
+/**
+ * N+1 query detector. Groups the statements executed during one UI action or service call
+ * and flags any SQL template that runs more than {@link #getThreshold()} times in it.
+ *
+ * A scope is opened per thread with {@link #open(String)} (try-with-resources). Scopes nest:
+ * statements count towards the outermost open scope, so a service call made from a button
+ * handler is judged as part of that click. {@link #installEventQueue()} opens a scope around
+ * every Swing event, which covers all UI actions without touching each listener. Writes made
+ * through {@link DatabaseConfig#write} count towards the scope that submitted them.
+ *
+ * Counting happens in {@link SqlStats}, so only pooled connections are seen, and nothing is
+ * seen when SqlStats is switched off.
+ *
+ * Mode (-Derp.db.nplus1=off|log|fail, default log): log prints each violation with the stack
+ * of the call that crossed the threshold; fail additionally throws from {@link #close()}, for
+ * checks such as tools.NPlusOneCheck. Threshold: -Derp.db.nplus1.threshold (default 10).
+ */
+public final class QueryScope implements AutoCloseable {
+
+    public enum Mode { OFF, LOG, FAIL }
+
+    private static final int RECENT_LIMIT = 100;
+    private static final int STACK_DEPTH = 15;
+    private static final ThreadLocal<QueryScope> CURRENT = new ThreadLocal<>();
+    private static final Deque<Violation> RECENT = new ArrayDeque<>();
+    /** Returned for nested opens; closing it does nothing. */
+    private static final QueryScope NESTED = new QueryScope(null);
+
+    private static volatile Mode mode = parseMode(System.getProperty("erp.db.nplus1"));
+    private static volatile int threshold = Integer.getInteger("erp.db.nplus1.threshold", 10);
+    private static volatile Consumer<Violation> listener = null;
+
+    private final Object name; // a String, or the AWTEvent being dispatched (described lazily)
+    private String label;      // first named scope opened inside an event scope
+    private Map<SqlStats.Stats, int[]> counts;
+    private List<Violation> violations;
+    private boolean closed = false;
+
+    private QueryScope(Object name) { this.name = name; }
+
+    /**
+     * Open a scope named after the action or service call. Returns a no-op scope if one is
+     * already open on this thread or detection is off.
+     */
+    public static QueryScope open(String name) {
+        return begin(name);
+    }
+
+    /** Scope currently open on this thread, or null. */
+    public static QueryScope current() {
+        return CURRENT.get();
+    }
+
+    /**
+     * Make the given scope current on this thread (e.g. on a worker running work submitted
+     * from inside it). Returns the previous one, to be restored with the same method.
+     */
+    public static QueryScope adopt(QueryScope scope) {
+        QueryScope previous = CURRENT.get();
+        if (scope == null || scope == NESTED) CURRENT.remove();
+        else CURRENT.set(scope);
+        return previous;
+    }
+
+    public static Mode getMode() { return mode; }
+    public static void setMode(Mode m) { mode = m == null ? Mode.OFF : m; }
+    public static int getThreshold() { return threshold; }
+    public static void setThreshold(int n) { threshold = Math.max(1, n); }
+
+    /** Receive every violation as its scope closes (in addition to logging). */
+    public static void setListener(Consumer<Violation> l) { listener = l; }
+
+    /** The most recent violations, oldest first. */
+    public static List<Violation> getRecentViolations() {
+        synchronized (RECENT) {
+            return new ArrayList<>(RECENT);
+        }
+    }
+
+    public static void clearRecentViolations() {
+        synchronized (RECENT) {
+            RECENT.clear();
+        }
+    }
+
+    /**
+     * Open a scope around every Swing event dispatched on the EDT. Call once at startup.
+     */
+    public static void installEventQueue() {
+        Toolkit.getDefaultToolkit().getSystemEventQueue().push(new EventQueue() {
+            @Override
+            protected void dispatchEvent(AWTEvent event) {
+                if (mode == Mode.OFF || CURRENT.get() != null || !isAction(event)) {
+                    super.dispatchEvent(event);
+                    return;
+                }
+                QueryScope scope = begin(event);
+                try {
+                    super.dispatchEvent(event);
+                } finally {
+                    scope.close();
+                }
+            }
+        });
+    }
+
+    public String getName() {
+        if (!(name instanceof AWTEvent)) return String.valueOf(name);
+        String event = describe((AWTEvent) name);
+        return label == null ? event : label + " (" + event + ")";
+    }
+
+    @Override
+    public void close() {
+        if (this == NESTED || closed) return;
+        closed = true;
+        if (CURRENT.get() == this) CURRENT.remove();
+        List<Violation> found;
+        synchronized (this) {
+            if (violations == null) return;
+            found = new ArrayList<>(violations.size());
+            for (Violation v : violations) found.add(v.withCount(counts.get(v.stats)[0], getName()));
+        }
+        for (Violation v : found) report(v);
+        if (mode == Mode.FAIL) {
+            throw new IllegalStateException(found.size() + " N+1 query pattern(s) in " + getName() + ": " + found.get(0).describe());
+        }
+    }
+
+    /** Called by SqlStats for every statement execution on this thread. */
+    static void onExecute(SqlStats.Stats stats) {
+        QueryScope scope = CURRENT.get();
+        if (scope != null) scope.count(stats);
+    }
+
+    private static QueryScope begin(Object name) {
+        if (mode == Mode.OFF) return NESTED;
+        QueryScope outer = CURRENT.get();
+        if (outer != null) {
+            // Name event scopes after the first service/panel scope opened inside them
+            if (outer.label == null && outer.name instanceof AWTEvent && name instanceof String) outer.label = (String) name;
+            return NESTED;
+        }
+        QueryScope scope = new QueryScope(name);
+        CURRENT.set(scope);
+        return scope;
+    }
+
+    private synchronized void count(SqlStats.Stats stats) {
+        if (counts == null) counts = new IdentityHashMap<>();
+        int[] c = counts.get(stats);
+        if (c == null) counts.put(stats, c = new int[1]);
+        // Capture the stack once, when the template first crosses the threshold
+        if (++c[0] == threshold + 1) {
+            if (violations == null) violations = new ArrayList<>(2);
+            violations.add(new Violation(null, stats, stats.sql, c[0], callerStack()));
+        }
+    }
+
+    private static void report(Violation v) {
+        synchronized (RECENT) {
+            if (RECENT.size() >= RECENT_LIMIT) RECENT.removeFirst();
+            RECENT.addLast(v);
+        }
+        Consumer<Violation> l = listener;
+        if (l != null) {
+            try { l.accept(v); } catch (RuntimeException ignored) {}
+        }
+        StringBuilder sb = new StringBuilder("Possible N+1 query: ").append(v.describe());
+        for (StackTraceElement e : v.stack) sb.append("\n    at ").append(e);
+        System.err.println(sb);
+    }
+
+    /** Stack of the statement's caller, without the JDBC proxy and instrumentation frames. */
+    private static StackTraceElement[] callerStack() {
+        StackTraceElement[] all = new Throwable().getStackTrace();
+        List<StackTraceElement> out = new ArrayList<>(STACK_DEPTH);
+        for (StackTraceElement e : all) {
+            String cls = e.getClassName();
+            if (cls.startsWith("login.QueryScope") || cls.startsWith("login.SqlStats") || cls.startsWith("login.StatementCache")
+                    || cls.startsWith("login.ConnectionPool") || cls.startsWith("jdk.proxy") || cls.startsWith("com.sun.proxy")
+                    || cls.startsWith("java.lang.reflect") || cls.startsWith("jdk.internal.reflect")) continue;
+            out.add(e);
+            if (out.size() == STACK_DEPTH) break;
+        }
+        return out.toArray(new StackTraceElement[0]);
+    }
+
+    /** Events that start user-visible work; mouse motion and painting are left unscoped. */
+    private static boolean isAction(AWTEvent e) {
+        if (e instanceof PaintEvent) return false;
+        if (e instanceof MouseEvent) {
+            int id = e.getID();
+            return id == MouseEvent.MOUSE_PRESSED || id == MouseEvent.MOUSE_RELEASED || id == MouseEvent.MOUSE_CLICKED;
+        }
+        return true;
+    }
+
+    private static String describe(AWTEvent e) {
+        if (e instanceof ActionEvent) {
+            return "action '" + ((ActionEvent) e).getActionCommand() + "' on " + e.getSource().getClass().getSimpleName();
+        }
+        if (e instanceof InvocationEvent) return "invokeLater task";
+        return e.getClass().getSimpleName() + "(" + e.getID() + ") on " + e.getSource().getClass().getSimpleName();
+    }
+
+    private static Mode parseMode(String s) {
+        if (s == null) return Mode.LOG;
+        try {
+            return Mode.valueOf(s.trim().toUpperCase());
+        } catch (IllegalArgumentException ex) {
+            return Mode.LOG;
+        }
+    }
+
+    /** One SQL template that ran more often than the threshold within one scope. */
+    public static final class Violation {
+        public final String action;
+        public final String sql;
+        public final int count;
+        public final StackTraceElement[] stack;
+        final SqlStats.Stats stats;
+
+        Violation(String action, SqlStats.Stats stats, String sql, int count, StackTraceElement[] stack) {
+            this.action = action;
+            this.stats = stats;
+            this.sql = sql;
+            this.count = count;
+            this.stack = stack;
+        }
+
+        Violation withCount(int finalCount, String actionName) {
+            return new Violation(actionName, stats, sql, finalCount, stack);
+        }
+
+        public String describe() {
+            return sql + " executed " + count + "x in " + action;
+        }
+
+        @Override
+        public String toString() { return describe(); }
+    }
+}
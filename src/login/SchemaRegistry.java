@@ -0,0 +1,169 @@
+package login;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Savepoint;
+import java.sql.Statement;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Single place that knows which tables and columns the DAOs rely on.
+ *
+ * DAO constructors used to issue their own CREATE TABLE / PRAGMA table_info probes on every
+ * construction. They now call {@link #ensureSchema()}, which verifies the schema once per
+ * process with one catalog query and only writes (through the database writer) when something
+ * is actually missing. Every later call is a volatile read.
+ */
+public final class SchemaRegistry {
+
+    /** Tables owned by DAOs, in creation order. */
+    private static final String[][] TABLES = {
+            {"students", "CREATE TABLE IF NOT EXISTS students (id TEXT PRIMARY KEY, name TEXT NOT NULL, email TEXT, section TEXT, status TEXT, degree TEXT, branch TEXT, year_of_study TEXT, admission_year TEXT, created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP, updated_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP)"},
+            {"instructors", "CREATE TABLE IF NOT EXISTS instructors (id TEXT PRIMARY KEY, name TEXT NOT NULL, email TEXT, department TEXT, status TEXT, created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP, updated_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP)"},
+            {"instructor_courses", "CREATE TABLE IF NOT EXISTS instructor_courses (instructor_id TEXT, course_code TEXT, assigned_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP, PRIMARY KEY(instructor_id, course_code))"},
+            {"sections", "CREATE TABLE IF NOT EXISTS sections (section_id INTEGER PRIMARY KEY, course_code TEXT, title TEXT, instructor_id TEXT, term TEXT, year INTEGER, day_time TEXT, room TEXT, capacity INTEGER, enrollment_open INTEGER DEFAULT 1)"},
+            {"enrollments", "CREATE TABLE IF NOT EXISTS enrollments (enrollment_id INTEGER PRIMARY KEY AUTOINCREMENT, student_id TEXT, section_id INTEGER, status TEXT, UNIQUE(student_id, section_id))"},
+            {"assessments", "CREATE TABLE IF NOT EXISTS assessments (section_id INTEGER, student_id TEXT, assessment_type TEXT, score REAL, recorded_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP, PRIMARY KEY(section_id, student_id, assessment_type, recorded_at))"},
+            {"grades", "CREATE TABLE IF NOT EXISTS grades (section_id INTEGER, student_id TEXT, quiz REAL, midterm REAL, endsem REAL, final REAL, PRIMARY KEY(section_id, student_id))"},
+            {"grading_scheme", "CREATE TABLE IF NOT EXISTS grading_scheme (section_id INTEGER, component TEXT, percentage INTEGER, PRIMARY KEY(section_id, component))"},
+            // Shipped with the bundled erp.db; the catalog and grade history join it for names and credits
+            {"courses", "CREATE TABLE IF NOT EXISTS courses (id TEXT PRIMARY KEY, name TEXT NOT NULL, code TEXT UNIQUE, course_code TEXT, credits INTEGER, status TEXT, created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP)"},
+    };
+
+    /** Columns added after the original schema; older databases get them via ALTER TABLE. */
+    private static final String[][] COLUMNS = {
+            {"students", "degree", "TEXT"},
+            {"students", "branch", "TEXT"},
+            {"students", "year_of_study", "TEXT"},
+            {"students", "admission_year", "TEXT"},
+            {"sections", "enrollment_open", "INTEGER DEFAULT 1"},
+            {"sections", "section_id", "INTEGER"},
+    };
+
+    private static volatile boolean verified = false;
+    private static volatile long verifyMillis = 0;
+
+    private SchemaRegistry() {}
+
+    /**
+     * Make sure every DAO table and column exists. Cheap after the first successful call.
+     */
+    public static void ensureSchema() {
+        if (verified) return;
+        synchronized (SchemaRegistry.class) {
+            if (verified) return;
+            long start = System.nanoTime();
+            try {
+                Map<String, Set<String>> existing = readCatalog();
+                int failed = isComplete(existing) ? 0 : DatabaseConfig.write(c -> apply(c, existing));
+                if (failed == 0) {
+                    verified = true;
+                } else {
+                    // What did apply is committed; leave unverified so the next DAO construction retries the rest
+                    System.err.println("Warning: " + failed + " schema change(s) failed; schema not verified");
+                }
+            } catch (SQLException ex) {
+                // Leave unverified so the next DAO construction tries again
+                System.err.println("Warning: could not verify database schema: " + ex.getMessage());
+            }
+            verifyMillis = (System.nanoTime() - start) / 1_000_000;
+        }
+    }
+
+    /** Forget the verification, e.g. after switching databases or restoring a backup. */
+    public static synchronized void invalidate() {
+        verified = false;
+    }
+
+    public static boolean isVerified() { return verified; }
+
+    /** How long the last verification took. */
+    public static long getVerifyMillis() { return verifyMillis; }
+
+    /** table name -> column names, for every registered table that exists. One catalog query. */
+    private static Map<String, Set<String>> readCatalog() throws SQLException {
+        StringBuilder in = new StringBuilder();
+        for (String[] t : TABLES) in.append(in.length() == 0 ? "?" : ", ?");
+        String sql = "SELECT m.name, p.name FROM sqlite_master m JOIN pragma_table_info(m.name) p " +
+                "WHERE m.type = 'table' AND m.name IN (" + in + ")";
+        Map<String, Set<String>> out = new HashMap<>();
+        try (Connection c = DatabaseConfig.getConnection(); PreparedStatement p = c.prepareStatement(sql)) {
+            for (int i = 0; i < TABLES.length; i++) p.setString(i + 1, TABLES[i][0]);
+            try (ResultSet rs = p.executeQuery()) {
+                while (rs.next()) out.computeIfAbsent(rs.getString(1), k -> new HashSet<>()).add(rs.getString(2));
+            }
+        }
+        return out;
+    }
+
+    private static boolean isComplete(Map<String, Set<String>> existing) {
+        for (String[] t : TABLES) if (!existing.containsKey(t[0])) return false;
+        for (String[] col : COLUMNS) if (!existing.get(col[0]).contains(col[1])) return false;
+        return true;
+    }
+
+    /** Create missing tables and add missing columns; returns how many column changes failed. */
+    private static int apply(Connection c, Map<String, Set<String>> existing) throws SQLException {
+        try (Statement s = c.createStatement()) {
+            for (String[] t : TABLES) {
+                if (!existing.containsKey(t[0])) s.execute(t[1]);
+            }
+        }
+        boolean backedUp = false;
+        int failed = 0;
+        for (String[] col : COLUMNS) {
+            Set<String> cols = existing.get(col[0]);
+            // Tables created just now already have every column
+            if (cols == null || cols.contains(col[1])) continue;
+            if (!backedUp) {
+                backupDatabaseFile();
+                backedUp = true;
+            }
+            String alter = "ALTER TABLE " + col[0] + " ADD COLUMN " + col[1] + " " + col[2];
+            // Column and backfill together or not at all: a half-applied change would look done to the retry
+            Savepoint sp = c.setSavepoint();
+            try (Statement s = c.createStatement()) {
+                s.execute(alter);
+                // Legacy sections tables used `id` as the key; backfill the new column from it
+                if ("sections".equals(col[0]) && "section_id".equals(col[1]) && cols.contains("id")) {
+                    s.execute("UPDATE sections SET section_id = id");
+                }
+                c.releaseSavepoint(sp);
+                System.err.println("Applied migration: " + alter);
+            } catch (SQLException ex) {
+                c.rollback(sp);
+                System.err.println("Failed to apply migration (" + alter + "): " + ex.getMessage());
+                failed++;
+            }
+        }
+        return failed;
+    }
+
+    /**
+     * Copy the database aside before altering existing tables. VACUUM INTO writes a consistent
+     * snapshot that includes pages still in erp.db-wal, which a plain file copy would miss. It
+     * runs on its own connection, so it sees the database as it was before the writer's open
+     * transaction.
+     */
+    private static void backupDatabaseFile() {
+        String dbPathStr = DatabaseConfig.getDatabasePath();
+        java.nio.file.Path dbPath = java.nio.file.Paths.get(dbPathStr);
+        if (!java.nio.file.Files.exists(dbPath)) return;
+        java.nio.file.Path bak = java.nio.file.Paths.get(dbPathStr + ".bak");
+        try (Connection c = java.sql.DriverManager.getConnection(DatabaseConfig.getDatabaseUrl());
+             PreparedStatement p = c.prepareStatement("VACUUM INTO ?")) {
+            // VACUUM INTO refuses to overwrite a non-empty file
+            java.nio.file.Files.deleteIfExists(bak);
+            p.setString(1, bak.toString());
+            p.execute();
+            System.err.println("Backup created: " + bak.toString());
+        } catch (Exception ex) {
+            System.err.println("Warning: failed to create DB backup: " + ex.getMessage());
+        }
+    }
+}
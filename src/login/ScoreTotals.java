@@ -0,0 +1,129 @@
+package login;
+
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Materialized per-student, per-section assessment totals:
+ * score_totals(student_id, section_id, total, entries), total = SUM(score) and entries = the
+ * number of assessment rows, exactly what CGPA and the grade history used to aggregate from
+ * assessments on every dashboard load.
+ *
+ * Triggers on assessments apply each insert, delete and update as a delta inside the same
+ * transaction, whichever DAO writes (AssessmentDAO.saveAssessment and anything else). A row
+ * disappears when its last assessment does. Keyed by student first, so a student's totals are
+ * one primary-key range read.
+ *
+ * Totals are REAL and updated by adding and subtracting, so rounding can creep in over many
+ * edits; {@link #verify(Connection, double)} compares with a fresh SUM and reports anything
+ * beyond a tolerance, {@link #rebuild(Connection)} recomputes (tools.ScoreReconcile).
+ */
+public final class ScoreTotals {
+
+    /** Table and trigger DDL, in order. The migration checksum covers this text. */
+    static final String[] DDL = {
+            "CREATE TABLE IF NOT EXISTS score_totals (student_id TEXT NOT NULL, section_id INTEGER NOT NULL, total REAL NOT NULL DEFAULT 0, entries INTEGER NOT NULL DEFAULT 0, PRIMARY KEY(student_id, section_id)) WITHOUT ROWID",
+
+            "CREATE TRIGGER IF NOT EXISTS trg_score_totals_ins AFTER INSERT ON assessments WHEN NEW.student_id IS NOT NULL AND NEW.section_id IS NOT NULL BEGIN "
+                    + add("NEW")
+                    + "END",
+
+            "CREATE TRIGGER IF NOT EXISTS trg_score_totals_del AFTER DELETE ON assessments WHEN OLD.student_id IS NOT NULL AND OLD.section_id IS NOT NULL BEGIN "
+                    + subtract("OLD")
+                    + "END",
+
+            "CREATE TRIGGER IF NOT EXISTS trg_score_totals_upd AFTER UPDATE OF score, student_id, section_id ON assessments BEGIN "
+                    + subtract("OLD")
+                    + add("NEW")
+                    + "END",
+    };
+
+    /** Totals recomputed from assessments. */
+    private static final String EXPECTED_SQL =
+            "SELECT student_id, section_id, COALESCE(SUM(score), 0) AS total, COUNT(*) AS entries FROM assessments "
+                    + "WHERE student_id IS NOT NULL AND section_id IS NOT NULL GROUP BY student_id, section_id";
+
+    private ScoreTotals() {}
+
+    /**
+     * Add ROW's score; guarded so a NULL key (possible in the update trigger) is a no-op. An
+     * upsert rather than INSERT OR IGNORE: inside an outer upsert (AssessmentDAO.saveAssessments)
+     * SQLite applies the outer statement's conflict policy to the trigger's, and the IGNORE
+     * would become an abort.
+     */
+    private static String add(String row) {
+        String score = "COALESCE(" + row + ".score, 0)";
+        return "INSERT INTO score_totals (student_id, section_id, total, entries) SELECT " + row + ".student_id, " + row + ".section_id, " + score + ", 1 "
+                + "WHERE " + row + ".student_id IS NOT NULL AND " + row + ".section_id IS NOT NULL "
+                + "ON CONFLICT (student_id, section_id) DO UPDATE SET total = total + excluded.total, entries = entries + 1; ";
+    }
+
+    private static String subtract(String row) {
+        String key = "student_id = " + row + ".student_id AND section_id = " + row + ".section_id";
+        return "UPDATE score_totals SET total = total - COALESCE(" + row + ".score, 0), entries = entries - 1 WHERE " + key + "; "
+                + "DELETE FROM score_totals WHERE " + key + " AND entries <= 0; ";
+    }
+
+    static byte[] ddlBytes() {
+        return String.join("\n", DDL).getBytes(StandardCharsets.UTF_8);
+    }
+
+    /** Create the table and triggers, then fill the table from assessments. */
+    static void install(Connection c) throws SQLException {
+        try (Statement s = c.createStatement()) {
+            // Trigger bodies may have changed; IF NOT EXISTS would keep the old ones
+            for (String name : new String[]{"trg_score_totals_ins", "trg_score_totals_del", "trg_score_totals_upd"}) {
+                s.execute("DROP TRIGGER IF EXISTS " + name);
+            }
+            for (String ddl : DDL) s.execute(ddl);
+        }
+        rebuild(c);
+    }
+
+    /** Recompute every row from assessments. Returns the number of rows written. */
+    public static int rebuild(Connection c) throws SQLException {
+        try (Statement s = c.createStatement()) {
+            s.executeUpdate("DELETE FROM score_totals");
+            return s.executeUpdate("INSERT INTO score_totals (student_id, section_id, total, entries) " + EXPECTED_SQL);
+        }
+    }
+
+    /**
+     * Compare the table with totals recomputed from assessments. Returns one line per row that
+     * is missing, stale, counts a different number of entries or whose total is off by more
+     * than tolerance; empty when consistent.
+     */
+    public static List<String> verify(Connection c, double tolerance) throws SQLException {
+        List<String> problems = new ArrayList<>();
+        String sql = "SELECT x.student_id, x.section_id, x.total, x.entries, t.student_id AS have, t.total AS t_total, t.entries AS t_entries "
+                + "FROM (" + EXPECTED_SQL + ") x LEFT JOIN score_totals t ON t.student_id = x.student_id AND t.section_id = x.section_id "
+                + "WHERE t.student_id IS NULL OR t.entries <> x.entries OR ABS(t.total - x.total) > ?";
+        try (PreparedStatement p = c.prepareStatement(sql)) {
+            p.setDouble(1, tolerance);
+            try (ResultSet rs = p.executeQuery()) {
+                while (rs.next()) {
+                    String key = rs.getString("student_id") + " / section " + rs.getInt("section_id");
+                    if (rs.getObject("have") == null) {
+                        problems.add(key + ": missing (expected total " + rs.getDouble("total") + ")");
+                    } else {
+                        problems.add(String.format("%s: total %s (expected %s, drift %.6g), entries %d (expected %d)",
+                                key, rs.getDouble("t_total"), rs.getDouble("total"), rs.getDouble("t_total") - rs.getDouble("total"),
+                                rs.getInt("t_entries"), rs.getInt("entries")));
+                    }
+                }
+            }
+        }
+        try (Statement s = c.createStatement();
+             ResultSet rs = s.executeQuery("SELECT t.student_id, t.section_id FROM score_totals t WHERE NOT EXISTS "
+                     + "(SELECT 1 FROM assessments a WHERE a.student_id = t.student_id AND a.section_id = t.section_id)")) {
+            while (rs.next()) problems.add(rs.getString(1) + " / section " + rs.getInt(2) + ": stale row (no assessments)");
+        }
+        return problems;
+    }
+}
@@ -0,0 +1,321 @@
+package login;
+
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Weekly timetable of each section as a bitmask, parsed once from the free-text
+ * sections.day_time and stored next to it, so clash checks are bitwise ANDs.
+ *
+ * The week is Monday to Saturday, 07:00 to 21:00, in 30-minute slots: 28 bits a day, two
+ * days per 64-bit word, stored in sections.slots_mon_tue, slots_wed_thu and slots_fri_sat.
+ * slots_source holds the day_time text the masks were parsed from. A trigger zeroes the
+ * masks whenever day_time changes, so a section whose text nobody has parsed yet clashes
+ * with nothing (the behaviour before masks existed) rather than with its old times. Writers
+ * that check clashes in SQL call {@link #sync(Connection)} first, which parses whatever is
+ * out of date and is one probe of a partial index when nothing is; readers use
+ * {@link #current(String, String, long[])}. Text that can't be parsed, or times outside the
+ * grid, yield empty or clipped masks.
+ *
+ * Understood: day names and abbreviations (Mon, Tues, Thursday...), day lists and ranges
+ * (Mon/Wed, Mon, Wed and Fri, Mon-Fri), compact forms (MWF, TTh, TR), times with or without
+ * minutes and am/pm (10, 10:30, 2:30 PM; 1 to 6 without am/pm are afternoon), ranges with
+ * "-" or "to" (a time without an end lasts an hour), and several groups in one text
+ * ("Mon 10:00-11:30; Wed 14:00", "10-11 Tue Thu"). Other words (rooms, "TBA") are skipped along
+ * with a number right after them, as are numbers glued to letters ("B12", "101").
+ */
+public final class SectionSlots {
+    public static final int WORDS = 3;
+
+    private static final int DAYS = 6;
+    private static final int FIRST_MINUTE = 7 * 60;
+    private static final int SLOT_MINUTES = 30;
+    private static final int SLOTS_PER_DAY = 28;
+    private static final String[] DAY_NAMES = {"monday", "tuesday", "wednesday", "thursday", "friday", "saturday", "sunday"};
+    /** Words between days and times that carry no meaning of their own; "to" and friends make a range. */
+    private static final Set<String> FILLERS = Set.of("and", "at", "from", "on", "or", "every");
+    private static final Set<String> RANGE_WORDS = Set.of("to", "till", "until");
+
+    /** The mask columns in word order, for SELECT lists. */
+    public static final String COLUMNS = "slots_mon_tue, slots_wed_thu, slots_fri_sat";
+
+    /** Columns, stale-row index and trigger, in order. The migration checksum covers this text. */
+    static final String[] DDL = {
+            "ALTER TABLE sections ADD COLUMN slots_mon_tue INTEGER NOT NULL DEFAULT 0",
+            "ALTER TABLE sections ADD COLUMN slots_wed_thu INTEGER NOT NULL DEFAULT 0",
+            "ALTER TABLE sections ADD COLUMN slots_fri_sat INTEGER NOT NULL DEFAULT 0",
+            "ALTER TABLE sections ADD COLUMN slots_source TEXT",
+
+            "CREATE INDEX IF NOT EXISTS idx_sections_slots_stale ON sections(section_id) WHERE slots_source IS NOT day_time",
+
+            "CREATE TRIGGER IF NOT EXISTS trg_section_slots_stale AFTER UPDATE OF day_time ON sections "
+                    + "WHEN NEW.day_time IS NOT OLD.day_time AND NEW.slots_source IS NOT NEW.day_time BEGIN "
+                    + "UPDATE sections SET slots_mon_tue = 0, slots_wed_thu = 0, slots_fri_sat = 0, slots_source = NULL "
+                    + "WHERE section_id = NEW.section_id; "
+                    + "END",
+    };
+
+    public static final String STALE_SQL = "SELECT section_id, day_time FROM sections WHERE slots_source IS NOT day_time";
+
+    private static final Pattern TOKEN = Pattern.compile("(?<![A-Za-z\\d])(?:(\\d{1,2})(?:[:.](\\d{2}))?\\s*([ap])\\.?m\\.?(?![A-Za-z])|(\\d{1,2})(?:[:.](\\d{2}))?(?![A-Za-z\\d]))|[A-Za-z]+",
+            Pattern.CASE_INSENSITIVE);
+
+    private SectionSlots() {}
+
+    static byte[] ddlBytes() {
+        return String.join("\n", DDL).getBytes(StandardCharsets.UTF_8);
+    }
+
+    /** Add the columns (where missing) and the trigger, then parse every section. */
+    static void install(Connection c) throws SQLException {
+        Set<String> have = new HashSet<>();
+        try (Statement s = c.createStatement(); ResultSet rs = s.executeQuery("PRAGMA table_info(sections)")) {
+            while (rs.next()) have.add(rs.getString("name").toLowerCase());
+        }
+        try (Statement s = c.createStatement()) {
+            s.execute("DROP TRIGGER IF EXISTS trg_section_slots_stale");
+            for (String ddl : DDL) {
+                if (ddl.startsWith("ALTER TABLE") && have.contains(ddl.split(" ")[5])) continue;
+                s.execute(ddl);
+            }
+            s.executeUpdate("UPDATE sections SET slots_source = NULL");
+        }
+        sync(c);
+    }
+
+    /** Parse the day_time of every section whose masks are out of date. Returns how many were updated. */
+    public static int sync(Connection c) throws SQLException {
+        Map<Integer, String> stale = new HashMap<>();
+        try (Statement s = c.createStatement(); ResultSet rs = s.executeQuery(STALE_SQL)) {
+            while (rs.next()) stale.put(rs.getInt(1), rs.getString(2));
+        }
+        if (stale.isEmpty()) return 0;
+        try (PreparedStatement p = c.prepareStatement(
+                "UPDATE sections SET slots_mon_tue = ?, slots_wed_thu = ?, slots_fri_sat = ?, slots_source = ? WHERE section_id = ?")) {
+            for (Map.Entry<Integer, String> e : stale.entrySet()) {
+                long[] mask = parse(e.getValue());
+                for (int w = 0; w < WORDS; w++) p.setLong(w + 1, mask[w]);
+                p.setString(4, e.getValue());
+                p.setInt(5, e.getKey());
+                p.addBatch();
+            }
+            p.executeBatch();
+        }
+        return stale.size();
+    }
+
+    /** Sections whose stored masks don't match their day_time; empty when all are current. */
+    public static List<String> verify(Connection c) throws SQLException {
+        List<String> problems = new ArrayList<>();
+        try (Statement s = c.createStatement();
+             ResultSet rs = s.executeQuery("SELECT section_id, day_time, slots_source, " + COLUMNS + " FROM sections")) {
+            while (rs.next()) {
+                String dayTime = rs.getString("day_time");
+                long[] stored = read(rs, 4);
+                if (!Objects.equals(dayTime, rs.getString("slots_source"))) {
+                    problems.add("section " + rs.getInt(1) + ": masks not parsed from the current day_time '" + dayTime + "'");
+                } else if (!Arrays.equals(stored, parse(dayTime))) {
+                    problems.add("section " + rs.getInt(1) + ": masks differ from parsing '" + dayTime + "'");
+                }
+            }
+        }
+        return problems;
+    }
+
+    /** The stored masks if they were parsed from dayTime, otherwise dayTime parsed now. */
+    public static long[] current(String dayTime, String source, long[] stored) {
+        return Objects.equals(dayTime, source) ? stored : parse(dayTime);
+    }
+
+    /** The WORDS mask columns starting at the given result column. */
+    public static long[] read(ResultSet rs, int firstColumn) throws SQLException {
+        long[] mask = new long[WORDS];
+        for (int w = 0; w < WORDS; w++) mask[w] = rs.getLong(firstColumn + w);
+        return mask;
+    }
+
+    public static boolean clash(long[] a, long[] b) {
+        return (a[0] & b[0]) != 0 || (a[1] & b[1]) != 0 || (a[2] & b[2]) != 0;
+    }
+
+    /** OR b into a. */
+    public static void add(long[] a, long[] b) {
+        for (int w = 0; w < WORDS; w++) a[w] |= b[w];
+    }
+
+    /** SQL condition: sections aliased a and b share a slot. */
+    public static String clashSql(String a, String b) {
+        return "((" + a + ".slots_mon_tue & " + b + ".slots_mon_tue) <> 0 OR (" + a + ".slots_wed_thu & " + b + ".slots_wed_thu) <> 0 "
+                + "OR (" + a + ".slots_fri_sat & " + b + ".slots_fri_sat) <> 0)";
+    }
+
+    /** Mask of a day_time text; all zero when nothing in it is understood. */
+    public static long[] parse(String dayTime) {
+        long[] mask = new long[WORDS];
+        if (dayTime == null || dayTime.isBlank()) return mask;
+        Group g = new Group();
+        Matcher m = TOKEN.matcher(dayTime);
+        int lastEnd = 0;
+        boolean lastWasDay = false, lastWasTime = false, afterLabel = false;
+        while (m.find()) {
+            String between = dayTime.substring(lastEnd, m.start());
+            boolean dash = between.contains("-") || between.contains("–");
+            lastEnd = m.end();
+            String word = m.group(1) == null && m.group(4) == null ? m.group() : null;
+            if (word != null && RANGE_WORDS.contains(word.toLowerCase())) {
+                if (lastWasTime) g.rangeNext = true;
+                continue;
+            }
+            if (word != null && FILLERS.contains(word.toLowerCase())) continue;
+            if (word != null) {
+                int[] days = days(word);
+                if (days == null) {
+                    // A room, "TBA", ...: a number right after it is part of it ("Room 12", "Lab 3")
+                    afterLabel = true;
+                    lastWasDay = lastWasTime = false;
+                    continue;
+                }
+                afterLabel = false;
+                if (g.hasDays() && g.hasTimes() && g.daysBeforeTimes) {
+                    g.apply(mask);
+                    g = new Group();
+                }
+                if (dash && lastWasDay && days.length == 1 && g.lastDay >= 0) {
+                    for (int d = g.lastDay; d <= days[0]; d++) g.addDay(d);
+                } else {
+                    for (int d : days) g.addDay(d);
+                }
+                if (!g.hasTimes()) g.daysBeforeTimes = true;
+                lastWasDay = true;
+                lastWasTime = false;
+                continue;
+            }
+            if (afterLabel) {
+                afterLabel = false;
+                continue;
+            }
+            boolean explicit = m.group(1) != null;
+            int hour = Integer.parseInt(explicit ? m.group(1) : m.group(4));
+            String minutes = explicit ? m.group(2) : m.group(5);
+            int minute = minutes == null ? 0 : Integer.parseInt(minutes);
+            if (hour > 23 || minute > 59) continue;
+            if (explicit) {
+                boolean pm = m.group(3).equalsIgnoreCase("p");
+                hour = hour % 12 + (pm ? 12 : 0);
+            } else if (hour >= 1 && hour <= 6) {
+                hour += 12;
+            }
+            int at = hour * 60 + minute;
+            if ((dash || g.rangeNext) && lastWasTime && g.openStart >= 0) {
+                g.addTime(g.openStart, at);
+                g.openStart = -1;
+            } else {
+                if (g.openStart >= 0) g.addTime(g.openStart, g.openStart + 60);
+                if (g.hasDays() && g.hasTimes() && !g.daysBeforeTimes) {
+                    g.apply(mask);
+                    g = new Group();
+                }
+                g.openStart = at;
+            }
+            g.rangeNext = false;
+            lastWasTime = true;
+            lastWasDay = false;
+        }
+        g.apply(mask);
+        return mask;
+    }
+
+    /** Day indexes (0 = Monday) of a word, or null if it isn't a day name or a compact form like MWF / TTh. */
+    private static int[] days(String word) {
+        String w = word.toLowerCase();
+        if (w.length() >= 3) {
+            for (int d = 0; d < DAY_NAMES.length; d++) {
+                // Sunday is a day, just not one on the grid
+                if (isDayWord(w, d)) return d < DAYS ? new int[]{d} : new int[0];
+            }
+        }
+        // Compact: M T W Th/R F S/Sa, each at most once, e.g. MWF, TTh, TR, MTWThF
+        List<Integer> out = new ArrayList<>();
+        for (int i = 0; i < word.length(); ) {
+            char ch = Character.toUpperCase(word.charAt(i));
+            boolean nextH = i + 1 < word.length() && Character.toLowerCase(word.charAt(i + 1)) == 'h';
+            boolean nextA = i + 1 < word.length() && Character.toLowerCase(word.charAt(i + 1)) == 'a';
+            int d;
+            if (ch == 'T' && nextH) { d = 3; i += 2; }
+            else if (ch == 'S' && nextA) { d = 5; i += 2; }
+            else if (ch == 'M') { d = 0; i++; }
+            else if (ch == 'T') { d = 1; i++; }
+            else if (ch == 'W') { d = 2; i++; }
+            else if (ch == 'R') { d = 3; i++; }
+            else if (ch == 'F') { d = 4; i++; }
+            else if (ch == 'S') { d = 5; i++; }
+            else return null;
+            if (out.contains(d)) return null;
+            out.add(d);
+        }
+        if (out.isEmpty() || word.length() > 7) return null;
+        // A lone "S" could be Saturday or Sunday
+        if (word.equalsIgnoreCase("s")) return null;
+        int[] days = new int[out.size()];
+        for (int i = 0; i < days.length; i++) days[i] = out.get(i);
+        return days;
+    }
+
+    /** Abbreviation or full name of day d: Mon / Monday, Tue / Tues / Tuesday, Thu / Thur / Thurs / Thursday... */
+    private static boolean isDayWord(String w, int d) {
+        if (DAY_NAMES[d].startsWith(w)) return true;
+        return (d == 1 && w.equals("tues")) || (d == 3 && (w.equals("thur") || w.equals("thurs")));
+    }
+
+    /** Days and time ranges collected for one part of the text. */
+    private static final class Group {
+        int days; // bit d = day d
+        int lastDay = -1;
+        final List<int[]> times = new ArrayList<>();
+        int openStart = -1;
+        boolean rangeNext;
+        boolean daysBeforeTimes;
+
+        boolean hasDays() { return days != 0; }
+        boolean hasTimes() { return !times.isEmpty() || openStart >= 0; }
+
+        void addDay(int d) {
+            days |= 1 << d;
+            lastDay = d;
+        }
+
+        void addTime(int from, int to) {
+            if (to <= from) to = from + 60;
+            times.add(new int[]{from, to});
+        }
+
+        void apply(long[] mask) {
+            if (openStart >= 0) {
+                addTime(openStart, openStart + 60);
+                openStart = -1;
+            }
+            for (int d = 0; d < DAYS; d++) {
+                if ((days & (1 << d)) == 0) continue;
+                for (int[] t : times) {
+                    int first = Math.max(0, (t[0] - FIRST_MINUTE) / SLOT_MINUTES);
+                    int last = Math.min(SLOTS_PER_DAY, (t[1] - FIRST_MINUTE + SLOT_MINUTES - 1) / SLOT_MINUTES);
+                    for (int k = first; k < last; k++) mask[d / 2] |= 1L << ((d % 2) * SLOTS_PER_DAY + k);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,173 @@
+package login;
+
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Materialized per-section counters: section_stats(section_id, enrolled, capacity, waitlisted).
+ *
+ * Triggers on enrollments, waitlist and sections keep the row in step with every insert,
+ * delete and update, inside the same transaction as the change, so capacity checks and the
+ * catalog can read one row by primary key instead of counting enrollments. enrolled counts
+ * enrollments rows; waitlisted counts waitlist rows (student.services.Waitlist). The waitlist
+ * table is created here because the counters and their rebuild depend on it.
+ *
+ * Known gap: INSERT OR REPLACE into enrollments deletes the old row without firing the delete
+ * trigger (recursive_triggers is off), so it would double count; nothing in the code does that.
+ * {@link #verify(Connection)} / {@link #rebuild(Connection)} (tools.SectionStatsTool) detect and
+ * repair any drift.
+ */
+public final class SectionStats {
+
+    /** Drops OLD's row once it is empty and its section is gone. */
+    private static final String DROP_ORPHAN =
+            "DELETE FROM section_stats WHERE section_id = OLD.section_id AND enrolled = 0 AND waitlisted = 0 "
+                    + "AND NOT EXISTS (SELECT 1 FROM sections WHERE section_id = OLD.section_id); ";
+
+    /** Table and trigger DDL, in order. The migration checksum covers this text. */
+    static final String[] DDL = {
+            "CREATE TABLE IF NOT EXISTS section_stats (section_id INTEGER PRIMARY KEY, enrolled INTEGER NOT NULL DEFAULT 0, capacity INTEGER, waitlisted INTEGER NOT NULL DEFAULT 0)",
+
+            // FIFO per section: the head is the lowest waitlist_id, found through the index
+            "CREATE TABLE IF NOT EXISTS waitlist (waitlist_id INTEGER PRIMARY KEY AUTOINCREMENT, section_id INTEGER NOT NULL, student_id TEXT NOT NULL, joined_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP, UNIQUE(section_id, student_id))",
+            "CREATE INDEX IF NOT EXISTS idx_waitlist_section ON waitlist(section_id, waitlist_id)",
+
+            "CREATE TRIGGER IF NOT EXISTS trg_section_stats_enroll_ins AFTER INSERT ON enrollments WHEN NEW.section_id IS NOT NULL BEGIN "
+                    + ensureRow("NEW") + " WHERE 1; "
+                    + "UPDATE section_stats SET enrolled = enrolled + 1 WHERE section_id = NEW.section_id; "
+                    + "END",
+
+            "CREATE TRIGGER IF NOT EXISTS trg_section_stats_enroll_del AFTER DELETE ON enrollments WHEN OLD.section_id IS NOT NULL BEGIN "
+                    + "UPDATE section_stats SET enrolled = enrolled - 1 WHERE section_id = OLD.section_id; "
+                    + DROP_ORPHAN
+                    + "END",
+
+            "CREATE TRIGGER IF NOT EXISTS trg_section_stats_enroll_upd AFTER UPDATE OF section_id ON enrollments WHEN OLD.section_id IS NOT NEW.section_id BEGIN "
+                    + "UPDATE section_stats SET enrolled = enrolled - 1 WHERE section_id = OLD.section_id; "
+                    + DROP_ORPHAN
+                    + ensureRow("NEW") + " WHERE NEW.section_id IS NOT NULL; "
+                    + "UPDATE section_stats SET enrolled = enrolled + 1 WHERE section_id = NEW.section_id; "
+                    + "END",
+
+            "CREATE TRIGGER IF NOT EXISTS trg_section_stats_waitlist_ins AFTER INSERT ON waitlist BEGIN "
+                    + ensureRow("NEW") + " WHERE 1; "
+                    + "UPDATE section_stats SET waitlisted = waitlisted + 1 WHERE section_id = NEW.section_id; "
+                    + "END",
+
+            "CREATE TRIGGER IF NOT EXISTS trg_section_stats_waitlist_del AFTER DELETE ON waitlist BEGIN "
+                    + "UPDATE section_stats SET waitlisted = waitlisted - 1 WHERE section_id = OLD.section_id; "
+                    + DROP_ORPHAN
+                    + "END",
+
+            "CREATE TRIGGER IF NOT EXISTS trg_section_stats_waitlist_upd AFTER UPDATE OF section_id ON waitlist WHEN OLD.section_id IS NOT NEW.section_id BEGIN "
+                    + "UPDATE section_stats SET waitlisted = waitlisted - 1 WHERE section_id = OLD.section_id; "
+                    + DROP_ORPHAN
+                    + ensureRow("NEW") + " WHERE 1; "
+                    + "UPDATE section_stats SET waitlisted = waitlisted + 1 WHERE section_id = NEW.section_id; "
+                    + "END",
+
+            "CREATE TRIGGER IF NOT EXISTS trg_section_stats_section_ins AFTER INSERT ON sections WHEN NEW.section_id IS NOT NULL BEGIN "
+                    + "INSERT OR IGNORE INTO section_stats (section_id, enrolled, capacity, waitlisted) VALUES (NEW.section_id, 0, NEW.capacity, 0); "
+                    + "UPDATE section_stats SET capacity = NEW.capacity WHERE section_id = NEW.section_id; "
+                    + "END",
+
+            "CREATE TRIGGER IF NOT EXISTS trg_section_stats_section_upd AFTER UPDATE OF section_id, capacity ON sections BEGIN "
+                    + "UPDATE section_stats SET capacity = NULL WHERE section_id = OLD.section_id AND OLD.section_id IS NOT NEW.section_id; "
+                    + "INSERT OR IGNORE INTO section_stats (section_id, enrolled, capacity, waitlisted) SELECT NEW.section_id, 0, NEW.capacity, 0 WHERE NEW.section_id IS NOT NULL; "
+                    + "UPDATE section_stats SET capacity = NEW.capacity WHERE section_id = NEW.section_id; "
+                    + "END",
+
+            // Keep the row while enrollments or waitlist entries still point at the section, so their counts stay right
+            "CREATE TRIGGER IF NOT EXISTS trg_section_stats_section_del AFTER DELETE ON sections BEGIN "
+                    + "DELETE FROM section_stats WHERE section_id = OLD.section_id AND enrolled = 0 AND waitlisted = 0; "
+                    + "UPDATE section_stats SET capacity = NULL WHERE section_id = OLD.section_id; "
+                    + "END",
+    };
+
+    /** The counters recomputed from the base tables, one row per section or referenced section_id. */
+    private static final String EXPECTED_SQL =
+            "SELECT k.section_id, "
+                    + "(SELECT COUNT(*) FROM enrollments e WHERE e.section_id = k.section_id) AS enrolled, "
+                    + "(SELECT capacity FROM sections s WHERE s.section_id = k.section_id) AS capacity, "
+                    + "(SELECT COUNT(*) FROM waitlist w WHERE w.section_id = k.section_id) AS waitlisted "
+                    + "FROM (SELECT section_id FROM sections WHERE section_id IS NOT NULL "
+                    + "UNION SELECT section_id FROM enrollments WHERE section_id IS NOT NULL "
+                    + "UNION SELECT section_id FROM waitlist) k";
+
+    private SectionStats() {}
+
+    /** Insert-select of an empty counter row for ROW's section; the caller appends the WHERE. */
+    private static String ensureRow(String row) {
+        return "INSERT OR IGNORE INTO section_stats (section_id, enrolled, capacity, waitlisted) SELECT "
+                + row + ".section_id, 0, (SELECT capacity FROM sections WHERE section_id = " + row + ".section_id), 0";
+    }
+
+    static byte[] ddlBytes() {
+        return String.join("\n", DDL).getBytes(StandardCharsets.UTF_8);
+    }
+
+    /** Create the table and triggers, then fill the table from the base tables. */
+    static void install(Connection c) throws SQLException {
+        try (Statement s = c.createStatement()) {
+            // Trigger bodies may have changed; IF NOT EXISTS would keep the old ones
+            for (String name : triggerNames()) s.execute("DROP TRIGGER IF EXISTS " + name);
+            for (String ddl : DDL) s.execute(ddl);
+        }
+        rebuild(c);
+    }
+
+    /** Recompute every row from enrollments and sections. Returns the number of rows written. */
+    public static int rebuild(Connection c) throws SQLException {
+        try (Statement s = c.createStatement()) {
+            s.executeUpdate("DELETE FROM section_stats");
+            return s.executeUpdate("INSERT INTO section_stats (section_id, enrolled, capacity, waitlisted) " + EXPECTED_SQL);
+        }
+    }
+
+    /**
+     * Compare the table with counts recomputed from the base tables. Returns one line per
+     * mismatching, missing or stale row; empty when consistent.
+     */
+    public static List<String> verify(Connection c) throws SQLException {
+        List<String> problems = new ArrayList<>();
+        String sql = "SELECT x.section_id, x.enrolled, x.capacity, x.waitlisted, ss.section_id AS have, ss.enrolled AS s_enrolled, ss.capacity AS s_capacity, ss.waitlisted AS s_waitlisted "
+                + "FROM (" + EXPECTED_SQL + ") x LEFT JOIN section_stats ss ON ss.section_id = x.section_id "
+                + "WHERE ss.section_id IS NULL OR ss.enrolled IS NOT x.enrolled OR ss.capacity IS NOT x.capacity OR ss.waitlisted IS NOT x.waitlisted";
+        try (Statement s = c.createStatement()) {
+            try (ResultSet rs = s.executeQuery(sql)) {
+                while (rs.next()) {
+                    int id = rs.getInt("section_id");
+                    if (rs.getObject("have") == null) {
+                        problems.add("section " + id + ": missing (expected enrolled=" + rs.getInt("enrolled") + ")");
+                    } else {
+                        problems.add(String.format("section %d: enrolled %d (expected %d), capacity %s (expected %s), waitlisted %d (expected %d)",
+                                id, rs.getInt("s_enrolled"), rs.getInt("enrolled"), rs.getObject("s_capacity"), rs.getObject("capacity"),
+                                rs.getInt("s_waitlisted"), rs.getInt("waitlisted")));
+                    }
+                }
+            }
+            try (ResultSet rs = s.executeQuery("SELECT ss.section_id FROM section_stats ss "
+                    + "WHERE NOT EXISTS (SELECT 1 FROM sections s WHERE s.section_id = ss.section_id) "
+                    + "AND NOT EXISTS (SELECT 1 FROM enrollments e WHERE e.section_id = ss.section_id) "
+                    + "AND NOT EXISTS (SELECT 1 FROM waitlist w WHERE w.section_id = ss.section_id)")) {
+                while (rs.next()) problems.add("section " + rs.getInt(1) + ": stale row (no section, enrollments or waitlist)");
+            }
+        }
+        return problems;
+    }
+
+    private static List<String> triggerNames() {
+        List<String> names = new ArrayList<>();
+        for (String ddl : DDL) {
+            if (!ddl.startsWith("CREATE TRIGGER IF NOT EXISTS ")) continue;
+            String rest = ddl.substring("CREATE TRIGGER IF NOT EXISTS ".length());
+            names.add(rest.substring(0, rest.indexOf(' ')));
+        }
+        return names;
+    }
+}
@@ -0,0 +1,412 @@
+package login;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Per-statement JDBC statistics, collected by the pooled connections.
+ *
+ * Every SQL string executed through {@link ConnectionPool} is normalized once (literals
+ * replaced by ?, whitespace collapsed) and mapped to a {@link Stats} entry that counts
+ * executions, errors, rows, connection wait and a latency histogram. The hot path is one
+ * map lookup plus a few LongAdder/array increments; nothing is allocated per execution
+ * apart from a small proxy around returned result sets (to count rows).
+ *
+ * Connection wait is the time a caller spent waiting for a pooled connection, or for its
+ * turn on the writer thread. It is charged to the next statement the caller executes.
+ *
+ * Read it with {@link #snapshot()} / {@link #dump(int)}, or start a periodic dump with
+ * -Derp.db.statsDumpSeconds=N. Collection can be switched off with -Derp.db.stats=false.
+ */
+public final class SqlStats {
+    private static final boolean ENABLED = !"false".equalsIgnoreCase(System.getProperty("erp.db.stats"));
+    /** Distinct templates tracked; anything beyond is folded into one overflow entry. */
+    private static final int MAX_TEMPLATES = 2_000;
+    private static final String OVERFLOW = "<other statements>";
+
+    private static final ConcurrentHashMap<String, Stats> BY_RAW_SQL = new ConcurrentHashMap<>();
+    private static final ConcurrentHashMap<String, Stats> BY_TEMPLATE = new ConcurrentHashMap<>();
+    private static final Histogram POOL_WAIT = new Histogram();
+    private static final Histogram WRITER_WAIT = new Histogram();
+    private static final ThreadLocal<long[]> PENDING_WAIT = ThreadLocal.withInitial(() -> new long[1]);
+
+    private static ScheduledExecutorService dumper;
+    private static ScheduledFuture<?> dumpTask;
+
+    private SqlStats() {}
+
+    public static boolean isEnabled() { return ENABLED; }
+
+    /** Statistics entry for the given SQL text, or null when collection is off. */
+    static Stats forSql(String sql) {
+        if (!ENABLED || sql == null) return null;
+        Stats s = BY_RAW_SQL.get(sql);
+        if (s != null) return s;
+        String template = normalize(sql);
+        s = BY_TEMPLATE.get(template);
+        if (s == null) {
+            if (BY_TEMPLATE.size() >= MAX_TEMPLATES) template = OVERFLOW;
+            s = BY_TEMPLATE.computeIfAbsent(template, Stats::new);
+        }
+        // Raw strings are nearly always constants, but guard against SQL built with inlined values
+        if (BY_RAW_SQL.size() < MAX_TEMPLATES * 4) BY_RAW_SQL.putIfAbsent(sql, s);
+        return s;
+    }
+
+    /** Called on the borrowing thread after waiting for a pooled connection. */
+    static void recordPoolWait(long nanos) {
+        if (!ENABLED) return;
+        POOL_WAIT.record(nanos);
+        PENDING_WAIT.get()[0] += nanos;
+    }
+
+    /**
+     * Called on the writer thread before each unit of work with how long it sat in the write
+     * queue. Replaces any pending wait, so work that runs no statement doesn't leak its wait.
+     */
+    static void recordWriterWait(long nanos) {
+        if (!ENABLED) return;
+        WRITER_WAIT.record(nanos);
+        PENDING_WAIT.get()[0] = nanos;
+    }
+
+    /** Time a statement execution (any execute* method) and record it against the entry. */
+    static Object execute(Stats s, Object target, Method method, Object[] args) throws Throwable {
+        if (s == null) return invoke(target, method, args);
+        QueryScope.onExecute(s);
+        long[] pending = PENDING_WAIT.get();
+        if (pending[0] != 0) {
+            s.waitNanos.add(pending[0]);
+            pending[0] = 0;
+        }
+        boolean onEdt = EdtMonitor.enterJdbc(s.sql);
+        long start = System.nanoTime();
+        Object result;
+        try {
+            result = invoke(target, method, args);
+        } catch (Throwable t) {
+            s.errors.increment();
+            s.record(System.nanoTime() - start);
+            throw t;
+        } finally {
+            if (onEdt) EdtMonitor.exitJdbc();
+        }
+        s.record(System.nanoTime() - start);
+        if (result instanceof ResultSet) return countRows(s, (ResultSet) result);
+        if (result instanceof Integer) s.rows.add(Math.max(0, (Integer) result));
+        else if (result instanceof Long) s.rows.add(Math.max(0, (Long) result));
+        else if (result instanceof int[]) for (int n : (int[]) result) s.rows.add(Math.max(0, n));
+        return result;
+    }
+
+    /**
+     * Wrap an uncached statement so its executions are recorded too. For plain statements
+     * (sql == null) the SQL is taken from the execute call itself.
+     */
+    static <T extends Statement> T wrap(T st, Class<T> type, String sql) {
+        if (!ENABLED || st == null) return st;
+        Stats fixed = sql == null ? null : forSql(sql);
+        InvocationHandler h = (proxy, method, args) -> {
+            String name = method.getName();
+            if (isExecute(name)) {
+                Stats s = fixed;
+                if (s == null && args != null && args.length > 0 && args[0] instanceof String) s = forSql((String) args[0]);
+                return execute(s, st, method, args);
+            }
+            if ("equals".equals(name)) return proxy == args[0];
+            if ("hashCode".equals(name)) return System.identityHashCode(proxy);
+            return invoke(st, method, args);
+        };
+        return type.cast(Proxy.newProxyInstance(SqlStats.class.getClassLoader(), new Class<?>[]{type}, h));
+    }
+
+    static boolean isExecute(String methodName) {
+        return methodName.startsWith("execute");
+    }
+
+    /**
+     * Entries sorted by total execution time, highest first.
+     */
+    public static List<Snapshot> snapshot() {
+        List<Snapshot> out = new ArrayList<>(BY_TEMPLATE.size());
+        for (Stats s : BY_TEMPLATE.values()) {
+            if (s.histogram.count() > 0) out.add(s.snapshot());
+        }
+        out.sort(Comparator.comparingLong((Snapshot x) -> x.totalNanos).reversed());
+        return out;
+    }
+
+    /** Snapshot for one SQL string (raw or already normalized), or null if it never ran. */
+    public static Snapshot get(String sql) {
+        Stats s = BY_TEMPLATE.get(normalize(sql));
+        return s == null ? null : s.snapshot();
+    }
+
+    /** p50/p99/max of the time callers waited for a pooled connection, in microseconds. */
+    public static long[] getPoolWaitMicros() { return POOL_WAIT.summaryMicros(); }
+
+    /** p50/p99/max of the time writes waited in the writer queue, in microseconds. */
+    public static long[] getWriterWaitMicros() { return WRITER_WAIT.summaryMicros(); }
+
+    /** Zero all statistics. Entries are kept, since cached statements hold on to them. */
+    public static void reset() {
+        for (Stats s : BY_TEMPLATE.values()) s.clear();
+        POOL_WAIT.clear();
+        WRITER_WAIT.clear();
+    }
+
+    /** Human-readable table of the top statements by total time. */
+    public static String dump(int top) {
+        StringBuilder sb = new StringBuilder();
+        long[] pw = POOL_WAIT.summaryMicros();
+        long[] ww = WRITER_WAIT.summaryMicros();
+        sb.append(String.format("SQL stats: pool wait p50=%dus p99=%dus max=%dus (%d borrows); writer queue p50=%dus p99=%dus max=%dus (%d writes)%n",
+                pw[0], pw[1], pw[2], POOL_WAIT.count(), ww[0], ww[1], ww[2], WRITER_WAIT.count()));
+        sb.append(String.format("  %8s %6s %10s %9s %9s %9s %9s %9s  %s%n",
+                "calls", "errors", "total ms", "p50 us", "p99 us", "max us", "rows", "wait ms", "sql"));
+        List<Snapshot> all = snapshot();
+        for (int i = 0; i < Math.min(top, all.size()); i++) {
+            Snapshot s = all.get(i);
+            sb.append(String.format("  %8d %6d %10.1f %9d %9d %9d %9d %9.1f  %s%n",
+                    s.calls, s.errors, s.totalNanos / 1e6, s.p50Micros, s.p99Micros, s.maxMicros, s.rows, s.waitNanos / 1e6, s.sql));
+        }
+        if (all.size() > top) sb.append(String.format("  ... %d more statement(s)%n", all.size() - top));
+        return sb.toString();
+    }
+
+    /**
+     * Print {@link #dump(int)} (and the EDT stall summary, when that monitor runs) to stdout
+     * every periodSeconds (0 stops it).
+     */
+    public static synchronized void startPeriodicDump(long periodSeconds) {
+        if (dumpTask != null) {
+            dumpTask.cancel(false);
+            dumpTask = null;
+        }
+        if (periodSeconds <= 0 || !ENABLED) return;
+        if (dumper == null) {
+            dumper = Executors.newSingleThreadScheduledExecutor(r -> {
+                Thread t = new Thread(r, "erp-sql-stats");
+                t.setDaemon(true);
+                return t;
+            });
+        }
+        dumpTask = dumper.scheduleAtFixedRate(() -> {
+            System.out.print(dump(20));
+            if (EdtMonitor.isRunning()) System.out.print(EdtMonitor.dump(10));
+        }, periodSeconds, periodSeconds, TimeUnit.SECONDS);
+    }
+
+    /**
+     * Collapse a SQL string to its template: string and numeric literals become ?,
+     * IN lists of placeholders become IN (?), runs of whitespace become one space.
+     */
+    static String normalize(String sql) {
+        StringBuilder out = new StringBuilder(sql.length());
+        int n = sql.length();
+        for (int i = 0; i < n; i++) {
+            char ch = sql.charAt(i);
+            if (ch == '\'') {
+                // String literal; '' is an escaped quote
+                int j = i + 1;
+                while (j < n) {
+                    if (sql.charAt(j) == '\'') {
+                        if (j + 1 < n && sql.charAt(j + 1) == '\'') { j += 2; continue; }
+                        break;
+                    }
+                    j++;
+                }
+                out.append('?');
+                i = j;
+            } else if (Character.isDigit(ch) && (out.length() == 0 || !isIdentifierChar(out.charAt(out.length() - 1)))) {
+                int j = i;
+                while (j + 1 < n && (Character.isDigit(sql.charAt(j + 1)) || sql.charAt(j + 1) == '.')) j++;
+                out.append('?');
+                i = j;
+            } else if (Character.isWhitespace(ch)) {
+                if (out.length() > 0 && out.charAt(out.length() - 1) != ' ') out.append(' ');
+            } else {
+                out.append(ch);
+            }
+        }
+        String s = out.toString().trim();
+        return s.replaceAll("(?i)\\bIN \\(\\?(?:, ?\\?)+\\)", "IN (?)");
+    }
+
+    private static boolean isIdentifierChar(char c) {
+        return Character.isLetterOrDigit(c) || c == '_' || c == '"' || c == '`' || c == ']';
+    }
+
+    private static Object invoke(Object target, Method method, Object[] args) throws Throwable {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException ex) {
+            throw ex.getCause();
+        }
+    }
+
+    private static ResultSet countRows(Stats s, ResultSet rs) {
+        return (ResultSet) Proxy.newProxyInstance(SqlStats.class.getClassLoader(),
+                new Class<?>[]{ResultSet.class}, new RowCounter(s, rs));
+    }
+
+    /** Counts successful next() calls on a result set; everything else passes straight through. */
+    private static final class RowCounter implements InvocationHandler {
+        private final Stats stats;
+        private final ResultSet rs;
+
+        RowCounter(Stats stats, ResultSet rs) { this.stats = stats; this.rs = rs; }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            if ("next".equals(method.getName())) {
+                boolean more = rs.next();
+                if (more) stats.rows.increment();
+                return more;
+            }
+            if ("equals".equals(method.getName())) return proxy == args[0];
+            if ("hashCode".equals(method.getName())) return System.identityHashCode(proxy);
+            return SqlStats.invoke(rs, method, args);
+        }
+    }
+
+    /** Live counters for one SQL template. */
+    static final class Stats {
+        final String sql;
+        final LongAdder errors = new LongAdder();
+        final LongAdder rows = new LongAdder();
+        final LongAdder waitNanos = new LongAdder();
+        final Histogram histogram = new Histogram();
+
+        Stats(String sql) { this.sql = sql; }
+
+        void record(long nanos) { histogram.record(nanos); }
+
+        void clear() {
+            errors.reset();
+            rows.reset();
+            waitNanos.reset();
+            histogram.clear();
+        }
+
+        Snapshot snapshot() {
+            long[] micros = histogram.summaryMicros();
+            return new Snapshot(sql, histogram.count(), errors.sum(), rows.sum(), histogram.totalNanos(),
+                    micros[0], micros[1], micros[2], waitNanos.sum());
+        }
+    }
+
+    /** Immutable view of one statement's statistics. */
+    public static final class Snapshot {
+        public final String sql;
+        public final long calls;
+        public final long errors;
+        public final long rows;
+        public final long totalNanos;
+        public final long p50Micros;
+        public final long p99Micros;
+        public final long maxMicros;
+        public final long waitNanos;
+
+        Snapshot(String sql, long calls, long errors, long rows, long totalNanos,
+                 long p50Micros, long p99Micros, long maxMicros, long waitNanos) {
+            this.sql = sql;
+            this.calls = calls;
+            this.errors = errors;
+            this.rows = rows;
+            this.totalNanos = totalNanos;
+            this.p50Micros = p50Micros;
+            this.p99Micros = p99Micros;
+            this.maxMicros = maxMicros;
+            this.waitNanos = waitNanos;
+        }
+
+        public double meanMicros() { return calls == 0 ? 0.0 : totalNanos / 1e3 / calls; }
+
+        @Override
+        public String toString() {
+            return String.format("%s {calls=%d, errors=%d, rows=%d, p50=%dus, p99=%dus, max=%dus, wait=%.1fms}",
+                    sql, calls, errors, rows, p50Micros, p99Micros, maxMicros, waitNanos / 1e6);
+        }
+    }
+
+    /**
+     * Log-linear latency histogram over microseconds: each power of two is split into four
+     * sub-buckets, so reported percentiles are within 25% of the true value. Fixed size,
+     * lock-free, no allocation when recording.
+     */
+    static final class Histogram {
+        private static final int SUB_BITS = 2;
+        private static final int BUCKETS = 64 << SUB_BITS;
+
+        private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+        private final LongAdder total = new LongAdder();
+        private final LongAdder n = new LongAdder();
+        private volatile long max = 0;
+
+        void record(long nanos) {
+            long micros = Math.max(0, nanos / 1_000);
+            counts.incrementAndGet(index(micros));
+            total.add(nanos);
+            n.increment();
+            if (micros > max) max = micros; // racy on purpose; an occasional lost max is fine
+        }
+
+        long count() { return n.sum(); }
+        long totalNanos() { return total.sum(); }
+
+        void clear() {
+            for (int i = 0; i < BUCKETS; i++) counts.set(i, 0);
+            total.reset();
+            n.reset();
+            max = 0;
+        }
+
+        /** {p50, p99, max} in microseconds. */
+        long[] summaryMicros() {
+            long c = 0;
+            long[] snap = new long[BUCKETS];
+            for (int i = 0; i < BUCKETS; i++) { snap[i] = counts.get(i); c += snap[i]; }
+            if (c == 0) return new long[]{0, 0, 0};
+            return new long[]{percentile(snap, c, 0.50), percentile(snap, c, 0.99), max};
+        }
+
+        private long percentile(long[] snap, long count, double p) {
+            long rank = (long) Math.ceil(p * count);
+            long seen = 0;
+            for (int i = 0; i < BUCKETS; i++) {
+                seen += snap[i];
+                if (seen >= rank) return Math.min(upperBound(i), max);
+            }
+            return max;
+        }
+
+        private static int index(long micros) {
+            if (micros < (1 << SUB_BITS)) return (int) micros;
+            int exp = 63 - Long.numberOfLeadingZeros(micros);
+            int sub = (int) (micros >>> (exp - SUB_BITS)) & ((1 << SUB_BITS) - 1);
+            return Math.min(BUCKETS - 1, ((exp - SUB_BITS + 1) << SUB_BITS) + sub);
+        }
+
+        private static long upperBound(int index) {
+            if (index < (1 << SUB_BITS)) return index;
+            int exp = (index >>> SUB_BITS) + SUB_BITS - 1;
+            long sub = index & ((1 << SUB_BITS) - 1);
+            return ((1L << SUB_BITS) + sub + 1) << (exp - SUB_BITS);
+        }
+    }
+}
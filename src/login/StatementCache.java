@@ -0,0 +1,221 @@
+package login;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Per-connection cache of prepared statements keyed by SQL text.
+ *
+ * Each pooled physical connection owns one cache. prepareStatement(sql) on a pooled
+ * connection returns a cached statement when the same SQL was prepared before on that
+ * connection, so SQLite parses and plans it once per connection instead of once per call.
+ * Closing the returned statement only resets it (open result set closed, parameters cleared)
+ * and makes it available again; the real statement is closed when it is evicted (LRU)
+ * or when the physical connection is closed.
+ *
+ * If the same SQL is already checked out (e.g. nested use of one query), an uncached
+ * statement is prepared so the two users never share a cursor.
+ */
+public final class StatementCache {
+    private static final AtomicLong TOTAL_HITS = new AtomicLong();
+    private static final AtomicLong TOTAL_MISSES = new AtomicLong();
+    private static final AtomicLong TOTAL_EVICTIONS = new AtomicLong();
+
+    private final Connection raw;
+    private final int capacity;
+    private final LinkedHashMap<String, Entry> entries;
+    private long hits = 0;
+    private long misses = 0;
+
+    StatementCache(Connection raw, int capacity) {
+        this.raw = raw;
+        this.capacity = capacity;
+        this.entries = new LinkedHashMap<String, Entry>(32, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+                if (size() <= StatementCache.this.capacity || eldest.getValue().inUse) return false;
+                eldest.getValue().closeQuietly();
+                TOTAL_EVICTIONS.incrementAndGet();
+                return true;
+            }
+        };
+    }
+
+    /** Total cache hits across all pooled connections since startup. */
+    public static long getHitCount() { return TOTAL_HITS.get(); }
+
+    /** Total cache misses (fresh prepares) across all pooled connections since startup. */
+    public static long getMissCount() { return TOTAL_MISSES.get(); }
+
+    /** Statements closed because their connection's cache was full. */
+    public static long getEvictionCount() { return TOTAL_EVICTIONS.get(); }
+
+    public static double getHitRatio() {
+        long h = TOTAL_HITS.get();
+        long total = h + TOTAL_MISSES.get();
+        return total == 0 ? 0.0 : (double) h / total;
+    }
+
+    public static String summary() {
+        return String.format("StatementCache{hits=%d, misses=%d, evictions=%d, hitRatio=%.1f%%}",
+                getHitCount(), getMissCount(), getEvictionCount(), getHitRatio() * 100.0);
+    }
+
+    synchronized long hits() { return hits; }
+    synchronized long misses() { return misses; }
+    synchronized int size() { return entries.size(); }
+
+    /**
+     * Check out a statement for the given SQL. The returned proxy must be closed (or the
+     * owning lease released) to make it reusable. Returns null when the statement should
+     * not be cached because the same SQL is already in use on this connection.
+     */
+    synchronized PreparedStatement checkout(String sql, Connection owner) throws SQLException {
+        Entry e = entries.get(sql);
+        if (e != null && !e.inUse) {
+            if (!e.ps.isClosed()) {
+                hits++;
+                TOTAL_HITS.incrementAndGet();
+                e.inUse = true;
+                return e.handOut(owner);
+            }
+            entries.remove(sql);
+            e = null;
+        }
+        misses++;
+        TOTAL_MISSES.incrementAndGet();
+        if (e != null) return null;
+        e = new Entry(sql, raw.prepareStatement(sql));
+        e.inUse = true;
+        entries.put(sql, e);
+        return e.handOut(owner);
+    }
+
+    /** Close every cached statement; used when the physical connection is closed. */
+    synchronized void closeAll() {
+        for (Iterator<Entry> it = entries.values().iterator(); it.hasNext(); ) {
+            it.next().closeQuietly();
+            it.remove();
+        }
+    }
+
+    private synchronized void checkIn(Entry e) {
+        try {
+            if (e.openResult != null) {
+                e.openResult.close();
+                e.openResult = null;
+            }
+            e.ps.clearParameters();
+            e.ps.clearBatch();
+            e.inUse = false;
+        } catch (SQLException ex) {
+            // The statement is in an unknown state; drop it rather than hand it out again
+            entries.remove(e.sql);
+            e.closeQuietly();
+        }
+    }
+
+    private final class Entry {
+        final String sql;
+        final PreparedStatement ps;
+        final SqlStats.Stats stats;
+        boolean inUse = false;
+        ResultSet openResult = null;
+
+        Entry(String sql, PreparedStatement ps) {
+            this.sql = sql;
+            this.ps = ps;
+            this.stats = SqlStats.forSql(sql);
+        }
+
+        PreparedStatement handOut(Connection owner) {
+            return (PreparedStatement) Proxy.newProxyInstance(StatementCache.class.getClassLoader(),
+                    new Class<?>[]{PreparedStatement.class}, new Checkout(this, owner));
+        }
+
+        void closeQuietly() {
+            try { ps.close(); } catch (SQLException ignored) {}
+        }
+    }
+
+    /** One borrower's view of a cached statement; closing it checks the statement back in. */
+    private final class Checkout implements InvocationHandler {
+        private final Entry entry;
+        private final Connection owner;
+        private boolean closed = false;
+
+        Checkout(Entry entry, Connection owner) { this.entry = entry; this.owner = owner; }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            switch (method.getName()) {
+                case "close":
+                    if (!closed) {
+                        closed = true;
+                        checkIn(entry);
+                    }
+                    return null;
+                case "isClosed":
+                    return closed;
+                case "getConnection":
+                    return owner;
+                case "closeOnCompletion":
+                    // Closing would destroy the cached statement; the lease cleans up instead
+                    return null;
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                case "toString":
+                    return "Cached[" + entry.sql + "]";
+                default:
+                    break;
+            }
+            if (closed) throw new SQLException("Statement is closed");
+            Object result;
+            if (SqlStats.isExecute(method.getName())) {
+                result = SqlStats.execute(entry.stats, entry.ps, method, args);
+            } else {
+                try {
+                    result = method.invoke(entry.ps, args);
+                } catch (InvocationTargetException ex) {
+                    throw ex.getCause();
+                }
+            }
+            if (result instanceof ResultSet) entry.openResult = (ResultSet) result;
+            return result;
+        }
+    }
+
+    /**
+     * Tracks the statements a single lease opened so that anything the borrower forgot to
+     * close is cleaned up when the connection goes back to the pool.
+     */
+    static final class OpenStatements {
+        private final List<java.sql.Statement> open = new ArrayList<>(4);
+
+        <T extends java.sql.Statement> T track(T st) {
+            if (st != null) open.add(st);
+            return st;
+        }
+
+        void closeAll() {
+            for (java.sql.Statement st : open) {
+                try { st.close(); } catch (SQLException ignored) {}
+            }
+            open.clear();
+        }
+    }
+}
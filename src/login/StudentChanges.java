@@ -0,0 +1,56 @@
+package login;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Per-student change hooks for caches that live above the DAOs (student.services.StudentSummaries
+ * registers itself here), so writers in any package can announce which student's data changed
+ * without depending on the cache.
+ *
+ * Unlike {@link ChangeBus}, which tells open windows about whole topics after a debounce,
+ * listeners here are called synchronously: from inside DatabaseConfig.write the call is made
+ * once the work has committed and before the writer's caller returns (nothing for a rollback).
+ */
+public final class StudentChanges {
+
+    /** Told about a changed student; {@code studentId} is null when any student may have changed. */
+    public interface Listener {
+        void changed(String studentId);
+    }
+
+    private static final List<Listener> listeners = new CopyOnWriteArrayList<>();
+
+    private StudentChanges() {}
+
+    public static void listen(Listener listener) {
+        listeners.add(listener);
+    }
+
+    /** From inside DatabaseConfig.write: announce the student's change once the write commits. */
+    public static void changedOnCommit(String studentId) {
+        if (studentId == null || listeners.isEmpty()) return;
+        DatabaseConfig.afterCommit(() -> fire(studentId));
+    }
+
+    /** Like {@link #changedOnCommit(String)} for changes that touch many or unknown students. */
+    public static void allChangedOnCommit() {
+        if (listeners.isEmpty()) return;
+        DatabaseConfig.afterCommit(() -> fire(null));
+    }
+
+    /** Announce now, for changes that have already committed. */
+    public static void allChanged() {
+        fire(null);
+    }
+
+    private static void fire(String studentId) {
+        for (Listener l : listeners) {
+            try {
+                l.changed(studentId);
+            } catch (RuntimeException ex) {
+                System.err.println("StudentChanges: listener failed: " + ex);
+            }
+        }
+    }
+}
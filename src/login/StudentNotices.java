@@ -0,0 +1,77 @@
+package login;
+
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Messages for a student about registrations decided after they were answered:
+ * student_notices(notice_id, student_id, section_id, message, created_at, seen).
+ *
+ * The registration engine answers "SUCCESS" before the row is written, and a waitlist
+ * promotion happens in someone else's transaction; when the database then refuses the row,
+ * the student would otherwise never hear of it. The refusal writes a notice in the same
+ * transaction, and the student dashboard shows unseen notices once ({@link #takeUnseen}).
+ */
+public final class StudentNotices {
+
+    /** Table and index DDL, in order. The migration checksum covers this text. */
+    static final String[] DDL = {
+            "CREATE TABLE IF NOT EXISTS student_notices (notice_id INTEGER PRIMARY KEY AUTOINCREMENT, student_id TEXT NOT NULL, section_id INTEGER, message TEXT NOT NULL, created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP, seen INTEGER NOT NULL DEFAULT 0)",
+            "CREATE INDEX IF NOT EXISTS idx_student_notices_unseen ON student_notices(student_id, seen, notice_id)",
+    };
+
+    public static final String UNSEEN_SQL = "SELECT notice_id, message FROM student_notices WHERE student_id = ? AND seen = 0 ORDER BY notice_id";
+
+    private StudentNotices() {}
+
+    static byte[] ddlBytes() {
+        return String.join("\n", DDL).getBytes(StandardCharsets.UTF_8);
+    }
+
+    static void install(Connection c) throws SQLException {
+        try (Statement s = c.createStatement()) {
+            for (String ddl : DDL) s.execute(ddl);
+        }
+    }
+
+    /** Record a notice; call inside DatabaseConfig.write so it commits with the change it reports. */
+    public static void add(Connection c, String studentId, int sectionId, String message) throws SQLException {
+        try (PreparedStatement p = c.prepareStatement("INSERT INTO student_notices (student_id, section_id, message) VALUES (?, ?, ?)")) {
+            p.setString(1, studentId);
+            p.setInt(2, sectionId);
+            p.setString(3, message);
+            p.executeUpdate();
+        }
+        ChangeBus.publish(ChangeBus.Topic.ENROLLMENTS);
+    }
+
+    /** The student's unseen notices, oldest first, marked seen in the same write. */
+    public static List<String> takeUnseen(String studentId) throws SQLException {
+        return DatabaseConfig.write(c -> {
+            List<String> out = new ArrayList<>();
+            long last = 0;
+            try (PreparedStatement p = c.prepareStatement(UNSEEN_SQL)) {
+                p.setString(1, studentId);
+                try (ResultSet rs = p.executeQuery()) {
+                    while (rs.next()) {
+                        last = rs.getLong(1);
+                        out.add(rs.getString(2));
+                    }
+                }
+            }
+            if (out.isEmpty()) return out;
+            try (PreparedStatement p = c.prepareStatement("UPDATE student_notices SET seen = 1 WHERE student_id = ? AND seen = 0 AND notice_id <= ?")) {
+                p.setString(1, studentId);
+                p.setLong(2, last);
+                p.executeUpdate();
+            }
+            return out;
+        });
+    }
+}
@@ -11,6 +11,11 @@ public class UniversityERPApp {
         System.out.println("Application starting...");
         DBMigration.ensureSchemaUpToDate();
 
+        // Group the SQL run by each UI action so repeated per-row queries get reported
+        QueryScope.installEventQueue();
+        // Record EDT stalls, and which of them were spent in JDBC
+        EdtMonitor.start();
+
         // Set Look and Feel (e.g., FlatLaf for a modern look)
         try {
             // com.formdev.flatlaf.FlatLightLaf.setup();
@@ -2,9 +2,11 @@ package student;
 
 import domain.UserSession;
 import domain.Student;
+import domain.StudentSummary;
 import domain.Course;
 import student.services.StudentService;
-import login.DatabaseConfig;
+import login.ChangeBus;
+import login.DbAsync;
 import login.LoginWindow;
 
 import java.awt.*;
@@ -50,6 +52,7 @@ public class StudentDashboard extends JFrame {
     // UI controllers
     private final UserSession userSession;
     private final Student currentStudent;
+    private final StudentSummary summary; // profile, CGPA, courses and fees as of opening
     private final CardLayout mainCardLayout;
     private final JPanel mainContentPanel;
     private JPanel sidebarPanel;
@@ -64,8 +67,9 @@ public class StudentDashboard extends JFrame {
     private DefaultTableModel registrationTableModel;
     private JTable registrationTable;
     private DefaultTableModel gradesTableModel;
-    private String lastOfferedAt = null;
-    private javax.swing.Timer offeredPollTimer;
+    private ChangeBus.Subscription changes;
+    private final DbAsync.Channel<List<String[]>> gradeLoads = new DbAsync.Channel<>("StudentDashboard.loadStudentGrades");
+    private final DbAsync.Channel<CatalogData> catalogLoads = new DbAsync.Channel<>("StudentDashboard.loadCourseCatalog");
 
     public StudentDashboard(UserSession session) {
         this.userSession = session;
@@ -73,8 +77,15 @@ public class StudentDashboard extends JFrame {
         // initialize service bound to this session (enforces access control)
         this.studentService = new StudentService(session);
 
-        // FIX: Use getUsername() instead of getId()
-        this.currentStudent = studentService.getStudentProfile(session.getUsername());
+        // Profile and the summary cards' figures in one query (StudentSummaries)
+        StudentSummary opening = studentService.getStudentSummary(null);
+        if (opening == null && session.hasRole("Admin")) {
+            // An admin opens a student's dashboard by that student's id or name
+            Student looked = studentService.getStudentProfile(session.getUsername());
+            if (looked != null) opening = studentService.getStudentSummary(looked.getId());
+        }
+        this.summary = opening;
+        this.currentStudent = summary == null ? null : summary.getProfile();
 
         if (currentStudent == null) {
             JOptionPane.showMessageDialog(null, "Error: Could not load student profile. Check database connection or username.", "Fatal Error", JOptionPane.ERROR_MESSAGE);
@@ -116,8 +127,9 @@ public class StudentDashboard extends JFrame {
             // Load initial data for the two panels that rely on dynamic data
                 loadCourseCatalog();
                 loadStudentGrades();
-                // Start background poll to refresh offered courses when admin updates them
-                startOfferedPoller();
+                // Reload when offerings, sections, registrations or grades change (here or in another process)
+                subscribeToChanges();
+                showNotices();
         });
     }
 
@@ -417,11 +429,10 @@ public class StudentDashboard extends JFrame {
         JPanel summaryPanel = new JPanel(new FlowLayout(FlowLayout.LEFT, 20, 0));
         summaryPanel.setBackground(LIGHT_BG);
 
-        // Dynamic data retrieval (use service for computed values)
-        double cgpaVal = studentService.getCurrentCGPA(currentStudent.getId());
-        String cgpa = String.format("%.2f", cgpaVal);
-        String courses = String.valueOf(studentService.getRegisteredCoursesCount(currentStudent.getId()));
-        int feesAmount = studentService.getFeesDue(currentStudent.getId());
+        // Figures from the summary loaded when the dashboard opened
+        String cgpa = String.format("%.2f", summary.getCgpa());
+        String courses = String.valueOf(summary.getRegisteredCourses());
+        int feesAmount = summary.getFeesDue();
         String feesDue = feesAmount > 0 ? "₹" + feesAmount : "None";
 
         summaryPanel.add(createDetailBox("Current CGPA", cgpa, ACCENT_BLUE, "🎓"));
@@ -716,10 +727,33 @@ public class StudentDashboard extends JFrame {
     }
 
 
+    /** Catalog and grade history, fetched together off the EDT. */
+    private static final class CatalogData {
+        final List<domain.Course> catalog;
+        final List<String[]> gradeHistory;
+
+        CatalogData(List<domain.Course> catalog, List<String[]> gradeHistory) {
+            this.catalog = catalog;
+            this.gradeHistory = gradeHistory;
+        }
+    }
+
     private void loadCourseCatalog() {
-    SwingUtilities.invokeLater(() -> {
+        // Queries run in the background; a newer refresh (button, poller, registration) supersedes an older one
+        catalogLoads.submit(() -> {
+            List<domain.Course> catalog = studentService.getCourseCatalogForStudent(currentStudent.getId());
+            List<String[]> gradeHistory = null;
+            try {
+                gradeHistory = studentService.getStudentGradeHistory(currentStudent.getId());
+            } catch (Exception ex) {
+                System.err.println("Warning: could not get grade history: " + ex.getMessage());
+            }
+            return new CatalogData(catalog, gradeHistory);
+        }, data -> showCourseCatalog(data.catalog, data.gradeHistory));
+    }
+
+    private void showCourseCatalog(List<domain.Course> catalog, List<String[]> gradeHistory) {
         registrationTableModel.setRowCount(0); // Clear existing data
-        List<domain.Course> catalog = studentService.getCourseCatalogForStudent(currentStudent.getId());
 
         if (catalog == null || catalog.isEmpty()) {
             return;
@@ -727,15 +761,10 @@ public class StudentDashboard extends JFrame {
 
         // Track already-enrolled course codes to hide them
         Set<String> enrolledCourseCodes = new HashSet<>();
-        try {
-            List<String[]> gradeHistory = studentService.getStudentGradeHistory(currentStudent.getId());
-            if (gradeHistory != null) {
-                for (String[] grade : gradeHistory) {
-                    if (grade.length > 0 && grade[0] != null) enrolledCourseCodes.add(grade[0]);
-                }
+        if (gradeHistory != null) {
+            for (String[] grade : gradeHistory) {
+                if (grade.length > 0 && grade[0] != null) enrolledCourseCodes.add(grade[0]);
             }
-        } catch (Exception ex) {
-            System.err.println("Warning: could not get grade history: " + ex.getMessage());
         }
 
         // Dedupe by section id for actual sections, or by course code for offered courses (sectionId = -1)
@@ -782,6 +811,10 @@ public class StudentDashboard extends JFrame {
             String actionLabel;
             if ("Registered".equalsIgnoreCase(status)) {
                 actionLabel = "Registered";
+            } else if ("Locked".equalsIgnoreCase(status)) {
+                actionLabel = "Locked";
+            } else if ("Clash".equalsIgnoreCase(status)) {
+                actionLabel = "Clash";
             } else if (capacity > 0 && enrolled >= capacity) {
                 actionLabel = "Full";
             } else {
@@ -804,7 +837,8 @@ public class StudentDashboard extends JFrame {
         // If table empty after filtering, nothing else to do
         if (registrationTableModel.getRowCount() == 0) return;
 
-        // Renderer: offered rows green, full rows light red
+        // Renderer: offered rows green, full rows light red, rows overlapping the timetable amber,
+        // rows still missing a prerequisite grey
         registrationTable.setDefaultRenderer(Object.class, new javax.swing.table.DefaultTableCellRenderer() {
             @Override
             public Component getTableCellRendererComponent(JTable table, Object value,
@@ -815,6 +849,10 @@ public class StudentDashboard extends JFrame {
                 String action = actionObj == null ? "" : actionObj.toString();
                 if ("Full".equalsIgnoreCase(action)) {
                     c.setBackground(new Color(250, 235, 235));
+                } else if ("Clash".equalsIgnoreCase(action)) {
+                    c.setBackground(new Color(255, 243, 224));
+                } else if ("Locked".equalsIgnoreCase(action)) {
+                    c.setBackground(new Color(238, 238, 238));
                 } else {
                     c.setBackground(new Color(230, 255, 230));
                 }
@@ -823,8 +861,7 @@ public class StudentDashboard extends JFrame {
         });
 
         registrationTable.repaint();
-    });
-}
+    }
 
 
     /**
@@ -863,8 +900,17 @@ public class StudentDashboard extends JFrame {
             if (result.equals("SUCCESS")) {
                 JOptionPane.showMessageDialog(this, "✅ Successfully registered for " + courseCode + ".", "Success", JOptionPane.INFORMATION_MESSAGE);
                 loadCourseCatalog(); // Refresh to show updated course list
+            } else if (result.startsWith(StudentService.WAITLISTED_PREFIX)) {
+                String position = result.substring(StudentService.WAITLISTED_PREFIX.length());
+                JOptionPane.showMessageDialog(this, "⏳ " + courseCode + " is full. You are #" + position + " on the waitlist and will be registered automatically when a seat frees up.", "Waitlisted", JOptionPane.INFORMATION_MESSAGE);
             } else if (result.equals("Section full.")) {
                 JOptionPane.showMessageDialog(this, "❌ Registration failed: Section is full.", "Error", JOptionPane.ERROR_MESSAGE);
+            } else if (result.startsWith(StudentService.SCHEDULE_CLASH_PREFIX)) {
+                JOptionPane.showMessageDialog(this, "⚠️ Registration failed: " + courseCode + " meets at the same time as "
+                        + result.substring(StudentService.SCHEDULE_CLASH_PREFIX.length(), result.length() - 1) + ".", "Error", JOptionPane.WARNING_MESSAGE);
+            } else if (result.startsWith(StudentService.PREREQUISITES_PREFIX)) {
+                JOptionPane.showMessageDialog(this, "🔒 Registration failed: " + courseCode + " requires "
+                        + result.substring(StudentService.PREREQUISITES_PREFIX.length(), result.length() - 1) + " first.", "Error", JOptionPane.WARNING_MESSAGE);
             } else if (result.equals("Already registered in this section.")) {
                 JOptionPane.showMessageDialog(this, "⚠️ Registration failed: You are already registered in this course.", "Error", JOptionPane.WARNING_MESSAGE);
             } else {
@@ -933,10 +979,8 @@ public class StudentDashboard extends JFrame {
     }
 
     private void loadStudentGrades() {
-        SwingUtilities.invokeLater(() -> {
+        gradeLoads.submit(() -> studentService.getStudentGradeHistory(currentStudent.getId()), grades -> {
             gradesTableModel.setRowCount(0); // Clear existing data
-            List<String[]> grades = studentService.getStudentGradeHistory(currentStudent.getId());
-
             for (String[] row : grades) {
                 gradesTableModel.addRow(row);
             }
@@ -995,13 +1039,13 @@ public class StudentDashboard extends JFrame {
                 new EmptyBorder(20, 20, 20, 20)
         ));
 
-        int feesAmount = currentStudent.getFeesDue();
+        int feesAmount = this.summary.getFeesDue();
 
         // Fee Summary Box
         JPanel summary = new JPanel(new FlowLayout(FlowLayout.CENTER, 40, 0));
         summary.setBackground(CARD_BG);
         summary.add(createDetailBox("Fees Due", "₹" + feesAmount, feesAmount > 0 ? LOGOUT_RED : ACCENT_GREEN, "💳"));
-        summary.add(createDetailBox("Total Paid (Current Year)", "₹" + studentService.getFeesPaid(currentStudent.getId()), ACCENT_BLUE, "💰"));
+        summary.add(createDetailBox("Total Paid (Current Year)", "₹" + this.summary.getFeesPaid(), ACCENT_BLUE, "💰"));
         contentCard.add(summary, BorderLayout.NORTH);
 
         // Transaction History Table (Placeholder Data)
@@ -1026,36 +1070,34 @@ public class StudentDashboard extends JFrame {
         return mainPanel;
     }
 
-    // ----------------- Offered poller helpers -----------------
-    private void startOfferedPoller() {
-        // Initialize last known value
-        lastOfferedAt = fetchLastOfferedAt();
-        offeredPollTimer = new javax.swing.Timer(5000, e -> {
-            String now = fetchLastOfferedAt();
-            if (now != null && !now.equals(lastOfferedAt)) {
-                lastOfferedAt = now;
-                loadCourseCatalog();
-            }
-        });
-        offeredPollTimer.setRepeats(true);
-        offeredPollTimer.start();
+    // ----------------- Change notifications -----------------
+    /** Catalog and grades reload only for the topics they show; the bus coalesces bursts of writes. */
+    private void subscribeToChanges() {
+        changes = ChangeBus.subscribe(topics -> SwingUtilities.invokeLater(() -> {
+            if (!isDisplayable()) return;
+            if (topics.contains(ChangeBus.Topic.OFFERINGS) || topics.contains(ChangeBus.Topic.SECTIONS)
+                    || topics.contains(ChangeBus.Topic.ENROLLMENTS)) loadCourseCatalog();
+            if (topics.contains(ChangeBus.Topic.ENROLLMENTS)) showNotices();
+            if (topics.contains(ChangeBus.Topic.GRADES)) loadStudentGrades();
+        }), ChangeBus.Topic.OFFERINGS, ChangeBus.Topic.SECTIONS, ChangeBus.Topic.ENROLLMENTS, ChangeBus.Topic.GRADES);
     }
 
-    private String fetchLastOfferedAt() {
-        try (java.sql.Connection c = java.sql.DriverManager.getConnection(DatabaseConfig.getDatabaseUrl());
-             java.sql.PreparedStatement p = c.prepareStatement("SELECT value FROM settings WHERE key_name = 'last_offered_at' LIMIT 1")) {
-            try (java.sql.ResultSet r = p.executeQuery()) {
-                if (r.next()) return r.getString(1);
-            }
-        } catch (java.sql.SQLException ex) {
-            // ignore
-        }
-        return null;
+    /** Show registrations that were refused after the student had been told they succeeded. */
+    private void showNotices() {
+        if (currentStudent == null) return;
+        String studentId = currentStudent.getId();
+        DbAsync.onEdt(DbAsync.supply("StudentDashboard.notices", () -> studentService.takeNotices(studentId)), notices -> {
+            if (notices.isEmpty() || !isDisplayable()) return;
+            JOptionPane.showMessageDialog(this, String.join("\n", notices), "Registration Update", JOptionPane.WARNING_MESSAGE);
+            loadCourseCatalog();
+        }, ex -> System.err.println("Could not load notices: " + ex.getMessage()));
     }
 
     @Override
     public void dispose() {
-        if (offeredPollTimer != null && offeredPollTimer.isRunning()) offeredPollTimer.stop();
+        if (changes != null) changes.close();
+        gradeLoads.cancel();
+        catalogLoads.cancel();
         super.dispose();
     }
 
@@ -1081,8 +1123,8 @@ public class StudentDashboard extends JFrame {
             if (value != null) {
                 setText(value.toString());
 
-                if (status.equals("Full")) {
-                    // Gray out if section is full
+                if (status.equals("Full") || status.equals("Clash") || status.equals("Locked")) {
+                    // Gray out if section is full, overlaps the timetable or needs a prerequisite
                     setBackground(Color.LIGHT_GRAY);
                     setForeground(Color.DARK_GRAY);
                 } else if (value.toString().equals("Register")) {
@@ -0,0 +1,687 @@
+package student.services;
+
+import login.ChangeBus;
+import login.DatabaseConfig;
+import login.DbWriter;
+import login.SectionSlots;
+import login.StudentNotices;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Registration engine for the enrollment-window rush.
+ *
+ * While a section is open in the engine ({@link #open(int)}, called by
+ * SectionEnrollment.setEnrollmentOpen), registrations for it are queued in memory and decided by one
+ * dispatcher thread in arrival order against in-memory seat counts, which are the source of
+ * truth for that section. The student is answered as soon as the decision is made; the
+ * accepted rows are written to SQLite by a flusher thread in batches, one transaction per
+ * batch (group commit).
+ *
+ * Fairness: one dispatcher, FIFO queue, and blocked submitters are admitted in FIFO order, so
+ * the earliest request wins the last seat. Backpressure: the request queue and the
+ * not-yet-written rows are both bounded; when the flusher falls behind the dispatcher waits,
+ * the queue fills, and new requests wait up to erp.reg.enqueueTimeoutMs before being told to
+ * retry.
+ *
+ * Rows are written with the same conditional INSERT as {@link StudentService#registerCourse(Connection, String, int)},
+ * so the database can never be overbooked even by writers outside this process. A write
+ * that fails because the database is busy or its I/O failed is tried again
+ * (erp.reg.writeAttempts, with backoff). A row the database refuses (such a writer took the
+ * seat first) is counted as a conflict and the section is counted again from the database;
+ * a student who was already answered gets a login.StudentNotices row with the reason, in
+ * the same transaction, which the student dashboard shows.
+ *
+ * In WINDOW mode a section enters the engine when its instructor presses "Open Enrollment
+ * Window" on the My Courses screen (SectionEnrollment.setEnrollmentOpen) and leaves it on "Close
+ * Enrollment Window". Ownership is not persisted: after a restart the section's
+ * registrations go straight to the database until the window is opened again.
+ *
+ * Timetable clashes are decided from the sections' slot masks (login.SectionSlots): each
+ * student's booked masks are read once, on their first request for a timed section, and
+ * kept up to date by the dispatcher; changes made outside the engine make it read them
+ * again ({@link #forget(List)}).
+ *
+ * Settings: erp.reg.engine = off | window (default: sections opened in this process) | all
+ * (every section, opened on first request); erp.reg.queueSize (10000), erp.reg.batchSize
+ * (500), erp.reg.enqueueTimeoutMs (2000), erp.reg.writeAttempts (10);
+ * erp.reg.ackOnCommit=true answers only after the row is committed.
+ */
+public final class RegistrationEngine {
+
+    /** Returned when the engine does not own the section; the caller registers directly. */
+    static final String NOT_OWNED = "NOT_OWNED";
+    static final String BUSY = "Registration is busy right now, please try again.";
+    private static final String CONFLICT = "Registration could not be saved, please try again.";
+
+    public enum Mode { OFF, WINDOW, ALL }
+
+    private static final Mode MODE = parseMode(System.getProperty("erp.reg.engine"));
+    private static final int QUEUE_SIZE = Math.max(16, Integer.getInteger("erp.reg.queueSize", 10000));
+    private static final int BATCH_SIZE = Math.max(1, Integer.getInteger("erp.reg.batchSize", 500));
+    private static final long ENQUEUE_TIMEOUT_MS = Long.getLong("erp.reg.enqueueTimeoutMs", 2000);
+    private static final boolean ACK_ON_COMMIT = Boolean.getBoolean("erp.reg.ackOnCommit");
+    private static final int WRITE_ATTEMPTS = Math.max(1, Integer.getInteger("erp.reg.writeAttempts", 10));
+
+    private static volatile RegistrationEngine instance;
+
+    private enum Kind { REGISTER, OPEN, CLOSE, RELEASE, FORGET, STOP }
+
+    private static final class Command {
+        final Kind kind;
+        final String studentId;
+        final int sectionId;
+        /** RELEASE: waitlisted students the database moved into the freed seat; FORGET: the students. */
+        final List<String> promoted;
+        final CompletableFuture<String> result = new CompletableFuture<>();
+
+        Command(Kind kind, String studentId, int sectionId) {
+            this(kind, studentId, sectionId, List.of());
+        }
+
+        Command(Kind kind, String studentId, int sectionId, List<String> promoted) {
+            this.kind = kind;
+            this.studentId = studentId;
+            this.sectionId = sectionId;
+            this.promoted = promoted;
+        }
+    }
+
+    /** Seats of one owned section; dispatcher thread only. */
+    private static final class Seats {
+        final int capacity;
+        final String courseCode;
+        final long[] slots;
+        final boolean timed;
+        final Set<String> students;
+
+        Seats(int capacity, String courseCode, long[] slots, Set<String> students) {
+            this.capacity = capacity;
+            this.courseCode = courseCode;
+            this.slots = slots;
+            this.timed = SectionSlots.clash(slots, slots);
+            this.students = students;
+        }
+    }
+
+    /** A section in a student's timetable; dispatcher thread only. */
+    private static final class Booked {
+        final int sectionId;
+        final String courseCode;
+        final long[] slots;
+
+        Booked(int sectionId, String courseCode, long[] slots) {
+            this.sectionId = sectionId;
+            this.courseCode = courseCode;
+            this.slots = slots;
+        }
+    }
+
+    /** An accepted registration waiting to be written. */
+    private static final class Accepted {
+        final Command command;
+        final long seq;
+
+        Accepted(Command command, long seq) {
+            this.command = command;
+            this.seq = seq;
+        }
+    }
+
+    private final BlockingQueue<Command> inbox = new ArrayBlockingQueue<>(QUEUE_SIZE, true);
+    private final BlockingQueue<Accepted> unwritten = new ArrayBlockingQueue<>(QUEUE_SIZE);
+    private final Set<Integer> owned = ConcurrentHashMap.newKeySet();
+    /** Seats the flusher hands back; a plain queue so the flusher never blocks on the dispatcher. */
+    private final Queue<Command> corrections = new ConcurrentLinkedQueue<>();
+    private final Thread dispatcher;
+    private final Thread flusher;
+    private volatile boolean running = true;
+
+    // Dispatcher thread only
+    private final Map<Integer, Seats> sections = new HashMap<>();
+    private final Map<String, Set<String>> courseStudents = new HashMap<>();
+    /** Timetables of students who asked for a timed section, read on first use. */
+    private final Map<String, List<Booked>> schedules = new HashMap<>();
+    private long acceptedSeq = 0;
+
+    private final Object flushLock = new Object();
+    private volatile long decided = 0;   // seq of the last accepted row
+    private volatile long flushed = 0;   // seq of the last row written (or refused)
+
+    private final AtomicLong accepted = new AtomicLong();
+    private final AtomicLong full = new AtomicLong();
+    private final AtomicLong rejected = new AtomicLong();
+    private final AtomicLong busy = new AtomicLong();
+    private final AtomicLong conflicts = new AtomicLong();
+    private final AtomicLong writeErrors = new AtomicLong();
+    private final AtomicLong retries = new AtomicLong();
+    private final AtomicLong batches = new AtomicLong();
+    private final AtomicLong rowsWritten = new AtomicLong();
+
+    private RegistrationEngine() {
+        dispatcher = new Thread(this::dispatchLoop, "erp-reg-dispatcher");
+        dispatcher.setDaemon(true);
+        flusher = new Thread(this::flushLoop, "erp-reg-flusher");
+        flusher.setDaemon(true);
+        dispatcher.start();
+        flusher.start();
+    }
+
+    public static Mode getMode() { return MODE; }
+
+    /** The engine, started on first use; null when erp.reg.engine=off. */
+    public static RegistrationEngine get() {
+        if (MODE == Mode.OFF) return null;
+        RegistrationEngine e = instance;
+        if (e == null) {
+            synchronized (RegistrationEngine.class) {
+                e = instance;
+                if (e == null) instance = e = new RegistrationEngine();
+            }
+        }
+        return e;
+    }
+
+    /** The engine if it has been started, without starting it. */
+    public static RegistrationEngine active() {
+        return instance;
+    }
+
+    /**
+     * Write out everything accepted so far and stop the engine (e.g. before switching
+     * databases). A later {@link #get()} starts a fresh one.
+     */
+    public static void shutdown() {
+        RegistrationEngine e;
+        synchronized (RegistrationEngine.class) {
+            e = instance;
+            instance = null;
+        }
+        if (e == null) return;
+        Command stop = new Command(Kind.STOP, null, 0);
+        try {
+            e.inbox.put(stop);
+            stop.result.get(30, TimeUnit.SECONDS);
+            e.awaitFlushed(30_000);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException | TimeoutException ignored) {
+        }
+        e.running = false;
+        e.flusher.interrupt();
+    }
+
+    /**
+     * Take over seat counting for the section (loads its current enrollments). Registrations
+     * for it are queued from now on, behind the load, rather than written directly while the
+     * load reads the enrollments.
+     */
+    public void open(int sectionId) {
+        owned.add(sectionId);
+        enqueue(new Command(Kind.OPEN, null, sectionId), true);
+    }
+
+    /**
+     * Stop owning the section and wait until the dispatcher has let go of it, so no further
+     * registration for it is accepted here; rows already accepted are still written.
+     */
+    public void close(int sectionId) {
+        owned.remove(sectionId);
+        Command cmd = new Command(Kind.CLOSE, null, sectionId);
+        enqueue(cmd, true);
+        try {
+            cmd.result.get(30, TimeUnit.SECONDS);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException | TimeoutException ignored) {
+        }
+    }
+
+    public boolean owns(int sectionId) {
+        return owned.contains(sectionId);
+    }
+
+    /**
+     * Queue a registration. The future completes with "SUCCESS", a rejection message in the
+     * same wording as StudentService, {@link #NOT_OWNED}, or a busy message when the queue
+     * stayed full for erp.reg.enqueueTimeoutMs.
+     */
+    public CompletableFuture<String> submit(String studentId, int sectionId) {
+        Command cmd = new Command(Kind.REGISTER, studentId, sectionId);
+        if (!enqueue(cmd, false)) {
+            busy.incrementAndGet();
+            cmd.result.complete(BUSY);
+        }
+        return cmd.result;
+    }
+
+    /** Register and wait for the answer. */
+    String register(String studentId, int sectionId) {
+        try {
+            return submit(studentId, sectionId).get(ENQUEUE_TIMEOUT_MS + 30_000, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            return BUSY;
+        } catch (ExecutionException | TimeoutException ex) {
+            return BUSY;
+        }
+    }
+
+    /**
+     * A student left an owned section and the listed waitlisted students were promoted into
+     * it by the same transaction. Call after that commits (and after {@link #awaitFlushed(long)},
+     * so the row being deleted had been written). Applied as one step, so the freed seat is
+     * never offered to a new registration in between.
+     */
+    void release(String studentId, int sectionId, List<String> promoted) {
+        if (owns(sectionId)) {
+            enqueue(new Command(Kind.RELEASE, studentId, sectionId, promoted), true);
+        } else {
+            List<String> changed = new ArrayList<>(promoted);
+            changed.add(studentId);
+            forget(changed);
+        }
+    }
+
+    /**
+     * The students' enrollments changed outside the engine (a direct registration, a drop or a
+     * promotion in a section it doesn't own): read their timetables again when next needed.
+     */
+    public void forget(List<String> studentIds) {
+        if (!studentIds.isEmpty()) enqueue(new Command(Kind.FORGET, null, 0, List.copyOf(studentIds)), true);
+    }
+
+    /** Wait until every registration accepted so far has been written. */
+    public boolean awaitFlushed(long timeoutMs) {
+        long target = decided;
+        long deadline = System.currentTimeMillis() + timeoutMs;
+        synchronized (flushLock) {
+            while (flushed < target) {
+                long left = deadline - System.currentTimeMillis();
+                if (left <= 0) return false;
+                try {
+                    flushLock.wait(left);
+                } catch (InterruptedException ex) {
+                    Thread.currentThread().interrupt();
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    public long getAccepted() { return accepted.get(); }
+    public long getFull() { return full.get(); }
+    public long getRejected() { return rejected.get(); }
+    public long getBusy() { return busy.get(); }
+    public long getConflicts() { return conflicts.get(); }
+    public long getWriteErrors() { return writeErrors.get(); }
+    public long getRetries() { return retries.get(); }
+    public long getBatches() { return batches.get(); }
+    public long getRowsWritten() { return rowsWritten.get(); }
+    public int getQueueDepth() { return inbox.size(); }
+    public int getUnwrittenDepth() { return unwritten.size(); }
+
+    @Override
+    public String toString() {
+        return String.format("RegistrationEngine[mode=%s, sections=%d, accepted=%d, full=%d, rejected=%d, busy=%d, conflicts=%d, writeErrors=%d, retries=%d, batches=%d, rows=%d, queued=%d, unwritten=%d]",
+                MODE, owned.size(), accepted.get(), full.get(), rejected.get(), busy.get(), conflicts.get(),
+                writeErrors.get(), retries.get(), batches.get(), rowsWritten.get(), inbox.size(), unwritten.size());
+    }
+
+    private boolean enqueue(Command cmd, boolean mustQueue) {
+        try {
+            if (mustQueue) {
+                inbox.put(cmd);
+                return true;
+            }
+            return inbox.offer(cmd, ENQUEUE_TIMEOUT_MS, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    private void dispatchLoop() {
+        while (running) {
+            Command cmd;
+            try {
+                cmd = inbox.take();
+            } catch (InterruptedException ex) {
+                return;
+            }
+            Set<Integer> refused = new HashSet<>();
+            for (Command fix; (fix = corrections.poll()) != null; ) {
+                releaseSeat(fix.studentId, fix.sectionId);
+                schedules.remove(fix.studentId); // the refusal may be a clash the engine didn't know of
+                refused.add(fix.sectionId);
+            }
+            for (int sectionId : refused) {
+                try {
+                    reload(sectionId);
+                } catch (SQLException ex) {
+                    System.err.println("Registration engine: reloading section " + sectionId + " failed: " + ex.getMessage());
+                }
+            }
+            try {
+                switch (cmd.kind) {
+                    case REGISTER: decide(cmd); break;
+                    case OPEN:
+                        if (load(cmd.sectionId) == null) owned.remove(cmd.sectionId);
+                        cmd.result.complete(null);
+                        break;
+                    case CLOSE: unload(cmd.sectionId); cmd.result.complete(null); break;
+                    case RELEASE:
+                        releaseSeat(cmd.studentId, cmd.sectionId);
+                        for (String p : cmd.promoted) takeSeat(p, cmd.sectionId);
+                        cmd.result.complete(null);
+                        break;
+                    case FORGET:
+                        for (String p : cmd.promoted) schedules.remove(p);
+                        cmd.result.complete(null);
+                        break;
+                    case STOP: running = false; cmd.result.complete(null); return;
+                }
+            } catch (InterruptedException ex) {
+                cmd.result.complete(BUSY);
+                return;
+            } catch (Exception ex) {
+                System.err.println("Registration engine: " + cmd.kind + " " + cmd.sectionId + " failed: " + ex.getMessage());
+                cmd.result.complete(cmd.kind == Kind.REGISTER ? NOT_OWNED : null);
+            }
+        }
+    }
+
+    private void decide(Command cmd) throws InterruptedException, SQLException {
+        Seats s = sections.get(cmd.sectionId);
+        if (s == null && MODE == Mode.ALL) s = load(cmd.sectionId);
+        if (s == null) {
+            cmd.result.complete(NOT_OWNED);
+            return;
+        }
+        Set<String> inCourse = s.courseCode == null ? null : courseStudents.get(s.courseCode);
+        if (s.students.contains(cmd.studentId)) {
+            rejected.incrementAndGet();
+            cmd.result.complete("Already registered in this section.");
+            return;
+        }
+        if (inCourse != null && inCourse.contains(cmd.studentId)) {
+            rejected.incrementAndGet();
+            cmd.result.complete("Already registered in another section of this course. You can only register for one section per course.");
+            return;
+        }
+        List<Booked> schedule = s.timed ? schedule(cmd.studentId) : schedules.get(cmd.studentId);
+        if (s.timed) {
+            for (Booked b : schedule) {
+                if (SectionSlots.clash(b.slots, s.slots)) {
+                    rejected.incrementAndGet();
+                    cmd.result.complete(StudentService.SCHEDULE_CLASH_PREFIX + b.courseCode + ".");
+                    return;
+                }
+            }
+        }
+        if (s.students.size() >= s.capacity) {
+            full.incrementAndGet();
+            cmd.result.complete("Section full.");
+            return;
+        }
+        s.students.add(cmd.studentId);
+        if (inCourse != null) inCourse.add(cmd.studentId);
+        if (schedule != null) schedule.add(new Booked(cmd.sectionId, s.courseCode, s.slots));
+        accepted.incrementAndGet();
+        long seq = ++acceptedSeq;
+        decided = seq;
+        // Answer before queueing, so the flusher knows a refused row needs a notice
+        if (!ACK_ON_COMMIT) cmd.result.complete("SUCCESS");
+        unwritten.put(new Accepted(cmd, seq)); // blocks when the flusher is behind
+    }
+
+    /** Load the section's seats; null if it doesn't exist. Waits for pending rows first. */
+    private Seats load(int sectionId) throws SQLException {
+        Seats existing = sections.get(sectionId);
+        if (existing != null) return existing;
+        // Rows accepted for this section before an earlier close must be visible to the reads
+        awaitFlushed(30_000);
+        Seats s;
+        try (Connection c = DatabaseConfig.getConnection()) {
+            int capacity;
+            String courseCode;
+            long[] slots;
+            try (PreparedStatement p = c.prepareStatement("SELECT capacity, course_code, day_time, slots_source, " + SectionSlots.COLUMNS
+                    + " FROM sections WHERE section_id = ?")) {
+                p.setInt(1, sectionId);
+                try (ResultSet rs = p.executeQuery()) {
+                    if (!rs.next()) return null;
+                    capacity = rs.getInt(1);
+                    courseCode = rs.getString(2);
+                    slots = SectionSlots.current(rs.getString(3), rs.getString(4), SectionSlots.read(rs, 5));
+                }
+            }
+            Set<String> students = new HashSet<>();
+            try (PreparedStatement p = c.prepareStatement("SELECT student_id FROM enrollments WHERE section_id = ?")) {
+                p.setInt(1, sectionId);
+                try (ResultSet rs = p.executeQuery()) { while (rs.next()) students.add(rs.getString(1)); }
+            }
+            if (courseCode != null && !courseStudents.containsKey(courseCode)) {
+                Set<String> inCourse = new HashSet<>();
+                try (PreparedStatement p = c.prepareStatement("SELECT e.student_id FROM enrollments e JOIN sections s ON e.section_id = s.section_id WHERE s.course_code = ?")) {
+                    p.setString(1, courseCode);
+                    try (ResultSet rs = p.executeQuery()) { while (rs.next()) inCourse.add(rs.getString(1)); }
+                }
+                courseStudents.put(courseCode, inCourse);
+            }
+            s = new Seats(capacity, courseCode, slots, students);
+        }
+        sections.put(sectionId, s);
+        owned.add(sectionId);
+        return s;
+    }
+
+    /**
+     * Count the section again from the database after it refused a row the engine accepted:
+     * whatever took the seat (a registration that reached the database before the section was
+     * loaded, another process) is not in the in-memory counts, and every later request would
+     * be refused the same way.
+     */
+    private void reload(int sectionId) throws SQLException {
+        Seats s = sections.remove(sectionId);
+        if (s == null) return;
+        if (s.courseCode != null) courseStudents.remove(s.courseCode);
+        if (load(sectionId) == null) owned.remove(sectionId);
+    }
+
+    private void unload(int sectionId) {
+        Seats s = sections.remove(sectionId);
+        owned.remove(sectionId);
+        if (sections.isEmpty()) schedules.clear();
+        if (s == null || s.courseCode == null) return;
+        for (Seats other : sections.values()) if (s.courseCode.equals(other.courseCode)) return;
+        courseStudents.remove(s.courseCode);
+    }
+
+    private void releaseSeat(String studentId, int sectionId) {
+        Seats s = sections.get(sectionId);
+        if (s == null || !s.students.remove(studentId)) return;
+        Set<String> inCourse = s.courseCode == null ? null : courseStudents.get(s.courseCode);
+        if (inCourse != null) inCourse.remove(studentId);
+        List<Booked> schedule = schedules.get(studentId);
+        if (schedule != null) schedule.removeIf(b -> b.sectionId == sectionId);
+    }
+
+    /** A seat filled outside the dispatcher (waitlist promotion), already written. */
+    private void takeSeat(String studentId, int sectionId) {
+        Seats s = sections.get(sectionId);
+        if (s == null || !s.students.add(studentId)) return;
+        Set<String> inCourse = s.courseCode == null ? null : courseStudents.get(s.courseCode);
+        if (inCourse != null) inCourse.add(studentId);
+        List<Booked> schedule = schedules.get(studentId);
+        if (schedule != null) schedule.add(new Booked(sectionId, s.courseCode, s.slots));
+    }
+
+    /** The student's timetable, read from their enrollments the first time it is needed. */
+    private List<Booked> schedule(String studentId) throws SQLException {
+        List<Booked> schedule = schedules.get(studentId);
+        if (schedule != null) return schedule;
+        schedule = new ArrayList<>();
+        try (Connection c = DatabaseConfig.getConnection();
+             PreparedStatement p = c.prepareStatement("SELECT o.section_id, o.course_code, o.day_time, o.slots_source, " + SectionSlots.COLUMNS
+                     + " FROM enrollments e JOIN sections o ON e.section_id = o.section_id WHERE e.student_id = ?")) {
+            p.setString(1, studentId);
+            try (ResultSet rs = p.executeQuery()) {
+                while (rs.next()) {
+                    long[] slots = SectionSlots.current(rs.getString(3), rs.getString(4), SectionSlots.read(rs, 5));
+                    schedule.add(new Booked(rs.getInt(1), rs.getString(2), slots));
+                }
+            }
+        }
+        schedules.put(studentId, schedule);
+        return schedule;
+    }
+
+    private void flushLoop() {
+        List<Accepted> batch = new ArrayList<>(BATCH_SIZE);
+        while (running || !unwritten.isEmpty()) {
+            try {
+                batch.add(unwritten.take());
+            } catch (InterruptedException ex) {
+                if (unwritten.isEmpty()) return;
+                continue;
+            }
+            // Whatever queued up during the previous commit goes into this one
+            unwritten.drainTo(batch, BATCH_SIZE - 1);
+            write(batch);
+            long last = batch.get(batch.size() - 1).seq;
+            batch.clear();
+            synchronized (flushLock) {
+                flushed = last;
+                flushLock.notifyAll();
+            }
+        }
+    }
+
+    private void write(List<Accepted> batch) {
+        int[] counts;
+        try {
+            counts = writeRetrying(c -> insert(c, batch));
+            batches.incrementAndGet();
+        } catch (SQLException ex) {
+            // The batch was rolled back as a whole; retry row by row to isolate the bad one
+            counts = new int[batch.size()];
+            for (int i = 0; i < batch.size(); i++) {
+                List<Accepted> one = batch.subList(i, i + 1);
+                try {
+                    counts[i] = writeRetrying(c -> insert(c, one))[0];
+                } catch (SQLException rowEx) {
+                    counts[i] = -1;
+                    writeErrors.incrementAndGet();
+                    System.err.println("Registration engine: could not write " + batch.get(i).command.studentId
+                            + " in section " + batch.get(i).command.sectionId + ": " + rowEx.getMessage());
+                }
+            }
+        }
+        List<Command> failed = new ArrayList<>();
+        for (int i = 0; i < batch.size(); i++) {
+            Command cmd = batch.get(i).command;
+            if (counts[i] > 0) {
+                rowsWritten.incrementAndGet();
+                cmd.result.complete("SUCCESS");
+                continue;
+            }
+            if (counts[i] == 0) conflicts.incrementAndGet();
+            else if (!ACK_ON_COMMIT) failed.add(cmd);
+            corrections.add(cmd);
+            cmd.result.complete(CONFLICT);
+        }
+        if (!failed.isEmpty()) noticeFailed(failed);
+    }
+
+    /** One write, tried again while the database is busy or its I/O fails. */
+    private <T> T writeRetrying(DbWriter.Work<T> work) throws SQLException {
+        long backoffMs = 10;
+        for (int attempt = 1; ; attempt++) {
+            try {
+                return DatabaseConfig.write(work);
+            } catch (SQLException ex) {
+                if (attempt >= WRITE_ATTEMPTS || !DatabaseConfig.isTransient(ex)) throw ex;
+                retries.incrementAndGet();
+                try {
+                    Thread.sleep(backoffMs);
+                } catch (InterruptedException ie) {
+                    throw ex;
+                }
+                backoffMs = Math.min(1000, backoffMs * 2);
+            }
+        }
+    }
+
+    /**
+     * Rows the database refused are reported to students who were already answered, in the
+     * same transaction: the dashboard shows the notice next time they look.
+     */
+    private static int[] insert(Connection c, List<Accepted> batch) throws SQLException {
+        int[] counts = new int[batch.size()];
+        SectionSlots.sync(c);
+        try (PreparedStatement ins = c.prepareStatement(StudentService.RESERVE_SEAT_SQL)) {
+            for (int i = 0; i < batch.size(); i++) {
+                Command cmd = batch.get(i).command;
+                ins.setString(1, cmd.studentId);
+                ins.setInt(2, cmd.sectionId);
+                ins.setString(3, cmd.studentId);
+                ins.setString(4, cmd.studentId);
+                counts[i] = ins.executeUpdate();
+                if (counts[i] > 0) StudentSummaries.invalidateOnCommit(cmd.studentId);
+                else if (!ACK_ON_COMMIT) StudentNotices.add(c, cmd.studentId, cmd.sectionId,
+                        notCompleted(cmd.sectionId, StudentService.refusalReason(c, cmd.studentId, cmd.sectionId)));
+            }
+        }
+        ChangeBus.publish(ChangeBus.Topic.ENROLLMENTS);
+        return counts;
+    }
+
+    /** Rows that could not be written at all, for students who were already answered. */
+    private void noticeFailed(List<Command> failed) {
+        try {
+            writeRetrying(c -> {
+                for (Command cmd : failed) StudentNotices.add(c, cmd.studentId, cmd.sectionId, notCompleted(cmd.sectionId, CONFLICT));
+                return null;
+            });
+        } catch (SQLException ex) {
+            for (Command cmd : failed) {
+                System.err.println("Registration engine: " + cmd.studentId + " was told section " + cmd.sectionId
+                        + " was registered, but the row and the notice could not be written: " + ex.getMessage());
+            }
+        }
+    }
+
+    private static String notCompleted(int sectionId, String reason) {
+        return "Your registration for section " + sectionId + " could not be completed: " + reason;
+    }
+
+    private static Mode parseMode(String s) {
+        if (s == null) return Mode.WINDOW;
+        try {
+            return Mode.valueOf(s.trim().toUpperCase());
+        } catch (IllegalArgumentException ex) {
+            return Mode.WINDOW;
+        }
+    }
+}
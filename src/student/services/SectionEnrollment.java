@@ -0,0 +1,58 @@
+package student.services;
+
+import instructor.dao.SectionDAO;
+import login.DatabaseConfig;
+
+import java.sql.SQLException;
+
+/**
+ * Section changes that registration has to follow: opening or closing the enrollment window
+ * and changing the capacity. The SQL is SectionDAO's; this keeps the registration engine's
+ * in-memory seat counts and the waitlist in step with it, so screens and tools call this
+ * rather than the DAO.
+ */
+public final class SectionEnrollment {
+
+    private SectionEnrollment() {}
+
+    /** Open or close the window; opening hands the section's seat counting to the registration engine. */
+    public static boolean setEnrollmentOpen(int sectionId, boolean open) {
+        boolean changed = new SectionDAO().setEnrollmentOpen(sectionId, open);
+        RegistrationEngine engine = RegistrationEngine.get();
+        if (changed && engine != null) {
+            if (open) engine.open(sectionId); else engine.close(sectionId);
+        }
+        return changed;
+    }
+
+    /**
+     * Change the capacity; seats it adds go to the head of the waitlist in the same
+     * transaction. Returns the promoted students and those taken off the queue instead.
+     *
+     * An engine-owned section gives up its in-memory counts first and takes them back (reloaded
+     * from the database) only once the new capacity is committed. If the update fails or there is
+     * no such section, the section is left out of the engine: its registrations go straight to
+     * the database, which enforces the committed capacity, until its window is opened again.
+     */
+    public static Waitlist.Promotion updateCapacity(int sectionId, int newCapacity) {
+        RegistrationEngine engine = RegistrationEngine.active();
+        boolean owned = engine != null && engine.owns(sectionId);
+        if (owned) {
+            engine.close(sectionId);
+            engine.awaitFlushed(10_000);
+        }
+        Waitlist.Promotion promotion;
+        try {
+            // null: no such section, nothing written
+            promotion = DatabaseConfig.write(c -> SectionDAO.updateCapacity(c, sectionId, newCapacity)
+                    ? Waitlist.promote(c, sectionId, Integer.MAX_VALUE) : null);
+        } catch (SQLException ex) {
+            // Rolled back: capacity unchanged, nobody promoted, section not handed back to the engine
+            throw new RuntimeException(ex);
+        }
+        if (promotion == null) return new Waitlist.Promotion(); // no such section: nothing to hand back
+        if (engine != null) engine.forget(promotion.promoted);
+        if (owned) engine.open(sectionId);
+        return promotion;
+    }
+}
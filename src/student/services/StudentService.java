@@ -1,11 +1,19 @@
 package student.services;
 
 import domain.Student;
+import domain.StudentSummary;
 import domain.Course;
 import domain.UserSession;
+import admin.dao.CourseDAO;
+import admin.dao.PrerequisiteGraph;
 import admin.dao.StudentDAO;
-import admin.dao.InstructorDAO;
+import auth.PersonResolver;
+import login.ChangeBus;
 import login.DatabaseConfig;
+import login.QueryScope;
+import login.SchemaRegistry;
+import login.SectionSlots;
+import login.StudentNotices;
 
 import java.sql.*;
 import java.util.ArrayList;
@@ -18,57 +26,30 @@ import java.util.List;
  */
 public class StudentService {
     private final StudentDAO studentDAO = new StudentDAO();
-    private final InstructorDAO instructorDAO = new InstructorDAO();
     private final UserSession session;
+    private static final PrerequisiteGraph PREREQUISITES = new CourseDAO().prerequisites();
 
     public StudentService(UserSession session) {
         this.session = session;
-        try { Class.forName("org.sqlite.JDBC"); } catch (ClassNotFoundException ignored) {}
-        ensureEnrollmentsTable();
+        SchemaRegistry.ensureSchema();
     }
 
-    private Connection conn() throws SQLException { return DriverManager.getConnection(DatabaseConfig.getDatabaseUrl()); }
-
-    private void ensureEnrollmentsTable() {
-        try (Connection c = conn(); Statement s = c.createStatement()) {
-            s.execute("CREATE TABLE IF NOT EXISTS enrollments (enrollment_id INTEGER PRIMARY KEY AUTOINCREMENT, student_id TEXT, section_id INTEGER, status TEXT, UNIQUE(student_id, section_id))");
-        } catch (SQLException ignored) {}
-    }
+    private Connection conn() throws SQLException { return DatabaseConfig.getConnection(); }
 
     // Map the current session to a Student id if the role is Student
     private String mappedStudentId() {
-        String uname = session == null ? null : session.getUsername();
-        if (uname == null) return null;
-        // First try a deterministic lookup via user_person_map
-        try (Connection c = conn(); PreparedStatement p = c.prepareStatement("SELECT person_id FROM user_person_map WHERE username = ? AND person_type = 'student' LIMIT 1")) {
-            p.setString(1, uname);
-            try (ResultSet rs = p.executeQuery()) { if (rs.next()) return rs.getString("person_id"); }
-        } catch (SQLException ignored) {}
-
-        // exact id match
-        try { java.util.Optional<Student> sOpt = studentDAO.findById(uname); if (sOpt.isPresent()) return sOpt.get().getId(); } catch (Exception ignored) {}
-
-        // fallback: construct username: firstName + id, try to find matching student
-        try { for (Student s : studentDAO.listAll()) { String first = (s.getName() == null || s.getName().isEmpty()) ? "" : s.getName().split(" ")[0]; String candidate = (first + s.getId()).toLowerCase(); if (candidate.equalsIgnoreCase(uname)) return s.getId(); } } catch (Exception ignored) {}
-        return null;
+        return PersonResolver.resolve(session, PersonResolver.STUDENT);
     }
 
     // Map the current session to an Instructor id if the role is Instructor
     private String mappedInstructorId() {
-        String uname = session == null ? null : session.getUsername();
-        if (uname == null) return null;
-        // Try user_person_map first
-        try (Connection c = conn(); PreparedStatement p = c.prepareStatement("SELECT person_id FROM user_person_map WHERE username = ? AND person_type = 'instructor' LIMIT 1")) {
-            p.setString(1, uname);
-            try (ResultSet rs = p.executeQuery()) { if (rs.next()) return rs.getString("person_id"); }
-        } catch (SQLException ignored) {}
-
-        try { for (domain.Instructor ins : instructorDAO.listAll()) { String first = (ins.getName() == null || ins.getName().isEmpty()) ? "" : ins.getName().split(" ")[0]; String candidate = (first + ins.getId()).toLowerCase(); if (candidate.equalsIgnoreCase(uname)) return ins.getId(); } } catch (Exception ignored) {}
-        return null;
+        return PersonResolver.resolve(session, PersonResolver.INSTRUCTOR);
     }
 
+    public static final String CGPA_SQL = "SELECT section_id, total AS final_score FROM score_totals WHERE student_id = ?";
+
     /**
-     * Compute current CGPA for a student using credits-weighted GPA from the `grades` + `sections` tables.
+     * Compute current CGPA for a student as the average GPA over their sections, from the per-section totals in score_totals.
      * GPA mapping uses mapToGPA() which returns a 10-point scale.
      */
     public double getCurrentCGPA(String studentId) {
@@ -79,11 +60,8 @@ public class StudentService {
         // Calculate CGPA as the average of GPA points from all enrolled courses
         double totalGPA = 0.0;
         int courseCount = 0;
-        String sql = "SELECT DISTINCT a.section_id, SUM(a.score) as final_score " +
-                     "FROM assessments a " +
-                     "WHERE a.student_id = ? " +
-                     "GROUP BY a.section_id";
-        try (Connection c = conn(); PreparedStatement p = c.prepareStatement(sql)) {
+        // One row per section from the totals the assessments triggers maintain (login.ScoreTotals)
+        try (Connection c = conn(); PreparedStatement p = c.prepareStatement(CGPA_SQL)) {
             p.setString(1, studentId);
             try (ResultSet rs = p.executeQuery()) {
                 while (rs.next()) {
@@ -103,22 +81,28 @@ public class StudentService {
     }
 
     /**
-     * Compute fees due = total fees assessed - total payments made. Searches common tables (`fees`, `transactions`, `payments`).
+     * Fees due = total charged - total paid, from the student's fee_balances row (login.FeeLedger).
      */
     public int getFeesDue(String studentId) {
         if (session != null && !"Admin".equalsIgnoreCase(session.getRole())) {
             String mapped = mappedStudentId();
             if (mapped == null || !mapped.equals(studentId)) return 0;
         }
-        int totalFees = 0;
-        int totalPaid = 0;
-        try (Connection c = conn()) {
-            try (PreparedStatement p = c.prepareStatement("SELECT SUM(amount) FROM fees WHERE student_id = ?")) { p.setString(1, studentId); try (ResultSet rs = p.executeQuery()) { if (rs.next()) totalFees = rs.getInt(1); } } catch (SQLException ignored) {}
-            try (PreparedStatement p = c.prepareStatement("SELECT SUM(amount) FROM transactions WHERE student_id = ?")) { p.setString(1, studentId); try (ResultSet rs = p.executeQuery()) { if (rs.next()) totalFees += rs.getInt(1); } } catch (SQLException ignored) {}
-            try (PreparedStatement p = c.prepareStatement("SELECT SUM(amount) FROM payments WHERE student_id = ?")) { p.setString(1, studentId); try (ResultSet rs = p.executeQuery()) { if (rs.next()) totalPaid = rs.getInt(1); } } catch (SQLException ignored) {}
-        } catch (SQLException ex) { return 0; }
-        int due = totalFees - totalPaid;
-        return Math.max(0, due);
+        double[] balance = feeBalance(studentId);
+        return Math.max(0, (int) (balance[0] - balance[1]));
+    }
+
+    public static final String FEE_BALANCE_SQL = "SELECT charged, paid FROM fee_balances WHERE student_id = ?";
+
+    /** {charged, paid}; zeros when the student has no ledger entries. */
+    private double[] feeBalance(String studentId) {
+        try (Connection c = conn(); PreparedStatement p = c.prepareStatement(FEE_BALANCE_SQL)) {
+            p.setString(1, studentId);
+            try (ResultSet rs = p.executeQuery()) { if (rs.next()) return new double[]{rs.getDouble(1), rs.getDouble(2)}; }
+        } catch (SQLException ex) {
+            System.err.println("Warning: failed to read fee balance: " + ex.getMessage());
+        }
+        return new double[]{0, 0};
     }
 
     public Student getStudentProfile(String ignoredParam) {
@@ -136,20 +120,95 @@ public class StudentService {
         return null;
     }
 
+    /**
+     * Profile, CGPA, registered course count and fees in one query, cached per student for a
+     * short TTL (see StudentSummaries). A student session gets its own summary (studentId may be
+     * null); another student's id returns null. Admins must pass the id.
+     */
+    public StudentSummary getStudentSummary(String studentId) {
+        if (session != null && !"Admin".equalsIgnoreCase(session.getRole())) {
+            String mapped = mappedStudentId();
+            if (mapped == null || (studentId != null && !mapped.equals(studentId))) return null;
+            studentId = mapped;
+        }
+        if (studentId == null) return null;
+        try {
+            return StudentSummaries.get(studentId);
+        } catch (SQLException ex) {
+            System.err.println("Warning: failed to load student summary: " + ex.getMessage());
+            return null;
+        }
+    }
+
+    public static final String REGISTERED_COUNT_SQL = "SELECT COUNT(*) FROM enrollments WHERE student_id = ?";
+
     public int getRegisteredCoursesCount(String studentId) {
         // Only allow count for the mapped student (unless Admin)
         if (session != null && !"Admin".equalsIgnoreCase(session.getRole())) {
             String mapped = mappedStudentId();
             if (mapped == null || !mapped.equals(studentId)) return 0;
         }
-        try (Connection c = conn(); PreparedStatement p = c.prepareStatement("SELECT COUNT(*) FROM enrollments WHERE student_id = ?")) {
+        try (Connection c = conn(); PreparedStatement p = c.prepareStatement(REGISTERED_COUNT_SQL)) {
             p.setString(1, studentId);
             try (ResultSet rs = p.executeQuery()) { if (rs.next()) return rs.getInt(1); }
         } catch (SQLException ex) {}
         return 0;
     }
 
+    /**
+     * Notices the student has not seen yet (registrations refused after they were answered,
+     * waitlist promotions that could not be made), marked seen as they are returned.
+     */
+    public List<String> takeNotices(String studentId) throws SQLException {
+        if (session != null && !"Admin".equalsIgnoreCase(session.getRole())) {
+            String mapped = mappedStudentId();
+            if (mapped == null || !mapped.equals(studentId)) return new ArrayList<>();
+        }
+        return StudentNotices.takeUnseen(studentId);
+    }
+
     public List<Course> getCourseCatalogForStudent(String studentId) {
+        QueryScope scope = QueryScope.open("StudentService.getCourseCatalogForStudent");
+        try {
+            return loadCourseCatalog(studentId);
+        } finally {
+            scope.close();
+        }
+    }
+
+    /** The student's timetable, for clash marks in the catalog. */
+    public static final String TIMETABLE_SQL = "SELECT o.day_time, o.slots_source, " + SectionSlots.COLUMNS +
+            " FROM enrollments e JOIN sections o ON e.section_id = o.section_id WHERE e.student_id = ?";
+
+    /** Sections, with counts from section_stats and the student's own registrations joined in. */
+    public static final String CATALOG_SECTIONS_SQL = "SELECT s.section_id, s.course_code, s.title, s.day_time, s.room, s.capacity, s.instructor_id, " +
+            "COALESCE(ss.enrolled, 0) AS enrolled, (mine.section_id IS NOT NULL) AS registered, " +
+            "s.slots_source, s.slots_mon_tue, s.slots_wed_thu, s.slots_fri_sat " +
+            "FROM sections s " +
+            "LEFT JOIN section_stats ss ON ss.section_id = s.section_id " +
+            "LEFT JOIN (SELECT DISTINCT section_id FROM enrollments WHERE student_id = ?) mine ON mine.section_id = s.section_id " +
+            "WHERE NOT EXISTS (SELECT 1 FROM offerings) " +
+            "OR s.course_code IN (SELECT course_code FROM offerings WHERE ? IS NOT NULL AND course_code <> '' " +
+            "AND (UPPER(branch) = ? OR UPPER(branch) = 'ALL') AND (year = ? OR year = 0)) " +
+            "ORDER BY s.section_id";
+
+    /**
+     * Offered courses, with per-course enrollment summed from section_stats and the student's own
+     * courses; limited to the student's cohort (branch and year bound after the id) when filterCohort.
+     */
+    public static String offeredSql(boolean filterCohort) {
+        return "SELECT o.course_code, COALESCE(c.name, o.course_code) AS name, COALESCE(c.credits,4) AS credits, " +
+                "COALESCE(ce.enrolled, 0) AS enrolled, (mc.course_code IS NOT NULL) AS registered " +
+                "FROM offerings o LEFT JOIN courses c ON o.course_code = c.code " +
+                "LEFT JOIN (SELECT s.course_code, SUM(ss.enrolled) AS enrolled FROM sections s " +
+                "JOIN section_stats ss ON ss.section_id = s.section_id GROUP BY s.course_code) ce ON ce.course_code = o.course_code " +
+                "LEFT JOIN (SELECT DISTINCT s.course_code FROM enrollments e JOIN sections s ON e.section_id = s.section_id " +
+                "WHERE e.student_id = ?) mc ON mc.course_code = o.course_code " +
+                (filterCohort ? "WHERE (UPPER(o.branch) = ? OR UPPER(o.branch) = 'ALL') AND (o.year = ? OR o.year = 0) " : "") +
+                "ORDER BY o.rowid";
+    }
+
+    private List<Course> loadCourseCatalog(String studentId) {
         // Ensure caller can only request their own catalog data (unless Admin)
         if (session != null && !"Admin".equalsIgnoreCase(session.getRole())) {
             String mapped = mappedStudentId();
@@ -180,122 +239,71 @@ public class StudentService {
             }
         } catch (SQLException ignored) {}
 
-        // Determine cohort-level offered course codes (if any) from `offerings`.
-        java.util.Set<String> cohortAllowedCourseCodes = new java.util.HashSet<>();
-        if (studentBranchStr != null) {
-            try (Connection c = conn(); PreparedStatement p = c.prepareStatement(
-                    "SELECT DISTINCT course_code FROM offerings WHERE (UPPER(branch) = ? OR UPPER(branch) = 'ALL') AND (year = ? OR year = 0)")) {
-                p.setString(1, studentBranchStr.toUpperCase());
-                p.setInt(2, studentYearInt == null ? 0 : studentYearInt);
-                try (ResultSet rs = p.executeQuery()) {
-                    while (rs.next()) {
-                        String cc = rs.getString(1);
-                        if (cc != null && !cc.isEmpty()) cohortAllowedCourseCodes.add(cc);
-                    }
-                }
-            } catch (SQLException ignored) {}
+        // Cohort filter shared by both queries: offerings published for the student's branch/year.
+        // Sections are limited to those course codes only when offerings exist at all; with no
+        // offerings in the database every section is shown (backwards compatibility).
+        String branchParam = studentBranchStr == null ? null : studentBranchStr.toUpperCase();
+        int yearParam = studentYearInt == null ? 0 : studentYearInt;
+
+        // The student's timetable as one slot mask; sections overlapping it are listed as "Clash"
+        long[] booked = new long[SectionSlots.WORDS];
+        try (Connection c = conn(); PreparedStatement p = c.prepareStatement(TIMETABLE_SQL)) {
+            p.setString(1, studentId);
+            try (ResultSet rs = p.executeQuery()) {
+                while (rs.next()) SectionSlots.add(booked, SectionSlots.current(rs.getString(1), rs.getString(2), SectionSlots.read(rs, 3)));
+            }
+        } catch (SQLException ex) {
+            System.err.println("Warning: failed to load the student's timetable: " + ex.getMessage());
         }
 
-        // Determine if any offerings exist globally. If any offerings exist,
-        // we should restrict visible sections to only those offered to the student's cohort.
-        boolean globalOffersExist = false;
-        try (Connection c = conn(); PreparedStatement p = c.prepareStatement("SELECT COUNT(*) FROM offerings")) {
-            try (ResultSet rs = p.executeQuery()) { if (rs.next() && rs.getInt(1) > 0) globalOffersExist = true; }
-        } catch (SQLException ignored) {}
+        // Courses the student has passed; sections of courses whose prerequisites they lack are "Locked"
+        long[] satisfied;
+        try (Connection c = conn()) {
+            satisfied = satisfiedPrerequisites(c, studentId);
+        } catch (SQLException ex) {
+            System.err.println("Warning: failed to load the student's completed courses: " + ex.getMessage());
+            satisfied = new long[0];
+        }
 
-        // First, get courses from sections table (traditional enrollment method)
-        String sql = "SELECT section_id, course_code, title, term, day_time, room, capacity, instructor_id FROM sections ORDER BY section_id";
-        try (Connection c = conn(); PreparedStatement p = c.prepareStatement(sql); ResultSet rs = p.executeQuery()) {
+        try (Connection c = conn(); PreparedStatement p = c.prepareStatement(CATALOG_SECTIONS_SQL)) {
+            p.setString(1, studentId);
+            p.setString(2, branchParam);
+            p.setString(3, branchParam);
+            p.setInt(4, yearParam);
+            try (ResultSet rs = p.executeQuery()) {
                 while (rs.next()) {
-                int sectionId = rs.getInt("section_id");
-                String code = rs.getString("course_code");
-                String title = rs.getString("title");
-                int credits = 3; // default credits
-                String schedule = rs.getString("day_time") + " @ " + rs.getString("room");
-                int capacity = rs.getInt("capacity");
-                String instructor = rs.getString("instructor_id");
-
-                int enrolled = 0;
-                try (PreparedStatement q = c.prepareStatement("SELECT COUNT(*) FROM enrollments WHERE section_id = ?")) {
-                    q.setInt(1, sectionId);
-                    try (ResultSet er = q.executeQuery()) { if (er.next()) enrolled = er.getInt(1); }
-                }
-
-                boolean isRegistered = false;
-                try (PreparedStatement q = c.prepareStatement("SELECT COUNT(*) FROM enrollments WHERE section_id = ? AND student_id = ?")) {
-                    q.setInt(1, sectionId);
-                    q.setString(2, studentId);
-                    try (ResultSet er = q.executeQuery()) { if (er.next()) isRegistered = er.getInt(1) > 0; }
-                }
-
-                String status = isRegistered ? "Registered" : (enrolled < capacity ? "Open" : "Full");
-
-                // If any offerings exist (globalOffersExist == true), only include sections
-                // whose course_code is in the cohortAllowedCourseCodes set (i.e. admin-published
-                // offerings for this student's branch/year). If there are no offerings at all
-                // in the database, fall back to showing all sections (backwards compatibility).
-                if (!globalOffersExist || cohortAllowedCourseCodes.contains(code)) {
-                    out.add(new Course(sectionId, code, title, credits, instructor, schedule, enrolled, capacity, status));
+                    int capacity = rs.getInt("capacity");
+                    int enrolled = rs.getInt("enrolled");
+                    String schedule = rs.getString("day_time") + " @ " + rs.getString("room");
+                    long[] slots = SectionSlots.current(rs.getString("day_time"), rs.getString("slots_source"), SectionSlots.read(rs, 11));
+                    String status = rs.getBoolean("registered") ? "Registered"
+                            : !PREREQUISITES.eligible(satisfied, rs.getString("course_code")) ? "Locked"
+                            : SectionSlots.clash(booked, slots) ? "Clash" : (enrolled < capacity ? "Open" : "Full");
+                    out.add(new Course(rs.getInt("section_id"), rs.getString("course_code"), rs.getString("title"), 3,
+                            rs.getString("instructor_id"), schedule, enrolled, capacity, status));
                 }
             }
         } catch (SQLException ex) {
             // Log the SQL error and degrade gracefully to an empty catalog so the UI doesn't crash
             System.err.println("Warning: failed to load courses from sections table: " + ex.getMessage());
         }
-        
-        // Next, load offered courses published in the `offerings` table for the student's cohort
-        // Try to load offered courses - if student year/branch is available, filter by them; otherwise show all
-        String sqlOffered;
-        
-        if (studentYearInt != null && studentBranchStr != null) {
-            // Filter by student's branch and year
-            sqlOffered = "SELECT o.course_code, COALESCE(c.name, o.course_code) AS name, COALESCE(c.credits,4) AS credits " +
-                    "FROM offerings o LEFT JOIN courses c ON o.course_code = c.code " +
-                    "WHERE (UPPER(o.branch) = ? OR UPPER(o.branch) = 'ALL') AND (o.year = ? OR o.year = 0)";
-        } else {
-            // If student info not available, show all offered courses (fallback)
-            sqlOffered = "SELECT o.course_code, COALESCE(c.name, o.course_code) AS name, COALESCE(c.credits,4) AS credits " +
-                    "FROM offerings o LEFT JOIN courses c ON o.course_code = c.code";
-        }
-        
-        try (Connection c = conn(); PreparedStatement p = c.prepareStatement(sqlOffered)) {
-            if (studentYearInt != null && studentBranchStr != null) {
-                p.setString(1, studentBranchStr.toUpperCase());
-                p.setInt(2, studentYearInt == null ? 0 : studentYearInt);
+
+        // Offered courses for the student's cohort (all offerings when branch/year are unknown)
+        boolean filterCohort = studentYearInt != null && studentBranchStr != null;
+        try (Connection c = conn(); PreparedStatement p = c.prepareStatement(offeredSql(filterCohort))) {
+            p.setString(1, studentId);
+            if (filterCohort) {
+                p.setString(2, branchParam);
+                p.setInt(3, yearParam);
             }
             try (ResultSet rs = p.executeQuery()) {
                 while (rs.next()) {
-                    String code = rs.getString("course_code");
-                    String title = rs.getString("name");
                     int credits = rs.getInt("credits");
                     if (credits == 0) credits = 4;
-                    String schedule = "TBA";
-                    int capacity = 100;
-                    String instructor = "Staff";
-
-                    // Count enrollment for offered course - need to join with sections table since enrollments uses section_id
-                    int enrolled = 0;
-                    try (PreparedStatement r = c.prepareStatement(
-                            "SELECT COUNT(DISTINCT e.student_id) FROM enrollments e " +
-                            "JOIN sections s ON e.section_id = s.section_id " +
-                            "WHERE s.course_code = ?")) {
-                        r.setString(1, code);
-                        try (ResultSet er = r.executeQuery()) { if (er.next()) enrolled = er.getInt(1); }
-                    } catch (SQLException ignored) {}
-
-                    // Check if student is already enrolled in this offered course (any section of this course)
-                    boolean isEnrolledInOffered = false;
-                    try (PreparedStatement r = c.prepareStatement(
-                            "SELECT COUNT(*) FROM enrollments e " +
-                            "JOIN sections s ON e.section_id = s.section_id " +
-                            "WHERE s.course_code = ? AND e.student_id = ?")) {
-                        r.setString(1, code);
-                        r.setString(2, studentId);
-                        try (ResultSet er = r.executeQuery()) { if (er.next()) isEnrolledInOffered = er.getInt(1) > 0; }
-                    } catch (SQLException ignored) {}
-
-                    String status = isEnrolledInOffered ? "Registered" : "Open";
-                    out.add(new Course(-1, code, title, credits, instructor, schedule, enrolled, capacity, status));
+                    String status = rs.getBoolean("registered") ? "Registered"
+                            : PREREQUISITES.eligible(satisfied, rs.getString("course_code")) ? "Open" : "Locked";
+                    out.add(new Course(-1, rs.getString("course_code"), rs.getString("name"), credits, "Staff", "TBA",
+                            rs.getInt("enrolled"), 100, status));
                 }
             }
         } catch (SQLException ex) {
@@ -312,67 +320,198 @@ public class StudentService {
         }
 
         int sectionId; try { sectionId = Integer.parseInt(sectionIdStr); } catch (NumberFormatException ex) { return "Invalid section id"; }
-        try (Connection c = conn()) {
-            // Check if already registered in THIS section
-            try (PreparedStatement p = c.prepareStatement("SELECT COUNT(*) FROM enrollments WHERE student_id = ? AND section_id = ?")) {
-                p.setString(1, studentId); p.setInt(2, sectionId);
-                try (ResultSet rs = p.executeQuery()) { if (rs.next() && rs.getInt(1) > 0) return "Already registered in this section."; }
+        String unmet = unmetPrerequisites(studentId, sectionId);
+        if (unmet != null) return unmet;
+        // During an enrollment window the engine decides from its in-memory seat counts
+        RegistrationEngine engine = RegistrationEngine.getMode() == RegistrationEngine.Mode.ALL ? RegistrationEngine.get() : RegistrationEngine.active();
+        if (engine != null && (engine.owns(sectionId) || RegistrationEngine.getMode() == RegistrationEngine.Mode.ALL)) {
+            String result = engine.register(studentId, sectionId);
+            if (SECTION_FULL.equals(result)) return joinWaitlist(studentId, sectionId);
+            if (!RegistrationEngine.NOT_OWNED.equals(result)) return result;
+        }
+        // Capacity and duplicate checks are part of the INSERT itself; see registerCourse(Connection, ...)
+        try {
+            String result = DatabaseConfig.write(c -> {
+                String r = registerCourse(c, studentId, sectionId);
+                if (!SECTION_FULL.equals(r)) return r;
+                return WAITLISTED_PREFIX + Waitlist.join(c, studentId, sectionId);
+            });
+            if (engine != null && "SUCCESS".equals(result)) engine.forget(List.of(studentId));
+            return result;
+        } catch (SQLException ex) { String msg = ex.getMessage(); if (msg != null && msg.toLowerCase().contains("unique")) return "Already registered in this section."; return ex.getMessage(); }
+    }
+
+    /** Returned by registerCourse when the student hasn't passed a prerequisite, followed by the missing codes and a period. */
+    public static final String PREREQUISITES_PREFIX = "Prerequisites not met: ";
+
+    /** Courses passed with a total of at least PASS_MARK (the lowest grade with GPA points) count as completed. */
+    static final double PASS_MARK = 40;
+
+    public static final String COMPLETED_COURSES_SQL =
+            "SELECT DISTINCT sec.course_code FROM score_totals t JOIN sections sec ON sec.section_id = t.section_id " +
+            "WHERE t.student_id = ? AND t.total >= ?";
+
+    /** The student's completed courses and everything they imply, as a PrerequisiteGraph set. */
+    private static long[] satisfiedPrerequisites(Connection c, String studentId) throws SQLException {
+        List<String> completed = new ArrayList<>();
+        try (PreparedStatement p = c.prepareStatement(COMPLETED_COURSES_SQL)) {
+            p.setString(1, studentId);
+            p.setDouble(2, PASS_MARK);
+            try (ResultSet rs = p.executeQuery()) {
+                while (rs.next()) if (rs.getString(1) != null) completed.add(rs.getString(1));
             }
-            
-            // Get the course_code for this section
+        }
+        return PREREQUISITES.satisfied(completed);
+    }
+
+    public static final String SECTION_COURSE_SQL = "SELECT course_code FROM sections WHERE section_id = ?";
+
+    /** The refusal message when the section's course has prerequisites the student hasn't passed, else null. */
+    private String unmetPrerequisites(String studentId, int sectionId) {
+        try (Connection c = conn()) {
             String courseCode = null;
-            try (PreparedStatement p = c.prepareStatement("SELECT course_code FROM sections WHERE section_id = ?")) {
+            try (PreparedStatement p = c.prepareStatement(SECTION_COURSE_SQL)) {
                 p.setInt(1, sectionId);
-                try (ResultSet rs = p.executeQuery()) { if (rs.next()) courseCode = rs.getString(1); else return "Section not found."; }
+                try (ResultSet rs = p.executeQuery()) { if (rs.next()) courseCode = rs.getString(1); }
             }
-            
-            // Check if already registered in ANY section of this course
-            if (courseCode != null) {
-                try (PreparedStatement p = c.prepareStatement(
-                    "SELECT COUNT(*) FROM enrollments e JOIN sections s ON e.section_id = s.section_id WHERE e.student_id = ? AND s.course_code = ?")) {
-                    p.setString(1, studentId); p.setString(2, courseCode);
-                    try (ResultSet rs = p.executeQuery()) { 
-                        if (rs.next() && rs.getInt(1) > 0) return "Already registered in another section of this course. You can only register for one section per course."; 
-                    }
-                }
+            // Most courses have none: skip the history read
+            if (courseCode == null || PREREQUISITES.eligible(new long[0], courseCode)) return null;
+            List<String> missing = PREREQUISITES.missing(satisfiedPrerequisites(c, studentId), courseCode);
+            return missing.isEmpty() ? null : PREREQUISITES_PREFIX + String.join(", ", missing) + ".";
+        } catch (SQLException ex) {
+            return null; // the registration itself reports database trouble
+        }
+    }
+
+    /** Returned by registerCourse when the section is full, followed by the waitlist position. */
+    public static final String WAITLISTED_PREFIX = "Section full. Waitlisted at position ";
+    static final String SECTION_FULL = "Section full.";
+    static final String SECTION_NOT_FOUND = "Section not found.";
+
+    private static String joinWaitlist(String studentId, int sectionId) {
+        try {
+            return WAITLISTED_PREFIX + DatabaseConfig.write(c -> Waitlist.join(c, studentId, sectionId));
+        } catch (SQLException ex) {
+            return SECTION_FULL;
+        }
+    }
+
+    /** Take the student off a section's waitlist. */
+    public boolean leaveWaitlist(String studentId, String sectionIdStr) {
+        if (session != null && !"Admin".equalsIgnoreCase(session.getRole())) {
+            String mapped = mappedStudentId();
+            if (mapped == null || !mapped.equals(studentId)) return false;
+        }
+        int sectionId; try { sectionId = Integer.parseInt(sectionIdStr); } catch (NumberFormatException ex) { return false; }
+        try {
+            return DatabaseConfig.write(c -> Waitlist.leave(c, studentId, sectionId));
+        } catch (SQLException ex) { return false; }
+    }
+
+    /**
+     * Seat reservation as one conditional INSERT: the row goes in only if the section exists,
+     * the student has no section of the same course yet, none of their sections shares a
+     * timetable slot with it (login.SectionSlots masks) and enrolled &lt; capacity, all
+     * evaluated inside the statement that takes the write lock. Two students racing for the
+     * last seat cannot both get it, whichever connection or process they write from.
+     * When nothing was inserted, one diagnostic read explains why.
+     */
+    public static String registerCourse(Connection c, String studentId, int sectionId) throws SQLException {
+        SectionSlots.sync(c);
+        try (PreparedStatement ins = c.prepareStatement(RESERVE_SEAT_SQL)) {
+            ins.setString(1, studentId); ins.setInt(2, sectionId); ins.setString(3, studentId); ins.setString(4, studentId);
+            if (ins.executeUpdate() == 1) {
+                StudentSummaries.invalidateOnCommit(studentId);
+                ChangeBus.publish(ChangeBus.Topic.ENROLLMENTS);
+                return "SUCCESS";
             }
-            
-            // Check capacity
-            int capacity = 0;
-            try (PreparedStatement p = c.prepareStatement("SELECT capacity FROM sections WHERE section_id = ?")) { p.setInt(1, sectionId); try (ResultSet rs = p.executeQuery()) { if (rs.next()) capacity = rs.getInt(1); } }
-            int enrolled = 0; try (PreparedStatement p = c.prepareStatement("SELECT COUNT(*) FROM enrollments WHERE section_id = ?")) { p.setInt(1, sectionId); try (ResultSet rs = p.executeQuery()) { if (rs.next()) enrolled = rs.getInt(1); } }
-            if (enrolled >= capacity) return "Section full.";
-            
-            // Register the student
-            try (PreparedStatement ins = c.prepareStatement("INSERT INTO enrollments (student_id, section_id, status) VALUES (?, ?, 'ENROLLED')")) { ins.setString(1, studentId); ins.setInt(2, sectionId); ins.executeUpdate(); return "SUCCESS"; }
-        } catch (SQLException ex) { String msg = ex.getMessage(); if (msg != null && msg.toLowerCase().contains("unique")) return "Already registered in this section."; return ex.getMessage(); }
+        }
+        return refusalReason(c, studentId, sectionId);
+    }
+
+    /** Why RESERVE_SEAT_SQL inserted nothing for the student and section, in registerCourse's wording. */
+    static String refusalReason(Connection c, String studentId, int sectionId) throws SQLException {
+        try (PreparedStatement p = c.prepareStatement(RESERVE_SEAT_REASON_SQL)) {
+            p.setString(1, studentId); p.setString(2, studentId); p.setString(3, studentId); p.setInt(4, sectionId);
+            try (ResultSet rs = p.executeQuery()) {
+                if (!rs.next()) return SECTION_NOT_FOUND;
+                if (rs.getInt("in_section") > 0) return "Already registered in this section.";
+                if (rs.getInt("in_course") > 0) return "Already registered in another section of this course. You can only register for one section per course.";
+                if (rs.getString("clash_with") != null) return SCHEDULE_CLASH_PREFIX + rs.getString("clash_with") + ".";
+                return SECTION_FULL;
+            }
+        }
     }
 
+    public static final String RESERVE_SEAT_SQL =
+            "INSERT INTO enrollments (student_id, section_id, status) " +
+            "SELECT ?, s.section_id, 'ENROLLED' FROM sections s " +
+            "WHERE s.section_id = ? " +
+            "AND COALESCE((SELECT enrolled FROM section_stats ss WHERE ss.section_id = s.section_id), 0) < COALESCE(s.capacity, 0) " +
+            "AND NOT EXISTS (SELECT 1 FROM enrollments e JOIN sections o ON e.section_id = o.section_id " +
+            "WHERE e.student_id = ? AND o.course_code = s.course_code) " +
+            "AND NOT EXISTS (SELECT 1 FROM enrollments e JOIN sections o ON e.section_id = o.section_id " +
+            "WHERE e.student_id = ? AND " + SectionSlots.clashSql("o", "s") + ")";
+
+    public static final String RESERVE_SEAT_REASON_SQL =
+            "SELECT (SELECT COUNT(*) FROM enrollments e WHERE e.section_id = s.section_id AND e.student_id = ?) AS in_section, " +
+            "(SELECT COUNT(*) FROM enrollments e JOIN sections o ON e.section_id = o.section_id " +
+            "WHERE e.student_id = ? AND o.course_code = s.course_code) AS in_course, " +
+            "(SELECT o.course_code FROM enrollments e JOIN sections o ON e.section_id = o.section_id " +
+            "WHERE e.student_id = ? AND " + SectionSlots.clashSql("o", "s") + " LIMIT 1) AS clash_with " +
+            "FROM sections s WHERE s.section_id = ?";
+
+    /** Returned by registerCourse when the section overlaps one already taken, followed by that course code and a period. */
+    public static final String SCHEDULE_CLASH_PREFIX = "Schedule clash with ";
+
     public boolean dropCourse(String studentId, String sectionIdStr) {
         if (session != null && !"Admin".equalsIgnoreCase(session.getRole())) {
             String mapped = mappedStudentId();
             if (mapped == null || !mapped.equals(studentId)) return false;
         }
         int sectionId; try { sectionId = Integer.parseInt(sectionIdStr); } catch (NumberFormatException ex) { return false; }
-        try (Connection c = conn(); PreparedStatement p = c.prepareStatement("DELETE FROM enrollments WHERE student_id = ? AND section_id = ?")) { p.setString(1, studentId); p.setInt(2, sectionId); int rows = p.executeUpdate(); return rows > 0; } catch (SQLException ex) { return false; }
+        // An engine-owned seat may not be written yet; let it land before deleting it
+        RegistrationEngine engine = RegistrationEngine.active();
+        boolean owned = engine != null && engine.owns(sectionId);
+        if (owned) engine.awaitFlushed(10_000);
+        try {
+            // The freed seat goes to the head of the waitlist in the same transaction. In an
+            // engine-owned section only that one seat is handed on: the engine may have
+            // accepted rows for the others that are not written yet.
+            Waitlist.Promotion promotion = DatabaseConfig.write(c -> {
+                try (PreparedStatement p = c.prepareStatement("DELETE FROM enrollments WHERE student_id = ? AND section_id = ?")) {
+                    p.setString(1, studentId); p.setInt(2, sectionId);
+                    if (p.executeUpdate() == 0) return null;
+                }
+                StudentSummaries.invalidateOnCommit(studentId);
+                ChangeBus.publish(ChangeBus.Topic.ENROLLMENTS);
+                return Waitlist.promote(c, sectionId, owned ? 1 : Integer.MAX_VALUE);
+            });
+            if (promotion == null) return false;
+            if (engine != null) engine.release(studentId, sectionId, promotion.promoted);
+            // The skipped students have a notice; the log says why the seat went further down the queue
+            promotion.skipped.forEach((skipped, reason) -> System.err.println(
+                    "Waitlist: " + skipped + " skipped for section " + sectionId + " after a drop: " + reason));
+            return true;
+        } catch (SQLException ex) { return false; }
     }
 
+    /** Per-section totals from score_totals, with course details. */
+    public static final String GRADE_HISTORY_SQL = "SELECT t.section_id, sec.course_code, sec.title, COALESCE(c.credits, 4) AS credits, " +
+            "t.total AS final_score " +
+            "FROM score_totals t " +
+            "LEFT JOIN sections sec ON t.section_id = sec.section_id " +
+            "LEFT JOIN courses c ON sec.course_code = c.code " +
+            "WHERE t.student_id = ? " +
+            "ORDER BY t.section_id DESC";
+
     public java.util.List<String[]> getStudentGradeHistory(String studentId) {
         if (session != null && !"Admin".equalsIgnoreCase(session.getRole())) {
             String mapped = mappedStudentId();
             if (mapped == null || !mapped.equals(studentId)) return new ArrayList<>();
         }
         List<String[]> out = new ArrayList<>();
-        // Query assessments table to get the student's grades per section/course
-        String sql = "SELECT DISTINCT a.section_id, sec.course_code, sec.title, COALESCE(c.credits, 4) AS credits, " +
-                     "SUM(a.score) as final_score " +
-                     "FROM assessments a " +
-                     "LEFT JOIN sections sec ON a.section_id = sec.section_id " +
-                     "LEFT JOIN courses c ON sec.course_code = c.code " +
-                     "WHERE a.student_id = ? " +
-                     "GROUP BY a.section_id, sec.course_code, sec.title, c.credits " +
-                     "ORDER BY a.section_id DESC";
-        try (Connection c = conn(); PreparedStatement p = c.prepareStatement(sql)) {
+        try (Connection c = conn(); PreparedStatement p = c.prepareStatement(GRADE_HISTORY_SQL)) {
             p.setString(1, studentId);
             try (ResultSet rs = p.executeQuery()) {
                 while (rs.next()) {
@@ -407,7 +546,7 @@ public class StudentService {
         return "F";
     }
     
-    private double mapToGPA(double v) {
+    static double mapToGPA(double v) {
         if (v >= 90) return 10.0;
         if (v >= 80) return 9.0;
         if (v >= 70) return 8.0;
@@ -422,12 +561,6 @@ public class StudentService {
             String mapped = mappedStudentId();
             if (mapped == null || !mapped.equals(studentId)) return 0;
         }
-        try (Connection c = conn()) {
-            String[] candidates = new String[]{"payments","fees","transactions"};
-            for (String t : candidates) {
-                try (PreparedStatement p = c.prepareStatement("SELECT SUM(amount) FROM " + t + " WHERE student_id = ?")) { p.setString(1, studentId); try (ResultSet rs = p.executeQuery()) { if (rs.next()) return rs.getInt(1); } } catch (SQLException ignored) {}
-            }
-        } catch (SQLException ignored) {}
-        return 0;
+        return (int) feeBalance(studentId)[1];
     }
 }
@@ -0,0 +1,136 @@
+package student.services;
+
+import admin.dao.StudentDAO;
+import domain.Student;
+import domain.StudentSummary;
+import login.DatabaseConfig;
+import login.StudentChanges;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Per-student dashboard snapshots (profile, CGPA, course count, fees), each read with one
+ * query and kept for a short TTL.
+ *
+ * The TTL only bounds staleness from writers that don't announce themselves. Enrollment,
+ * assessment, grade, fee and profile writes announce the student from inside their write
+ * ({@link #invalidateOnCommit(String)} here, login.StudentChanges from the DAOs, which this
+ * class listens to), so the entry goes away once the change is committed and before the
+ * writer's caller returns. A load that raced with an invalidation of the same student (or of
+ * everyone) is returned but not kept; other students' invalidations don't affect it.
+ *
+ * Settings: erp.ui.summaryTtlMillis (default 10000; 0 disables caching).
+ */
+public final class StudentSummaries {
+    private static final long TTL_MILLIS = Math.max(0, Long.getLong("erp.ui.summaryTtlMillis", 10_000));
+
+    /**
+     * Everything in one statement: the id is bound once as a one-row table so course count and
+     * fees come back even without a students row; one result row per score_totals section.
+     */
+    public static final String SUMMARY_SQL =
+            "SELECT k.id AS student_id, s.id, s.name, s.email, s.section, s.status, s.degree, s.branch, s.year_of_study, s.admission_year, " +
+            "(SELECT COUNT(*) FROM enrollments e WHERE e.student_id = k.id) AS courses, " +
+            "COALESCE(fb.charged, 0) AS charged, COALESCE(fb.paid, 0) AS paid, t.total " +
+            "FROM (SELECT ? AS id) k " +
+            "LEFT JOIN students s ON s.id = k.id " +
+            "LEFT JOIN fee_balances fb ON fb.student_id = k.id " +
+            "LEFT JOIN score_totals t ON t.student_id = k.id";
+
+    private static final Map<String, StudentSummary> cache = new ConcurrentHashMap<>();
+    // Bumped per student by invalidate(id); epoch by invalidateAll(). Guarded by StudentSummaries.class
+    private static final Map<String, Long> versions = new HashMap<>();
+    private static long epoch;
+
+    static {
+        StudentChanges.listen(studentId -> {
+            if (studentId == null) invalidateAll(); else invalidate(studentId);
+        });
+    }
+
+    private StudentSummaries() {}
+
+    /** The student's snapshot, from the cache while it is younger than the TTL. */
+    public static StudentSummary get(String studentId) throws SQLException {
+        StudentSummary cached = cache.get(studentId);
+        if (cached != null && System.currentTimeMillis() - cached.getLoadedAtMillis() < TTL_MILLIS) return cached;
+        long startEpoch;
+        Long startVersion;
+        synchronized (StudentSummaries.class) {
+            startEpoch = epoch;
+            startVersion = versions.get(studentId);
+        }
+        StudentSummary fresh = load(studentId);
+        if (TTL_MILLIS > 0) {
+            synchronized (StudentSummaries.class) {
+                if (epoch == startEpoch && Objects.equals(versions.get(studentId), startVersion)) cache.put(studentId, fresh);
+            }
+        }
+        return fresh;
+    }
+
+    /** Read the snapshot from the database, bypassing the cache. */
+    public static StudentSummary load(String studentId) throws SQLException {
+        Student profile = null;
+        int courses = 0;
+        double charged = 0, paid = 0, totalGPA = 0;
+        int sections = 0;
+        boolean first = true;
+        try (Connection c = DatabaseConfig.getConnection(); PreparedStatement p = c.prepareStatement(SUMMARY_SQL)) {
+            p.setString(1, studentId);
+            try (ResultSet rs = p.executeQuery()) {
+                while (rs.next()) {
+                    if (first) {
+                        first = false;
+                        if (rs.getString("id") != null) profile = StudentDAO.mapRow(rs);
+                        courses = rs.getInt("courses");
+                        charged = rs.getDouble("charged");
+                        paid = rs.getDouble("paid");
+                    }
+                    if (rs.getObject("total") != null) {
+                        totalGPA += StudentService.mapToGPA(rs.getDouble("total"));
+                        sections++;
+                    }
+                }
+            }
+        }
+        double cgpa = sections == 0 ? 0.0 : Math.round(totalGPA / sections * 100.0) / 100.0;
+        return new StudentSummary(studentId, profile, cgpa, courses,
+                Math.max(0, (int) (charged - paid)), (int) paid, System.currentTimeMillis());
+    }
+
+    /** Drop the student's snapshot now. */
+    public static void invalidate(String studentId) {
+        if (studentId == null) return;
+        synchronized (StudentSummaries.class) {
+            versions.merge(studentId, 1L, Long::sum);
+            cache.remove(studentId);
+        }
+    }
+
+    /** Drop every snapshot; the per-student versions start over. */
+    public static void invalidateAll() {
+        synchronized (StudentSummaries.class) {
+            epoch++;
+            versions.clear();
+            cache.clear();
+        }
+    }
+
+    /** From inside DatabaseConfig.write: drop the student's snapshot once the write commits. */
+    public static void invalidateOnCommit(String studentId) {
+        DatabaseConfig.afterCommit(() -> invalidate(studentId));
+    }
+
+    /** Like {@link #invalidateOnCommit(String)} for changes that touch many or unknown students. */
+    public static void invalidateAllOnCommit() {
+        DatabaseConfig.afterCommit(StudentSummaries::invalidateAll);
+    }
+}
@@ -0,0 +1,118 @@
+package student.services;
+
+import login.ChangeBus;
+import login.SectionSlots;
+import login.StudentNotices;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Per-section FIFO waitlist, persisted in the waitlist table (created with section_stats,
+ * whose waitlisted column counts it).
+ *
+ * A student who finds a section full joins its waitlist. Whenever seats free up (a drop, a
+ * capacity increase) the writer transaction that freed them calls {@link #promote}, which
+ * moves students from the head of the queue into the section with the same conditional
+ * INSERT as a normal registration. Every method takes the caller's connection and is meant
+ * to run inside DatabaseConfig.write, so the whole change commits or rolls back together and
+ * concurrent drops are serialized by the writer.
+ */
+public final class Waitlist {
+
+    public static final String HEAD_SQL =
+            "SELECT waitlist_id, student_id FROM waitlist WHERE section_id = ? ORDER BY waitlist_id LIMIT 1";
+    public static final String FREE_SEATS_SQL =
+            "SELECT COALESCE(s.capacity, 0) - COALESCE(ss.enrolled, 0) FROM sections s "
+                    + "LEFT JOIN section_stats ss ON ss.section_id = s.section_id WHERE s.section_id = ?";
+    public static final String POSITION_SQL =
+            "SELECT (SELECT COUNT(*) FROM waitlist o WHERE o.section_id = w.section_id AND o.waitlist_id <= w.waitlist_id) "
+                    + "FROM waitlist w WHERE w.section_id = ? AND w.student_id = ?";
+
+    private Waitlist() {}
+
+    /** Put the student at the back of the section's waitlist (no-op if already on it). Returns their position. */
+    public static int join(Connection c, String studentId, int sectionId) throws SQLException {
+        try (PreparedStatement p = c.prepareStatement("INSERT OR IGNORE INTO waitlist (section_id, student_id) VALUES (?, ?)")) {
+            p.setInt(1, sectionId); p.setString(2, studentId);
+            p.executeUpdate();
+        }
+        return position(c, studentId, sectionId);
+    }
+
+    /** 1-based position in the section's waitlist, or 0 when the student is not on it. */
+    public static int position(Connection c, String studentId, int sectionId) throws SQLException {
+        try (PreparedStatement p = c.prepareStatement(POSITION_SQL)) {
+            p.setInt(1, sectionId); p.setString(2, studentId);
+            try (ResultSet rs = p.executeQuery()) { return rs.next() ? rs.getInt(1) : 0; }
+        }
+    }
+
+    public static boolean leave(Connection c, String studentId, int sectionId) throws SQLException {
+        try (PreparedStatement p = c.prepareStatement("DELETE FROM waitlist WHERE section_id = ? AND student_id = ?")) {
+            p.setInt(1, sectionId); p.setString(2, studentId);
+            return p.executeUpdate() > 0;
+        }
+    }
+
+    /** Outcome of {@link #promote}: who got a seat, and who was taken off the queue instead and why. */
+    public static final class Promotion {
+        public final List<String> promoted = new ArrayList<>();
+        /** Student id to the registration refusal, in queue order. */
+        public final Map<String, String> skipped = new LinkedHashMap<>();
+    }
+
+    /**
+     * Fill up to maxSeats free seats of the section from the head of its waitlist. Each seat
+     * costs one indexed head read, one insert and one delete. A head entry that can no longer
+     * register (e.g. the student took another section of the course, or a class at the same
+     * time, meanwhile) is removed with a login.StudentNotices row giving the reason, reported
+     * in {@link Promotion#skipped}, and the next one tried. If the section itself refuses
+     * (full, gone) the queue is left as it is.
+     */
+    public static Promotion promote(Connection c, int sectionId, int maxSeats) throws SQLException {
+        Promotion result = new Promotion();
+        int free;
+        try (PreparedStatement p = c.prepareStatement(FREE_SEATS_SQL)) {
+            p.setInt(1, sectionId);
+            try (ResultSet rs = p.executeQuery()) { free = rs.next() ? Math.min(maxSeats, rs.getInt(1)) : 0; }
+        }
+        if (free <= 0) return result;
+        SectionSlots.sync(c);
+        try (PreparedStatement head = c.prepareStatement(HEAD_SQL);
+             PreparedStatement remove = c.prepareStatement("DELETE FROM waitlist WHERE waitlist_id = ?");
+             PreparedStatement reserve = c.prepareStatement(StudentService.RESERVE_SEAT_SQL)) {
+            while (result.promoted.size() < free) {
+                long waitlistId;
+                String studentId;
+                head.setInt(1, sectionId);
+                try (ResultSet rs = head.executeQuery()) {
+                    if (!rs.next()) break;
+                    waitlistId = rs.getLong(1);
+                    studentId = rs.getString(2);
+                }
+                reserve.setString(1, studentId); reserve.setInt(2, sectionId); reserve.setString(3, studentId); reserve.setString(4, studentId);
+                if (reserve.executeUpdate() == 1) {
+                    result.promoted.add(studentId);
+                    StudentSummaries.invalidateOnCommit(studentId);
+                } else {
+                    String reason = StudentService.refusalReason(c, studentId, sectionId);
+                    if (reason.equals(StudentService.SECTION_FULL) || reason.equals(StudentService.SECTION_NOT_FOUND)) break;
+                    result.skipped.put(studentId, reason);
+                    StudentNotices.add(c, studentId, sectionId,
+                            "You were taken off the waitlist for section " + sectionId + ": " + reason);
+                }
+                remove.setLong(1, waitlistId);
+                remove.executeUpdate();
+            }
+        }
+        if (!result.promoted.isEmpty()) ChangeBus.publish(ChangeBus.Topic.ENROLLMENTS);
+        return result;
+    }
+}
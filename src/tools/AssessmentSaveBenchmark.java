@@ -0,0 +1,198 @@
+package tools;
+
+import instructor.dao.AssessmentDAO;
+import login.DBMigration;
+import login.DatabaseConfig;
+import login.QueryScope;
+import login.ScoreTotals;
+import login.SqlStats;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Saving the instructor's Scores grid: one UPDATE-then-INSERT write per cell, as
+ * AssessmentDAO.saveAssessment did, against AssessmentDAO.saveAssessments (one batched
+ * upsert in one transaction per section). Saves a single 200-student column and then the
+ * whole grid, first new and then with a third of the scores changed; both ways must leave
+ * the same rows, and score_totals must still match assessments. Reports milliseconds,
+ * statements and transactions per save.
+ *
+ * Also checks the core.011 migration on a table with duplicates: only the latest recording
+ * of each (section, student, type) is kept and the totals follow.
+ *
+ * Exit status is 1 on any difference. Runs against a scratch database in a temp directory;
+ * erp.db is never touched.
+ *
+ * Usage: java -cp "lib/*:." tools.AssessmentSaveBenchmark [students=200] [types=4]
+ */
+public class AssessmentSaveBenchmark {
+    private static final int PER_CELL = 1;
+    private static final int BATCHED = 2;
+
+    public static void main(String[] args) throws Exception {
+        int students = args.length > 0 ? Integer.parseInt(args[0]) : 200;
+        int typeCount = args.length > 1 ? Integer.parseInt(args[1]) : 4;
+        List<String> types = new ArrayList<>();
+        for (int t = 0; t < typeCount; t++) types.add("Type " + (t + 1));
+
+        ToolDatabase.scratch("erp-assessment-save", "save.db");
+        QueryScope.setMode(QueryScope.Mode.OFF);
+
+        int bad = checkMigration();
+        AssessmentDAO dao = new AssessmentDAO();
+
+        List<String> oneColumn = types.subList(0, 1);
+        System.out.printf("%d students x %d types%n", students, typeCount);
+        String[][] saves = {{"one column, new", "0"}, {"whole grid, new", "0"}, {"whole grid, a third changed", "1"}};
+        for (String[] save : saves) {
+            List<String> cols = save[0].startsWith("one") ? oneColumn : types;
+            int round = Integer.parseInt(save[1]);
+            List<AssessmentDAO.Entry> grid = grid(students, cols, round);
+            Run perCell = time(() -> { for (AssessmentDAO.Entry e : grid) saveOneCell(PER_CELL, e); return grid.size(); });
+            Run batched = time(() -> dao.saveAssessments(BATCHED, grid));
+            System.out.printf("%-28s per cell %8.2f ms %6d statements %5d transactions | batched %7.2f ms %4d statements %d transaction, %d written (%.0fx)%n",
+                    save[0], perCell.millis, perCell.statements, grid.size(), batched.millis, batched.statements, 1, batched.result, perCell.millis / batched.millis);
+            bad += compare();
+        }
+
+        try (Connection c = DatabaseConfig.getConnection()) {
+            List<String> drift = ScoreTotals.verify(c, 1e-6);
+            for (String d : drift.subList(0, Math.min(5, drift.size()))) System.out.println("  score_totals: " + d);
+            bad += drift.size();
+        }
+
+        ToolDatabase.release();
+        if (bad > 0) {
+            System.out.println("FAILED: " + bad + " difference(s)");
+            System.exit(1);
+        }
+        System.out.println("OK: batched upserts leave the same rows as per-cell saves, totals consistent");
+    }
+
+    interface Save {
+        int save() throws Exception;
+    }
+
+    static final class Run {
+        double millis;
+        long statements;
+        int result;
+    }
+
+    private static Run time(Save save) throws Exception {
+        long calls0 = totalCalls();
+        long t0 = System.nanoTime();
+        Run r = new Run();
+        r.result = save.save();
+        r.millis = (System.nanoTime() - t0) / 1e6;
+        r.statements = totalCalls() - calls0;
+        return r;
+    }
+
+    /** The grid's non-empty cells; later rounds change every third score. */
+    private static List<AssessmentDAO.Entry> grid(int students, List<String> types, int round) {
+        List<AssessmentDAO.Entry> out = new ArrayList<>();
+        for (int i = 1; i <= students; i++) {
+            for (int t = 0; t < types.size(); t++) {
+                if ((i + t) % 9 == 0) continue; // left empty
+                double score = (i * 7 + t * 13) % 50 / 2.0 + (round > 0 && i % 3 == 0 ? round : 0);
+                out.add(new AssessmentDAO.Entry(String.format("S%04d", i), types.get(t), score));
+            }
+        }
+        return out;
+    }
+
+    /** saveAssessment before the bulk API: its own write, UPDATE first and INSERT when nothing matched. */
+    private static void saveOneCell(int sectionId, AssessmentDAO.Entry e) throws SQLException {
+        DatabaseConfig.write(c -> {
+            try (PreparedStatement p = c.prepareStatement("UPDATE assessments SET score = ? WHERE section_id = ? AND student_id = ? AND assessment_type = ?")) {
+                p.setDouble(1, e.score); p.setInt(2, sectionId); p.setString(3, e.studentId); p.setString(4, e.type);
+                if (p.executeUpdate() == 0) {
+                    try (PreparedStatement i = c.prepareStatement("INSERT INTO assessments (section_id, student_id, assessment_type, score) VALUES (?, ?, ?, ?)")) {
+                        i.setInt(1, sectionId); i.setString(2, e.studentId); i.setString(3, e.type); i.setDouble(4, e.score);
+                        i.executeUpdate();
+                    }
+                }
+            }
+            return null;
+        });
+    }
+
+    /** Rows of the two sections must be the same apart from the section id. */
+    private static int compare() throws SQLException {
+        String diff = "SELECT student_id, assessment_type, score FROM assessments WHERE section_id = ? "
+                + "EXCEPT SELECT student_id, assessment_type, score FROM assessments WHERE section_id = ?";
+        int bad = 0;
+        try (Connection c = DatabaseConfig.getConnection(); PreparedStatement p = c.prepareStatement(diff)) {
+            for (int[] pair : new int[][]{{PER_CELL, BATCHED}, {BATCHED, PER_CELL}}) {
+                p.setInt(1, pair[0]);
+                p.setInt(2, pair[1]);
+                try (ResultSet rs = p.executeQuery()) {
+                    while (rs.next()) {
+                        if (bad++ < 5) System.out.println("  only in section " + pair[0] + ": " + rs.getString(1) + " " + rs.getString(2) + " = " + rs.getDouble(3));
+                    }
+                }
+            }
+        }
+        return bad;
+    }
+
+    /** Duplicates written before the unique key: re-running core.011 keeps the latest of each. */
+    private static int checkMigration() throws Exception {
+        DatabaseConfig.write(c -> {
+            try (Statement s = c.createStatement()) {
+                s.execute("DROP INDEX ux_assessments_key");
+                s.execute("INSERT INTO assessments (section_id, student_id, assessment_type, score, recorded_at) VALUES "
+                        + "(9, 'D1', 'Quiz', 5, '2025-10-01 10:00:00'), (9, 'D1', 'Quiz', 7, '2025-10-02 10:00:00'), "
+                        + "(9, 'D1', 'Quiz', 6, '2025-09-30 10:00:00'), (9, 'D1', 'Midterm', 20, '2025-10-01 10:00:00'), "
+                        + "(9, 'D2', 'Quiz', 3, '2025-10-01 10:00:00'), (9, 'D2', 'Quiz', 4, '2025-10-01 10:00:01')");
+                s.execute("DELETE FROM schema_migrations WHERE version = 'core.011_assessment_key'");
+            }
+            return null;
+        });
+        DBMigration.ensureSchemaUpToDate();
+
+        int bad = 0;
+        String[][] expected = {{"D1", "Midterm", "20.0"}, {"D1", "Quiz", "7.0"}, {"D2", "Quiz", "4.0"}};
+        List<String[]> rows = new ArrayList<>();
+        try (Connection c = DatabaseConfig.getConnection(); Statement s = c.createStatement();
+             ResultSet rs = s.executeQuery("SELECT student_id, assessment_type, score FROM assessments WHERE section_id = 9 ORDER BY student_id, assessment_type")) {
+            while (rs.next()) rows.add(new String[]{rs.getString(1), rs.getString(2), String.valueOf(rs.getDouble(3))});
+        }
+        boolean same = rows.size() == expected.length;
+        for (int i = 0; same && i < expected.length; i++) same = Arrays.equals(rows.get(i), expected[i]);
+        if (!same) {
+            System.out.print("  core.011 left:");
+            for (String[] r : rows) System.out.print(" " + String.join("/", r));
+            System.out.println();
+            bad++;
+        }
+        try (Connection c = DatabaseConfig.getConnection(); Statement s = c.createStatement()) {
+            try (ResultSet rs = s.executeQuery("SELECT COUNT(*) FROM sqlite_master WHERE type = 'index' AND name = 'ux_assessments_key'")) {
+                if (!rs.next() || rs.getInt(1) != 1) {
+                    System.out.println("  core.011 did not recreate ux_assessments_key");
+                    bad++;
+                }
+            }
+            List<String> drift = ScoreTotals.verify(c, 1e-6);
+            if (!drift.isEmpty()) {
+                System.out.println("  score_totals after dedupe: " + drift.get(0));
+                bad++;
+            }
+        }
+        return bad;
+    }
+
+    private static long totalCalls() {
+        long n = 0;
+        for (SqlStats.Snapshot s : SqlStats.snapshot()) n += s.calls;
+        return n;
+    }
+}
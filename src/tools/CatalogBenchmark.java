@@ -0,0 +1,243 @@
+package tools;
+
+import domain.Course;
+import login.DatabaseConfig;
+import login.QueryScope;
+import login.SqlStats;
+import student.services.StudentService;
+
+import java.io.File;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Student course catalog: the old per-section loop (two COUNTs per section, two per offered
+ * course) against StudentService.getCourseCatalogForStudent, at several catalog sizes.
+ * Reports statements and milliseconds per load and checks both return the same courses.
+ * Exit status is 1 if they differ.
+ *
+ * Runs against scratch databases in a temp directory; erp.db is never touched.
+ *
+ * Usage: java -cp "lib/*:." tools.CatalogBenchmark [sections...]   (default: 100 5000)
+ */
+public class CatalogBenchmark {
+    private static final int STUDENTS = 300;
+    private static final String STUDENT = "S1";
+
+    public static void main(String[] args) throws Exception {
+        int[] sizes = args.length == 0 ? new int[]{100, 5000} : new int[args.length];
+        for (int i = 0; i < args.length; i++) sizes[i] = Integer.parseInt(args[i]);
+        File dir = ToolDatabase.scratchDirectory("erp-catalog");
+        // Per-row queries are the point of the old version; don't report them as N+1 here
+        QueryScope.setMode(QueryScope.Mode.OFF);
+
+        boolean same = true;
+        for (int sections : sizes) {
+            ToolDatabase.use(new File(dir, "catalog-" + sections + ".db"));
+            seed(sections);
+            StudentService service = new StudentService(null);
+
+            int iterations = Math.max(3, 20000 / sections);
+            Run legacy = measure(iterations, CatalogBenchmark::legacyCatalog);
+            Run current = measure(iterations, () -> service.getCourseCatalogForStudent(STUDENT));
+            System.out.printf("%5d sections: old %8.2f ms/load %6d statements/load | single query %7.2f ms/load %3d statements/load | %.1fx%n",
+                    sections, legacy.millis, legacy.statements, current.millis, current.statements, legacy.millis / current.millis);
+            List<String> a = describe(legacy.result), b = describe(current.result);
+            if (!a.equals(b)) {
+                same = false;
+                System.out.printf("  MISMATCH: old returned %d courses, new %d%n", a.size(), b.size());
+                for (int i = 0; i < Math.min(a.size(), b.size()); i++) {
+                    if (!a.get(i).equals(b.get(i))) {
+                        System.out.println("    first difference: " + a.get(i) + "  vs  " + b.get(i));
+                        break;
+                    }
+                }
+            } else {
+                System.out.printf("  same %d courses from both%n", a.size());
+            }
+            ToolDatabase.release();
+        }
+        if (!same) System.exit(1);
+    }
+
+    interface Load {
+        List<Course> load() throws Exception;
+    }
+
+    static final class Run {
+        double millis;
+        long statements;
+        List<Course> result;
+    }
+
+    private static Run measure(int iterations, Load load) throws Exception {
+        load.load(); // warm the statement cache
+        Run r = new Run();
+        long calls0 = totalCalls();
+        long t0 = System.nanoTime();
+        for (int i = 0; i < iterations; i++) r.result = load.load();
+        r.millis = (System.nanoTime() - t0) / 1e6 / iterations;
+        r.statements = (totalCalls() - calls0) / iterations;
+        return r;
+    }
+
+    private static long totalCalls() {
+        long n = 0;
+        for (SqlStats.Snapshot s : SqlStats.snapshot()) n += s.calls;
+        return n;
+    }
+
+    private static List<String> describe(List<Course> courses) {
+        List<String> out = new ArrayList<>();
+        for (Course c : courses) {
+            out.add(String.join("|", c.getSectionId(), c.getCourseCode(), String.valueOf(c.getTitle()), String.valueOf(c.getCredits()),
+                    String.valueOf(c.getInstructorName()), c.getSchedule(), String.valueOf(c.getEnrolled()), String.valueOf(c.getCapacity()), c.getStatus()));
+        }
+        return out;
+    }
+
+    /**
+     * Sections in pairs per course; offerings for CSE year 2 on every other course plus a few
+     * for ALL; S1 (CSE, 2nd year) and the other students enrolled across the catalog. Times
+     * are TBA: the old path knows nothing of timetable clashes.
+     */
+    private static void seed(int sections) throws SQLException {
+        int courses = Math.max(1, sections / 2);
+        DatabaseConfig.write(c -> {
+            try (PreparedStatement crs = c.prepareStatement("INSERT OR REPLACE INTO courses (id, name, code, course_code, credits, status) VALUES (?, ?, ?, ?, ?, 'Active')");
+                 PreparedStatement off = c.prepareStatement("INSERT OR IGNORE INTO offerings (course_code, branch, year) VALUES (?, ?, ?)");
+                 PreparedStatement sec = c.prepareStatement("INSERT OR REPLACE INTO sections (section_id, course_code, title, instructor_id, term, year, day_time, room, capacity) VALUES (?, ?, ?, ?, 'Fall', 2025, 'TBA', ?, 40)");
+                 PreparedStatement stu = c.prepareStatement("INSERT OR REPLACE INTO students (id, name, email, section, status, branch, year_of_study) VALUES (?, ?, ?, 'A', 'Active', 'CSE', '2nd')");
+                 PreparedStatement enr = c.prepareStatement("INSERT OR IGNORE INTO enrollments (student_id, section_id, status) VALUES (?, ?, 'ENROLLED')")) {
+                for (int i = 1; i <= courses; i++) {
+                    String code = "C" + i;
+                    crs.setString(1, code); crs.setString(2, "Course " + i); crs.setString(3, code); crs.setString(4, code); crs.setInt(5, 2 + i % 3);
+                    crs.addBatch();
+                    if (i % 2 == 0) { off.setString(1, code); off.setString(2, "CSE"); off.setInt(3, 2); off.addBatch(); }
+                    if (i % 10 == 1) { off.setString(1, code); off.setString(2, "ALL"); off.setInt(3, 0); off.addBatch(); }
+                }
+                for (int id = 1; id <= sections; id++) {
+                    sec.setInt(1, id); sec.setString(2, "C" + (1 + (id - 1) % courses)); sec.setString(3, "Course " + id + " - Section " + (id % 2 == 0 ? "B" : "A"));
+                    sec.setString(4, "I" + (id % 20)); sec.setString(5, "R" + (id % 30));
+                    sec.addBatch();
+                }
+                for (int i = 1; i <= STUDENTS; i++) {
+                    stu.setString(1, "S" + i); stu.setString(2, "Student " + i); stu.setString(3, "s" + i + "@example.edu");
+                    stu.addBatch();
+                    // At most one section per course, as registration enforces
+                    for (int k = 0; k < 6; k++) {
+                        int course = (i * 7 + k * 131) % courses;
+                        int section = 1 + course + (i % 2 == 0 && course + courses < sections ? courses : 0);
+                        enr.setString(1, "S" + i); enr.setInt(2, section);
+                        enr.addBatch();
+                    }
+                }
+                crs.executeBatch();
+                off.executeBatch();
+                sec.executeBatch();
+                stu.executeBatch();
+                enr.executeBatch();
+            }
+            return null;
+        });
+    }
+
+    /** The catalog as it was loaded before the single-query version, kept here as the reference. */
+    private static List<Course> legacyCatalog() throws SQLException {
+        List<Course> out = new ArrayList<>();
+        Integer studentYearInt = null;
+        String studentBranchStr = null;
+        try (Connection c = DatabaseConfig.getConnection(); PreparedStatement sp = c.prepareStatement("SELECT year_of_study, branch FROM students WHERE id = ?")) {
+            sp.setString(1, STUDENT);
+            try (ResultSet rs = sp.executeQuery()) {
+                if (rs.next()) {
+                    String yearRaw = rs.getString("year_of_study");
+                    if (yearRaw != null) {
+                        Matcher m = Pattern.compile("(\\d+)").matcher(yearRaw);
+                        if (m.find()) studentYearInt = Integer.parseInt(m.group(1));
+                    }
+                    studentBranchStr = rs.getString("branch");
+                }
+            }
+        }
+        Set<String> cohort = new HashSet<>();
+        if (studentBranchStr != null) {
+            try (Connection c = DatabaseConfig.getConnection(); PreparedStatement p = c.prepareStatement(
+                    "SELECT DISTINCT course_code FROM offerings WHERE (UPPER(branch) = ? OR UPPER(branch) = 'ALL') AND (year = ? OR year = 0)")) {
+                p.setString(1, studentBranchStr.toUpperCase());
+                p.setInt(2, studentYearInt == null ? 0 : studentYearInt);
+                try (ResultSet rs = p.executeQuery()) {
+                    while (rs.next()) {
+                        String cc = rs.getString(1);
+                        if (cc != null && !cc.isEmpty()) cohort.add(cc);
+                    }
+                }
+            }
+        }
+        boolean offersExist;
+        try (Connection c = DatabaseConfig.getConnection(); PreparedStatement p = c.prepareStatement("SELECT COUNT(*) FROM offerings");
+             ResultSet rs = p.executeQuery()) {
+            offersExist = rs.next() && rs.getInt(1) > 0;
+        }
+        try (Connection c = DatabaseConfig.getConnection();
+             PreparedStatement p = c.prepareStatement("SELECT section_id, course_code, title, term, day_time, room, capacity, instructor_id FROM sections ORDER BY section_id");
+             ResultSet rs = p.executeQuery()) {
+            while (rs.next()) {
+                int sectionId = rs.getInt("section_id");
+                String code = rs.getString("course_code");
+                String schedule = rs.getString("day_time") + " @ " + rs.getString("room");
+                int capacity = rs.getInt("capacity");
+                int enrolled = 0;
+                try (PreparedStatement q = c.prepareStatement("SELECT COUNT(*) FROM enrollments WHERE section_id = ?")) {
+                    q.setInt(1, sectionId);
+                    try (ResultSet er = q.executeQuery()) { if (er.next()) enrolled = er.getInt(1); }
+                }
+                boolean registered = false;
+                try (PreparedStatement q = c.prepareStatement("SELECT COUNT(*) FROM enrollments WHERE section_id = ? AND student_id = ?")) {
+                    q.setInt(1, sectionId);
+                    q.setString(2, STUDENT);
+                    try (ResultSet er = q.executeQuery()) { if (er.next()) registered = er.getInt(1) > 0; }
+                }
+                String status = registered ? "Registered" : (enrolled < capacity ? "Open" : "Full");
+                if (!offersExist || cohort.contains(code)) {
+                    out.add(new Course(sectionId, code, rs.getString("title"), 3, rs.getString("instructor_id"), schedule, enrolled, capacity, status));
+                }
+            }
+        }
+        try (Connection c = DatabaseConfig.getConnection(); PreparedStatement p = c.prepareStatement(
+                "SELECT o.course_code, COALESCE(c.name, o.course_code) AS name, COALESCE(c.credits,4) AS credits " +
+                "FROM offerings o LEFT JOIN courses c ON o.course_code = c.code " +
+                "WHERE (UPPER(o.branch) = ? OR UPPER(o.branch) = 'ALL') AND (o.year = ? OR o.year = 0) ORDER BY o.rowid")) {
+            p.setString(1, studentBranchStr == null ? null : studentBranchStr.toUpperCase());
+            p.setInt(2, studentYearInt == null ? 0 : studentYearInt);
+            try (ResultSet rs = p.executeQuery()) {
+                while (rs.next()) {
+                    String code = rs.getString("course_code");
+                    int credits = rs.getInt("credits");
+                    if (credits == 0) credits = 4;
+                    int enrolled = 0;
+                    try (PreparedStatement r = c.prepareStatement("SELECT COUNT(DISTINCT e.student_id) FROM enrollments e JOIN sections s ON e.section_id = s.section_id WHERE s.course_code = ?")) {
+                        r.setString(1, code);
+                        try (ResultSet er = r.executeQuery()) { if (er.next()) enrolled = er.getInt(1); }
+                    }
+                    boolean registered = false;
+                    try (PreparedStatement r = c.prepareStatement("SELECT COUNT(*) FROM enrollments e JOIN sections s ON e.section_id = s.section_id WHERE s.course_code = ? AND e.student_id = ?")) {
+                        r.setString(1, code);
+                        r.setString(2, STUDENT);
+                        try (ResultSet er = r.executeQuery()) { if (er.next()) registered = er.getInt(1) > 0; }
+                    }
+                    out.add(new Course(-1, code, rs.getString("name"), credits, "Staff", "TBA", enrolled, 100, registered ? "Registered" : "Open"));
+                }
+            }
+        }
+        return out;
+    }
+}
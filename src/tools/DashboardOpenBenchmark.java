@@ -0,0 +1,204 @@
+package tools;
+
+import domain.Student;
+import domain.StudentSummary;
+import domain.UserSession;
+import instructor.dao.AssessmentDAO;
+import login.DatabaseConfig;
+import login.FeeLedger;
+import login.QueryScope;
+import login.SqlStats;
+import student.services.StudentService;
+import student.services.StudentSummaries;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Student dashboard open path: the five separate StudentService calls the summary cards used
+ * to make (profile, CGPA, course count, fees due, fees paid) against one StudentSummary,
+ * loaded cold (cache dropped before every open) and warm (served from the cache). Reports
+ * milliseconds and statements per open, checks all three agree for every student, and
+ * checks that an assessment, a fee payment and a drop each show in the next summary.
+ * Exit status is 1 on any difference.
+ *
+ * Runs against a scratch database in a temp directory; erp.db is never touched.
+ *
+ * Usage: java -cp "lib/*:." tools.DashboardOpenBenchmark [students=500]
+ */
+public class DashboardOpenBenchmark {
+    private static final int SECTIONS = 60;
+    private static final int COURSES_EACH = 6;
+    private static final String[] TYPES = {"Quiz", "Midterm", "Endsem"};
+
+    public static void main(String[] args) throws Exception {
+        int students = args.length > 0 ? Integer.parseInt(args[0]) : 500;
+        ToolDatabase.scratch("erp-dashboard", "dashboard.db");
+        // Several statements per open is what the old path does; don't report it as N+1
+        QueryScope.setMode(QueryScope.Mode.OFF);
+        seed(students);
+        StudentSummaries.invalidateAll();
+
+        List<StudentService> services = new ArrayList<>();
+        for (int i = 1; i <= students; i++) services.add(new StudentService(new UserSession(i, id(i), "Student")));
+        for (int i = 0; i < students; i++) services.get(i).getStudentProfile(null); // resolve and bind each session
+
+        int bad = 0;
+        for (int i = 0; i < students; i++) {
+            String old = describe(separateCalls(services.get(i), id(i + 1)));
+            StudentSummary s = services.get(i).getStudentSummary(null);
+            String now = describe(s);
+            if (!old.equals(now)) {
+                if (bad++ < 5) System.out.println("  MISMATCH " + id(i + 1) + ": separate calls " + old + ", summary " + now);
+            }
+        }
+
+        Run separate = measure("five separate calls", services, i -> separateCalls(services.get(i), id(i + 1)), false);
+        Run cold = measure("summary, cold", services, i -> services.get(i).getStudentSummary(null), true);
+        Run warm = measure("summary, warm", services, i -> services.get(i).getStudentSummary(null), false);
+        for (Run r : new Run[]{separate, cold, warm}) {
+            System.out.printf("%-20s %7.3f ms/open (p95 %7.3f) %5.1f statements/open%n", r.name, r.meanMillis, r.p95Millis, r.statements);
+        }
+        System.out.printf("cold summary %.1fx, warm %.0fx faster than separate calls%n",
+                separate.meanMillis / cold.meanMillis, separate.meanMillis / warm.meanMillis);
+
+        bad += checkInvalidation(services.get(0), id(1));
+        ToolDatabase.release();
+        if (bad > 0) {
+            System.out.println("FAILED: " + bad + " difference(s)");
+            System.exit(1);
+        }
+        System.out.println("OK: summaries match the separate calls and follow writes immediately");
+    }
+
+    interface Open {
+        Object open(int student) throws Exception;
+    }
+
+    static final class Run {
+        String name;
+        double meanMillis;
+        double p95Millis;
+        double statements;
+    }
+
+    /** Opens every student's dashboard once untimed, then a few rounds timed; cold drops the cache before each open. */
+    private static Run measure(String name, List<StudentService> services, Open open, boolean cold) throws Exception {
+        int rounds = 5;
+        int n = services.size();
+        long[] nanos = new long[n * rounds];
+        for (int i = 0; i < n; i++) open.open(i); // warm up; fills the cache for the warm run
+        long calls0 = totalCalls();
+        for (int r = 0; r < rounds; r++) {
+            for (int i = 0; i < n; i++) {
+                if (cold) StudentSummaries.invalidateAll();
+                long t0 = System.nanoTime();
+                open.open(i);
+                nanos[r * n + i] = System.nanoTime() - t0;
+            }
+        }
+        Run run = new Run();
+        run.name = name;
+        run.statements = (double) (totalCalls() - calls0) / nanos.length;
+        run.meanMillis = Arrays.stream(nanos).average().orElse(0) / 1e6;
+        Arrays.sort(nanos);
+        run.p95Millis = nanos[(int) (nanos.length * 0.95)] / 1e6;
+        return run;
+    }
+
+    /** What the dashboard did before StudentSummary, as one StudentSummary for comparison. */
+    private static StudentSummary separateCalls(StudentService service, String studentId) {
+        Student profile = service.getStudentProfile(null);
+        return new StudentSummary(studentId, profile, service.getCurrentCGPA(studentId), service.getRegisteredCoursesCount(studentId),
+                service.getFeesDue(studentId), service.getFeesPaid(studentId), 0);
+    }
+
+    private static String describe(StudentSummary s) {
+        if (s == null) return "null";
+        Student p = s.getProfile();
+        return String.format("[%s %s cgpa=%.2f courses=%d due=%d paid=%d]", p == null ? "-" : p.getId(), p == null ? "-" : p.getName(),
+                s.getCgpa(), s.getRegisteredCourses(), s.getFeesDue(), s.getFeesPaid());
+    }
+
+    /** Warm the cache, write, and expect the very next summary to show the write. */
+    private static int checkInvalidation(StudentService service, String studentId) throws SQLException {
+        int bad = 0;
+        StudentSummary before = service.getStudentSummary(null);
+        new AssessmentDAO().saveAssessment(1_000, studentId, "Quiz", 95);
+        StudentSummary after = service.getStudentSummary(null);
+        if (after.getCgpa() == before.getCgpa()) {
+            System.out.println("  assessment write not reflected: CGPA still " + after.getCgpa());
+            bad++;
+        }
+        DatabaseConfig.write(c -> FeeLedger.post(c, studentId, FeeLedger.PAYMENT, 1_000, "benchmark"));
+        StudentSummary paid = service.getStudentSummary(null);
+        if (paid.getFeesPaid() != after.getFeesPaid() + 1_000) {
+            System.out.println("  payment not reflected: paid " + after.getFeesPaid() + " -> " + paid.getFeesPaid());
+            bad++;
+        }
+        String section = String.valueOf(section(1, 0));
+        if (!service.dropCourse(studentId, section)) {
+            System.out.println("  drop of section " + section + " failed");
+            bad++;
+        }
+        StudentSummary dropped = service.getStudentSummary(null);
+        if (dropped.getRegisteredCourses() != paid.getRegisteredCourses() - 1) {
+            System.out.println("  drop not reflected: courses " + paid.getRegisteredCourses() + " -> " + dropped.getRegisteredCourses());
+            bad++;
+        }
+        return bad;
+    }
+
+    private static long totalCalls() {
+        long n = 0;
+        for (SqlStats.Snapshot s : SqlStats.snapshot()) n += s.calls;
+        return n;
+    }
+
+    private static String id(int i) {
+        return "S" + i;
+    }
+
+    private static int section(int student, int k) {
+        return 1 + (student * 7 + k * 11) % SECTIONS;
+    }
+
+    /** Sections for distinct courses; every student in COURSES_EACH of them, scored, charged and partly paid. */
+    private static void seed(int students) throws SQLException {
+        DatabaseConfig.write(c -> {
+            try (PreparedStatement sec = c.prepareStatement("INSERT INTO sections (section_id, course_code, title, instructor_id, term, year, day_time, room, capacity) VALUES (?, ?, ?, 'I1', 'Fall', 2025, 'Mon 10:00', 'R1', 1000)");
+                 PreparedStatement stu = c.prepareStatement("INSERT OR REPLACE INTO students (id, name, email, section, status, branch, year_of_study) VALUES (?, ?, ?, 'A', 'Active', 'CSE', '2')");
+                 PreparedStatement enr = c.prepareStatement("INSERT OR IGNORE INTO enrollments (student_id, section_id, status) VALUES (?, ?, 'ENROLLED')");
+                 PreparedStatement asm = c.prepareStatement("INSERT INTO assessments (section_id, student_id, assessment_type, score) VALUES (?, ?, ?, ?)")) {
+                for (int id = 1; id <= SECTIONS; id++) {
+                    sec.setInt(1, id); sec.setString(2, "C" + id); sec.setString(3, "Course " + id);
+                    sec.addBatch();
+                }
+                sec.executeBatch();
+                for (int i = 1; i <= students; i++) {
+                    stu.setString(1, id(i)); stu.setString(2, "Student " + i); stu.setString(3, id(i) + "@example.edu");
+                    stu.addBatch();
+                    for (int k = 0; k < COURSES_EACH; k++) {
+                        enr.setString(1, id(i)); enr.setInt(2, section(i, k));
+                        enr.addBatch();
+                        // Scores on all but the last course, spread over the grade bands
+                        for (int t = 0; k < COURSES_EACH - 1 && t < TYPES.length; t++) {
+                            asm.setInt(1, section(i, k)); asm.setString(2, id(i)); asm.setString(3, TYPES[t]);
+                            asm.setDouble(4, (i * 13 + k * 29 + t * 7) % 40 + 0.5);
+                            asm.addBatch();
+                        }
+                    }
+                    FeeLedger.post(c, id(i), FeeLedger.CHARGE, 150_000, "Tuition");
+                    if (i % 3 != 0) FeeLedger.post(c, id(i), FeeLedger.PAYMENT, i % 3 == 1 ? 150_000 : 75_000, "Payment");
+                }
+                stu.executeBatch();
+                enr.executeBatch();
+                asm.executeBatch();
+            }
+            return null;
+        });
+    }
+}
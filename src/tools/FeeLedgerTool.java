@@ -0,0 +1,49 @@
+package tools;
+
+import login.DatabaseConfig;
+import login.FeeLedger;
+
+import java.io.File;
+import java.sql.Connection;
+import java.util.List;
+
+/**
+ * Checks or repairs the fee_balances totals against the fee_ledger entries.
+ *
+ * verify (default) lists every student whose charged / paid totals differ from the sums over
+ * their ledger entries and exits 1 if there are any; rebuild recomputes the totals and every
+ * entry's running balance in one write transaction and verifies again. The database is
+ * migrated first, which also copies any legacy fees / transactions / payments rows in.
+ *
+ * Usage: java -cp "lib/*:." tools.FeeLedgerTool [verify|rebuild] [path/to/erp.db]
+ */
+public class FeeLedgerTool {
+
+    public static void main(String[] args) throws Exception {
+        String command = args.length > 0 ? args[0] : "verify";
+        if (!"verify".equals(command) && !"rebuild".equals(command)) {
+            System.out.println("Usage: tools.FeeLedgerTool [verify|rebuild] [path/to/erp.db]");
+            System.exit(2);
+        }
+        ToolDatabase.use(args.length > 1 ? new File(args[1]) : null);
+
+        int exit = 0;
+        try {
+            if ("rebuild".equals(command)) {
+                long t0 = System.nanoTime();
+                int rows = DatabaseConfig.write(FeeLedger::rebuild);
+                System.out.printf("Rebuilt fee_balances: %d student(s) in %d ms%n", rows, (System.nanoTime() - t0) / 1_000_000);
+            }
+            List<String> problems;
+            try (Connection c = DatabaseConfig.getConnection()) {
+                problems = FeeLedger.verify(c);
+            }
+            for (String p : problems) System.out.println("  " + p);
+            System.out.printf("fee_balances: %d mismatch(es)%n", problems.size());
+            if (!problems.isEmpty()) exit = 1;
+        } finally {
+            ToolDatabase.release();
+        }
+        if (exit != 0) System.exit(exit);
+    }
+}
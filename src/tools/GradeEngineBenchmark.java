@@ -0,0 +1,215 @@
+package tools;
+
+import instructor.dao.AssessmentDAO;
+import instructor.dao.GradeDAO;
+import instructor.dao.GradingSchemeDAO;
+import instructor.dao.SectionGrades;
+import login.DatabaseConfig;
+import login.QueryScope;
+import login.SqlStats;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Section grade statistics: the class report as InstructorDashboard computed it before
+ * SectionGrades (AssessmentDAO.getStudentAverageForType per student per component, then again
+ * per component for the averages), against SectionGrades (one read of the section's
+ * assessments into arrays, one loop). Checks every final, the computed final of every
+ * student, the component averages and min/mean/max agree, and reports milliseconds and
+ * statements per report. Exit status is 1 on any difference.
+ *
+ * A plain main rather than a JMH harness: the tree has no build to hang JMH on. Timings are
+ * the mean of repeated runs after a warm-up.
+ *
+ * Runs against a scratch database in a temp directory; erp.db is never touched.
+ *
+ * Usage: java -cp "lib/*:." tools.GradeEngineBenchmark [students=300] [components=5]
+ */
+public class GradeEngineBenchmark {
+    private static final int SECTION = 1;
+    private static final double EPSILON = 1e-9;
+
+    public static void main(String[] args) throws Exception {
+        int students = args.length > 0 ? Integer.parseInt(args[0]) : 300;
+        int componentCount = args.length > 1 ? Integer.parseInt(args[1]) : 5;
+
+        ToolDatabase.scratch("erp-grades", "grades.db");
+        // A query per student per component is what the old path does; don't report it as N+1
+        QueryScope.setMode(QueryScope.Mode.OFF);
+
+        Map<String, Integer> scheme = new LinkedHashMap<>();
+        for (int j = 0; j < componentCount; j++) scheme.put("Component " + (j + 1), 100 / componentCount + (j == 0 ? 100 % componentCount : 0));
+        new GradingSchemeDAO().saveGradingScheme(SECTION, scheme);
+        seed(students, scheme);
+        scheme = new GradingSchemeDAO().loadGradingScheme(SECTION); // the map the dashboard gets
+
+        AssessmentDAO assessments = new AssessmentDAO();
+        GradeDAO grades = new GradeDAO();
+        Report old = perStudent(assessments, grades, scheme);
+        SectionGrades engine = assessments.getSectionGrades(SECTION, scheme);
+
+        int bad = 0;
+        if (old.finals.size() != engine.count()) {
+            System.out.println("  students with a final: old " + old.finals.size() + ", SectionGrades " + engine.count());
+            bad++;
+        }
+        for (Map.Entry<String, Double> e : old.finals.entrySet()) {
+            int i = engine.indexOf(e.getKey());
+            double f = i < 0 ? Double.NaN : engine.finalGrade(i);
+            if (!(Math.abs(f - e.getValue()) < EPSILON) && bad++ < 5) {
+                System.out.println("  FINAL " + e.getKey() + ": old " + e.getValue() + ", SectionGrades " + f);
+            }
+        }
+        // computeFinalGrade's value, for every student seen
+        for (int i = 0; i < engine.size(); i++) {
+            double f = 0;
+            for (Map.Entry<String, Integer> e : scheme.entrySet()) {
+                f += assessments.getStudentAverageForType(SECTION, engine.studentId(i), e.getKey()) * (e.getValue() / 100.0);
+            }
+            if (!(Math.abs(f - engine.computed(i)) < EPSILON) && bad++ < 10) {
+                System.out.println("  COMPUTED " + engine.studentId(i) + ": old " + f + ", SectionGrades " + engine.computed(i));
+            }
+        }
+        for (int j = 0; j < engine.components().size(); j++) {
+            double o = old.componentMeans.get(engine.components().get(j));
+            if (!(Math.abs(o - engine.componentMean(j)) < EPSILON)) {
+                System.out.println("  AVERAGE " + engine.components().get(j) + ": old " + o + ", SectionGrades " + engine.componentMean(j));
+                bad++;
+            }
+        }
+        if (!(Math.abs(old.mean - engine.meanFinal()) < EPSILON && Math.abs(old.min - engine.minFinal()) < EPSILON
+                && Math.abs(old.max - engine.maxFinal()) < EPSILON)) {
+            System.out.printf("  RANGE old %.4f/%.4f/%.4f, SectionGrades %.4f/%.4f/%.4f%n", old.min, old.mean, old.max,
+                    engine.minFinal(), engine.meanFinal(), engine.maxFinal());
+            bad++;
+        }
+        int banded = 0;
+        for (int n : engine.distribution()) banded += n;
+        if (banded != engine.count()) {
+            System.out.println("  distribution covers " + banded + " of " + engine.count() + " students");
+            bad++;
+        }
+
+        Map<String, Integer> s = scheme;
+        double[] perStudent = measure(3, () -> perStudent(assessments, grades, s));
+        double[] single = measure(50, () -> assessments.getSectionGrades(SECTION, s));
+        System.out.printf("%d students x %d components%n", students, componentCount);
+        System.out.printf("average per student per component %9.3f ms/report %8.1f statements/report%n", perStudent[0], perStudent[1]);
+        System.out.printf("SectionGrades                     %9.3f ms/report %8.1f statements/report (%.0fx)%n", single[0], single[1], perStudent[0] / single[0]);
+        StringBuilder dist = new StringBuilder();
+        int[] d = engine.distribution();
+        for (int b = 0; b < d.length; b++) dist.append(b == 0 ? "" : ", ").append(SectionGrades.BANDS[b]).append(' ').append(d[b]);
+        System.out.println("distribution: " + dist);
+
+        ToolDatabase.release();
+        if (bad > 0) {
+            System.out.println("FAILED: " + bad + " difference(s)");
+            System.exit(1);
+        }
+        System.out.println("OK: SectionGrades matches the per-student averages");
+    }
+
+    interface Run {
+        Object run() throws Exception;
+    }
+
+    /** Mean milliseconds and statements per run, after a warm-up. */
+    private static double[] measure(int rounds, Run run) throws Exception {
+        for (int i = 0; i < Math.max(2, rounds / 5); i++) run.run();
+        long calls0 = totalCalls();
+        long t0 = System.nanoTime();
+        for (int i = 0; i < rounds; i++) run.run();
+        long nanos = System.nanoTime() - t0;
+        return new double[]{nanos / 1e6 / rounds, (double) (totalCalls() - calls0) / rounds};
+    }
+
+    static final class Report {
+        final Map<String, Double> finals = new HashMap<>();
+        final Map<String, Double> componentMeans = new HashMap<>();
+        double mean, min, max;
+    }
+
+    /** generateStatisticsReportString's numbers, computed the way it did before SectionGrades. */
+    private static Report perStudent(AssessmentDAO assessments, GradeDAO grades, Map<String, Integer> scheme) {
+        Report r = new Report();
+        for (Map<String, Object> row : grades.getScoresForSection(SECTION)) {
+            double f = ((Number) row.getOrDefault("final", 0.0)).doubleValue();
+            if (f > 0) r.finals.put(String.valueOf(row.get("student_id")), f);
+        }
+        Set<String> students = new HashSet<>();
+        for (Map<String, Object> a : assessments.getAssessmentsForSection(SECTION)) students.add((String) a.get("student_id"));
+        for (String sid : students) {
+            if (r.finals.containsKey(sid)) continue;
+            double f = 0;
+            if (!scheme.isEmpty()) {
+                for (Map.Entry<String, Integer> e : scheme.entrySet()) {
+                    f += assessments.getStudentAverageForType(SECTION, sid, e.getKey()) * (e.getValue() / 100.0);
+                }
+                r.finals.put(sid, f);
+            }
+        }
+        double sum = 0;
+        r.min = Double.MAX_VALUE;
+        r.max = -Double.MAX_VALUE;
+        for (double v : r.finals.values()) { sum += v; r.min = Math.min(r.min, v); r.max = Math.max(r.max, v); }
+        r.mean = r.finals.isEmpty() ? 0 : sum / r.finals.size();
+        for (String comp : scheme.keySet()) {
+            double total = 0;
+            for (String sid : r.finals.keySet()) total += assessments.getStudentAverageForType(SECTION, sid, comp);
+            r.componentMeans.put(comp, r.finals.isEmpty() ? 0 : total / r.finals.size());
+        }
+        return r;
+    }
+
+    private static long totalCalls() {
+        long n = 0;
+        for (SqlStats.Snapshot s : SqlStats.snapshot()) n += s.calls;
+        return n;
+    }
+
+    /**
+     * A score for about half the components (the rest missing), a type outside the scheme,
+     * stored finals for some students, zero finals (ignored) for others, and a few students
+     * known only from grades.
+     */
+    private static void seed(int students, Map<String, Integer> scheme) throws SQLException {
+        List<String> components = List.copyOf(scheme.keySet());
+        DatabaseConfig.write(c -> {
+            try (PreparedStatement asm = c.prepareStatement("INSERT INTO assessments (section_id, student_id, assessment_type, score, recorded_at) VALUES (?, ?, ?, ?, ?)");
+                 PreparedStatement grd = c.prepareStatement("INSERT INTO grades (section_id, student_id, quiz, midterm, endsem, final) VALUES (?, ?, 0, 0, 0, ?)")) {
+                for (int i = 1; i <= students; i++) {
+                    String id = String.format("S%04d", i);
+                    for (int j = 0; j < components.size(); j++) {
+                        if ((i + j * 3) % 4 == 0) continue;
+                        asm.setInt(1, SECTION); asm.setString(2, id); asm.setString(3, components.get(j));
+                        asm.setDouble(4, 40 + (i * 17 + j * 31) % 61);
+                        asm.setString(5, "2025-10-01 10:00:00");
+                        asm.addBatch();
+                    }
+                    if (i % 4 == 0) {
+                        asm.setInt(1, SECTION); asm.setString(2, id); asm.setString(3, "Bonus"); asm.setDouble(4, 5); asm.setString(5, "2025-10-01 10:00:00");
+                        asm.addBatch();
+                    }
+                    if (i % 7 == 0 || i % 11 == 0) {
+                        grd.setInt(1, SECTION); grd.setString(2, id); grd.setDouble(3, i % 7 == 0 ? 40 + i % 60 : 0);
+                        grd.addBatch();
+                    }
+                }
+                for (int i = 1; i <= Math.max(1, students / 50); i++) {
+                    grd.setInt(1, SECTION); grd.setString(2, String.format("G%04d", i)); grd.setDouble(3, 55 + i);
+                    grd.addBatch();
+                }
+                asm.executeBatch();
+                grd.executeBatch();
+            }
+            return null;
+        });
+    }
+}
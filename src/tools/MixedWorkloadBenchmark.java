@@ -0,0 +1,178 @@
+package tools;
+
+import login.DatabaseConfig;
+import login.SqlStats;
+
+import java.io.File;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Compares mixed read/write throughput of the old access pattern (a fresh DriverManager
+ * connection per call, rollback journal, every thread writing on its own connection)
+ * against the pooled read-only connections + single WAL writer in DatabaseConfig.
+ *
+ * Runs against scratch databases in a temp directory; erp.db is never touched.
+ *
+ * Usage: java -cp "lib/*:." tools.MixedWorkloadBenchmark [threads=8] [seconds=5] [writePercent=20]
+ */
+public class MixedWorkloadBenchmark {
+    private static final int SECTIONS = 200;
+
+    public static void main(String[] args) throws Exception {
+        int threads = args.length > 0 ? Integer.parseInt(args[0]) : 8;
+        int seconds = args.length > 1 ? Integer.parseInt(args[1]) : 5;
+        int writePercent = args.length > 2 ? Integer.parseInt(args[2]) : 20;
+
+        File dir = ToolDatabase.scratchDirectory("erp-bench");
+        System.out.printf("Mixed workload: %d threads, %ds per run, %d%% writes%n", threads, seconds, writePercent);
+
+        File legacyDb = new File(dir, "legacy.db");
+        seed("jdbc:sqlite:" + legacyDb.getAbsolutePath());
+        Result legacy = run(threads, seconds, writePercent, new LegacyAccess("jdbc:sqlite:" + legacyDb.getAbsolutePath()));
+        legacy.print("per-call DriverManager  ");
+
+        File pooledDb = new File(dir, "pooled.db");
+        seed("jdbc:sqlite:" + pooledDb.getAbsolutePath());
+        ToolDatabase.point(pooledDb);
+        Result pooled = run(threads, seconds, writePercent, new PooledAccess());
+        pooled.print("pool + single WAL writer");
+        System.out.println("  " + DatabaseConfig.getWriter());
+        System.out.println("  " + DatabaseConfig.getPool());
+        System.out.print(SqlStats.dump(5));
+        ToolDatabase.release();
+
+        if (legacy.opsPerSecond() > 0) {
+            System.out.printf("Speed-up: %.2fx%n", pooled.opsPerSecond() / legacy.opsPerSecond());
+        }
+    }
+
+    interface Access {
+        int read(int sectionId) throws SQLException;
+        void write(int sectionId, String studentId, double score) throws SQLException;
+    }
+
+    static final String READ_SQL = "SELECT COUNT(*) FROM enrollments WHERE section_id = ?";
+    static final String WRITE_SQL = "INSERT INTO assessments (section_id, student_id, assessment_type, score) VALUES (?, ?, 'Quiz', ?) " +
+            "ON CONFLICT (section_id, student_id, assessment_type) DO UPDATE SET score = excluded.score";
+
+    static int read(Connection c, int sectionId) throws SQLException {
+        try (PreparedStatement p = c.prepareStatement(READ_SQL)) {
+            p.setInt(1, sectionId);
+            try (ResultSet rs = p.executeQuery()) { return rs.next() ? rs.getInt(1) : 0; }
+        }
+    }
+
+    static int write(Connection c, int sectionId, String studentId, double score) throws SQLException {
+        try (PreparedStatement p = c.prepareStatement(WRITE_SQL)) {
+            p.setInt(1, sectionId);
+            p.setString(2, studentId);
+            p.setDouble(3, score);
+            return p.executeUpdate();
+        }
+    }
+
+    static final class LegacyAccess implements Access {
+        private final String url;
+        LegacyAccess(String url) { this.url = url; }
+        public int read(int sectionId) throws SQLException {
+            try (Connection c = DriverManager.getConnection(url)) { return MixedWorkloadBenchmark.read(c, sectionId); }
+        }
+        public void write(int sectionId, String studentId, double score) throws SQLException {
+            try (Connection c = DriverManager.getConnection(url)) { MixedWorkloadBenchmark.write(c, sectionId, studentId, score); }
+        }
+    }
+
+    static final class PooledAccess implements Access {
+        public int read(int sectionId) throws SQLException {
+            try (Connection c = DatabaseConfig.getConnection()) { return MixedWorkloadBenchmark.read(c, sectionId); }
+        }
+        public void write(int sectionId, String studentId, double score) throws SQLException {
+            DatabaseConfig.write(c -> MixedWorkloadBenchmark.write(c, sectionId, studentId, score));
+        }
+    }
+
+    static final class Result {
+        final AtomicLong reads = new AtomicLong();
+        final AtomicLong writes = new AtomicLong();
+        final AtomicLong errors = new AtomicLong();
+        volatile String firstError;
+        long elapsedNanos;
+
+        double opsPerSecond() { return (reads.get() + writes.get()) / (elapsedNanos / 1e9); }
+
+        void print(String label) {
+            double secs = elapsedNanos / 1e9;
+            System.out.printf("%s: %,10.0f ops/s  (reads %,.0f/s, writes %,.0f/s, errors %d)%n",
+                    label, opsPerSecond(), reads.get() / secs, writes.get() / secs, errors.get());
+            if (firstError != null) System.out.println("  first error: " + firstError);
+        }
+    }
+
+    private static Result run(int threads, int seconds, int writePercent, Access access) throws InterruptedException {
+        Result r = new Result();
+        AtomicBoolean stop = new AtomicBoolean(false);
+        Thread[] workers = new Thread[threads];
+        for (int t = 0; t < threads; t++) {
+            final int id = t;
+            workers[t] = new Thread(() -> {
+                ThreadLocalRandom rnd = ThreadLocalRandom.current();
+                int n = 0;
+                while (!stop.get()) {
+                    int section = 1 + rnd.nextInt(SECTIONS);
+                    try {
+                        if (rnd.nextInt(100) < writePercent) {
+                            access.write(section, "S" + id + "_" + (n++ % 500), rnd.nextDouble(100));
+                            r.writes.incrementAndGet();
+                        } else {
+                            access.read(section);
+                            r.reads.incrementAndGet();
+                        }
+                    } catch (SQLException ex) {
+                        r.errors.incrementAndGet();
+                        if (r.firstError == null) r.firstError = ex.getMessage();
+                    }
+                }
+            }, "bench-" + t);
+        }
+        long start = System.nanoTime();
+        for (Thread w : workers) w.start();
+        Thread.sleep(seconds * 1000L);
+        stop.set(true);
+        for (Thread w : workers) w.join();
+        r.elapsedNanos = System.nanoTime() - start;
+        return r;
+    }
+
+    private static void seed(String url) throws SQLException {
+        try (Connection c = DriverManager.getConnection(url); Statement s = c.createStatement()) {
+            s.execute("CREATE TABLE sections (section_id INTEGER PRIMARY KEY, course_code TEXT, capacity INTEGER)");
+            s.execute("CREATE TABLE enrollments (enrollment_id INTEGER PRIMARY KEY AUTOINCREMENT, student_id TEXT, section_id INTEGER, status TEXT, UNIQUE(student_id, section_id))");
+            s.execute("CREATE TABLE assessments (section_id INTEGER, student_id TEXT, assessment_type TEXT, score REAL, PRIMARY KEY(section_id, student_id, assessment_type))");
+            c.setAutoCommit(false);
+            try (PreparedStatement sec = c.prepareStatement("INSERT INTO sections VALUES (?, ?, 60)");
+                 PreparedStatement enr = c.prepareStatement("INSERT INTO enrollments (student_id, section_id, status) VALUES (?, ?, 'ENROLLED')")) {
+                for (int i = 1; i <= SECTIONS; i++) {
+                    sec.setInt(1, i);
+                    sec.setString(2, "C" + i);
+                    sec.addBatch();
+                    for (int j = 0; j < 40; j++) {
+                        enr.setString(1, "S" + j);
+                        enr.setInt(2, i);
+                        enr.addBatch();
+                    }
+                }
+                sec.executeBatch();
+                enr.executeBatch();
+            }
+            c.commit();
+        }
+    }
+}
@@ -0,0 +1,115 @@
+package tools;
+
+import admin.dao.CourseDAO;
+import admin.dao.InstructorDAO;
+import login.DatabaseConfig;
+import login.QueryScope;
+import student.services.StudentService;
+
+import java.sql.PreparedStatement;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Runs the service calls behind the main screens against a seeded scratch database, each in
+ * its own {@link QueryScope}, and fails when any SQL template runs more than the N+1
+ * threshold times within one call. Exit status is 1 on any violation.
+ *
+ * The seed has more rows than the threshold (-Derp.db.nplus1.threshold, default 10) in every
+ * listed table, so a per-row query cannot hide behind a small data set.
+ *
+ * Usage: java -cp "lib/*:." tools.NPlusOneCheck
+ */
+public class NPlusOneCheck {
+    private static final int SECTIONS = 30;
+    private static final int STUDENTS = 40;
+    private static final int INSTRUCTORS = 20;
+
+    public static void main(String[] args) throws Exception {
+        ToolDatabase.scratch("erp-nplus1", "nplus1.db");
+        seed();
+
+        QueryScope.setMode(QueryScope.Mode.LOG);
+        QueryScope.clearRecentViolations();
+        List<String> checked = new ArrayList<>();
+
+        StudentService students = new StudentService(null);
+        run(checked, "StudentService.getCourseCatalogForStudent", () -> students.getCourseCatalogForStudent("S1"));
+        run(checked, "StudentService.getStudentGradeHistory", () -> students.getStudentGradeHistory("S1"));
+        run(checked, "StudentService.getCurrentCGPA", () -> students.getCurrentCGPA("S1"));
+
+        // Same reads the admin instructor list makes (AdminDashboard.instructorRows)
+        InstructorDAO instructors = new InstructorDAO();
+        run(checked, "AdminDashboard instructor list", () -> {
+            instructors.listAll();
+            instructors.getAssignedCoursesForAll();
+        });
+        // ... and the admin course list (AdminDashboard.reloadCourses)
+        CourseDAO courses = new CourseDAO();
+        run(checked, "AdminDashboard course list", () -> {
+            courses.listAllCourses();
+            instructors.getInstructorsByCourse();
+        });
+
+        List<QueryScope.Violation> violations = QueryScope.getRecentViolations();
+        System.out.printf("%d call(s) checked, threshold %d, %d violation(s)%n", checked.size(), QueryScope.getThreshold(), violations.size());
+        for (QueryScope.Violation v : violations) System.out.println("  " + v.describe());
+        ToolDatabase.release();
+        if (!violations.isEmpty()) System.exit(1);
+    }
+
+    private static void run(List<String> checked, String name, Runnable call) {
+        QueryScope scope = QueryScope.open(name);
+        try {
+            call.run();
+        } finally {
+            scope.close();
+        }
+        checked.add(name);
+    }
+
+    private static void seed() throws Exception {
+        DatabaseConfig.write(c -> {
+            try (PreparedStatement crs = c.prepareStatement("INSERT OR REPLACE INTO courses (id, name, code, course_code, credits, status) VALUES (?, ?, ?, ?, 4, 'Active')");
+                 PreparedStatement off = c.prepareStatement("INSERT OR IGNORE INTO offerings (course_code, branch, year) VALUES (?, 'CSE', 2)");
+                 PreparedStatement sec = c.prepareStatement("INSERT OR REPLACE INTO sections (section_id, course_code, title, instructor_id, term, year, day_time, room, capacity) VALUES (?, ?, ?, ?, 'Fall', 2025, 'Mon 10:00', 'R1', 60)");
+                 PreparedStatement ins = c.prepareStatement("INSERT OR REPLACE INTO instructors (id, name, email, department, status) VALUES (?, ?, ?, 'CSE', 'Active')");
+                 PreparedStatement stu = c.prepareStatement("INSERT OR REPLACE INTO students (id, name, email, section, status, branch, year_of_study) VALUES (?, ?, ?, 'A', 'Active', 'CSE', '2')");
+                 PreparedStatement enr = c.prepareStatement("INSERT OR IGNORE INTO enrollments (student_id, section_id, status) VALUES (?, ?, 'ENROLLED')");
+                 PreparedStatement asm = c.prepareStatement("INSERT INTO assessments (section_id, student_id, assessment_type, score) VALUES (?, ?, 'Quiz', 8)")) {
+                for (int i = 1; i <= INSTRUCTORS; i++) {
+                    ins.setString(1, "I" + i); ins.setString(2, "Instructor " + i); ins.setString(3, "i" + i + "@example.edu");
+                    ins.addBatch();
+                }
+                for (int i = 1; i <= SECTIONS; i++) {
+                    crs.setString(1, "C" + i); crs.setString(2, "Course " + i); crs.setString(3, "C" + i); crs.setString(4, "C" + i);
+                    crs.addBatch();
+                    off.setString(1, "C" + i);
+                    off.addBatch();
+                    sec.setInt(1, i); sec.setString(2, "C" + i); sec.setString(3, "Course " + i); sec.setString(4, "I" + (1 + i % INSTRUCTORS));
+                    sec.addBatch();
+                }
+                for (int i = 1; i <= STUDENTS; i++) {
+                    stu.setString(1, "S" + i); stu.setString(2, "Student " + i); stu.setString(3, "s" + i + "@example.edu");
+                    stu.addBatch();
+                }
+                // S1 takes every section, so per-section lookups for one student are exercised too
+                for (int s = 1; s <= SECTIONS; s++) {
+                    for (int i = 1; i <= STUDENTS; i += (s == 1 ? 1 : 7)) {
+                        enr.setString(1, "S" + i); enr.setInt(2, s); enr.addBatch();
+                    }
+                    enr.setString(1, "S1"); enr.setInt(2, s); enr.addBatch();
+                    asm.setInt(1, s); asm.setString(2, "S1"); asm.addBatch();
+                }
+                crs.executeBatch();
+                off.executeBatch();
+                ins.executeBatch();
+                sec.executeBatch();
+                stu.executeBatch();
+                enr.executeBatch();
+                asm.executeBatch();
+            }
+            return null;
+        });
+    }
+}
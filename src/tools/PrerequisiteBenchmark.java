@@ -0,0 +1,284 @@
+package tools;
+
+import admin.dao.CourseDAO;
+import admin.dao.PrerequisiteGraph;
+import domain.Course;
+import domain.UserSession;
+import instructor.dao.AssessmentDAO;
+import login.DatabaseConfig;
+import login.QueryScope;
+import student.services.StudentService;
+
+import java.sql.PreparedStatement;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * Prerequisite checks on a generated catalog: every course checked for every student, once by
+ * walking the prerequisite texts (what a check without admin.dao.PrerequisiteGraph has to do)
+ * and once with the graph's closure bitsets. Both must give the same answer everywhere.
+ *
+ * Prerequisite texts name a code outside the catalog now and then; those can never be passed
+ * and must be ignored, and listed by unknownPrerequisites().
+ *
+ * Then random prerequisite edits and deletions (remove()), applied to one graph and compared,
+ * closure by closure, with a graph rebuilt from scratch and with the text walk; edits and
+ * rebuilds are timed. Deleted courses come back in later edits, and must link up again with
+ * the courses naming them. Unknown codes in CourseDAO's own seed are listed.
+ *
+ * Last, end to end on a scratch database: a section whose course needs one the student hasn't
+ * passed is "Locked" in the catalog and refused by registerCourse, and registers once a
+ * passing score is recorded. A course needing only an unknown code is open, and deleting a
+ * prerequisite unlocks the courses that needed it. Exit status is 1 on any difference.
+ *
+ * Usage: java -cp "lib/*:." tools.PrerequisiteBenchmark [courses=2000] [students=500] [edits=500]
+ */
+public class PrerequisiteBenchmark {
+
+    public static void main(String[] args) throws Exception {
+        int courses = args.length > 0 ? Integer.parseInt(args[0]) : 2000;
+        int students = args.length > 1 ? Integer.parseInt(args[1]) : 500;
+        int edits = args.length > 2 ? Integer.parseInt(args[2]) : 500;
+        Random rnd = new Random(42);
+
+        String[] codes = new String[courses];
+        for (int i = 0; i < courses; i++) codes[i] = code(i);
+        Map<String, String> texts = new LinkedHashMap<>();
+        for (int i = 0; i < courses; i++) texts.put(code(i), prerequisites(rnd, i, courses));
+        PrerequisiteGraph graph = new PrerequisiteGraph();
+        graph.rebuild(catalog(texts));
+
+        List<List<String>> completed = new ArrayList<>();
+        for (int s = 0; s < students; s++) {
+            List<String> done = new ArrayList<>();
+            for (int k = 5 + rnd.nextInt(30); k > 0; k--) done.add(codes[rnd.nextInt(courses)]);
+            completed.add(done);
+        }
+
+        int bad = 0;
+        long walkNanos = 0, graphNanos = 0;
+        int eligibleCount = 0;
+        for (int round = 0; round < 3; round++) { // the first round warms up
+            long t0 = System.nanoTime();
+            boolean[][] walked = new boolean[students][courses];
+            for (int s = 0; s < students; s++) {
+                Set<String> satisfied = walk(texts, completed.get(s));
+                for (int i = 0; i < courses; i++) walked[s][i] = satisfied.containsAll(known(texts, texts.get(codes[i])));
+            }
+            long t1 = System.nanoTime();
+            boolean[][] bits = new boolean[students][courses];
+            for (int s = 0; s < students; s++) {
+                long[] satisfied = graph.satisfied(completed.get(s));
+                for (int i = 0; i < courses; i++) bits[s][i] = graph.eligible(satisfied, codes[i]);
+            }
+            long t2 = System.nanoTime();
+            if (round == 0) {
+                for (int s = 0; s < students; s++) {
+                    for (int i = 0; i < courses; i++) {
+                        if (bits[s][i]) eligibleCount++;
+                        if (walked[s][i] != bits[s][i] && bad++ < 5) {
+                            System.out.println("  MISMATCH student " + s + " " + code(i) + ": text walk " + walked[s][i] + ", graph " + bits[s][i]);
+                        }
+                    }
+                }
+            } else {
+                walkNanos += t1 - t0;
+                graphNanos += t2 - t1;
+            }
+        }
+        double checks = 2.0 * students * courses;
+        System.out.printf("%d courses, %d students: %.1f%% of checks eligible%n", courses, students, 100.0 * eligibleCount / (students * (double) courses));
+        System.out.printf("text walk     %8.1f ns/check%n", walkNanos / checks);
+        System.out.printf("closure bits  %8.1f ns/check (%.0fx)%n", graphNanos / checks, (double) walkNanos / graphNanos);
+
+        // Random edits: new prerequisites, cleared ones, deletions and brand-new or re-added courses
+        long updateNanos = 0;
+        for (int e = 0; e < edits; e++) {
+            int i = rnd.nextInt(courses + courses / 10);
+            if (rnd.nextInt(8) == 0) {
+                texts.remove(code(i));
+                long t0 = System.nanoTime();
+                graph.remove(code(i));
+                updateNanos += System.nanoTime() - t0;
+                continue;
+            }
+            String text = rnd.nextInt(10) == 0 ? "" : prerequisites(rnd, Math.min(i, courses), courses);
+            texts.put(code(i), text);
+            long t0 = System.nanoTime();
+            graph.update(code(i), text);
+            updateNanos += System.nanoTime() - t0;
+        }
+        PrerequisiteGraph rebuilt = new PrerequisiteGraph();
+        long rebuildNanos = Long.MAX_VALUE;
+        for (int r = 0; r < 5; r++) {
+            long t0 = System.nanoTime();
+            rebuilt.rebuild(catalog(texts));
+            rebuildNanos = Math.min(rebuildNanos, System.nanoTime() - t0);
+        }
+        for (String code : texts.keySet()) {
+            Set<String> incremental = graph.closure(code);
+            Set<String> full = rebuilt.closure(code);
+            Set<String> walked = walk(texts, List.of(code));
+            walked.remove(code);
+            if ((!incremental.equals(full) || !full.equals(walked)) && bad++ < 10) {
+                System.out.println("  CLOSURE " + code + ": update " + incremental.size() + ", rebuild " + full.size() + ", text walk " + walked.size());
+            }
+        }
+        Map<String, Set<String>> unknown = new TreeMap<>();
+        for (Map.Entry<String, String> e : texts.entrySet()) {
+            Set<String> missing = new HashSet<>(PrerequisiteGraph.parse(e.getValue()));
+            missing.removeAll(texts.keySet());
+            if (!missing.isEmpty()) unknown.put(e.getKey(), missing);
+        }
+        for (PrerequisiteGraph g : new PrerequisiteGraph[]{graph, rebuilt}) {
+            Map<String, Set<String>> reported = new TreeMap<>();
+            g.unknownPrerequisites().forEach((code, named) -> reported.put(code, new HashSet<>(named)));
+            if (!reported.equals(unknown)) {
+                System.out.println("  unknown prerequisites: " + (g == graph ? "updated" : "rebuilt") + " graph lists " + reported.size() + " courses, texts have " + unknown.size());
+                bad++;
+            }
+        }
+        System.out.printf("%d edits: %.1f us/update, full rebuild %.1f ms, %d course(s) naming unknown codes%n", edits, updateNanos / 1e3 / edits, rebuildNanos / 1e6, unknown.size());
+
+        Map<String, List<String>> seeded = new CourseDAO().prerequisites().unknownPrerequisites();
+        // Reported, not failed on: the graph ignores them and CourseDAO warns
+        if (!seeded.isEmpty()) System.out.println("  CourseDAO seed names unknown prerequisites (ignored): " + seeded);
+
+        bad += endToEnd();
+        ToolDatabase.release();
+        if (bad > 0) {
+            System.out.println("FAILED: " + bad + " difference(s)");
+            System.exit(1);
+        }
+        System.out.println("OK: closure bitsets agree with the text walk, updates with rebuilds, and registration follows them");
+    }
+
+    private static String code(int i) {
+        return String.format("PB%04d", i);
+    }
+
+    /** Up to three prerequisites from lower-numbered courses, now and then a later one (cycles) or an unknown code. */
+    private static String prerequisites(Random rnd, int i, int courses) {
+        int n = i == 0 ? 0 : rnd.nextInt(4);
+        List<String> out = new ArrayList<>();
+        for (int k = 0; k < n; k++) {
+            int r = rnd.nextInt(100);
+            if (r == 0) out.add("XX" + rnd.nextInt(50));
+            else if (r < 3) out.add(code(rnd.nextInt(courses)));
+            else out.add(code(rnd.nextInt(i)));
+        }
+        if (out.isEmpty()) return rnd.nextBoolean() ? "None" : "";
+        String[] separators = {", ", ",", "; ", " and ", " / ", " "};
+        return String.join(separators[rnd.nextInt(separators.length)], out);
+    }
+
+    private static List<CourseDAO.Course> catalog(Map<String, String> texts) {
+        List<CourseDAO.Course> out = new ArrayList<>();
+        for (Map.Entry<String, String> e : texts.entrySet()) out.add(new CourseDAO.Course(e.getKey(), e.getKey(), "OTHER", e.getValue()));
+        return out;
+    }
+
+    /** The given courses and everything they need, by parsing prerequisite texts recursively. */
+    private static Set<String> walk(Map<String, String> texts, List<String> from) {
+        Set<String> seen = new HashSet<>();
+        List<String> stack = new ArrayList<>(from);
+        while (!stack.isEmpty()) {
+            String code = stack.remove(stack.size() - 1);
+            if (!seen.add(code)) continue;
+            stack.addAll(known(texts, texts.get(code)));
+        }
+        return seen;
+    }
+
+    /** The codes in a prerequisite text that are catalog courses; the rest can't be passed and don't count. */
+    private static List<String> known(Map<String, String> texts, String text) {
+        List<String> out = new ArrayList<>(PrerequisiteGraph.parse(text));
+        out.removeIf(code -> !texts.containsKey(code));
+        return out;
+    }
+
+    /** A course needing another: locked and refused until the student passes the other. */
+    private static int endToEnd() throws Exception {
+        ToolDatabase.scratch("erp-prerequisites", "prerequisites.db");
+        QueryScope.setMode(QueryScope.Mode.OFF);
+        DatabaseConfig.write(c -> {
+            try (Statement s = c.createStatement()) {
+                s.execute("INSERT OR REPLACE INTO students (id, name, email, section, status, branch, year_of_study) VALUES ('S1', 'Student 1', 's1@example.edu', 'A', 'Active', 'CSE', '2')");
+                s.execute("INSERT OR REPLACE INTO students (id, name, email, section, status, branch, year_of_study) VALUES ('S2', 'Student 2', 's2@example.edu', 'A', 'Active', 'CSE', '2')");
+            }
+            try (PreparedStatement sec = c.prepareStatement("INSERT INTO sections (section_id, course_code, title, instructor_id, term, year, day_time, room, capacity) VALUES (?, ?, ?, 'I1', 'Fall', 2025, 'TBA', 'R1', 10)")) {
+                sec.setInt(1, 1); sec.setString(2, "PBE100"); sec.setString(3, "Basics"); sec.addBatch();
+                sec.setInt(1, 2); sec.setString(2, "PBE200"); sec.setString(3, "Follow-up"); sec.addBatch();
+                sec.setInt(1, 3); sec.setString(2, "PBE300"); sec.setString(3, "Needs a typo"); sec.addBatch();
+                sec.setInt(1, 4); sec.setString(2, "PBE400"); sec.setString(3, "Needs Basics too"); sec.addBatch();
+                sec.executeBatch();
+            }
+            return null;
+        });
+        CourseDAO dao = new CourseDAO();
+        dao.addCourse(new CourseDAO.Course("PBE100", "Basics", "OTHER", "None"));
+        dao.addCourse(new CourseDAO.Course("PBE200", "Follow-up", "OTHER", "PBE100"));
+        dao.addCourse(new CourseDAO.Course("PBE300", "Needs a typo", "OTHER", "PBE1000"));
+        dao.addCourse(new CourseDAO.Course("PBE400", "Needs Basics too", "OTHER", "PBE100"));
+
+        int bad = 0;
+        StudentService service = new StudentService(new UserSession(1, "S1", "Student"));
+        if (!"Open".equals(status(service, 3))) {
+            System.out.println("  a course needing only a code outside the catalog shows as " + status(service, 3));
+            bad++;
+        }
+        if (!"Locked".equals(status(service, 2))) {
+            System.out.println("  catalog shows section 2 as " + status(service, 2) + " before PBE100 is passed");
+            bad++;
+        }
+        String refused = service.registerCourse("S1", "2");
+        if (!refused.equals(StudentService.PREREQUISITES_PREFIX + "PBE100.")) {
+            System.out.println("  registration without PBE100 returned: " + refused);
+            bad++;
+        }
+        new AssessmentDAO().saveAssessment(1, "S1", "Endsem", 30);
+        if (!service.registerCourse("S1", "2").startsWith(StudentService.PREREQUISITES_PREFIX)) {
+            System.out.println("  a failing PBE100 total was taken as passed");
+            bad++;
+        }
+        new AssessmentDAO().saveAssessment(1, "S1", "Midterm", 25);
+        if (!"Open".equals(status(service, 2))) {
+            System.out.println("  catalog shows section 2 as " + status(service, 2) + " after PBE100 is passed");
+            bad++;
+        }
+        String result = service.registerCourse("S1", "2");
+        if (!"SUCCESS".equals(result)) {
+            System.out.println("  registration after passing PBE100 returned: " + result);
+            bad++;
+        }
+
+        StudentService other = new StudentService(new UserSession(2, "S2", "Student"));
+        if (!"Locked".equals(status(other, "S2", 4))) {
+            System.out.println("  catalog shows section 4 to S2 as " + status(other, "S2", 4) + " while PBE100 exists");
+            bad++;
+        }
+        dao.deleteCourse("PBE100");
+        if (!"Open".equals(status(other, "S2", 4))) {
+            System.out.println("  catalog shows section 4 to S2 as " + status(other, "S2", 4) + " after PBE100 was deleted");
+            bad++;
+        }
+        for (String code : new String[]{"PBE200", "PBE300", "PBE400"}) dao.deleteCourse(code);
+        return bad;
+    }
+
+    private static String status(StudentService service, int sectionId) {
+        return status(service, "S1", sectionId);
+    }
+
+    private static String status(StudentService service, String studentId, int sectionId) {
+        for (Course c : service.getCourseCatalogForStudent(studentId)) if (c.getSectionId().equals(String.valueOf(sectionId))) return c.getStatus();
+        return "missing";
+    }
+}
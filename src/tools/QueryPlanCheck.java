@@ -0,0 +1,162 @@
+package tools;
+
+import admin.AdminDashboard;
+import admin.dao.InstructorDAO;
+import auth.PersonResolver;
+import instructor.InstructorDashboard;
+import instructor.dao.AssessmentDAO;
+import instructor.dao.GradeDAO;
+import instructor.dao.GradingSchemeDAO;
+import instructor.dao.RosterScores;
+import instructor.dao.SectionDAO;
+import instructor.dao.SectionGrades;
+import login.DatabaseConfig;
+import login.SectionSlots;
+import login.StudentNotices;
+import student.services.StudentService;
+import student.services.StudentSummaries;
+import student.services.Waitlist;
+
+import java.io.File;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Query-plan regression check for the hot DAO / service / dashboard queries.
+ *
+ * Migrates a database (a scratch one by default, or the file given as argument), runs
+ * EXPLAIN QUERY PLAN on every query below and fails when a plan falls back to a full
+ * table SCAN. Queries that list a whole table on purpose are marked as such and only
+ * reported. A query that doesn't prepare (a table or column the schema lacks) fails too:
+ * it was never checked. Exit status is 1 on any regression, so it can gate a build.
+ *
+ * When adding a query on a hot path, add it here too.
+ *
+ * Usage: java -cp "lib/*:." tools.QueryPlanCheck [path/to/erp.db]
+ */
+public class QueryPlanCheck {
+
+    /**
+     * {label, sql, "full" if a full scan is intended}. Parameters are bound to dummy values. The
+     * SQL is the owning class's own constant, so the check follows any edit to it.
+     */
+    private static final String[][] QUERIES = {
+            // StudentService
+            {"PersonResolver.lookup", PersonResolver.MAPPED_SQL, ""},
+            {"StudentService.getCurrentCGPA", StudentService.CGPA_SQL, ""},
+            {"StudentService.catalog sections", StudentService.CATALOG_SECTIONS_SQL, "full"},
+            {"StudentService.catalog offered", StudentService.offeredSql(true), "full"},
+            {"StudentService.registerCourse reserve seat", StudentService.RESERVE_SEAT_SQL, ""},
+            {"StudentService.catalog timetable", StudentService.TIMETABLE_SQL, ""},
+            {"StudentService.completed courses", StudentService.COMPLETED_COURSES_SQL, ""},
+            {"StudentService.section course", StudentService.SECTION_COURSE_SQL, ""},
+            {"SectionSlots.sync stale sections", SectionSlots.STALE_SQL, ""},
+            {"StudentService.registerCourse reason", StudentService.RESERVE_SEAT_REASON_SQL, ""},
+            {"Waitlist.head", Waitlist.HEAD_SQL, ""},
+            {"Waitlist.freeSeats", Waitlist.FREE_SEATS_SQL, ""},
+            {"Waitlist.position", Waitlist.POSITION_SQL, ""},
+            {"StudentService.registeredCount", StudentService.REGISTERED_COUNT_SQL, ""},
+            {"StudentService.feeBalance", StudentService.FEE_BALANCE_SQL, ""},
+            {"StudentSummaries.load", StudentSummaries.SUMMARY_SQL, ""},
+            {"StudentService.getStudentGradeHistory", StudentService.GRADE_HISTORY_SQL, ""},
+            {"StudentNotices.takeUnseen", StudentNotices.UNSEEN_SQL, ""},
+            // DAOs
+            {"SectionDAO.listForInstructor", SectionDAO.INSTRUCTOR_SECTIONS_SQL, ""},
+            {"SectionDAO.isEnrollmentOpen", SectionDAO.ENROLLMENT_OPEN_SQL, ""},
+            {"AssessmentDAO.loadForSection", AssessmentDAO.SECTION_ASSESSMENTS_SQL, ""},
+            {"AssessmentDAO.average", AssessmentDAO.AVERAGE_SQL, ""},
+            {"GradeDAO.loadScores", GradeDAO.SECTION_SCORES_SQL, ""},
+            {"GradingSchemeDAO.load", GradingSchemeDAO.SCHEME_SQL, ""},
+            {"InstructorDAO.instructorsForCourse", InstructorDAO.COURSE_INSTRUCTORS_SQL, ""},
+            {"InstructorDAO.getInstructorsByCourse", InstructorDAO.ALL_COURSE_INSTRUCTORS_SQL, "full"},
+            {"InstructorDAO.listAll", InstructorDAO.LIST_ALL_SQL, "full"},
+            {"InstructorDAO.getAssignedCoursesForAll", InstructorDAO.ALL_ASSIGNMENTS_SQL, "full"},
+            {"InstructorDAO.getAssignedCoursesForAll sections", InstructorDAO.ALL_SECTION_COURSES_SQL, ""},
+            {"RosterScores.load", RosterScores.SQL, ""},
+            {"SectionGrades.load assessments", SectionGrades.ASSESSMENTS_SQL, ""},
+            {"SectionGrades.load stored finals", SectionGrades.STORED_SQL, ""},
+            // Dashboards
+            {"InstructorDashboard.getEnrolledCount", InstructorDashboard.ENROLLED_COUNT_SQL, ""},
+            {"AdminDashboard.instructorSectionCourses", AdminDashboard.INSTRUCTOR_SECTION_COURSES_SQL, ""},
+            {"AdminDashboard.sectionsForCourse", AdminDashboard.COURSE_SECTIONS_SQL, ""},
+            {"AdminDashboard.sectionInstructor", AdminDashboard.SECTION_INSTRUCTOR_SQL, ""},
+    };
+
+    public static void main(String[] args) throws Exception {
+        if (args.length > 0) ToolDatabase.use(new File(args[0]));
+        else ToolDatabase.scratch("erp-plan", "plan.db");
+        // EXPLAIN never starts a read transaction, so a pooled connection opened before the
+        // migrations would plan against its stale schema copy. Start from fresh connections.
+        ToolDatabase.release();
+
+        int failures = 0;
+        List<String> skipped = new ArrayList<>();
+        try (Connection c = DatabaseConfig.getConnection()) {
+            List<String> partial = partialIndexes(c);
+            for (String[] q : QUERIES) {
+                List<String> plan;
+                try {
+                    plan = explain(c, q[1]);
+                } catch (SQLException ex) {
+                    skipped.add(q[0] + ": " + ex.getMessage());
+                    continue;
+                }
+                List<String> derived = new ArrayList<>();
+                for (String line : plan) {
+                    String d = line.trim();
+                    if (d.startsWith("CO-ROUTINE ") || d.startsWith("MATERIALIZE ")) derived.add(d.substring(d.indexOf(' ') + 1));
+                }
+                List<String> scans = new ArrayList<>();
+                for (String line : plan) if (isTableScan(line, derived, partial)) scans.add(line);
+                boolean intended = "full".equals(q[2]);
+                String status = scans.isEmpty() ? "ok" : intended ? "full" : "SCAN";
+                if ("SCAN".equals(status)) failures++;
+                System.out.printf("%-5s %-45s %s%n", status, q[0], String.join(" | ", plan));
+            }
+        } finally {
+            ToolDatabase.release();
+        }
+        for (String s : skipped) System.out.println("FAIL  " + s);
+        System.out.printf("%d queries, %d full-scan regression(s), %d not prepared%n", QUERIES.length, failures, skipped.size());
+        if (failures > 0 || !skipped.isEmpty()) System.exit(1);
+    }
+
+    private static List<String> partialIndexes(Connection c) throws SQLException {
+        List<String> names = new ArrayList<>();
+        try (PreparedStatement p = c.prepareStatement("SELECT name FROM sqlite_master WHERE type = 'index' AND sql LIKE '% WHERE %'");
+             ResultSet rs = p.executeQuery()) {
+            while (rs.next()) names.add(rs.getString(1));
+        }
+        return names;
+    }
+
+    private static List<String> explain(Connection c, String sql) throws SQLException {
+        List<String> plan = new ArrayList<>();
+        try (PreparedStatement p = c.prepareStatement("EXPLAIN QUERY PLAN " + sql)) {
+            int params = p.getParameterMetaData().getParameterCount();
+            for (int i = 1; i <= params; i++) p.setString(i, "1");
+            try (ResultSet rs = p.executeQuery()) {
+                while (rs.next()) plan.add(rs.getString("detail"));
+            }
+        }
+        return plan;
+    }
+
+    /**
+     * Any SCAN of a table counts, including "SCAN t USING [COVERING] INDEX": walking a whole
+     * index is still linear in the table. Scans of subqueries, constant rows and derived
+     * tables (the CO-ROUTINE / MATERIALIZE names in the same plan) are fine, and so are scans
+     * of a partial index, which holds only the rows its WHERE selects.
+     */
+    private static boolean isTableScan(String detail, List<String> derived, List<String> partial) {
+        String d = detail.trim();
+        if (!d.startsWith("SCAN ")) return false;
+        if (derived.contains(d.substring(5).split(" ")[0])) return false;
+        for (String index : partial) if (d.endsWith(" INDEX " + index)) return false;
+        return !d.startsWith("SCAN SUBQUERY") && !d.startsWith("SCAN CONSTANT");
+    }
+}
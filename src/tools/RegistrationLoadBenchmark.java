@@ -0,0 +1,178 @@
+package tools;
+
+import login.DatabaseConfig;
+import student.services.RegistrationEngine;
+import student.services.SectionEnrollment;
+import student.services.StudentService;
+
+import java.io.File;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Arrays;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Enrollment-window load benchmark: many threads call StudentService.registerCourse at once,
+ * first with every registration going straight to the writer (conditional INSERT per call),
+ * then with all sections opened in the RegistrationEngine. Reports registrations/s, answer
+ * latency percentiles and the time until every accepted row is committed, then checks the
+ * database for overbooking and for rows missing compared to what was accepted.
+ *
+ * Runs against scratch databases in a temp directory; erp.db is never touched.
+ *
+ * Usage: java -cp "lib/*:." tools.RegistrationLoadBenchmark [threads=32] [requests=40000]
+ */
+public class RegistrationLoadBenchmark {
+    private static final int COURSES = 100;
+    private static final int SECTIONS_PER_COURSE = 2;
+    private static final int CAPACITY = 50;
+    private static final int STUDENTS = 20000;
+    private static final String[] DAYS = {"Mon", "Tue", "Wed", "Thu", "Fri", "Sat"};
+
+    public static void main(String[] args) throws Exception {
+        int threads = args.length > 0 ? Integer.parseInt(args[0]) : 32;
+        int requests = args.length > 1 ? Integer.parseInt(args[1]) : 40000;
+        File dir = ToolDatabase.scratchDirectory("erp-reg-load");
+        System.out.printf("Registration rush: %d threads, %d requests, %d sections x %d seats, %d students%n",
+                threads, requests, COURSES * SECTIONS_PER_COURSE, CAPACITY, STUDENTS);
+
+        prepare(new File(dir, "direct.db"));
+        Result direct = run(threads, requests);
+        direct.print("direct conditional INSERT");
+        int bad = verify(direct);
+        ToolDatabase.release();
+
+        prepare(new File(dir, "engine.db"));
+        RegistrationEngine engine = RegistrationEngine.get();
+        if (engine == null) {
+            System.out.println("RegistrationEngine is off (-Derp.reg.engine=off); skipping the engine run");
+        } else {
+            for (int id = 1; id <= COURSES * SECTIONS_PER_COURSE; id++) SectionEnrollment.setEnrollmentOpen(id, true);
+            Result viaEngine = run(threads, requests);
+            viaEngine.print("RegistrationEngine");
+            System.out.println("  " + engine);
+            bad += verify(viaEngine);
+            if (direct.registrationsPerSecond() > 0) {
+                System.out.printf("Speed-up (answered registrations/s): %.2fx%n", viaEngine.registrationsPerSecond() / direct.registrationsPerSecond());
+            }
+            RegistrationEngine.shutdown();
+        }
+        ToolDatabase.release();
+        if (bad > 0) {
+            System.out.println("FAILED: " + bad + " integrity problem(s)");
+            System.exit(1);
+        }
+    }
+
+    static final class Result {
+        final AtomicLong success = new AtomicLong(), full = new AtomicLong(), rejected = new AtomicLong(), busy = new AtomicLong();
+        long[] latencyNanos;
+        long answeredNanos;
+        long committedNanos;
+
+        double registrationsPerSecond() { return success.get() / (answeredNanos / 1e9); }
+
+        void print(String label) {
+            long total = success.get() + full.get() + rejected.get() + busy.get();
+            Arrays.sort(latencyNanos);
+            System.out.printf("%-26s %7.0f requests/s  %7.0f registrations/s  answer p50=%.2fms p99=%.2fms max=%.2fms  all committed after %.0f ms%n",
+                    label, total / (answeredNanos / 1e9), registrationsPerSecond(),
+                    pct(0.50), pct(0.99), latencyNanos[latencyNanos.length - 1] / 1e6, committedNanos / 1e6);
+            System.out.printf("%-26s %d registered, %d full, %d rejected, %d busy%n", "", success.get(), full.get(), rejected.get(), busy.get());
+        }
+
+        private double pct(double p) {
+            return latencyNanos[Math.min(latencyNanos.length - 1, (int) (p * latencyNanos.length))] / 1e6;
+        }
+    }
+
+    private static Result run(int threads, int requests) throws Exception {
+        StudentService service = new StudentService(null);
+        Result r = new Result();
+        r.latencyNanos = new long[requests];
+        AtomicInteger next = new AtomicInteger();
+        CountDownLatch start = new CountDownLatch(1);
+        Thread[] workers = new Thread[threads];
+        for (int t = 0; t < threads; t++) {
+            workers[t] = new Thread(() -> {
+                ThreadLocalRandom rnd = ThreadLocalRandom.current();
+                try {
+                    start.await();
+                } catch (InterruptedException ex) {
+                    return;
+                }
+                for (int i; (i = next.getAndIncrement()) < requests; ) {
+                    String student = "S" + (1 + rnd.nextInt(STUDENTS));
+                    String section = String.valueOf(1 + rnd.nextInt(COURSES * SECTIONS_PER_COURSE));
+                    long t0 = System.nanoTime();
+                    String res = service.registerCourse(student, section);
+                    r.latencyNanos[i] = System.nanoTime() - t0;
+                    if ("SUCCESS".equals(res)) r.success.incrementAndGet();
+                    else if ("Section full.".equals(res) || (res != null && res.startsWith(StudentService.WAITLISTED_PREFIX))) r.full.incrementAndGet();
+                    else if (res != null && (res.startsWith("Already registered") || res.startsWith(StudentService.SCHEDULE_CLASH_PREFIX))) r.rejected.incrementAndGet();
+                    else r.busy.incrementAndGet();
+                }
+            }, "reg-load-" + t);
+            workers[t].start();
+        }
+        long t0 = System.nanoTime();
+        start.countDown();
+        for (Thread w : workers) w.join();
+        r.answeredNanos = System.nanoTime() - t0;
+        RegistrationEngine engine = RegistrationEngine.get();
+        if (engine != null) engine.awaitFlushed(60_000);
+        r.committedNanos = System.nanoTime() - t0;
+        return r;
+    }
+
+    /** Overbooked sections, duplicate course registrations, and accepted rows missing from the database. */
+    private static int verify(Result r) throws SQLException {
+        try (Connection c = DatabaseConfig.getConnection(); Statement s = c.createStatement()) {
+            int overbooked, duplicates, rows;
+            try (ResultSet rs = s.executeQuery("SELECT COUNT(*) FROM (SELECT s.section_id FROM sections s JOIN enrollments e ON e.section_id = s.section_id GROUP BY s.section_id HAVING COUNT(*) > MAX(s.capacity))")) {
+                overbooked = rs.next() ? rs.getInt(1) : 0;
+            }
+            try (ResultSet rs = s.executeQuery("SELECT COUNT(*) FROM (SELECT e.student_id FROM enrollments e JOIN sections s ON e.section_id = s.section_id GROUP BY e.student_id, s.course_code HAVING COUNT(*) > 1)")) {
+                duplicates = rs.next() ? rs.getInt(1) : 0;
+            }
+            try (ResultSet rs = s.executeQuery("SELECT COUNT(*) FROM enrollments")) {
+                rows = rs.next() ? rs.getInt(1) : 0;
+            }
+            long missing = r.success.get() - rows;
+            System.out.printf("%-26s overbooked sections: %d, duplicate course registrations: %d, enrolled rows: %d (accepted %d)%n",
+                    "", overbooked, duplicates, rows, r.success.get());
+            return overbooked + duplicates + (missing != 0 ? 1 : 0);
+        }
+    }
+
+    private static void prepare(File db) throws Exception {
+        ToolDatabase.use(db);
+        DatabaseConfig.write(c -> {
+            try (PreparedStatement sec = c.prepareStatement("INSERT INTO sections (section_id, course_code, title, instructor_id, term, year, day_time, room, capacity) VALUES (?, ?, ?, 'I1', 'Fall', 2025, ?, 'R1', ?)");
+                 PreparedStatement stu = c.prepareStatement("INSERT OR REPLACE INTO students (id, name, email, section, status, branch, year_of_study) VALUES (?, ?, ?, 'A', 'Active', 'CSE', '2')")) {
+                int id = 1;
+                for (int course = 1; course <= COURSES; course++) {
+                    for (int k = 0; k < SECTIONS_PER_COURSE; k++, id++) {
+                        sec.setInt(1, id); sec.setString(2, "C" + course); sec.setString(3, "Course " + course + " " + (char) ('A' + k));
+                        // 78 one-hour slots a week for 200 sections: some registrations clash
+                        sec.setString(4, DAYS[(id - 1) % DAYS.length] + " " + (8 + (id - 1) / DAYS.length % 13) + ":00"); sec.setInt(5, CAPACITY);
+                        sec.addBatch();
+                    }
+                }
+                for (int i = 1; i <= STUDENTS; i++) {
+                    stu.setString(1, "S" + i); stu.setString(2, "Student " + i); stu.setString(3, "s" + i + "@example.edu");
+                    stu.addBatch();
+                }
+                sec.executeBatch();
+                stu.executeBatch();
+            }
+            return null;
+        });
+    }
+}
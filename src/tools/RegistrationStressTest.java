@@ -0,0 +1,262 @@
+package tools;
+
+import login.DatabaseConfig;
+import login.SectionStats;
+import student.services.RegistrationEngine;
+import student.services.SectionEnrollment;
+import student.services.StudentService;
+
+import java.io.File;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Concurrency stress test for seat reservation. Many threads register random students into
+ * a few small sections at once, then the database is checked for overbooked sections and
+ * students holding two sections of one course. Exit status is 1 if either shows up.
+ *
+ * Runs three times on scratch databases:
+ *  - StudentService.registerCourse through the shared writer (what the app does)
+ *  - the same conditional INSERT from one connection per thread, as separate app instances
+ *    on one database file would
+ *  - the old check-then-insert sequence from one connection per thread, for comparison only
+ *    (its overbooking is reported, not failed on)
+ *  - a section in the registration engine filled from another connection, so the engine's
+ *    answer is refused at write time and the student must be left a notice
+ *
+ * Usage: java -cp "lib/*:." tools.RegistrationStressTest [threads=16] [attemptsPerThread=200]
+ */
+public class RegistrationStressTest {
+    private static final int COURSES = 10;
+    private static final int SECTIONS_PER_COURSE = 2;
+    private static final int CAPACITY = 15;
+    private static final int STUDENTS = 300;
+
+    public static void main(String[] args) throws Exception {
+        int threads = args.length > 0 ? Integer.parseInt(args[0]) : 16;
+        int attempts = args.length > 1 ? Integer.parseInt(args[1]) : 200;
+        File dir = ToolDatabase.scratchDirectory("erp-reg-stress");
+        System.out.printf("Registration stress: %d threads x %d attempts, %d sections of capacity %d, %d students%n",
+                threads, attempts, COURSES * SECTIONS_PER_COURSE, CAPACITY, STUDENTS);
+
+        String url = prepare(new File(dir, "writer.db"));
+        StudentService service = new StudentService(null);
+        Result writer = run(threads, attempts, () -> (student, section) ->
+                service.registerCourse(student, String.valueOf(section)));
+        int bad = writer.print("registerCourse via writer", url);
+        ToolDatabase.release();
+
+        url = prepare(new File(dir, "connections.db"));
+        ToolDatabase.release();
+        String connUrl = url;
+        Result perConnection = run(threads, attempts, () -> {
+            Connection c = open(connUrl);
+            return (student, section) -> StudentService.registerCourse(c, student, section);
+        });
+        bad += perConnection.print("conditional INSERT per connection", url);
+
+        url = prepare(new File(dir, "legacy.db"));
+        ToolDatabase.release();
+        String legacyUrl = url;
+        Result legacy = run(threads, attempts, () -> {
+            Connection c = open(legacyUrl);
+            return (student, section) -> checkThenInsert(c, student, section);
+        });
+        int legacyBad = legacy.print("old check-then-insert (reference)", url);
+        if (legacyBad > 0) System.out.println("  (the old sequence overbooks under contention; expected)");
+
+        url = prepare(new File(dir, "refused.db"));
+        bad += refusedAfterAnswer(url);
+        ToolDatabase.release();
+
+        if (bad > 0) {
+            System.out.println("FAILED: " + bad + " integrity violation(s)");
+            System.exit(1);
+        }
+        System.out.println("OK: no overbooking, no duplicate course registrations");
+    }
+
+    /**
+     * A section owned by the registration engine is filled from another connection behind its
+     * back; the next student is answered before the write, the database refuses the row, and
+     * the student must get a notice saying so. Returns the number of problems.
+     */
+    private static int refusedAfterAnswer(String url) throws Exception {
+        StudentService service = new StudentService(null);
+        SectionEnrollment.setEnrollmentOpen(1, true);
+        RegistrationEngine engine = RegistrationEngine.get();
+        if (engine == null) {
+            System.out.println("refused after answer: skipped (erp.reg.engine=off)");
+            return 0;
+        }
+        // First registration loads the section into the engine
+        service.registerCourse("S1", "1");
+        engine.awaitFlushed(30_000);
+        try (Connection c = open(url); PreparedStatement p = c.prepareStatement("INSERT INTO enrollments (student_id, section_id, status) VALUES (?, 1, 'ENROLLED')")) {
+            for (int i = 2; i <= CAPACITY; i++) {
+                p.setString(1, "S" + i);
+                p.executeUpdate();
+            }
+        }
+        String answer = service.registerCourse("S" + STUDENTS, "1");
+        engine.awaitFlushed(30_000);
+        List<String> notices = service.takeNotices("S" + STUDENTS);
+        int problems = 0;
+        int[] v = verify(url);
+        if (v[0] > 0) problems++;
+        if ("SUCCESS".equals(answer) && notices.size() != 1) problems++;
+        System.out.printf("%-36s answered \"%s\", %d notice(s), %s%n", "refused after answer", answer, notices.size(), engine);
+        RegistrationEngine.shutdown();
+        return problems;
+    }
+
+    interface Register {
+        String register(String studentId, int sectionId) throws Exception;
+    }
+
+    interface RegisterFactory {
+        Register create() throws Exception;
+    }
+
+    static final class Result {
+        final AtomicLong success = new AtomicLong(), full = new AtomicLong(), rejected = new AtomicLong(), errors = new AtomicLong();
+        long nanos;
+
+        int print(String label, String url) throws SQLException {
+            long attempts = success.get() + full.get() + rejected.get() + errors.get();
+            double secs = nanos / 1e9;
+            int[] v = verify(url);
+            System.out.printf("%-36s %6d attempts  %5d registered  %5d full  %5d rejected  %4d errors  %8.0f attempts/s  %7.0f registrations/s%n",
+                    label, attempts, success.get(), full.get(), rejected.get(), errors.get(), attempts / secs, success.get() / secs);
+            System.out.printf("%-36s overbooked sections: %d, students with two sections of a course: %d, enrolled rows: %d, section_stats mismatches: %d%n",
+                    "", v[0], v[1], v[2], v[3]);
+            return v[0] + v[1] + v[3];
+        }
+    }
+
+    private static Result run(int threads, int attempts, RegisterFactory factory) throws Exception {
+        Result r = new Result();
+        CountDownLatch start = new CountDownLatch(1);
+        Thread[] workers = new Thread[threads];
+        for (int t = 0; t < threads; t++) {
+            Register reg = factory.create();
+            workers[t] = new Thread(() -> {
+                ThreadLocalRandom rnd = ThreadLocalRandom.current();
+                try {
+                    start.await();
+                } catch (InterruptedException ex) {
+                    return;
+                }
+                for (int i = 0; i < attempts; i++) {
+                    String student = "S" + (1 + rnd.nextInt(STUDENTS));
+                    int section = 1 + rnd.nextInt(COURSES * SECTIONS_PER_COURSE);
+                    try {
+                        String res = reg.register(student, section);
+                        if ("SUCCESS".equals(res)) r.success.incrementAndGet();
+                        else if ("Section full.".equals(res) || (res != null && res.startsWith(StudentService.WAITLISTED_PREFIX))) r.full.incrementAndGet();
+                        else r.rejected.incrementAndGet();
+                    } catch (Exception ex) {
+                        r.errors.incrementAndGet();
+                    }
+                }
+            }, "reg-stress-" + t);
+            workers[t].start();
+        }
+        long t0 = System.nanoTime();
+        start.countDown();
+        for (Thread w : workers) w.join();
+        r.nanos = System.nanoTime() - t0;
+        return r;
+    }
+
+    /** {overbooked sections, students in two sections of one course, enrolled rows, section_stats mismatches} */
+    private static int[] verify(String url) throws SQLException {
+        try (Connection c = DriverManager.getConnection(url); Statement s = c.createStatement()) {
+            int[] out = new int[4];
+            try (ResultSet rs = s.executeQuery("SELECT COUNT(*) FROM (SELECT s.section_id FROM sections s JOIN enrollments e ON e.section_id = s.section_id GROUP BY s.section_id HAVING COUNT(*) > MAX(s.capacity))")) {
+                out[0] = rs.next() ? rs.getInt(1) : 0;
+            }
+            try (ResultSet rs = s.executeQuery("SELECT COUNT(*) FROM (SELECT e.student_id FROM enrollments e JOIN sections s ON e.section_id = s.section_id GROUP BY e.student_id, s.course_code HAVING COUNT(*) > 1)")) {
+                out[1] = rs.next() ? rs.getInt(1) : 0;
+            }
+            try (ResultSet rs = s.executeQuery("SELECT COUNT(*) FROM enrollments")) {
+                out[2] = rs.next() ? rs.getInt(1) : 0;
+            }
+            out[3] = SectionStats.verify(c).size();
+            return out;
+        }
+    }
+
+    /** Fresh migrated database with the stress sections and students; returns its JDBC URL. */
+    private static String prepare(File db) throws Exception {
+        ToolDatabase.use(db);
+        DatabaseConfig.write(c -> {
+            try (PreparedStatement sec = c.prepareStatement("INSERT INTO sections (section_id, course_code, title, instructor_id, term, year, day_time, room, capacity) VALUES (?, ?, ?, 'I1', 'Fall', 2025, 'Mon 10:00', 'R1', ?)");
+                 PreparedStatement stu = c.prepareStatement("INSERT OR REPLACE INTO students (id, name, email, section, status, branch, year_of_study) VALUES (?, ?, ?, 'A', 'Active', 'CSE', '2')")) {
+                int id = 1;
+                for (int course = 1; course <= COURSES; course++) {
+                    for (int k = 0; k < SECTIONS_PER_COURSE; k++, id++) {
+                        sec.setInt(1, id); sec.setString(2, "C" + course); sec.setString(3, "Course " + course + " " + (char) ('A' + k)); sec.setInt(4, CAPACITY);
+                        sec.addBatch();
+                    }
+                }
+                for (int i = 1; i <= STUDENTS; i++) {
+                    stu.setString(1, "S" + i); stu.setString(2, "Student " + i); stu.setString(3, "s" + i + "@example.edu");
+                    stu.addBatch();
+                }
+                sec.executeBatch();
+                stu.executeBatch();
+            }
+            return null;
+        });
+        return DatabaseConfig.getDatabaseUrl();
+    }
+
+    private static Connection open(String url) throws SQLException {
+        Connection c = DriverManager.getConnection(url);
+        try (Statement s = c.createStatement()) {
+            s.execute("PRAGMA busy_timeout = 10000");
+        }
+        return c;
+    }
+
+    /** The pre-fix registerCourse: separate auto-commit reads, then the insert. */
+    private static String checkThenInsert(Connection c, String studentId, int sectionId) throws SQLException {
+        try (PreparedStatement p = c.prepareStatement("SELECT COUNT(*) FROM enrollments WHERE student_id = ? AND section_id = ?")) {
+            p.setString(1, studentId); p.setInt(2, sectionId);
+            try (ResultSet rs = p.executeQuery()) { if (rs.next() && rs.getInt(1) > 0) return "Already registered in this section."; }
+        }
+        String courseCode;
+        try (PreparedStatement p = c.prepareStatement("SELECT course_code FROM sections WHERE section_id = ?")) {
+            p.setInt(1, sectionId);
+            try (ResultSet rs = p.executeQuery()) { if (rs.next()) courseCode = rs.getString(1); else return "Section not found."; }
+        }
+        try (PreparedStatement p = c.prepareStatement("SELECT COUNT(*) FROM enrollments e JOIN sections s ON e.section_id = s.section_id WHERE e.student_id = ? AND s.course_code = ?")) {
+            p.setString(1, studentId); p.setString(2, courseCode);
+            try (ResultSet rs = p.executeQuery()) { if (rs.next() && rs.getInt(1) > 0) return "Already registered in another section of this course."; }
+        }
+        int capacity = 0;
+        try (PreparedStatement p = c.prepareStatement("SELECT capacity FROM sections WHERE section_id = ?")) {
+            p.setInt(1, sectionId);
+            try (ResultSet rs = p.executeQuery()) { if (rs.next()) capacity = rs.getInt(1); }
+        }
+        int enrolled = 0;
+        try (PreparedStatement p = c.prepareStatement("SELECT COUNT(*) FROM enrollments WHERE section_id = ?")) {
+            p.setInt(1, sectionId);
+            try (ResultSet rs = p.executeQuery()) { if (rs.next()) enrolled = rs.getInt(1); }
+        }
+        if (enrolled >= capacity) return "Section full.";
+        try (PreparedStatement ins = c.prepareStatement("INSERT INTO enrollments (student_id, section_id, status) VALUES (?, ?, 'ENROLLED')")) {
+            ins.setString(1, studentId); ins.setInt(2, sectionId); ins.executeUpdate();
+            return "SUCCESS";
+        }
+    }
+}
@@ -0,0 +1,206 @@
+package tools;
+
+import instructor.dao.RosterScores;
+import login.DatabaseConfig;
+import login.QueryScope;
+import login.SqlStats;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Instructor Scores panel load: the old roster query followed by one assessments query per
+ * student, against RosterScores (one query, pivoted in memory), for a section of 300
+ * students with 10 assessment types shown. Both build the panel's rows; they must be equal
+ * cell for cell. Reports milliseconds and statements per load. Exit status is 1 on any
+ * difference.
+ *
+ * The seed includes scores of a type the panel doesn't show (counted in the total), students
+ * with nothing recorded, one without a students row, and other sections' scores for the same
+ * students.
+ *
+ * Runs against a scratch database in a temp directory; erp.db is never touched.
+ *
+ * Usage: java -cp "lib/*:." tools.RosterScoresBenchmark [students=300] [types=10]
+ */
+public class RosterScoresBenchmark {
+    private static final int SECTION = 1;
+
+    public static void main(String[] args) throws Exception {
+        int students = args.length > 0 ? Integer.parseInt(args[0]) : 300;
+        int typeCount = args.length > 1 ? Integer.parseInt(args[1]) : 10;
+        List<String> types = new ArrayList<>();
+        for (int t = 0; t < typeCount; t++) types.add("Type " + (t + 1));
+
+        ToolDatabase.scratch("erp-roster", "roster.db");
+        // One query per student is what the old path does; don't report it as N+1
+        QueryScope.setMode(QueryScope.Mode.OFF);
+        seed(students, types);
+
+        int bad = 0;
+        List<Object[]> old;
+        List<Object[]> pivoted;
+        try (Connection c = DatabaseConfig.getConnection()) {
+            old = perStudent(c, types);
+            pivoted = pivoted(c, types);
+        }
+        if (old.size() != students) {
+            System.out.println("  old path loaded " + old.size() + " rows for " + students + " students");
+            bad++;
+        }
+        if (old.size() != pivoted.size()) {
+            System.out.println("  ROWS old " + old.size() + ", RosterScores " + pivoted.size());
+            bad++;
+        }
+        for (int r = 0; r < Math.min(old.size(), pivoted.size()); r++) {
+            if (!Arrays.equals(old.get(r), pivoted.get(r)) && bad++ < 5) {
+                System.out.println("  MISMATCH row " + r + ": old " + Arrays.toString(old.get(r)) + ", RosterScores " + Arrays.toString(pivoted.get(r)));
+            }
+        }
+
+        double[] perStudent = measure(c -> perStudent(c, types));
+        double[] single = measure(c -> pivoted(c, types));
+        System.out.printf("%d students x %d types%n", students, typeCount);
+        System.out.printf("query per student  %8.3f ms/load %7.1f statements/load%n", perStudent[0], perStudent[1]);
+        System.out.printf("RosterScores       %8.3f ms/load %7.1f statements/load (%.1fx)%n", single[0], single[1], perStudent[0] / single[0]);
+
+        ToolDatabase.release();
+        if (bad > 0) {
+            System.out.println("FAILED: " + bad + " difference(s)");
+            System.exit(1);
+        }
+        System.out.println("OK: RosterScores gives the same rows as the per-student queries");
+    }
+
+    interface Load {
+        List<Object[]> load(Connection c) throws SQLException;
+    }
+
+    /** Mean milliseconds and statements per load over a few rounds, after warming up. */
+    private static double[] measure(Load load) throws SQLException {
+        int rounds = 50;
+        try (Connection c = DatabaseConfig.getConnection()) {
+            for (int i = 0; i < 10; i++) load.load(c);
+            long calls0 = totalCalls();
+            long t0 = System.nanoTime();
+            for (int i = 0; i < rounds; i++) load.load(c);
+            long nanos = System.nanoTime() - t0;
+            return new double[]{nanos / 1e6 / rounds, (double) (totalCalls() - calls0) / rounds};
+        }
+    }
+
+    /** The Scores panel's rows as it built them before RosterScores. */
+    private static List<Object[]> perStudent(Connection c, List<String> types) throws SQLException {
+        List<Object[]> rows = new ArrayList<>();
+        String studentsSql = "SELECT DISTINCT e.student_id, s.name as student_name FROM enrollments e " +
+                "LEFT JOIN students s ON e.student_id = s.id WHERE e.section_id = ? ORDER BY s.name";
+        try (PreparedStatement ps = c.prepareStatement(studentsSql)) {
+            ps.setInt(1, SECTION);
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    String studentId = rs.getString("student_id");
+                    String studentName = rs.getString("student_name");
+                    if (studentName == null) studentName = "Unknown";
+                    Object[] row = new Object[types.size() + 4];
+                    row[0] = studentId;
+                    row[1] = studentName;
+                    row[2] = "course";
+                    double total = 0;
+                    try (PreparedStatement assessPs = c.prepareStatement("SELECT assessment_type, score FROM assessments WHERE section_id = ? AND student_id = ?")) {
+                        assessPs.setInt(1, SECTION);
+                        assessPs.setString(2, studentId);
+                        try (ResultSet assessRs = assessPs.executeQuery()) {
+                            Map<String, Double> scores = new HashMap<>();
+                            while (assessRs.next()) {
+                                double score = assessRs.getDouble("score");
+                                scores.put(assessRs.getString("assessment_type"), score);
+                                total += score;
+                            }
+                            for (int t = 0; t < types.size(); t++) {
+                                Double score = scores.get(types.get(t));
+                                row[t + 3] = score != null ? String.format("%.2f", score) : "";
+                            }
+                        }
+                    }
+                    row[row.length - 1] = String.format("%.2f", total);
+                    rows.add(row);
+                }
+            }
+        }
+        return rows;
+    }
+
+    /** The Scores panel's rows as it builds them now. */
+    private static List<Object[]> pivoted(Connection c, List<String> types) throws SQLException {
+        List<Object[]> rows = new ArrayList<>();
+        RosterScores roster = RosterScores.load(c, SECTION, types);
+        for (int r = 0; r < roster.size(); r++) {
+            Object[] row = new Object[types.size() + 4];
+            row[0] = roster.studentId(r);
+            row[1] = roster.name(r) == null ? "Unknown" : roster.name(r);
+            row[2] = "course";
+            for (int t = 0; t < types.size(); t++) {
+                double score = roster.score(t, r);
+                row[t + 3] = Double.isNaN(score) ? "" : String.format("%.2f", score);
+            }
+            row[row.length - 1] = String.format("%.2f", roster.total(r));
+            rows.add(row);
+        }
+        return rows;
+    }
+
+    private static long totalCalls() {
+        long n = 0;
+        for (SqlStats.Snapshot s : SqlStats.snapshot()) n += s.calls;
+        return n;
+    }
+
+    private static void seed(int students, List<String> types) throws SQLException {
+        DatabaseConfig.write(c -> {
+            try (PreparedStatement sec = c.prepareStatement("INSERT INTO sections (section_id, course_code, title, instructor_id, term, year, day_time, room, capacity) VALUES (?, ?, ?, 'I1', 'Fall', 2025, 'TBA', 'R1', 1000)");
+                 PreparedStatement stu = c.prepareStatement("INSERT OR REPLACE INTO students (id, name, email, section, status, branch, year_of_study) VALUES (?, ?, ?, 'A', 'Active', 'CSE', '2')");
+                 PreparedStatement enr = c.prepareStatement("INSERT OR IGNORE INTO enrollments (student_id, section_id, status) VALUES (?, ?, 'ENROLLED')");
+                 PreparedStatement asm = c.prepareStatement("INSERT INTO assessments (section_id, student_id, assessment_type, score, recorded_at) VALUES (?, ?, ?, ?, ?)")) {
+                for (int id = SECTION; id <= SECTION + 1; id++) {
+                    sec.setInt(1, id); sec.setString(2, "R" + id); sec.setString(3, "Roster " + id);
+                    sec.addBatch();
+                }
+                sec.executeBatch();
+                for (int i = 1; i <= students; i++) {
+                    String id = String.format("S%04d", i);
+                    // The last student has no students row: the panel shows "Unknown"
+                    if (i < students) {
+                        stu.setString(1, id); stu.setString(2, String.format("Student %04d", (i * 37) % students)); stu.setString(3, id + "@example.edu");
+                        stu.addBatch();
+                    }
+                    for (int section = SECTION; section <= SECTION + 1; section++) {
+                        enr.setString(1, id); enr.setInt(2, section);
+                        enr.addBatch();
+                        if (i % 10 == 0) continue; // nothing recorded yet
+                        for (int t = 0; t < types.size(); t++) {
+                            if ((i + t) % 7 == 0) continue; // this one not recorded
+                            add(asm, section, id, types.get(t), (i * 13 + t * 29 + section) % 100 / 4.0, "2025-10-01 10:00:00");
+                        }
+                        if (i % 5 == 0) add(asm, section, id, "Bonus", 2.5, "2025-10-01 10:00:00");
+                    }
+                }
+                stu.executeBatch();
+                enr.executeBatch();
+                asm.executeBatch();
+            }
+            return null;
+        });
+    }
+
+    private static void add(PreparedStatement asm, int section, String student, String type, double score, String at) throws SQLException {
+        asm.setInt(1, section); asm.setString(2, student); asm.setString(3, type); asm.setDouble(4, score); asm.setString(5, at);
+        asm.addBatch();
+    }
+}
@@ -0,0 +1,124 @@
+package tools;
+
+import admin.dao.InstructorDAO;
+import admin.dao.StudentDAO;
+import instructor.dao.AssessmentDAO;
+import instructor.dao.GradeDAO;
+import instructor.dao.GradingSchemeDAO;
+import instructor.dao.SectionDAO;
+import login.DBMigration;
+import login.DatabaseConfig;
+import login.SchemaRegistry;
+import student.services.StudentService;
+
+import java.io.File;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+/**
+ * Measures what constructing the DAOs costs with the one-time SchemaRegistry check versus
+ * the per-constructor CREATE TABLE / PRAGMA probing the DAOs used to do.
+ *
+ * One "round" constructs the DAO set a dashboard open touches: StudentDAO, InstructorDAO,
+ * SectionDAO, AssessmentDAO, GradeDAO, GradingSchemeDAO and a StudentService (which itself
+ * builds a StudentDAO and an InstructorDAO). Runs against a scratch database.
+ *
+ * Usage: java -cp "lib/*:." tools.SchemaStartupBenchmark [rounds=50]
+ */
+public class SchemaStartupBenchmark {
+
+    public static void main(String[] args) throws Exception {
+        int rounds = args.length > 0 ? Integer.parseInt(args[0]) : 50;
+        File dir = ToolDatabase.scratchDirectory("erp-schema-bench");
+        // Migrations are part of what's measured, so point at the file and time them here
+        ToolDatabase.point(new File(dir, "bench.db"));
+
+        long t0 = System.nanoTime();
+        DBMigration.ensureSchemaUpToDate();
+        long migrateMs = (System.nanoTime() - t0) / 1_000_000;
+
+        // Warm the pools and JIT so both measurements below see the same steady state
+        for (int i = 0; i < 5; i++) { legacyRound(); newRound(); }
+
+        t0 = System.nanoTime();
+        for (int i = 0; i < rounds; i++) legacyRound();
+        double legacyMs = (System.nanoTime() - t0) / 1e6 / rounds;
+
+        t0 = System.nanoTime();
+        for (int i = 0; i < rounds; i++) newRound();
+        double newMs = (System.nanoTime() - t0) / 1e6 / rounds;
+
+        System.out.printf("Startup migrations + first schema verification: %d ms (verification %d ms)%n",
+                migrateMs, SchemaRegistry.getVerifyMillis());
+        System.out.printf("Per-constructor schema probing:  %8.3f ms per round%n", legacyMs);
+        System.out.printf("SchemaRegistry (verified once):  %8.3f ms per round%n", newMs);
+        System.out.printf("Saved: %.3f ms per round (%d rounds => %.0f ms)%n", legacyMs - newMs, rounds, (legacyMs - newMs) * rounds);
+        ToolDatabase.release();
+    }
+
+    private static void newRound() {
+        new StudentDAO();
+        new InstructorDAO();
+        new SectionDAO();
+        new AssessmentDAO();
+        new GradeDAO();
+        new GradingSchemeDAO();
+        new StudentService(null);
+    }
+
+    /** Replays what the DAO constructors did before the registry, statement for statement. */
+    private static void legacyRound() throws SQLException {
+        studentDaoLegacy();
+        instructorDaoLegacy();
+        sectionDaoLegacy();
+        ddl("CREATE TABLE IF NOT EXISTS assessments (section_id INTEGER, student_id TEXT, assessment_type TEXT, score REAL, recorded_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP, PRIMARY KEY(section_id, student_id, assessment_type, recorded_at))");
+        ddl("CREATE TABLE IF NOT EXISTS grades (section_id INTEGER, student_id TEXT, quiz REAL, midterm REAL, endsem REAL, final REAL, PRIMARY KEY(section_id, student_id))");
+        ddl("CREATE TABLE IF NOT EXISTS grading_scheme (section_id INTEGER, component TEXT, percentage INTEGER, PRIMARY KEY(section_id, component))");
+        // StudentService: its own StudentDAO + InstructorDAO + enrollments DDL
+        studentDaoLegacy();
+        instructorDaoLegacy();
+        ddl("CREATE TABLE IF NOT EXISTS enrollments (enrollment_id INTEGER PRIMARY KEY AUTOINCREMENT, student_id TEXT, section_id INTEGER, status TEXT, UNIQUE(student_id, section_id))");
+    }
+
+    private static void studentDaoLegacy() throws SQLException {
+        ddl("CREATE TABLE IF NOT EXISTS students (id TEXT PRIMARY KEY, name TEXT NOT NULL, email TEXT, section TEXT, status TEXT, degree TEXT, branch TEXT, year_of_study TEXT, admission_year TEXT, created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP, updated_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP)");
+        DatabaseConfig.write(c -> {
+            try (Statement s = c.createStatement()) {
+                try (ResultSet rs = s.executeQuery("SELECT name FROM sqlite_master WHERE type='table' AND name='students'")) { rs.next(); }
+                try (ResultSet rs = s.executeQuery("PRAGMA table_info(students)")) { while (rs.next()) rs.getString("name"); }
+            }
+            return null;
+        });
+    }
+
+    private static void instructorDaoLegacy() throws SQLException {
+        ddl("CREATE TABLE IF NOT EXISTS instructors (id TEXT PRIMARY KEY, name TEXT NOT NULL, email TEXT, department TEXT, status TEXT, created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP, updated_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP)");
+        ddl("CREATE TABLE IF NOT EXISTS instructor_courses (instructor_id TEXT, course_code TEXT, assigned_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP, PRIMARY KEY(instructor_id, course_code))");
+        // seedDefaultInstructors() started with a full listAll()
+        try (Connection c = DatabaseConfig.getConnection();
+             PreparedStatement p = c.prepareStatement("SELECT id,name,email,department,status FROM instructors ORDER BY id");
+             ResultSet rs = p.executeQuery()) {
+            while (rs.next()) rs.getString(2);
+        }
+    }
+
+    private static void sectionDaoLegacy() throws SQLException {
+        ddl("CREATE TABLE IF NOT EXISTS sections (section_id INTEGER PRIMARY KEY, course_code TEXT, title TEXT, instructor_id TEXT, term TEXT, year INTEGER, day_time TEXT, room TEXT, capacity INTEGER, enrollment_open INTEGER DEFAULT 1)");
+        DatabaseConfig.write(c -> {
+            try (Statement s = c.createStatement(); ResultSet rs = s.executeQuery("PRAGMA table_info('sections')")) {
+                while (rs.next()) rs.getString("name");
+            }
+            return null;
+        });
+    }
+
+    private static void ddl(String sql) throws SQLException {
+        DatabaseConfig.write(c -> {
+            try (Statement s = c.createStatement()) { s.execute(sql); }
+            return null;
+        });
+    }
+}
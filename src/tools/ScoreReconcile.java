@@ -0,0 +1,53 @@
+package tools;
+
+import login.DatabaseConfig;
+import login.ScoreTotals;
+
+import java.io.File;
+import java.sql.Connection;
+import java.util.List;
+
+/**
+ * Reconciliation job for the score_totals aggregate behind CGPA and the grade history.
+ *
+ * check (default) recomputes every student's per-section totals from the raw assessments,
+ * lists each row that drifted by more than the tolerance (or is missing, stale, or counts a
+ * different number of assessments) and exits 1 if there are any; repair recomputes the whole
+ * table in one write transaction and checks again. The database is migrated first, so the
+ * table and triggers exist.
+ *
+ * Usage: java -cp "lib/*:." tools.ScoreReconcile [check|repair] [path/to/erp.db] [tolerance=1e-6]
+ */
+public class ScoreReconcile {
+
+    public static void main(String[] args) throws Exception {
+        String command = args.length > 0 ? args[0] : "check";
+        if (!"check".equals(command) && !"repair".equals(command)) {
+            System.out.println("Usage: tools.ScoreReconcile [check|repair] [path/to/erp.db] [tolerance]");
+            System.exit(2);
+        }
+        double tolerance = args.length > 2 ? Double.parseDouble(args[2]) : 1e-6;
+        ToolDatabase.use(args.length > 1 ? new File(args[1]) : null);
+
+        int exit = 0;
+        try {
+            if ("repair".equals(command)) {
+                long t0 = System.nanoTime();
+                int rows = DatabaseConfig.write(ScoreTotals::rebuild);
+                System.out.printf("Rebuilt score_totals: %d row(s) in %d ms%n", rows, (System.nanoTime() - t0) / 1_000_000);
+            }
+            List<String> problems;
+            long t0 = System.nanoTime();
+            try (Connection c = DatabaseConfig.getConnection()) {
+                problems = ScoreTotals.verify(c, tolerance);
+            }
+            for (String p : problems) System.out.println("  " + p);
+            System.out.printf("score_totals: %d row(s) drifted beyond %.1e (checked in %d ms)%n",
+                    problems.size(), tolerance, (System.nanoTime() - t0) / 1_000_000);
+            if (!problems.isEmpty()) exit = 1;
+        } finally {
+            ToolDatabase.release();
+        }
+        if (exit != 0) System.exit(exit);
+    }
+}
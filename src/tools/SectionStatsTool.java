@@ -0,0 +1,48 @@
+package tools;
+
+import login.DatabaseConfig;
+import login.SectionStats;
+
+import java.io.File;
+import java.sql.Connection;
+import java.util.List;
+
+/**
+ * Checks or repairs the section_stats counters against enrollments and sections.
+ *
+ * verify (default) lists every section whose counters differ from a recount and exits 1 if
+ * there are any; rebuild recounts the whole table in one write transaction and verifies
+ * again. The database is migrated first, so the table and triggers exist.
+ *
+ * Usage: java -cp "lib/*:." tools.SectionStatsTool [verify|rebuild] [path/to/erp.db]
+ */
+public class SectionStatsTool {
+
+    public static void main(String[] args) throws Exception {
+        String command = args.length > 0 ? args[0] : "verify";
+        if (!"verify".equals(command) && !"rebuild".equals(command)) {
+            System.out.println("Usage: tools.SectionStatsTool [verify|rebuild] [path/to/erp.db]");
+            System.exit(2);
+        }
+        ToolDatabase.use(args.length > 1 ? new File(args[1]) : null);
+
+        int exit = 0;
+        try {
+            if ("rebuild".equals(command)) {
+                long t0 = System.nanoTime();
+                int rows = DatabaseConfig.write(SectionStats::rebuild);
+                System.out.printf("Rebuilt section_stats: %d row(s) in %d ms%n", rows, (System.nanoTime() - t0) / 1_000_000);
+            }
+            List<String> problems;
+            try (Connection c = DatabaseConfig.getConnection()) {
+                problems = SectionStats.verify(c);
+            }
+            for (String p : problems) System.out.println("  " + p);
+            System.out.printf("section_stats: %d mismatch(es)%n", problems.size());
+            if (!problems.isEmpty()) exit = 1;
+        } finally {
+            ToolDatabase.release();
+        }
+        if (exit != 0) System.exit(exit);
+    }
+}
@@ -0,0 +1,297 @@
+package tools;
+
+import domain.Course;
+import domain.UserSession;
+import login.DatabaseConfig;
+import login.QueryScope;
+import login.SectionSlots;
+import student.services.RegistrationEngine;
+import student.services.StudentService;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Timetable clash checks: a full catalog against each student's timetable, once by parsing
+ * every sections.day_time text at check time and once with the slot masks stored next to it
+ * (login.SectionSlots), one AND per word. Both are compared with the truth computed from the
+ * generated meeting times, which are written out in a mix of formats ("Mon/Wed 10:00-11:30",
+ * "TTh 2:30 PM - 4:00 PM", "10:00-11:30 Mon Wed", ...).
+ *
+ * Then end to end: the stored masks must match their texts (SectionSlots.verify), the catalog
+ * must list exactly the clashing sections as "Clash", and registering for a clashing section
+ * must be refused both directly and through the registration engine. Exit status is 1 on any
+ * difference.
+ *
+ * Runs against a scratch database in a temp directory; erp.db is never touched.
+ *
+ * Usage: java -cp "lib/*:." tools.TimetableClashBenchmark [sections=5000] [students=200]
+ */
+public class TimetableClashBenchmark {
+    private static final String[] DAY = {"Mon", "Tue", "Wed", "Thu", "Fri", "Sat"};
+    private static final String[] DAY_FULL = {"Monday", "Tuesday", "Wednesday", "Thursday", "Friday", "Saturday"};
+    private static final String[] DAY_LETTER = {"M", "T", "W", "Th", "F", "Sa"};
+    private static final int COURSES_EACH = 5;
+
+    /** One generated meeting pattern: a set of days, each from start to end (minutes). */
+    static final class Meeting {
+        final int days;
+        final int start;
+        final int end;
+
+        Meeting(int days, int start, int end) {
+            this.days = days;
+            this.start = start;
+            this.end = end;
+        }
+
+        boolean overlaps(Meeting o) {
+            return (days & o.days) != 0 && start < o.end && o.start < end;
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        int sections = args.length > 0 ? Integer.parseInt(args[0]) : 5000;
+        int students = args.length > 1 ? Integer.parseInt(args[1]) : 200;
+        ToolDatabase.scratch("erp-timetable", "timetable.db");
+        QueryScope.setMode(QueryScope.Mode.OFF);
+
+        Random random = new Random(42);
+        Meeting[] meetings = new Meeting[sections + 1];
+        String[] texts = new String[sections + 1];
+        for (int id = 1; id <= sections; id++) {
+            meetings[id] = randomMeeting(random);
+            texts[id] = format(meetings[id], id % 5);
+        }
+        // Each student takes COURSES_EACH sections that don't overlap one another
+        List<List<Integer>> taken = new ArrayList<>();
+        for (int i = 0; i < students; i++) {
+            List<Integer> mine = new ArrayList<>();
+            while (mine.size() < COURSES_EACH) {
+                int id = 1 + random.nextInt(sections);
+                boolean free = !mine.contains(id);
+                for (int other : mine) free &= !meetings[other].overlaps(meetings[id]);
+                if (free) mine.add(id);
+            }
+            taken.add(mine);
+        }
+        seed(texts, taken);
+        // Rows written after the migration are parsed on the next registration; do it now
+        DatabaseConfig.write(c -> SectionSlots.sync(c));
+
+        int bad = 0;
+        List<String> problems;
+        try (Connection c = DatabaseConfig.getConnection()) {
+            problems = SectionSlots.verify(c);
+        }
+        for (String p : problems) if (bad++ < 5) System.out.println("  " + p);
+
+        // Truth, from the generated times
+        boolean[][] truth = new boolean[students][sections + 1];
+        for (int i = 0; i < students; i++) {
+            for (int id = 1; id <= sections; id++) {
+                for (int t : taken.get(i)) truth[i][id] |= t != id && meetings[t].overlaps(meetings[id]);
+            }
+        }
+
+        long[][] stored = storedMasks(sections);
+        int rounds = 5;
+        boolean[][] byParsing = new boolean[students][sections + 1];
+        boolean[][] byMasks = new boolean[students][sections + 1];
+        long parseNanos = Long.MAX_VALUE, maskNanos = Long.MAX_VALUE;
+        for (int r = 0; r < rounds; r++) {
+            long t0 = System.nanoTime();
+            for (int i = 0; i < students; i++) {
+                long[] booked = new long[SectionSlots.WORDS];
+                for (int t : taken.get(i)) SectionSlots.add(booked, SectionSlots.parse(texts[t]));
+                for (int id = 1; id <= sections; id++) {
+                    byParsing[i][id] = !taken.get(i).contains(id) && SectionSlots.clash(booked, SectionSlots.parse(texts[id]));
+                }
+            }
+            parseNanos = Math.min(parseNanos, System.nanoTime() - t0);
+            t0 = System.nanoTime();
+            for (int i = 0; i < students; i++) {
+                long[] booked = new long[SectionSlots.WORDS];
+                for (int t : taken.get(i)) SectionSlots.add(booked, stored[t]);
+                for (int id = 1; id <= sections; id++) {
+                    byMasks[i][id] = !taken.get(i).contains(id) && SectionSlots.clash(booked, stored[id]);
+                }
+            }
+            maskNanos = Math.min(maskNanos, System.nanoTime() - t0);
+        }
+        int clashes = 0;
+        for (int i = 0; i < students; i++) {
+            for (int id = 1; id <= sections; id++) {
+                if (truth[i][id]) clashes++;
+                if (byParsing[i][id] != truth[i][id] || byMasks[i][id] != truth[i][id]) {
+                    if (bad++ < 5) System.out.println("  MISMATCH student " + (i + 1) + " section " + id + " '" + texts[id]
+                            + "': truth " + truth[i][id] + ", parsing " + byParsing[i][id] + ", masks " + byMasks[i][id]);
+                }
+            }
+        }
+        long checks = (long) students * sections;
+        System.out.printf("%d students x %d sections, %d clashes%n", students, sections, clashes);
+        System.out.printf("parse day_time per check %8.1f ns/check%n", (double) parseNanos / checks);
+        System.out.printf("stored slot masks        %8.1f ns/check (%.0fx faster)%n", (double) maskNanos / checks, (double) parseNanos / maskNanos);
+
+        bad += checkCatalog(taken, truth, Math.min(students, 20));
+        bad += checkRegistration(taken, truth, sections);
+        RegistrationEngine.shutdown();
+        ToolDatabase.release();
+        if (bad > 0) {
+            System.out.println("FAILED: " + bad + " difference(s)");
+            System.exit(1);
+        }
+        System.out.println("OK: masks, catalog and registration agree with the generated timetables");
+    }
+
+    /** The catalog lists a section as "Clash" exactly when it overlaps the student's timetable. */
+    private static int checkCatalog(List<List<Integer>> taken, boolean[][] truth, int students) {
+        int bad = 0;
+        long nanos = 0;
+        for (int i = 0; i < students; i++) {
+            StudentService service = new StudentService(new UserSession(i + 1, id(i + 1), "Admin"));
+            long t0 = System.nanoTime();
+            List<Course> catalog = service.getCourseCatalogForStudent(id(i + 1));
+            nanos += System.nanoTime() - t0;
+            for (Course c : catalog) {
+                int section = Integer.parseInt(c.getSectionId());
+                if (section <= 0) continue;
+                boolean clash = "Clash".equals(c.getStatus());
+                if (clash != truth[i][section]) {
+                    if (bad++ < 5) System.out.println("  CATALOG student " + (i + 1) + " section " + section + ": " + c.getStatus()
+                            + ", expected clash=" + truth[i][section]);
+                }
+            }
+        }
+        System.out.printf("catalog load with clash marking %.2f ms/student%n", nanos / 1e6 / students);
+        return bad;
+    }
+
+    /** A clashing section is refused and a free one accepted, directly and through the engine. */
+    private static int checkRegistration(List<List<Integer>> taken, boolean[][] truth, int sections) {
+        int bad = 0;
+        RegistrationEngine engine = RegistrationEngine.get();
+        for (int i = 0; i < Math.min(taken.size(), 20); i++) {
+            StudentService service = new StudentService(new UserSession(i + 1, id(i + 1), "Admin"));
+            boolean viaEngine = i % 2 == 1;
+            int clashing = -1, free = -1;
+            for (int id = 1; id <= sections && (clashing < 0 || free < 0); id++) {
+                if (taken.get(i).contains(id)) continue;
+                if (truth[i][id] && clashing < 0) clashing = id;
+                if (!truth[i][id] && free < 0) free = id;
+            }
+            if (clashing < 0 || free < 0) continue;
+            String refused, accepted;
+            if (viaEngine && engine != null) {
+                engine.open(clashing);
+                engine.open(free);
+                refused = engine.submit(id(i + 1), clashing).join();
+                accepted = engine.submit(id(i + 1), free).join();
+            } else {
+                refused = service.registerCourse(id(i + 1), String.valueOf(clashing));
+                accepted = service.registerCourse(id(i + 1), String.valueOf(free));
+            }
+            if (!refused.startsWith(StudentService.SCHEDULE_CLASH_PREFIX)) {
+                if (bad++ < 5) System.out.println("  REGISTER " + (viaEngine ? "engine" : "direct") + " student " + (i + 1)
+                        + " section " + clashing + " (clashing): " + refused);
+            }
+            if (!"SUCCESS".equals(accepted)) {
+                if (bad++ < 5) System.out.println("  REGISTER " + (viaEngine ? "engine" : "direct") + " student " + (i + 1)
+                        + " section " + free + " (free): " + accepted);
+            }
+        }
+        if (engine != null && !engine.awaitFlushed(30_000)) bad++;
+        if (engine != null && engine.getConflicts() > 0) {
+            System.out.println("  engine reported " + engine.getConflicts() + " conflict(s)");
+            bad++;
+        }
+        return bad;
+    }
+
+    private static long[][] storedMasks(int sections) throws SQLException {
+        long[][] masks = new long[sections + 1][];
+        try (Connection c = DatabaseConfig.getConnection();
+             PreparedStatement p = c.prepareStatement("SELECT section_id, " + SectionSlots.COLUMNS + " FROM sections");
+             ResultSet rs = p.executeQuery()) {
+            while (rs.next()) masks[rs.getInt(1)] = SectionSlots.read(rs, 2);
+        }
+        return masks;
+    }
+
+    private static Meeting randomMeeting(Random random) {
+        int days = 0;
+        int n = 1 + random.nextInt(3);
+        while (Integer.bitCount(days) < n) days |= 1 << random.nextInt(DAY.length);
+        int start = 8 * 60 + 30 * random.nextInt(22); // 08:00 .. 18:30
+        int end = start + 30 * (2 + random.nextInt(5)); // 1 to 3 hours
+        return new Meeting(days, start, end);
+    }
+
+    /** The meeting written the way different people type a timetable. */
+    static String format(Meeting m, int style) {
+        List<Integer> days = new ArrayList<>();
+        for (int d = 0; d < DAY.length; d++) if ((m.days & (1 << d)) != 0) days.add(d);
+        StringBuilder names = new StringBuilder();
+        switch (style) {
+            case 0: // Mon/Wed 10:00-11:30
+                for (int d : days) names.append(names.length() == 0 ? "" : "/").append(DAY[d]);
+                return names + " " + hhmm(m.start) + "-" + hhmm(m.end);
+            case 1: // MW 2:30 PM - 4:00 PM
+                for (int d : days) names.append(DAY_LETTER[d]);
+                return names + " " + ampm(m.start) + " - " + ampm(m.end);
+            case 2: // Monday, Wednesday 10:00 to 11:30
+                for (int d : days) names.append(names.length() == 0 ? "" : ", ").append(DAY_FULL[d]);
+                return names + " " + hhmm(m.start) + " to " + hhmm(m.end);
+            case 3: // 10:00-11:30 Mon Wed
+                for (int d : days) names.append(' ').append(DAY[d]);
+                return hhmm(m.start) + "-" + hhmm(m.end) + names;
+            default: // Mon Wed 10:00 - 11:30, Room 12
+                for (int d : days) names.append(names.length() == 0 ? "" : " ").append(DAY[d]);
+                return names + " " + hhmm(m.start) + " - " + hhmm(m.end) + ", Room " + (1 + m.start % 40);
+        }
+    }
+
+    private static String hhmm(int minutes) {
+        return String.format("%02d:%02d", minutes / 60, minutes % 60);
+    }
+
+    private static String ampm(int minutes) {
+        int h = minutes / 60 % 12;
+        return String.format("%d:%02d %s", h == 0 ? 12 : h, minutes % 60, minutes < 12 * 60 ? "AM" : "PM");
+    }
+
+    private static String id(int i) {
+        return "S" + i;
+    }
+
+    private static void seed(String[] texts, List<List<Integer>> taken) throws SQLException {
+        DatabaseConfig.write(c -> {
+            try (PreparedStatement sec = c.prepareStatement("INSERT INTO sections (section_id, course_code, title, instructor_id, term, year, day_time, room, capacity) VALUES (?, ?, ?, 'I1', 'Fall', 2025, ?, 'R1', 1000)");
+                 PreparedStatement stu = c.prepareStatement("INSERT OR REPLACE INTO students (id, name, email, section, status, branch, year_of_study) VALUES (?, ?, ?, 'A', 'Active', 'CSE', '2')");
+                 PreparedStatement enr = c.prepareStatement("INSERT INTO enrollments (student_id, section_id, status) VALUES (?, ?, 'ENROLLED')")) {
+                for (int id = 1; id < texts.length; id++) {
+                    sec.setInt(1, id); sec.setString(2, "C" + id); sec.setString(3, "Course " + id); sec.setString(4, texts[id]);
+                    sec.addBatch();
+                }
+                sec.executeBatch();
+                for (int i = 0; i < taken.size(); i++) {
+                    stu.setString(1, id(i + 1)); stu.setString(2, "Student " + (i + 1)); stu.setString(3, id(i + 1) + "@example.edu");
+                    stu.addBatch();
+                    for (int section : taken.get(i)) {
+                        enr.setString(1, id(i + 1)); enr.setInt(2, section);
+                        enr.addBatch();
+                    }
+                }
+                stu.executeBatch();
+                enr.executeBatch();
+            }
+            return null;
+        });
+    }
+}
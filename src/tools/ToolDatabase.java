@@ -0,0 +1,50 @@
+package tools;
+
+import login.DBMigration;
+import login.DatabaseConfig;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+
+/**
+ * The database a tool works on. Benchmarks and checks get a scratch file in a new temp
+ * directory; the repair tools take the configured erp.db or a path on the command line.
+ * Either way the application is pointed at it (erp.db.path, fresh pool and writer) and every
+ * migration is applied, so a tool only adds its own seed data and measurement.
+ */
+final class ToolDatabase {
+
+    private ToolDatabase() {}
+
+    /** A new temp directory, for tools that keep several databases side by side. */
+    static File scratchDirectory(String prefix) throws IOException {
+        return Files.createTempDirectory(prefix).toFile();
+    }
+
+    /** A new, migrated database file in a new temp directory; returns the file. */
+    static File scratch(String prefix, String fileName) throws IOException {
+        return use(new File(scratchDirectory(prefix), fileName));
+    }
+
+    /**
+     * Make the file the application's database (created if missing) and bring it up to date;
+     * null keeps the configured one. Returns the file, or null.
+     */
+    static File use(File db) {
+        point(db);
+        DBMigration.ensureSchemaUpToDate();
+        return db;
+    }
+
+    /** Like {@link #use(File)} without migrating, for tools that build their own schema. */
+    static void point(File db) {
+        if (db != null) System.setProperty("erp.db.path", db.getAbsolutePath());
+        DatabaseConfig.resetCache();
+    }
+
+    /** Close the pool and the writer, e.g. before the next database or at exit. */
+    static void release() {
+        DatabaseConfig.resetCache();
+    }
+}
@@ -0,0 +1,208 @@
+package tools;
+
+import login.DatabaseConfig;
+import login.SectionStats;
+import student.services.RegistrationEngine;
+import student.services.SectionEnrollment;
+import student.services.StudentService;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Concurrency check for waitlist promotion. Every section is filled and given a waitlist,
+ * then many threads at once drop every original student, raise some capacities and send
+ * fresh registrations for the same sections. Afterwards each section must hold exactly the
+ * first waitlisted students in join order (nobody jumps the queue, no seat is left empty
+ * while someone waits), the rest must still be queued in order, and section_stats must
+ * match. Half of the sections are owned by the RegistrationEngine, half are not. Finally a
+ * head of queue who took another section of the course must be skipped with a notice. Exit
+ * status is 1 on any violation.
+ *
+ * Runs against a scratch database in a temp directory; erp.db is never touched.
+ *
+ * Usage: java -cp "lib/*:." tools.WaitlistStressTest [threads=16]
+ */
+public class WaitlistStressTest {
+    private static final int SECTIONS = 10;
+    private static final int CAPACITY = 10;
+    private static final int WAITING = 30;
+    private static final int RAISE = 5;
+    private static final int LATECOMERS = 5;
+
+    public static void main(String[] args) throws Exception {
+        int threads = args.length > 0 ? Integer.parseInt(args[0]) : 16;
+        ToolDatabase.scratch("erp-waitlist", "waitlist.db");
+        seed();
+
+        StudentService service = new StudentService(null);
+        boolean engine = RegistrationEngine.get() != null;
+        for (int id = 2; engine && id <= SECTIONS; id += 2) SectionEnrollment.setEnrollmentOpen(id, true);
+
+        // Fill each section, then queue WAITING more in a known order
+        List<List<String>> queued = new ArrayList<>();
+        int unexpected = 0;
+        for (int id = 1; id <= SECTIONS; id++) {
+            List<String> order = new ArrayList<>();
+            for (int k = 0; k < CAPACITY + WAITING; k++) {
+                String student = student(id, k);
+                String res = service.registerCourse(student, String.valueOf(id));
+                boolean expectSeat = k < CAPACITY;
+                if (expectSeat ? !"SUCCESS".equals(res) : !res.equals(StudentService.WAITLISTED_PREFIX + (k - CAPACITY + 1))) {
+                    System.out.println("  section " + id + ", " + student + ": unexpected answer '" + res + "'");
+                    unexpected++;
+                }
+                if (!expectSeat) order.add(student);
+            }
+            queued.add(order);
+        }
+
+        // Drops, capacity raises on odd sections and late registrations, all at once
+        ConcurrentLinkedQueue<Runnable> work = new ConcurrentLinkedQueue<>();
+        List<Runnable> tasks = new ArrayList<>();
+        AtomicInteger failedDrops = new AtomicInteger();
+        for (int id = 1; id <= SECTIONS; id++) {
+            int section = id;
+            for (int k = 0; k < CAPACITY; k++) {
+                String student = student(id, k);
+                tasks.add(() -> { if (!service.dropCourse(student, String.valueOf(section))) failedDrops.incrementAndGet(); });
+            }
+            if (id % 2 == 1) tasks.add(() -> SectionEnrollment.updateCapacity(section, CAPACITY + RAISE));
+            for (int k = 0; k < LATECOMERS; k++) {
+                String student = student(id, CAPACITY + WAITING + k);
+                tasks.add(() -> service.registerCourse(student, String.valueOf(section)));
+            }
+        }
+        Collections.shuffle(tasks);
+        work.addAll(tasks);
+        CountDownLatch start = new CountDownLatch(1);
+        Thread[] workers = new Thread[threads];
+        for (int t = 0; t < threads; t++) {
+            workers[t] = new Thread(() -> {
+                try {
+                    start.await();
+                } catch (InterruptedException ex) {
+                    return;
+                }
+                for (Runnable r; (r = work.poll()) != null; ) r.run();
+            }, "waitlist-stress-" + t);
+            workers[t].start();
+        }
+        long t0 = System.nanoTime();
+        start.countDown();
+        for (Thread w : workers) w.join();
+        RegistrationEngine e = RegistrationEngine.active();
+        if (e != null) e.awaitFlushed(30_000);
+        System.out.printf("%d sections x %d seats, %d waiting each: %d concurrent operations on %d threads in %.0f ms%n",
+                SECTIONS, CAPACITY, WAITING, tasks.size(), threads, (System.nanoTime() - t0) / 1e6);
+
+        int bad = unexpected + failedDrops.get();
+        if (failedDrops.get() > 0) System.out.println("  " + failedDrops.get() + " drop(s) failed");
+        try (Connection c = DatabaseConfig.getConnection()) {
+            for (int id = 1; id <= SECTIONS; id++) {
+                int seats = id % 2 == 1 ? CAPACITY + RAISE : CAPACITY;
+                List<String> order = queued.get(id - 1);
+                Set<String> expected = new HashSet<>(order.subList(0, seats));
+                Set<String> enrolled = new HashSet<>(strings(c, "SELECT student_id FROM enrollments WHERE section_id = ?", id));
+                List<String> waiting = strings(c, "SELECT student_id FROM waitlist WHERE section_id = ? ORDER BY waitlist_id", id);
+                List<String> expectedWaiting = order.subList(seats, order.size());
+                if (!enrolled.equals(expected)) {
+                    System.out.println("  section " + id + ": enrolled " + enrolled.size() + " students, not the first " + seats + " in the queue");
+                    bad++;
+                }
+                if (waiting.size() < expectedWaiting.size() || !waiting.subList(0, expectedWaiting.size()).equals(expectedWaiting)) {
+                    System.out.println("  section " + id + ": waitlist out of order");
+                    bad++;
+                }
+                if (waiting.size() != expectedWaiting.size() + LATECOMERS) {
+                    System.out.println("  section " + id + ": " + waiting.size() + " waiting, expected " + (expectedWaiting.size() + LATECOMERS));
+                    bad++;
+                }
+            }
+            List<String> problems = SectionStats.verify(c);
+            for (String p : problems) System.out.println("  " + p);
+            bad += problems.size();
+        }
+        bad += skippedHeadGetsNotice(service);
+        if (e != null) {
+            System.out.println("  " + e);
+            if (e.getConflicts() > 0) bad++;
+            RegistrationEngine.shutdown();
+        }
+        ToolDatabase.release();
+        if (bad > 0) {
+            System.out.println("FAILED: " + bad + " problem(s)");
+            System.exit(1);
+        }
+        System.out.println("OK: seats went to the waitlist in FIFO order, no queue jumping, counters consistent");
+    }
+
+    /**
+     * The head of section 1's queue takes the spare section of the same course meanwhile; the
+     * next freed seat must skip them with a notice and go to the student behind them.
+     */
+    private static int skippedHeadGetsNotice(StudentService service) throws SQLException {
+        List<String> waiting;
+        List<String> enrolled;
+        try (Connection c = DatabaseConfig.getConnection()) {
+            waiting = strings(c, "SELECT student_id FROM waitlist WHERE section_id = ? ORDER BY waitlist_id", 1);
+            enrolled = strings(c, "SELECT student_id FROM enrollments WHERE section_id = ?", 1);
+        }
+        String head = waiting.get(0), next = waiting.get(1);
+        String res = service.registerCourse(head, String.valueOf(SECTIONS + 1));
+        service.dropCourse(enrolled.get(0), "1");
+        List<String> notices = service.takeNotices(head);
+        boolean promotedNext;
+        try (Connection c = DatabaseConfig.getConnection()) {
+            promotedNext = strings(c, "SELECT student_id FROM enrollments WHERE section_id = ?", 1).contains(next);
+        }
+        System.out.printf("  skipped head: spare section '%s', %d notice(s), next in queue promoted: %s%n", res, notices.size(), promotedNext);
+        return "SUCCESS".equals(res) && notices.size() == 1 && promotedNext ? 0 : 1;
+    }
+
+    private static String student(int section, int k) {
+        return "S" + section + "_" + k;
+    }
+
+    private static List<String> strings(Connection c, String sql, int sectionId) throws SQLException {
+        List<String> out = new ArrayList<>();
+        try (PreparedStatement p = c.prepareStatement(sql)) {
+            p.setInt(1, sectionId);
+            try (ResultSet rs = p.executeQuery()) { while (rs.next()) out.add(rs.getString(1)); }
+        }
+        return out;
+    }
+
+    private static void seed() throws SQLException {
+        DatabaseConfig.write(c -> {
+            try (PreparedStatement sec = c.prepareStatement("INSERT INTO sections (section_id, course_code, title, instructor_id, term, year, day_time, room, capacity) VALUES (?, ?, ?, 'I1', 'Fall', 2025, 'Mon 10:00', 'R1', ?)");
+                 PreparedStatement stu = c.prepareStatement("INSERT OR REPLACE INTO students (id, name, email, section, status, branch, year_of_study) VALUES (?, ?, ?, 'A', 'Active', 'CSE', '2')")) {
+                for (int id = 1; id <= SECTIONS; id++) {
+                    sec.setInt(1, id); sec.setString(2, "C" + id); sec.setString(3, "Course " + id); sec.setInt(4, CAPACITY);
+                    sec.addBatch();
+                    for (int k = 0; k < CAPACITY + WAITING + LATECOMERS; k++) {
+                        String s = student(id, k);
+                        stu.setString(1, s); stu.setString(2, "Student " + s); stu.setString(3, s + "@example.edu");
+                        stu.addBatch();
+                    }
+                }
+                // A spare section of course C1, for the skipped-head check
+                sec.setInt(1, SECTIONS + 1); sec.setString(2, "C1"); sec.setString(3, "Course 1 spare"); sec.setInt(4, CAPACITY);
+                sec.addBatch();
+                sec.executeBatch();
+                stu.executeBatch();
+            }
+            return null;
+        });
+    }
+}